@@ -242,6 +242,22 @@ public interface ShopkeeperRegistry {
 	// a single shopkeeper at the same location.
 	public Collection<? extends Shopkeeper> getShopkeepersAtLocation(Location location);
 
+	/**
+	 * Gets all shopkeepers within the specified radius around the given location.
+	 * <p>
+	 * The distance is measured between the given location and the block coordinates of the
+	 * shopkeepers.
+	 * <p>
+	 * This does not take into account whether the chunks of the shopkeepers are currently loaded.
+	 * 
+	 * @param location
+	 *            the location, not <code>null</code>
+	 * @param radius
+	 *            the radius, not negative
+	 * @return the shopkeepers, not <code>null</code>, may be empty
+	 */
+	public Collection<? extends Shopkeeper> getShopkeepersInRadius(Location location, double radius);
+
 	// BY SHOP OBJECT
 
 	/**
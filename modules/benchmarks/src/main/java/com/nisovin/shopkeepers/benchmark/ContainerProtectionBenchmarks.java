@@ -0,0 +1,128 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.container.protection.ProtectedContainers;
+import com.nisovin.shopkeepers.shopkeeper.registry.TestShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+
+/**
+ * Benchmarks checking whether a container block is protected, e.g. when a player opens a container
+ * or when items are moved by hoppers.
+ * <p>
+ * Each of the minimal test shopkeepers uses a barrel as its container. The shopkeepers are placed
+ * in a grid with several shopkeepers per chunk. The checked blocks are located in the middle of the
+ * grid. The protection is checked without taking the container access of a player into account.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerProtectionBenchmarks extends AbstractBukkitTest {
+
+	private static final String WORLD_NAME = "world";
+	private static final int GRID_WIDTH = 500;
+	private static final int GRID_SPACING = 5; // In blocks
+
+	private static final World WORLD = Unsafe.cast(Proxy.newProxyInstance(
+			World.class.getClassLoader(),
+			new Class<?>[] { World.class },
+			(proxy, method, args) -> {
+				if (method.getName().equals("getName")) {
+					return WORLD_NAME;
+				}
+				throw new UnsupportedOperationException(String.valueOf(method));
+			}
+	));
+
+	// Only provides the block data that is accessed when checking the container protection:
+	private static Block createBarrel(int x, int y, int z) {
+		return Unsafe.cast(Proxy.newProxyInstance(
+				Block.class.getClassLoader(),
+				new Class<?>[] { Block.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getWorld":
+						return WORLD;
+					case "getX":
+						return x;
+					case "getY":
+						return y;
+					case "getZ":
+						return z;
+					case "getType":
+						return Material.BARREL;
+					default:
+						throw new UnsupportedOperationException(String.valueOf(method));
+					}
+				}
+		));
+	}
+
+	@Param({ "10000", "50000", "100000" })
+	private int containerCount;
+
+	// The plugin is only used when the protection listeners are registered.
+	private final ProtectedContainers protectedContainers = new ProtectedContainers(
+			Unsafe.uncheckedNull()
+	);
+
+	private Block protectedBlock = createBarrel(0, 0, 0);
+	private Block unprotectedBlock = createBarrel(0, 0, 0);
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int lookupIndex = containerCount / 2;
+		for (int i = 0; i < containerCount; i++) {
+			int x = (i % GRID_WIDTH) * GRID_SPACING;
+			int z = (i / GRID_WIDTH) * GRID_SPACING;
+			BlockLocation shopkeeperLocation = new BlockLocation(WORLD_NAME, x, 64, z);
+			TestShopkeeper shopkeeper = new TestShopkeeper(
+					"Shop " + i,
+					shopkeeperLocation,
+					new UUID(0L, i)
+			);
+			// The container is located below the shopkeeper:
+			protectedContainers.addContainer(new BlockLocation(WORLD_NAME, x, 63, z), shopkeeper);
+
+			if (i == lookupIndex) {
+				protectedBlock = createBarrel(x, 63, z);
+				// An unprotected container next to the protected container:
+				unprotectedBlock = createBarrel(x + 1, 63, z);
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean isContainerProtected() {
+		return protectedContainers.isContainerProtected(protectedBlock, null);
+	}
+
+	@Benchmark
+	public boolean isContainerProtectedUnprotected() {
+		return protectedContainers.isContainerProtected(unprotectedBlock, null);
+	}
+}
@@ -0,0 +1,96 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.v1_21_R4.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemData;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+
+/**
+ * Benchmarks searching and removing items in the contents of a shop container, e.g. when checking
+ * and applying the stock of player shops.
+ * <p>
+ * The contents correspond to a double chest full of tools, named and otherwise customized items.
+ * The searched item is located in the last slot.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmarks extends AbstractBukkitTest {
+
+	private static final int CONTAINER_SIZE = 54;
+
+	private static @Nullable ItemStack[] createContents(ItemStack requiredItem) {
+		@Nullable ItemStack[] contents = new @Nullable ItemStack[CONTAINER_SIZE];
+		for (int i = 0; i < contents.length - 1; i++) {
+			ItemStack itemStack;
+			switch (i % 3) {
+			case 0:
+				itemStack = TestItemStacks.createItemStackBasicTool();
+				break;
+			case 1:
+				itemStack = TestItemStacks.createItemStackDisplayName();
+				break;
+			default:
+				itemStack = TestItemStacks.createItemStackComplete();
+				String displayName = "{\"text\":\"Item " + i + "\"}";
+				ItemUtils.setDisplayNameAndLore(itemStack, displayName, null);
+				break;
+			}
+			contents[i] = CraftItemStack.asCraftCopy(itemStack);
+		}
+		contents[contents.length - 1] = CraftItemStack.asCraftCopy(requiredItem);
+		return contents;
+	}
+
+	private final ItemStack requiredItem = TestItemStacks.createItemStackComplete();
+	private final ItemData requiredItemData = new ItemData(requiredItem);
+	private final @Nullable ItemStack[] contents = createContents(requiredItem);
+
+	@Benchmark
+	public boolean containsAtLeastItemData() {
+		return InventoryUtils.containsAtLeast(contents, requiredItemData, 1);
+	}
+
+	@Benchmark
+	public boolean containsAtLeastItemStack() {
+		return InventoryUtils.containsAtLeast(contents, requiredItem, 1);
+	}
+
+	@Benchmark
+	public boolean containsAtLeastMissingAmount() {
+		return InventoryUtils.containsAtLeast(contents, requiredItemData, 2);
+	}
+
+	// Removing items replaces the affected item stacks inside the array, but does not modify the
+	// item stacks themselves. Copying the array is therefore sufficient to retain the original
+	// contents.
+	@Benchmark
+	public int removeItemsItemData() {
+		return InventoryUtils.removeItems(contents.clone(), requiredItemData, 1);
+	}
+
+	@Benchmark
+	public int removeItemsItemStack() {
+		return InventoryUtils.removeItems(contents.clone(), requiredItem);
+	}
+}
@@ -0,0 +1,64 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.v1_21_R4.inventory.CraftItemStack;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+import com.nisovin.shopkeepers.util.inventory.ItemData;
+
+/**
+ * Benchmarks the matching of items via {@link ItemData#matches(ItemStack)}, e.g. when checking
+ * the currency items of trades.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemDataBenchmarks extends AbstractBukkitTest {
+
+	private final ItemStack itemStack = TestItemStacks.createItemStackComplete();
+	private final ItemData itemData = new ItemData(itemStack);
+	private final ItemStack craftItemStack = CraftItemStack.asCraftCopy(itemStack);
+	private final ItemStack differentItemStack = CraftItemStack.asCraftCopy(
+			TestItemStacks.createItemStackDisplayName()
+	);
+	private final ItemData basicItemData = new ItemData(TestItemStacks.createItemStackBasic());
+	private final ItemStack basicItemStack = CraftItemStack.asCraftCopy(
+			TestItemStacks.createItemStackBasic()
+	);
+
+	@Benchmark
+	public boolean matchesItemStack() {
+		return itemData.matches(itemStack);
+	}
+
+	@Benchmark
+	public boolean matchesCraftItemStack() {
+		return itemData.matches(craftItemStack);
+	}
+
+	@Benchmark
+	public boolean matchesDifferentCraftItemStack() {
+		return itemData.matches(differentItemStack);
+	}
+
+	@Benchmark
+	public boolean matchesBasicCraftItemStack() {
+		return basicItemData.matches(basicItemStack);
+	}
+}
@@ -0,0 +1,107 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.offers.TradeOffer;
+import com.nisovin.shopkeepers.shopkeeper.offers.SKTradeOffer;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
+
+/**
+ * Benchmarks saving and loading the save data of a certain number of shopkeepers.
+ * <p>
+ * This uses the same Yaml based data store as the shopkeeper storage, and the same serialization
+ * of the offers as regular admin shopkeepers. Since the creation of actual shopkeepers requires a
+ * fully enabled plugin, the remaining shopkeeper data is represented by a few basic properties.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmarks extends AbstractBukkitTest {
+
+	// The data key of the offers of regular admin shopkeepers:
+	private static final String DATA_KEY_OFFERS = "recipes";
+	private static final int OFFERS_PER_SHOPKEEPER = 5;
+
+	private static List<? extends TradeOffer> createOffers() {
+		List<TradeOffer> offers = new ArrayList<>(OFFERS_PER_SHOPKEEPER);
+		for (int i = 0; i < OFFERS_PER_SHOPKEEPER; i++) {
+			ItemStack resultItem = TestItemStacks.createItemStackComplete();
+			resultItem.setAmount(i + 1);
+			offers.add(new SKTradeOffer(
+					resultItem,
+					TestItemStacks.createItemStackBasic(),
+					(i % 2 == 0) ? TestItemStacks.createItemStackDisplayName() : null
+			));
+		}
+		return offers;
+	}
+
+	@Param({ "100", "1000" })
+	private int shopkeeperCount;
+
+	private final BukkitConfigDataStore saveData = BukkitConfigDataStore.ofNewYamlConfig();
+	private String serializedSaveData = "";
+
+	@Setup(Level.Trial)
+	public void setup() {
+		List<? extends TradeOffer> offers = createOffers();
+		for (int id = 1; id <= shopkeeperCount; id++) {
+			DataContainer shopkeeperData = DataContainer.create();
+			shopkeeperData.set("uniqueId", UUID.randomUUID().toString());
+			shopkeeperData.set("type", "admin");
+			shopkeeperData.set("name", "Shop " + id);
+			shopkeeperData.set("world", "world");
+			shopkeeperData.set("x", id);
+			shopkeeperData.set("y", 64);
+			shopkeeperData.set("z", -id);
+			shopkeeperData.set(DATA_KEY_OFFERS, SKTradeOffer.LIST_SERIALIZER.serialize(offers));
+			saveData.set(String.valueOf(id), shopkeeperData.serialize());
+		}
+		serializedSaveData = saveData.saveToString();
+	}
+
+	@Benchmark
+	public String save() {
+		return saveData.saveToString();
+	}
+
+	@Benchmark
+	public int load() throws InvalidDataFormatException, InvalidDataException {
+		BukkitConfigDataStore loadedData = BukkitConfigDataStore.ofNewYamlConfig();
+		loadedData.loadFromString(serializedSaveData);
+		int offerCount = 0;
+		for (String key : loadedData.getKeys()) {
+			DataContainer shopkeeperData = Unsafe.assertNonNull(loadedData.getContainer(key));
+			Object offersData = Unsafe.assertNonNull(shopkeeperData.get(DATA_KEY_OFFERS));
+			offerCount += SKTradeOffer.LIST_SERIALIZER.deserialize(offersData).size();
+		}
+		return offerCount;
+	}
+}
@@ -0,0 +1,71 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.text.Text;
+
+/**
+ * Benchmarks the parsing of message {@link Text}s and the formatting of their placeholders, e.g.
+ * when sending trade notifications.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextBenchmarks extends AbstractBukkitTest {
+
+	// Similar to the default trade notification message:
+	private static final String MESSAGE = "&7Trade: &e{player}&7 [&6{item1Amount}x &a{item1}&7] "
+			+ "[&6{item2Amount}x &a{item2}&7] ➞ [&6{resultItemAmount}x &a{resultItem}&7] "
+			+ "{shop}{trade_count}";
+
+	private static Map<String, Object> createArguments() {
+		Map<String, Object> arguments = new HashMap<>();
+		arguments.put("player", "Notch");
+		arguments.put("item1Amount", 12);
+		arguments.put("item1", "Emerald");
+		arguments.put("item2Amount", 1);
+		arguments.put("item2", "Book");
+		arguments.put("resultItemAmount", 1);
+		arguments.put("resultItem", "Diamond Sword");
+		arguments.put("shop", Text.parse("&eAdmin Shop"));
+		arguments.put("trade_count", "");
+		return arguments;
+	}
+
+	private final Text message = Text.parse(MESSAGE);
+	private final Map<String, Object> arguments = createArguments();
+
+	@Benchmark
+	public Text parse() {
+		return Text.parse(MESSAGE);
+	}
+
+	@Benchmark
+	public String formatPlaceholders() {
+		return message.setPlaceholderArguments(arguments).toPlainText();
+	}
+
+	// Messages are usually copied before their placeholders are set, so that the arguments do not
+	// affect other users of the message.
+	@Benchmark
+	public String copyAndFormatPlaceholders() {
+		return message.copy().setPlaceholderArguments(arguments).toPlainText();
+	}
+}
@@ -0,0 +1,159 @@
+package com.nisovin.shopkeepers.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteConnectionManager;
+import com.nisovin.shopkeepers.util.csv.CsvFormatter;
+
+/**
+ * Benchmarks writing batches of trades to the CSV and SQLite trade logs.
+ * <p>
+ * The SQLite trade log writes each batch inside a single transaction of a persistent connection.
+ * The CSV trade log appends each batch to the log file of the current day.
+ */
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeLogBenchmarks extends AbstractBukkitTest {
+
+	private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS trade ("
+			+ "timestamp VARCHAR(30), player_uuid CHARACTER(36), player_name VARCHAR(16), "
+			+ "shop_uuid CHARACTER(36), result_item TEXT, item1 TEXT, item2 TEXT, amount INTEGER);";
+	private static final String INSERT_SQL = "INSERT INTO trade(timestamp, player_uuid, "
+			+ "player_name, shop_uuid, result_item, item1, item2, amount) "
+			+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String PLAYER_UUID = UUID.randomUUID().toString();
+	private static final String SHOP_UUID = UUID.randomUUID().toString();
+	private static final String RESULT_ITEM = "{type: DIAMOND_SWORD, meta: {display-name: "
+			+ "'{\"text\":\"Sword\"}'}}";
+	private static final String ITEM1 = "{type: EMERALD}";
+
+	@Param({ "1", "100" })
+	private int batchSize;
+
+	private @Nullable Path directory;
+	private @Nullable SQLiteConnectionManager connectionManager;
+	private @Nullable Path csvFile;
+	private final CsvFormatter csv = new CsvFormatter().escapeNewlines(false);
+	private long tradeCounter = 0L;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Path directory = Files.createTempDirectory("shopkeepers-trade-log-benchmark");
+		this.directory = directory;
+		connectionManager = new SQLiteConnectionManager(
+				directory.resolve("trades.db"),
+				connection -> {
+					try (Statement statement = connection.createStatement()) {
+						statement.execute(CREATE_TABLE_SQL);
+					}
+				}
+		);
+		csvFile = directory.resolve("trades.csv");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		if (connectionManager != null) {
+			connectionManager.close();
+			connectionManager = null;
+		}
+		if (directory != null) {
+			try (var paths = Files.walk(directory)) {
+				// Delete the contents before the directory:
+				Iterable<Path> sortedPaths = paths.sorted(Comparator.reverseOrder())::iterator;
+				for (Path path : sortedPaths) {
+					Files.delete(path);
+				}
+			}
+			directory = null;
+		}
+	}
+
+	@Benchmark
+	public long sqliteBatch() throws Exception {
+		SQLiteConnectionManager connectionManager = Unsafe.assertNonNull(this.connectionManager);
+		return connectionManager.write(sqliteConnection -> {
+			Connection connection = sqliteConnection.getConnection();
+			connection.setAutoCommit(false);
+			try {
+				PreparedStatement insert = sqliteConnection.prepareStatement(INSERT_SQL);
+				for (int i = 0; i < batchSize; i++) {
+					insert.setString(1, String.valueOf(tradeCounter++));
+					insert.setString(2, PLAYER_UUID);
+					insert.setString(3, "Notch");
+					insert.setString(4, SHOP_UUID);
+					insert.setString(5, RESULT_ITEM);
+					insert.setString(6, ITEM1);
+					insert.setNull(7, Types.VARCHAR);
+					insert.setInt(8, 1);
+					insert.executeUpdate();
+				}
+				connection.commit();
+			} finally {
+				connection.setAutoCommit(true);
+			}
+			return tradeCounter;
+		});
+	}
+
+	@Benchmark
+	public long csvBatch() throws IOException {
+		Path csvFile = Unsafe.assertNonNull(this.csvFile);
+		try (Writer writer = Files.newBufferedWriter(
+				csvFile,
+				StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND
+		)) {
+			for (int i = 0; i < batchSize; i++) {
+				writer.write(csv.formatRecord(new @Nullable Object[] {
+						tradeCounter++,
+						PLAYER_UUID,
+						"Notch",
+						SHOP_UUID,
+						RESULT_ITEM,
+						ITEM1,
+						null,
+						1
+				}));
+			}
+		}
+		return tradeCounter;
+	}
+}
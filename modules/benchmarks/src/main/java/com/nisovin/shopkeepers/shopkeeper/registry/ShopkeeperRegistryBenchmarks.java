@@ -0,0 +1,135 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+
+/**
+ * Benchmarks the lookups of shopkeepers by name, owner, chunk, and block.
+ * <p>
+ * Since the shopkeeper registry requires a fully enabled plugin, this sets up the same indices
+ * that the registry uses for these lookups, and fills them with minimal test shopkeepers. The
+ * shopkeepers are placed in a grid with several shopkeepers per chunk, and each owner owns
+ * {@link #SHOPKEEPERS_PER_OWNER} shopkeepers. The looked up shopkeeper is located in the middle
+ * of the grid.
+ */
+// This is located in the package of the registry in order to access its package-private indices.
+// Extending AbstractBukkitTest sets up the server and plugin mocks.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopkeeperRegistryBenchmarks extends AbstractBukkitTest {
+
+	private static final String WORLD_NAME = "world";
+	private static final int GRID_WIDTH = 500;
+	private static final int GRID_SPACING = 5; // In blocks
+	private static final int SHOPKEEPERS_PER_OWNER = 10;
+
+	@Param({ "10000", "50000", "100000" })
+	private int shopkeeperCount;
+
+	private final ShopkeeperNameIndex nameIndex = new ShopkeeperNameIndex();
+	private final PlayerShopOwnerIndex ownerIndex = new PlayerShopOwnerIndex();
+	private final ShopkeeperChunkMap chunkMap = new ShopkeeperChunkMap();
+	private final ShopkeeperBlockIndex blockIndex = new ShopkeeperBlockIndex();
+
+	private String normalizedName = "";
+	private String normalizedNamePrefix = "";
+	private UUID ownerUUID = new UUID(0L, 0L);
+	private @Nullable ChunkCoords chunkCoords = null;
+	private BlockLocation blockLocation = new BlockLocation();
+
+	@Setup(Level.Trial)
+	public void setup() {
+		int lookupIndex = shopkeeperCount / 2;
+		for (int i = 0; i < shopkeeperCount; i++) {
+			String name = "Shop " + i;
+			BlockLocation location = new BlockLocation(
+					WORLD_NAME,
+					(i % GRID_WIDTH) * GRID_SPACING,
+					64,
+					(i / GRID_WIDTH) * GRID_SPACING
+			);
+			UUID owner = new UUID(0L, i / SHOPKEEPERS_PER_OWNER);
+			TestShopkeeper shopkeeper = new TestShopkeeper(name, location, owner);
+
+			nameIndex.addShopkeeper(shopkeeper);
+			ownerIndex.addShopkeeper(shopkeeper);
+			chunkMap.addShopkeeper(shopkeeper);
+			blockIndex.addShopkeeper(shopkeeper);
+
+			if (i == lookupIndex) {
+				normalizedName = ShopkeeperNameIndex.normalize(name);
+				// Matches the names of 11 shopkeepers, e.g. "shop 2500" and "shop 25000" to
+				// "shop 25009":
+				normalizedNamePrefix = ShopkeeperNameIndex.normalize(
+						name.substring(0, name.length() - 1)
+				);
+				ownerUUID = owner;
+				chunkCoords = location.getChunkCoords();
+				blockLocation = location;
+			}
+		}
+	}
+
+	@Benchmark
+	public @Nullable AbstractShopkeeper getShopkeeperByName() {
+		return nameIndex.getShopkeepersByName(normalizedName).findFirst().orElse(null);
+	}
+
+	@Benchmark
+	public long getShopkeepersByNamePrefix() {
+		return nameIndex.getShopkeepersByNamePrefix(normalizedNamePrefix).count();
+	}
+
+	@Benchmark
+	public int getShopkeepersByOwner() {
+		return ownerIndex.getShopkeepers(ownerUUID).size();
+	}
+
+	@Benchmark
+	public int getShopkeepersCountByOwner() {
+		return ownerIndex.getShopkeepersCount(ownerUUID);
+	}
+
+	@Benchmark
+	public Collection<? extends AbstractShopkeeper> getShopkeepersInChunk() {
+		ChunkShopkeepers chunkShopkeepers = chunkMap.getChunkShopkeepers(chunkCoords);
+		if (chunkShopkeepers == null) return Collections.emptyList();
+		return chunkShopkeepers.getShopkeepers();
+	}
+
+	@Benchmark
+	public List<? extends AbstractShopkeeper> getShopkeepersAtBlock() {
+		return blockIndex.getShopkeepersAtBlock(
+				WORLD_NAME,
+				blockLocation.getX(),
+				blockLocation.getY(),
+				blockLocation.getZ()
+		);
+	}
+}
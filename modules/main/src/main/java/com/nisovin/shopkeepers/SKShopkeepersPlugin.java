@@ -66,6 +66,7 @@ import com.nisovin.shopkeepers.spigot.SpigotFeatures;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
 import com.nisovin.shopkeepers.tradelog.TradeLoggers;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryProvider;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsProvider;
 import com.nisovin.shopkeepers.tradenotifications.TradeNotifications;
 import com.nisovin.shopkeepers.trading.commandtrading.CommandTrading;
 import com.nisovin.shopkeepers.ui.SKDefaultUITypes;
@@ -817,9 +818,21 @@ public class SKShopkeepersPlugin extends JavaPlugin implements InternalShopkeepe
 		return tradeNotifications;
 	}
 
+	// TRADE LOGGING
+
+	public TradeLoggers getTradeLoggers() {
+		return tradeLoggers;
+	}
+
 	// TRADING HISTORY
 
 	public @Nullable TradingHistoryProvider getTradingHistoryProvider() {
 		return tradeLoggers.getTradingHistoryProvider();
 	}
+
+	// TRADE STATISTICS
+
+	public @Nullable TradeStatisticsProvider getTradeStatisticsProvider() {
+		return tradeLoggers.getTradeStatisticsProvider();
+	}
 }
@@ -31,9 +31,13 @@ import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.shopkeeper.activation.ShopkeeperChunkActivator;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawner;
+import com.nisovin.shopkeepers.shopkeeper.ticking.ShopkeeperTicker;
 import com.nisovin.shopkeepers.shopobjects.entity.base.EntityAI;
 import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.tradelog.TradeLogger;
+import com.nisovin.shopkeepers.tradelog.base.AbstractSingleWriterTradeLogger;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueueStatistics;
 import com.nisovin.shopkeepers.util.timer.Timings;
 
@@ -46,6 +50,7 @@ class CommandCheck extends Command {
 	private final SKShopkeeperRegistry shopkeeperRegistry;
 	private final ShopkeeperSpawner shopkeeperSpawner;
 	private final ShopkeeperChunkActivator chunkActivator;
+	private final ShopkeeperTicker shopkeeperTicker;
 
 	CommandCheck(SKShopkeepersPlugin plugin) {
 		super("check");
@@ -53,6 +58,7 @@ class CommandCheck extends Command {
 		this.shopkeeperRegistry = plugin.getShopkeeperRegistry();
 		this.shopkeeperSpawner = shopkeeperRegistry.getShopkeeperSpawner();
 		this.chunkActivator = shopkeeperRegistry.getChunkActivator();
+		this.shopkeeperTicker = shopkeeperRegistry.getShopkeeperTicker();
 
 		// Set permission:
 		this.setPermission(ShopkeepersPlugin.DEBUG_PERMISSION);
@@ -99,10 +105,32 @@ class CommandCheck extends Command {
 		sender.sendMessage("    With AI: " + entityAI.getEntityCount());
 		sender.sendMessage("    With active AI: " + entityAI.getActiveAIEntityCount());
 		sender.sendMessage("    With active gravity: " + entityAI.getActiveGravityEntityCount());
+		sender.sendMessage("  Pooled items | interned | deduplicated: "
+				+ ItemStackInterner.getSize()
+				+ " | " + ItemStackInterner.getRequestCount()
+				+ " | " + ItemStackInterner.getHitCount());
 
 		TaskQueueStatistics spawnQueueStatistics = shopkeeperSpawner.getSpawnQueueStatistics();
 		sender.sendMessage("  Pending shopkeeper spawns | max: " + spawnQueueStatistics.getPendingCount()
 				+ " | " + spawnQueueStatistics.getMaxPendingCount());
+		Timings spawnTimings = spawnQueueStatistics.getWorkUnitTimings();
+		sender.sendMessage("  Shopkeeper spawn timings (spawns per execution: "
+				+ spawnQueueStatistics.getWorkUnitsPerExecution() + ")"
+				+ " (avg | max | cnt): "
+				+ TextUtils.format(spawnTimings.getAverageTimeMillis()) + " ms"
+				+ " | " + TextUtils.format(spawnTimings.getMaxTimeMillis()) + " ms"
+				+ " | " + spawnTimings.getCounter());
+
+		Timings tickTimings = shopkeeperTicker.getTickTimings();
+		sender.sendMessage("  Pending shopkeeper ticks | max: " + shopkeeperTicker.getPendingCount()
+				+ " | " + shopkeeperTicker.getMaxPendingCount());
+		sender.sendMessage("  Shopkeeper tick timings (budget: "
+				+ TextUtils.format(Settings.shopkeeperTickBudgetMillis) + " ms)"
+				+ " (avg | max | cnt | over budget): "
+				+ TextUtils.format(tickTimings.getAverageTimeMillis()) + " ms"
+				+ " | " + TextUtils.format(tickTimings.getMaxTimeMillis()) + " ms"
+				+ " | " + tickTimings.getCounter()
+				+ " | " + shopkeeperTicker.getBudgetExceededCount());
 
 		Timings chunkActivationTimings = chunkActivator.getChunkActivationTimings();
 		double avgChunkActivationTimings = chunkActivationTimings.getAverageTimeMillis();
@@ -119,13 +147,15 @@ class CommandCheck extends Command {
 				+ TextUtils.format(avgTotalAITimings) + " ms"
 				+ " | " + TextUtils.format(maxTotalAITiming) + " ms");
 
-		// Note: These are per activation, which happens only every 20 ticks (not per tick).
-		double avgAIActivationTimings = entityAI.getActivationTimings().getAverageTimeMillis();
-		double maxAIActivationTiming = entityAI.getActivationTimings().getMaxTimeMillis();
-		sender.sendMessage("    AI activation timings (per "
-				+ EntityAI.AI_ACTIVATION_TICK_RATE + " ticks) (avg | max): "
+		// Note: These are per update of the chunk activations, which happens whenever a player
+		// moves into a different chunk (not per tick).
+		Timings aiActivationTimings = entityAI.getActivationTimings();
+		double avgAIActivationTimings = aiActivationTimings.getAverageTimeMillis();
+		double maxAIActivationTiming = aiActivationTimings.getMaxTimeMillis();
+		sender.sendMessage("    AI activation timings (per player chunk change) (avg | max | cnt): "
 				+ TextUtils.format(avgAIActivationTimings) + " ms"
-				+ " | " + TextUtils.format(maxAIActivationTiming) + " ms");
+				+ " | " + TextUtils.format(maxAIActivationTiming) + " ms"
+				+ " | " + aiActivationTimings.getCounter());
 
 		double avgGravityTimings = entityAI.getGravityTimings().getAverageTimeMillis();
 		double maxGravityTiming = entityAI.getGravityTimings().getMaxTimeMillis();
@@ -141,6 +171,25 @@ class CommandCheck extends Command {
 				+ TextUtils.format(avgAITimings) + " ms"
 				+ " | " + TextUtils.format(maxAITiming) + " ms");
 
+		for (TradeLogger tradeLogger : plugin.getTradeLoggers().getTradeLoggers()) {
+			if (!(tradeLogger instanceof AbstractSingleWriterTradeLogger writerTradeLogger)) {
+				continue;
+			}
+
+			Timings writeTimings = writerTradeLogger.getWriteTimings();
+			sender.sendMessage(ChatColor.YELLOW + "Trade log ("
+					+ writerTradeLogger.getStorageType() + "):");
+			sender.sendMessage("  Pending trades | max: " + writerTradeLogger.getPendingCount()
+					+ " | " + writerTradeLogger.getMaxPendingCount());
+			sender.sendMessage("  Batches (cnt | avg size | max size): "
+					+ writerTradeLogger.getBatchCount()
+					+ " | " + TextUtils.format(writerTradeLogger.getAverageBatchSize())
+					+ " | " + writerTradeLogger.getMaxBatchSize());
+			sender.sendMessage("  Write timings (avg | max): "
+					+ TextUtils.format(writeTimings.getAverageTimeMillis()) + " ms"
+					+ " | " + TextUtils.format(writeTimings.getMaxTimeMillis()) + " ms");
+		}
+
 		for (World world : Bukkit.getWorlds()) {
 			String worldName = world.getName();
 			Chunk[] worldLoadedChunks = world.getLoadedChunks();
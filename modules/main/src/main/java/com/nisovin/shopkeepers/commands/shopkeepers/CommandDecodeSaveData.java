@@ -0,0 +1,97 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.arguments.PositiveIntegerArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.util.bukkit.PluginUtils;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandDecodeSaveData extends Command {
+
+	private static final String ARGUMENT_SHOPKEEPER_ID = "shopkeeperId";
+	private static final String DECODED_FILE_SUFFIX = ".decoded.yml";
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandDecodeSaveData(SKShopkeepersPlugin plugin) {
+		super("decodeSaveData");
+		this.plugin = plugin;
+
+		// Set permission:
+		this.setPermission(ShopkeepersPlugin.DEBUG_PERMISSION);
+
+		// Set description:
+		this.setDescription(Text.of("Writes the decoded (i.e. decompressed) save data to a '"
+				+ DECODED_FILE_SUFFIX + "' file next to the save file. With the segmented storage, "
+				+ "this decodes the segment of the specified shopkeeper."));
+
+		// Hidden debugging command:
+		this.setHiddenInParentHelp(true);
+
+		// Arguments:
+		this.addArgument(new PositiveIntegerArgument(ARGUMENT_SHOPKEEPER_ID).orDefaultValue(0));
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+		int shopkeeperId = context.get(ARGUMENT_SHOPKEEPER_ID);
+
+		SKShopkeeperStorage shopkeeperStorage = plugin.getShopkeeperStorage();
+		Path saveFile = shopkeeperStorage.getSaveFile(shopkeeperId);
+		String saveFileName = PluginUtils.relativize(plugin, saveFile).toString();
+		if (!Files.exists(saveFile)) {
+			sender.sendMessage(ChatColor.GRAY + "The save file does not exist: " + saveFileName);
+			return;
+		}
+
+		String saveData;
+		try {
+			saveData = shopkeeperStorage.readDecodedSaveFile(saveFile);
+		} catch (Exception e) {
+			Log.warning("Failed to read the save file (" + saveFileName + ")!", e);
+			sender.sendMessage(ChatColor.RED + "Failed to read the save file (" + saveFileName
+					+ ")! Check the server log for details.");
+			return;
+		}
+
+		// Write the decoded save data to a separate file:
+		// This file is not loaded by the plugin. For segment files, the suffix also ensures that
+		// the file is not considered a segment file.
+		Path decodedFile = saveFile.resolveSibling(saveFile.getFileName() + DECODED_FILE_SUFFIX);
+		String decodedFileName = PluginUtils.relativize(plugin, decodedFile).toString();
+		try {
+			FileUtils.writeSafely(
+					decodedFile,
+					saveData,
+					StandardCharsets.UTF_8,
+					Log.getLogger(),
+					plugin.getDataFolder().toPath()
+			);
+		} catch (Exception e) {
+			Log.warning("Failed to write the decoded save data (" + decodedFileName + ")!", e);
+			sender.sendMessage(ChatColor.RED + "Failed to write the decoded save data ("
+					+ decodedFileName + ")! Check the server log for details.");
+			return;
+		}
+
+		int lineCount = StringUtils.splitLines(saveData).length;
+		sender.sendMessage(ChatColor.GREEN + "Decoded save data (" + saveFileName + ", "
+				+ lineCount + " lines) written to: " + ChatColor.YELLOW + decodedFileName);
+	}
+}
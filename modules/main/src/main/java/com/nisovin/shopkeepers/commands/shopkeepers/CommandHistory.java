@@ -49,10 +49,12 @@ import com.nisovin.shopkeepers.tradelog.history.PlayerSelector;
 import com.nisovin.shopkeepers.tradelog.history.ShopSelector;
 import com.nisovin.shopkeepers.tradelog.history.ShopSelector.ByOwnerUUID;
 import com.nisovin.shopkeepers.tradelog.history.ShopSelector.ByShopIdentifier;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryCursor;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryRequest;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryResult;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 import com.nisovin.shopkeepers.util.java.Range;
 import com.nisovin.shopkeepers.util.java.TimeUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -91,8 +93,26 @@ class CommandHistory extends Command {
 	private static final String ARGUMENT_PAGE = "page";
 
 	private static final int ENTRIES_PER_PAGE = 10;
+	private static final int PAGE_CURSORS_CACHE_SIZE = 100;
+
+	/**
+	 * The position of the last trade of a previously sent history page, which allows the next page
+	 * to be retrieved without skipping all the preceding trades again.
+	 */
+	private static final class PageCursor {
+
+		private final TradingHistoryCursor cursor;
+		private final int totalTrades;
+
+		PageCursor(TradingHistoryCursor cursor, int totalTrades) {
+			this.cursor = cursor;
+			this.totalTrades = totalTrades;
+		}
+	}
 
 	private final SKShopkeepersPlugin plugin;
+	// Keyed by the sender, the selectors, and the page. Only accessed on the main thread.
+	private final Map<String, PageCursor> pageCursors = new LRUCache<>(PAGE_CURSORS_CACHE_SIZE);
 
 	CommandHistory(SKShopkeepersPlugin plugin) {
 		super("history");
@@ -376,7 +396,24 @@ class CommandHistory extends Command {
 
 		// Create request and retrieve history:
 		Range range = new Range.PageRange(page, ENTRIES_PER_PAGE);
-		TradingHistoryRequest historyRequest = new TradingHistoryRequest(playerSelector, shopSelector, range);
+		// If the sender requests the page after a previously sent page, continue after the last
+		// trade of the previous page:
+		@Nullable TradingHistoryCursor cursor = null;
+		if (page > 1) {
+			PageCursor previousPageCursor = pageCursors.get(
+					getPageCursorKey(sender, playerSelector, shopSelector, page - 1)
+			);
+			if (previousPageCursor != null
+					&& (page - 1) * ENTRIES_PER_PAGE < previousPageCursor.totalTrades) {
+				cursor = previousPageCursor.cursor;
+			}
+		}
+		TradingHistoryRequest historyRequest = new TradingHistoryRequest(
+				playerSelector,
+				shopSelector,
+				range,
+				cursor
+		);
 
 		final long historyFetchStart = System.nanoTime();
 		tradingHistoryProvider.getTradingHistory(historyRequest)
@@ -384,6 +421,8 @@ class CommandHistory extends Command {
 					Validate.State.notNull(historyRequest, "historyResult is null!");
 					assert historyResult != null;
 
+					this.rememberPageCursor(sender, historyRequest, historyResult);
+
 					// Send history result:
 					final long historyPrintStart = System.nanoTime();
 					sendTradingHistory(sender, historyRequest, historyResult);
@@ -405,6 +444,35 @@ class CommandHistory extends Command {
 				});
 	}
 
+	private static String getPageCursorKey(
+			CommandSender sender,
+			PlayerSelector playerSelector,
+			ShopSelector shopSelector,
+			int page
+	) {
+		return sender.getName() + "|" + playerSelector + "|" + shopSelector + "|" + page;
+	}
+
+	private void rememberPageCursor(
+			CommandSender sender,
+			TradingHistoryRequest historyRequest,
+			TradingHistoryResult historyResult
+	) {
+		var nextCursor = historyResult.getNextCursor();
+		if (nextCursor == null) return;
+
+		int totalTrades = historyResult.getTotalTradesCount();
+		int startIndex = historyRequest.range.getStartIndex(totalTrades);
+		int page = (startIndex / ENTRIES_PER_PAGE) + 1;
+		String key = getPageCursorKey(
+				sender,
+				historyRequest.playerSelector,
+				historyRequest.shopSelector,
+				page
+		);
+		pageCursors.put(key, new PageCursor(nextCursor, totalTrades));
+	}
+
 	private @Nullable User resolveUserByName(
 			CommandSender sender,
 			String userName,
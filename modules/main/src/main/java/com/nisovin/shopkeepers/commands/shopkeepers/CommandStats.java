@@ -0,0 +1,310 @@
+package com.nisovin.shopkeepers.commands.shopkeepers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
+import com.nisovin.shopkeepers.api.user.User;
+import com.nisovin.shopkeepers.commands.arguments.ShopkeeperArgument;
+import com.nisovin.shopkeepers.commands.arguments.ShopkeeperUUIDArgument;
+import com.nisovin.shopkeepers.commands.arguments.TargetShopkeeperArgument;
+import com.nisovin.shopkeepers.commands.arguments.UserByNameArgument;
+import com.nisovin.shopkeepers.commands.lib.Command;
+import com.nisovin.shopkeepers.commands.lib.CommandException;
+import com.nisovin.shopkeepers.commands.lib.CommandInput;
+import com.nisovin.shopkeepers.commands.lib.CommandSourceRejectedException;
+import com.nisovin.shopkeepers.commands.lib.arguments.AnyFallbackArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.EnumArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.FirstOfArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.LiteralArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.NamedArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerNameArgument;
+import com.nisovin.shopkeepers.commands.lib.arguments.PlayerUUIDArgument;
+import com.nisovin.shopkeepers.commands.lib.context.CommandContextView;
+import com.nisovin.shopkeepers.commands.util.UserArgumentUtils;
+import com.nisovin.shopkeepers.commands.util.UserArgumentUtils.UserNameMatcher;
+import com.nisovin.shopkeepers.lang.Messages;
+import com.nisovin.shopkeepers.text.Text;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsGranularity;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsProvider;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsRequest;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsScope;
+import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+class CommandStats extends Command {
+
+	private static final String ARGUMENT_TARGET = "target";
+	private static final String ARGUMENT_OWN = "own";
+	private static final String ARGUMENT_OWNER = "owner";
+	private static final String ARGUMENT_OWNER_UUID = ARGUMENT_OWNER + ":uuid";
+	private static final String ARGUMENT_OWNER_NAME = ARGUMENT_OWNER + ":name";
+	private static final String ARGUMENT_ITEM = "item";
+	private static final String ARGUMENT_SHOP = "shop";
+	private static final String ARGUMENT_SHOP_EXISTING = ARGUMENT_SHOP + ":shopkeeper";
+	private static final String ARGUMENT_SHOP_UUID = ARGUMENT_SHOP + ":uuid";
+
+	private static final UserByNameArgument OWNER_BY_NAME_ARGUMENT = new UserByNameArgument(
+			ARGUMENT_OWNER_NAME
+	);
+
+	private static final Duration LAST_DAY = Duration.ofHours(24);
+	private static final Duration LAST_WEEK = Duration.ofDays(7);
+	private static final Duration LAST_MONTH = Duration.ofDays(30);
+
+	private final SKShopkeepersPlugin plugin;
+
+	CommandStats(SKShopkeepersPlugin plugin) {
+		super("stats");
+		this.plugin = plugin;
+
+		// Permission gets checked by testPermission and during execution.
+
+		// Set description:
+		this.setDescription(Messages.commandDescriptionStats);
+
+		// Arguments:
+		this.addArgument(new FirstOfArgument(ARGUMENT_TARGET, Arrays.asList(
+				new LiteralArgument(ARGUMENT_OWN),
+				// Note: We allow any uuid and name to also be able to lookup the statistics of
+				// offline shop owners.
+				new NamedArgument<>(new FirstOfArgument(ARGUMENT_OWNER, Arrays.asList(
+						new PlayerUUIDArgument(ARGUMENT_OWNER_UUID), // Accepts any uuid
+						new PlayerNameArgument(ARGUMENT_OWNER_NAME)), // Accepts any name
+						false)
+				), // Don't join formats
+				new NamedArgument<>(new EnumArgument<>(ARGUMENT_ITEM, Material.class)),
+				// Note: We allow any uuid as fallback to also be able to lookup the statistics of
+				// no longer existing shops.
+				new AnyFallbackArgument(
+						new NamedArgument<>(new FirstOfArgument(ARGUMENT_SHOP, Arrays.asList(
+								new ShopkeeperArgument(ARGUMENT_SHOP_EXISTING),
+								// Fallback to any uuid:
+								new ShopkeeperUUIDArgument(ARGUMENT_SHOP_UUID)
+						))),
+						// Fallback to targeted shop:
+						new TargetShopkeeperArgument(ARGUMENT_SHOP_EXISTING)
+				)
+		), true, true).optional()); // Join formats and reverse
+	}
+
+	@Override
+	public boolean testPermission(CommandSender sender) {
+		if (!super.testPermission(sender)) return false;
+
+		return PermissionUtils.hasPermission(sender, ShopkeepersPlugin.HISTORY_OWN_PERMISSION)
+				|| PermissionUtils.hasPermission(sender, ShopkeepersPlugin.HISTORY_ADMIN_PERMISSION);
+	}
+
+	@Override
+	protected void execute(CommandInput input, CommandContextView context) throws CommandException {
+		CommandSender sender = input.getSender();
+
+		var tradeStatisticsProvider = plugin.getTradeStatisticsProvider();
+		if (tradeStatisticsProvider == null) {
+			TextUtils.sendMessage(sender, Messages.statsDisabled);
+			return;
+		}
+
+		@Nullable Player executingPlayer = (sender instanceof Player) ? (Player) sender : null;
+		boolean ownShops = context.has(ARGUMENT_OWN) || !context.has(ARGUMENT_TARGET);
+		@Nullable UUID ownerUUID = context.getOrNull(ARGUMENT_OWNER_UUID);
+		@Nullable String ownerName = context.getOrNull(ARGUMENT_OWNER_NAME);
+		@Nullable Material itemType = context.getOrNull(ARGUMENT_ITEM);
+		@Nullable Shopkeeper existingShop = context.getOrNull(ARGUMENT_SHOP_EXISTING);
+		@Nullable UUID shopUUID = context.getOrNull(ARGUMENT_SHOP_UUID);
+
+		// Map to the statistics subject:
+		boolean ownStats = false;
+		TradeStatisticsScope scope;
+		String subject;
+		// The subject text is only created when the statistics are sent:
+		Supplier<Text> subjectText;
+		if (itemType != null) {
+			scope = TradeStatisticsScope.ITEM;
+			subject = itemType.name();
+			String itemName = subject;
+			subjectText = () -> {
+				Text text = Messages.statsHeaderItem;
+				text.setPlaceholderArguments("item", itemName);
+				return text;
+			};
+		} else if (existingShop != null || shopUUID != null) {
+			Text shopIdentifier;
+			if (existingShop != null) {
+				shopUUID = existingShop.getUniqueId();
+				shopIdentifier = TextUtils.getShopText(existingShop);
+				// Only the statistics of own player shops are available with the 'own' permission.
+				// Since the statistics are not filtered by owner, this also includes the trades of
+				// any previous owners.
+				if (existingShop instanceof PlayerShopkeeper playerShop
+						&& executingPlayer != null
+						&& playerShop.getOwnerUUID().equals(executingPlayer.getUniqueId())) {
+					ownStats = true;
+				}
+			} else {
+				assert shopUUID != null;
+				shopIdentifier = Text.of(shopUUID.toString());
+			}
+			scope = TradeStatisticsScope.SHOP;
+			subject = shopUUID.toString();
+			subjectText = () -> {
+				Text text = Messages.statsHeaderShop;
+				text.setPlaceholderArguments("shop", shopIdentifier);
+				return text;
+			};
+		} else {
+			if (ownerUUID != null) {
+				if (executingPlayer != null && ownerUUID.equals(executingPlayer.getUniqueId())) {
+					ownStats = true;
+					ownerName = executingPlayer.getName();
+				}
+			} else if (ownerName != null) {
+				var ownerUser = this.resolveUserByName(sender, ownerName);
+				if (ownerUser == null) {
+					// Abort. Sender feedback was already handled.
+					return;
+				}
+
+				ownerUUID = ownerUser.getUniqueId();
+				ownerName = ownerUser.getName();
+				if (executingPlayer != null && ownerUUID.equals(executingPlayer.getUniqueId())) {
+					ownStats = true;
+				}
+			} else {
+				assert ownShops;
+				if (executingPlayer == null) {
+					// Not executed by a player:
+					throw new CommandSourceRejectedException(
+							Text.of("You must be a player in order to use the argument 'own'!")
+					);
+				}
+
+				ownerUUID = executingPlayer.getUniqueId();
+				ownerName = executingPlayer.getName();
+				ownStats = true;
+			}
+			scope = TradeStatisticsScope.OWNER;
+			subject = ownerUUID.toString();
+			Text ownerText = TextUtils.getPlayerText(ownerName, ownerUUID);
+			subjectText = () -> {
+				Text text = Messages.statsHeaderOwnedShops;
+				text.setPlaceholderArguments("owner", ownerText);
+				return text;
+			};
+		}
+
+		// Check permission:
+		if (ownStats) {
+			this.checkPermission(sender, ShopkeepersPlugin.HISTORY_OWN_PERMISSION);
+		} else {
+			this.checkPermission(sender, ShopkeepersPlugin.HISTORY_ADMIN_PERMISSION);
+		}
+
+		// The current periods are included:
+		Instant now = Instant.now();
+		Instant end = now.plusSeconds(1L);
+		var hourly = TradeStatisticsGranularity.HOUR;
+		var daily = TradeStatisticsGranularity.DAY;
+		var lastDayRequest = new TradeStatisticsRequest(scope, subject, hourly,
+				hourly.getPeriodStart(now.minus(LAST_DAY).plus(Duration.ofHours(1))), end);
+		// The daily statistics of the last month also provide the statistics of the last week:
+		var lastMonthRequest = new TradeStatisticsRequest(scope, subject, daily,
+				daily.getPeriodStart(now.minus(LAST_MONTH).plus(Duration.ofDays(1))), end);
+		Instant lastWeekStart = daily.getPeriodStart(now.minus(LAST_WEEK).plus(Duration.ofDays(1)));
+
+		CompletableFuture<TradeStatistics> lastDayFuture = tradeStatisticsProvider
+				.getTradeStatistics(lastDayRequest);
+		CompletableFuture<TradeStatistics> lastMonthFuture = tradeStatisticsProvider
+				.getTradeStatistics(lastMonthRequest);
+		lastDayFuture.thenCombine(lastMonthFuture, (lastDay, lastMonth) -> {
+			return new TradeStatistics[] { lastDay, lastMonth };
+		}).thenAcceptAsync(statistics -> {
+			this.sendTradeStatistics(
+					sender,
+					subjectText.get(),
+					statistics[0],
+					statistics[1],
+					lastWeekStart
+			);
+		}, SKShopkeepersPlugin.getInstance().getSyncExecutor()).exceptionally(exception -> {
+			// Error case:
+			// TODO Localize?
+			TextUtils.sendMessage(
+					sender,
+					Text.parse("&cError: Could not retrieve the trade statistics!")
+			);
+			Log.severe("Error while retrieving trade statistics!", exception);
+			return null;
+		});
+	}
+
+	private @Nullable User resolveUserByName(CommandSender sender, String userName) {
+		// Also checks for offline players:
+		var matchingUsers = UserNameMatcher.EXACT.match(userName, true).toList();
+		if (matchingUsers.isEmpty()) {
+			var error = OWNER_BY_NAME_ARGUMENT.getInvalidArgumentErrorMsg(userName);
+			TextUtils.sendMessage(sender, error);
+			return null;
+		}
+
+		if (matchingUsers.size() > 1) {
+			UserArgumentUtils.handleAmbiguousUserName(
+					sender,
+					userName,
+					matchingUsers
+			);
+			return null;
+		}
+
+		return matchingUsers.getFirst();
+	}
+
+	private void sendTradeStatistics(
+			CommandSender sender,
+			Text subjectText,
+			TradeStatistics lastDay,
+			TradeStatistics lastMonth,
+			Instant lastWeekStart
+	) {
+		long lastWeekTrades = 0L;
+		long lastWeekResultItems = 0L;
+		for (TradeStatistics.Period period : lastMonth.getPeriods()) {
+			if (period.getStart().isBefore(lastWeekStart)) continue;
+
+			lastWeekTrades += period.getTrades();
+			lastWeekResultItems += period.getResultItems();
+		}
+
+		TextUtils.sendMessage(sender, Messages.statsHeader, "subject", subjectText);
+		this.sendEntry(sender, Messages.statsPeriodLastDay,
+				lastDay.getTotalTrades(), lastDay.getTotalResultItems());
+		this.sendEntry(sender, Messages.statsPeriodLastWeek, lastWeekTrades, lastWeekResultItems);
+		this.sendEntry(sender, Messages.statsPeriodLastMonth,
+				lastMonth.getTotalTrades(), lastMonth.getTotalResultItems());
+	}
+
+	private void sendEntry(CommandSender sender, Text period, long trades, long resultItems) {
+		Map<String, Object> entryArgs = new HashMap<>();
+		entryArgs.put("period", period);
+		entryArgs.put("trades", trades);
+		entryArgs.put("resultItems", resultItems);
+		TextUtils.sendMessage(sender, Messages.statsEntry, entryArgs);
+	}
+}
@@ -77,6 +77,7 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandNotify());
 		childCommands.register(new CommandList(shopkeeperRegistry));
 		childCommands.register(new CommandHistory(plugin));
+		childCommands.register(new CommandStats(plugin));
 		childCommands.register(new CommandRemove(confirmations));
 		childCommands.register(new CommandRemoveAll(plugin, shopkeeperRegistry, confirmations));
 		childCommands.register(new CommandGive());
@@ -103,6 +104,7 @@ public class ShopkeepersCommand extends BaseCommand {
 		childCommands.register(new CommandCheck(plugin));
 		childCommands.register(new CommandCheckItem());
 		childCommands.register(new CommandYaml());
+		childCommands.register(new CommandDecodeSaveData(plugin));
 		childCommands.register(new CommandDebugCreateShops(plugin));
 		childCommands.register(new CommandTestDamage(plugin));
 		childCommands.register(new CommandTestSpawn(plugin));
@@ -24,6 +24,7 @@ import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.ShopkeepersAPI;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
+import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.api.shopkeeper.admin.AdminShopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.player.PlayerShopkeeper;
 import com.nisovin.shopkeepers.commands.lib.util.ObjectMatcher;
@@ -332,25 +333,22 @@ public final class ShopkeeperArgumentUtils {
 
 		// Search for shops owned by the specified player:
 		List<PlayerShopkeeper> shops = new ArrayList<>();
-		for (Shopkeeper shopkeeper : ShopkeepersAPI.getShopkeeperRegistry().getAllShopkeepers()) {
-			if (!(shopkeeper instanceof PlayerShopkeeper)) {
-				continue;
+		ShopkeeperRegistry shopkeeperRegistry = ShopkeepersAPI.getShopkeeperRegistry();
+		if (targetPlayerUUID != null) {
+			// We search for shops with matching owner uuid:
+			var ownedShops = shopkeeperRegistry.getPlayerShopkeepersByOwner(targetPlayerUUID);
+			for (PlayerShopkeeper playerShop : ownedShops) {
+				shops.add(playerShop);
+
+				// The input target player name may be missing or differ in case.
+				// Keep track of the owner's actual name:
+				actualTargetPlayerName = playerShop.getOwnerName(); // Not null
 			}
-
-			PlayerShopkeeper playerShop = (PlayerShopkeeper) shopkeeper;
-			UUID shopOwnerUUID = playerShop.getOwnerUUID(); // Not null
-			String shopOwnerName = playerShop.getOwnerName(); // Not null
-			if (targetPlayerUUID != null) {
-				// We search for shops with matching owner uuid:
-				if (targetPlayerUUID.equals(shopOwnerUUID)) {
-					shops.add(playerShop);
-
-					// The input target player name may be missing or differ in case.
-					// Keep track of the owner's actual name:
-					actualTargetPlayerName = shopOwnerName;
-				}
-			} else {
-				assert targetPlayerName != null;
+		} else {
+			assert targetPlayerName != null;
+			for (PlayerShopkeeper playerShop : shopkeeperRegistry.getAllPlayerShopkeepers()) {
+				UUID shopOwnerUUID = playerShop.getOwnerUUID(); // Not null
+				String shopOwnerName = playerShop.getOwnerName(); // Not null
 				// Check for matching name:
 				if (shopOwnerName.equalsIgnoreCase(targetPlayerName)) {
 					// Note: If there exist multiple players which match the given name, the result
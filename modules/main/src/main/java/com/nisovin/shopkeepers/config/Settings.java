@@ -43,6 +43,7 @@ import com.nisovin.shopkeepers.shopkeeper.TradingRecipeDraft;
 import com.nisovin.shopkeepers.shopobjects.living.types.MagmaCubeShop;
 import com.nisovin.shopkeepers.shopobjects.living.types.SlimeShop;
 import com.nisovin.shopkeepers.shopobjects.living.types.SulfurCubeShop;
+import com.nisovin.shopkeepers.storage.ShopkeeperStorageType;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
 import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
@@ -77,6 +78,8 @@ public class Settings extends Config {
 	 * Shopkeeper Data
 	 */
 	public static boolean saveInstantly = true;
+	public static ShopkeeperStorageType shopkeeperStorage = ShopkeeperStorageType.SINGLE_FILE;
+	public static boolean compressSaveData = false;
 
 	/*
 	 * Plugin Compatibility
@@ -236,6 +239,8 @@ public class Settings extends Config {
 	// period of 3 (maybe due to some interpolation artifact by the client).
 	public static int entityBehaviorTickPeriod = 3;
 
+	public static double shopkeeperTickBudgetMillis = 2.0D;
+
 	public static boolean shulkerPeekIfPlayerNearby = true;
 	public static float shulkerPeekHeight = 0.3F;
 
@@ -404,6 +409,9 @@ public class Settings extends Config {
 	public static int tradeLogMergeDurationTicks = 300; // 15 seconds
 	public static int tradeLogNextMergeTimeoutTicks = 100; // 5 seconds
 
+	public static int tradeLogCsvMaxFileSizeMegabytes = 0;
+	public static boolean tradeLogCsvCompressClosedFiles = false;
+
 	public static boolean logItemMetadata = false;
 
 	/*
@@ -920,6 +928,10 @@ public class Settings extends Config {
 			Log.warning(this.getLogPrefix() + "'entity-behavior-tick-period' has to be positive.");
 			entityBehaviorTickPeriod = 1;
 		}
+		if (shopkeeperTickBudgetMillis < 0.0D) {
+			Log.warning(this.getLogPrefix() + "'shopkeeper-tick-budget-millis' cannot be negative.");
+			shopkeeperTickBudgetMillis = 0.0D;
+		}
 		if (shulkerPeekHeight < 0 || shulkerPeekHeight > 1) {
 			Log.warning(this.getLogPrefix() + "'shulker-peek-height' must be between 0.0 and 1.0.");
 			shulkerPeekHeight = (shulkerPeekHeight < 0 ? 0 : 1);
@@ -1021,6 +1033,10 @@ public class Settings extends Config {
 			Log.warning(this.getLogPrefix() + "'trade-log-next-merge-timeout-ticks' cannot be negative.");
 			tradeLogNextMergeTimeoutTicks = 0;
 		}
+		if (tradeLogCsvMaxFileSizeMegabytes < 0) {
+			Log.warning(this.getLogPrefix() + "'trade-log-csv-max-file-size-megabytes' cannot be negative.");
+			tradeLogCsvMaxFileSizeMegabytes = 0;
+		}
 		// Note: If tradeLogNextMergeTimeoutTicks is greater than or equal to
 		// tradeLogMergeDurationTicks, it has no effect. However, we do not print a warning in this
 		// case to allow tradeLogMergeDurationTicks to be easily adjusted inside the config without
@@ -0,0 +1,78 @@
+package com.nisovin.shopkeepers.container.protection;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.inventory.Inventory;
+
+import com.nisovin.shopkeepers.container.ShopContainers;
+
+/**
+ * Informs the shopkeepers about changes to the contents of their containers, so that they can
+ * update their cached trading recipes.
+ * <p>
+ * We do not check whether the contents of the container actually changed, but only whether an
+ * event might have affected the container.
+ */
+class ContainerChangeListener implements Listener {
+
+	private final ProtectedContainers protectedContainers;
+
+	ContainerChangeListener(ProtectedContainers protectedContainers) {
+		this.protectedContainers = protectedContainers;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryClick(InventoryClickEvent event) {
+		// Clicks inside the player inventory can also affect the container (e.g. shift clicks):
+		this.onContainerChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryDrag(InventoryDragEvent event) {
+		this.onContainerChanged(event.getView().getTopInventory());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryMoveItem(InventoryMoveItemEvent event) {
+		assert event.getSource() != null && event.getDestination() != null;
+		this.onContainerChanged(event.getSource());
+		this.onContainerChanged(event.getDestination());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onInventoryPickupItem(InventoryPickupItemEvent event) {
+		this.onContainerChanged(event.getInventory());
+	}
+
+	private void onContainerChanged(Inventory inventory) {
+		assert inventory != null;
+		// Similar to InventoryMoveItemListener: We avoid calling Inventory#getHolder here for
+		// performance reasons.
+		Location inventoryLocation = inventory.getLocation(); // can be null
+		if (inventoryLocation == null) return;
+		// Quickly rule out the vast majority of inventories that are not located in chunks with
+		// shop containers, before we access the block:
+		World world = inventoryLocation.getWorld();
+		if (world == null) return;
+		if (!protectedContainers.isInProtectedChunk(
+				world.getName(),
+				inventoryLocation.getBlockX(),
+				inventoryLocation.getBlockZ()
+		)) {
+			return;
+		}
+
+		Block block = inventoryLocation.getBlock(); // not null
+		if (!ShopContainers.isSupportedContainer(block.getType())) return;
+		// Also informs the shopkeepers using a connected chest (double chests):
+		protectedContainers.onContainerContentsChanged(block);
+	}
+}
@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.container.protection;
 
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -36,6 +37,18 @@ class InventoryMoveItemListener implements Listener {
 		// inventories this creates a snapshot of the block's BlockState.
 		Location inventoryLocation = inventory.getLocation(); // can be null
 		if (inventoryLocation == null) return false;
+		// Quickly rule out the vast majority of inventories that are not located in chunks with
+		// protected containers, before we access the block:
+		World world = inventoryLocation.getWorld();
+		if (world == null) return false;
+		if (!protectedContainers.isInProtectedChunk(
+				world.getName(),
+				inventoryLocation.getBlockX(),
+				inventoryLocation.getBlockZ()
+		)) {
+			return false;
+		}
+
 		Block block = inventoryLocation.getBlock(); // not null
 		if (!ShopContainers.isSupportedContainer(block.getType())) return false;
 		// Also checks for protected connected chests (double chests):
@@ -0,0 +1,113 @@
+package com.nisovin.shopkeepers.container.protection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+import com.nisovin.shopkeepers.util.java.LongHashMap;
+import com.nisovin.shopkeepers.util.java.MutableLong;
+
+/**
+ * Keeps track of the chunks that contain protected containers, or blocks that are protected due to
+ * being adjacent to a protected container (e.g. the other half of a double chest).
+ * <p>
+ * This allows to quickly rule out that a block is protected, without having to access the block.
+ */
+final class ProtectedChunks {
+
+	private static long getChunkKey(int chunkX, int chunkZ) {
+		return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+	}
+
+	// The number of registered protected containers that affect each chunk:
+	private final Map<String, LongHashMap<MutableLong>> protectedChunksByWorld = new HashMap<>();
+
+	ProtectedChunks() {
+	}
+
+	void addContainer(BlockLocation location) {
+		this.updateChunks(location, 1);
+	}
+
+	void removeContainer(BlockLocation location) {
+		this.updateChunks(location, -1);
+	}
+
+	private void updateChunks(BlockLocation location, int delta) {
+		String worldName = Unsafe.assertNonNull(location.getWorldName());
+		int x = location.getX();
+		int z = location.getZ();
+		int chunkX = ChunkCoords.fromBlock(x);
+		int chunkZ = ChunkCoords.fromBlock(z);
+
+		// The container's chunk:
+		this.updateChunk(worldName, chunkX, chunkZ, delta);
+
+		// Chunks of adjacent blocks that might be protected as well (connected chests):
+		int westChunkX = ChunkCoords.fromBlock(x - 1);
+		if (westChunkX != chunkX) {
+			this.updateChunk(worldName, westChunkX, chunkZ, delta);
+		}
+		int eastChunkX = ChunkCoords.fromBlock(x + 1);
+		if (eastChunkX != chunkX) {
+			this.updateChunk(worldName, eastChunkX, chunkZ, delta);
+		}
+		int northChunkZ = ChunkCoords.fromBlock(z - 1);
+		if (northChunkZ != chunkZ) {
+			this.updateChunk(worldName, chunkX, northChunkZ, delta);
+		}
+		int southChunkZ = ChunkCoords.fromBlock(z + 1);
+		if (southChunkZ != chunkZ) {
+			this.updateChunk(worldName, chunkX, southChunkZ, delta);
+		}
+	}
+
+	private void updateChunk(String worldName, int chunkX, int chunkZ, int delta) {
+		long chunkKey = getChunkKey(chunkX, chunkZ);
+		LongHashMap<MutableLong> worldChunks = protectedChunksByWorld.computeIfAbsent(
+				worldName,
+				key -> new LongHashMap<>()
+		);
+		MutableLong count = worldChunks.get(chunkKey);
+		if (count == null) {
+			assert delta > 0;
+			count = new MutableLong();
+			worldChunks.put(chunkKey, count);
+		}
+
+		count.increment(delta);
+		assert count.getValue() >= 0;
+		if (count.getValue() <= 0) {
+			worldChunks.remove(chunkKey);
+			if (worldChunks.isEmpty()) {
+				protectedChunksByWorld.remove(worldName);
+			}
+		}
+	}
+
+	void clear() {
+		protectedChunksByWorld.clear();
+	}
+
+	/**
+	 * Checks if the chunk of the specified block might contain protected blocks.
+	 * <p>
+	 * If this returns <code>false</code>, the block is guaranteed to not be protected.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param blockX
+	 *            the block x coordinate
+	 * @param blockZ
+	 *            the block z coordinate
+	 * @return <code>true</code> if the block's chunk might contain protected blocks
+	 */
+	boolean isProtectedChunk(String worldName, int blockX, int blockZ) {
+		LongHashMap<MutableLong> worldChunks = protectedChunksByWorld.get(worldName);
+		if (worldChunks == null) return false;
+		long chunkKey = getChunkKey(ChunkCoords.fromBlock(blockX), ChunkCoords.fromBlock(blockZ));
+		return worldChunks.containsKey(chunkKey);
+	}
+}
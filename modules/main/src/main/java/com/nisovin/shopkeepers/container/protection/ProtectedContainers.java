@@ -71,7 +71,9 @@ public class ProtectedContainers {
 	private final SKShopkeepersPlugin plugin;
 	private final ContainerProtectionListener containerProtectionListener = new ContainerProtectionListener(Unsafe.initialized(this));
 	private final InventoryMoveItemListener inventoryMoveItemListener = new InventoryMoveItemListener(Unsafe.initialized(this));
+	private final ContainerChangeListener containerChangeListener = new ContainerChangeListener(Unsafe.initialized(this));
 	private final Map<BlockLocation, List<AbstractPlayerShopkeeper>> protectedContainers = new HashMap<>();
+	private final ProtectedChunks protectedChunks = new ProtectedChunks();
 
 	public ProtectedContainers(SKShopkeepersPlugin plugin) {
 		this.plugin = plugin;
@@ -84,13 +86,17 @@ public class ProtectedContainers {
 				Bukkit.getPluginManager().registerEvents(inventoryMoveItemListener, plugin);
 			}
 		}
+		// Independent of the container protection:
+		Bukkit.getPluginManager().registerEvents(containerChangeListener, plugin);
 	}
 
 	public void disable() {
 		// Cleanup:
 		HandlerList.unregisterAll(containerProtectionListener);
 		HandlerList.unregisterAll(inventoryMoveItemListener);
+		HandlerList.unregisterAll(containerChangeListener);
 		protectedContainers.clear();
+		protectedChunks.clear();
 	}
 
 	private BlockLocation getSharedKey(String worldName, int x, int y, int z) {
@@ -108,23 +114,39 @@ public class ProtectedContainers {
 		);
 		assert shopkeepers != null;
 		shopkeepers.add(shopkeeper);
+		protectedChunks.addContainer(location);
 	}
 
 	public void removeContainer(BlockLocation location, AbstractPlayerShopkeeper shopkeeper) {
 		Validate.notNull(location, "location is null");
 		Validate.notNull(shopkeeper, "shopkeeper is null");
-		// This operation either updates the value inside the Map, or removes it. It does not insert
-		// a new entry for the passed key. We can therefore safely use the given location, without
-		// first creating an immutable copy of it.
-		protectedContainers.computeIfPresent(location, (key, shopkeepers) -> {
-			shopkeepers.remove(shopkeeper);
-			if (shopkeepers.isEmpty()) {
-				// TODO Requires uncheckedNull due to Checker Framework limitation
-				return Unsafe.uncheckedNull(); // Removes the mapping
-			} else {
-				return shopkeepers; // Keeps the updated mapping
-			}
-		});
+		// We only look up and remove existing entries. We can therefore safely use the given
+		// location, without first creating an immutable copy of it.
+		List<AbstractPlayerShopkeeper> shopkeepers = protectedContainers.get(location);
+		if (shopkeepers == null || !shopkeepers.remove(shopkeeper)) return;
+
+		protectedChunks.removeContainer(location);
+		if (shopkeepers.isEmpty()) {
+			protectedContainers.remove(location);
+		}
+	}
+
+	/**
+	 * Quickly checks if the chunk of the specified block might contain any protected containers.
+	 * <p>
+	 * This does not access the block. If this returns <code>false</code>, the block is guaranteed
+	 * to not be protected, neither directly nor by a connected chest.
+	 * 
+	 * @param worldName
+	 *            the world name
+	 * @param x
+	 *            the block x coordinate
+	 * @param z
+	 *            the block z coordinate
+	 * @return <code>true</code> if the block's chunk might contain protected containers
+	 */
+	public boolean isInProtectedChunk(String worldName, int x, int z) {
+		return protectedChunks.isProtectedChunk(worldName, x, z);
 	}
 
 	// Gets the shopkeepers that are directly using the container at the specified location:
@@ -269,6 +291,18 @@ public class ProtectedContainers {
 		return result;
 	}
 
+	// Informs the shopkeepers which use the given container block (directly or by a connected
+	// chest) that the container contents might have changed:
+	void onContainerContentsChanged(Block containerBlock) {
+		this.getShopkeepersUsingContainer(containerBlock, tempResultsList);
+		for (AbstractPlayerShopkeeper shopkeeper : tempResultsList) {
+			shopkeeper.invalidateTradingRecipes();
+		}
+
+		// Cleanup temporary results list:
+		tempResultsList.clear();
+	}
+
 	/**
 	 * Checks if the given block is a protected shop container.
 	 * <p>
@@ -36,6 +36,8 @@ public final class Currencies {
 	// compat provider is not available yet at this point. The default data is assumed to be valid.
 	// Also, we load the currencies again with full validation after the config has been loaded.
 	private static boolean SKIP_ITEM_DATA_CHECK = true;
+	// Incremented whenever the currencies are (re)loaded, i.e. whenever the settings have changed:
+	private static int VERSION = 0;
 
 	static {
 		load();
@@ -43,6 +45,7 @@ public final class Currencies {
 	}
 
 	public static void load() {
+		VERSION++;
 		ALL.clear();
 		// TODO Load the display name from the config.
 		add(new Currency("base", "base", Settings.currencyItem, 1));
@@ -57,6 +60,18 @@ public final class Currencies {
 		Validate.State.isTrue(getBase().getValue() == 1, "There is no currency with value 1!");
 	}
 
+	/**
+	 * Gets a number that changes whenever the currencies are reloaded.
+	 * <p>
+	 * This can be used to detect when cached data that depends on the currencies needs to be
+	 * updated.
+	 * 
+	 * @return the current version of the currencies
+	 */
+	public static int getVersion() {
+		return VERSION;
+	}
+
 	private static void add(Currency currency) {
 		assert currency != null;
 		assert !ALL.contains(currency);
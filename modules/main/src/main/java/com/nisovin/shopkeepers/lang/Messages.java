@@ -999,6 +999,18 @@ public class Messages extends Config {
 	public static Text historyEntryAdminShop = Text.parse("&eAdmin Shop");
 	public static Text historyEntryTradeCount = Text.parse("&7 (&6{count}x&7)");
 
+	public static Text statsHeader = Text.parse("&9Trade statistics of {subject}&9:");
+	public static Text statsHeaderOwnedShops = Text.parse("shops owned by &e{owner}");
+	public static Text statsHeaderShop = Text.parse("shop &e\"{shop}\"");
+	public static Text statsHeaderItem = Text.parse("item &e{item}");
+
+	public static Text statsDisabled = Text.parse("&7The trade statistics are disabled. They require the SQLITE trade log storage.");
+
+	public static Text statsEntry = Text.parse("  &e{period}&7: &f{trades}&7 trades, &f{resultItems}&7 traded items");
+	public static Text statsPeriodLastDay = Text.parse("Last 24 hours");
+	public static Text statsPeriodLastWeek = Text.parse("Last 7 days");
+	public static Text statsPeriodLastMonth = Text.parse("Last 30 days");
+
 	public static Text noPermission = Text.parse("&cYou don't have the permission to do that.");
 	public static Text commandCreateNoPermission = Text.parse("&cYou don't have the permission to do that.\n"
 			+ "&eIf you are trying to create a player shop, use the shop creation item instead.");
@@ -1043,6 +1055,7 @@ public class Messages extends Config {
 	public static Text commandDescriptionNotify = Text.parse("Turns trade notifications for you on or off.");
 	public static Text commandDescriptionList = Text.parse("Lists all shops of a specific player, or all admin shops.");
 	public static Text commandDescriptionHistory = Text.parse("Shows the trading history.");
+	public static Text commandDescriptionStats = Text.parse("Shows the trade statistics of a shop, shop owner, or item.");
 	public static Text commandDescriptionRemove = Text.parse("Removes a specific shop.");
 	public static Text commandDescriptionRemoveAll = Text.parse("Removes all shops of a specific player, all players, or all admin shops.");
 	public static Text commandDescriptionGive = Text.parse("Gives shop creation item(s) to the specified player.");
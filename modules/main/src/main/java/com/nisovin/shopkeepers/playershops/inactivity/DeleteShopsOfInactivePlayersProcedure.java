@@ -168,13 +168,12 @@ class DeleteShopsOfInactivePlayersProcedure {
 	}
 
 	private void collectShopsOfInactivePlayers() {
-		shopkeeperRegistry.getAllPlayerShopkeepers().forEach(playerShop -> {
-			// If the shop is owned by an inactive player, remember it for removal:
-			User shopOwner = playerShop.getOwnerUser();
-			InactivePlayerData inactivePlayerData = inactivePlayers.get(shopOwner);
-			if (inactivePlayerData != null) {
-				inactivePlayerData.getShopkeepers().add(playerShop);
-			}
+		inactivePlayers.forEach((shopOwner, nullableInactivePlayerData) -> {
+			InactivePlayerData inactivePlayerData = Unsafe.assertNonNull(nullableInactivePlayerData);
+			// Remember the shops of the inactive player for removal:
+			inactivePlayerData.getShopkeepers().addAll(
+					shopkeeperRegistry.getPlayerShopkeepersByOwner(shopOwner.getUniqueId())
+			);
 		});
 		// Note: For some inactive shop owners we might no longer find any shopkeepers. Their
 		// entries will then not contain any shopkeepers.
@@ -1364,6 +1364,13 @@ public abstract class AbstractShopkeeper implements Shopkeeper {
 
 		// Update the name of the shop object:
 		shopObject.setName(preparedName);
+
+		// Inform shopkeeper registry:
+		// This also covers name changes during the loading of the dynamic state of already
+		// registered shopkeepers, e.g. when a snapshot is applied.
+		if (this.isValid()) {
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onShopkeeperNameChanged(this);
+		}
 	}
 
 	private String prepareName(@Nullable String name) {
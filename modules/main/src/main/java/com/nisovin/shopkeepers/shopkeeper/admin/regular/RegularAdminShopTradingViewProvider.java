@@ -0,0 +1,23 @@
+package com.nisovin.shopkeepers.shopkeeper.admin.regular;
+
+import org.bukkit.entity.Player;
+
+import com.nisovin.shopkeepers.shopkeeper.admin.AbstractAdminShopkeeper.AdminShopTradingViewProvider;
+
+public class RegularAdminShopTradingViewProvider extends AdminShopTradingViewProvider {
+
+	protected RegularAdminShopTradingViewProvider(SKRegularAdminShopkeeper shopkeeper) {
+		super(shopkeeper);
+	}
+
+	@Override
+	public SKRegularAdminShopkeeper getShopkeeper() {
+		return (SKRegularAdminShopkeeper) super.getShopkeeper();
+	}
+
+	@Override
+	protected int getTradingRecipesVersion(Player player) {
+		// The trading recipes are the same for all players:
+		return this.getShopkeeper().getOffersVersion();
+	}
+}
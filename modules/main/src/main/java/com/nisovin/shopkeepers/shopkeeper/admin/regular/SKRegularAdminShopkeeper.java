@@ -33,6 +33,8 @@ public class SKRegularAdminShopkeeper
 	// There can be multiple different offers for the same kind of item:
 	private final List<SKTradeOffer> offers = new ArrayList<>();
 	private final List<? extends SKTradeOffer> offersView = Collections.unmodifiableList(offers);
+	// Incremented whenever the offers are modified:
+	private int offersVersion = 0;
 
 	/**
 	 * Creates a not yet initialized {@link SKRegularAdminShopkeeper}.
@@ -44,6 +46,9 @@ public class SKRegularAdminShopkeeper
 
 	@Override
 	protected void setup() {
+		this.registerViewProviderIfMissing(DefaultUITypes.TRADING(), () -> {
+			return new RegularAdminShopTradingViewProvider(this);
+		});
 		this.registerViewProviderIfMissing(DefaultUITypes.EDITOR(), () -> {
 			return new RegularAdminShopEditorViewProvider(this);
 		});
@@ -148,6 +153,20 @@ public class SKRegularAdminShopkeeper
 		return offersView;
 	}
 
+	/**
+	 * Gets the version of the offers of this shopkeeper.
+	 * <p>
+	 * The version is incremented whenever the offers are modified. Since the trading recipes of
+	 * this shopkeeper are the same for all players and only change together with the offers, the
+	 * version can be used to detect whether previously created trading recipes are still
+	 * up-to-date.
+	 * 
+	 * @return the offers version
+	 */
+	public int getOffersVersion() {
+		return offersVersion;
+	}
+
 	@Override
 	public void clearOffers() {
 		this._clearOffers();
@@ -156,6 +175,7 @@ public class SKRegularAdminShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		offersVersion++;
 	}
 
 	@Override
@@ -186,6 +206,7 @@ public class SKRegularAdminShopkeeper
 
 		// Add the new offer:
 		offers.add(skOffer);
+		offersVersion++;
 	}
 
 	@Override
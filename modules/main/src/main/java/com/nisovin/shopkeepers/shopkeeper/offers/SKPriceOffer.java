@@ -28,6 +28,7 @@ import com.nisovin.shopkeepers.util.data.serialization.bukkit.ItemStackSerialize
 import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.java.NumberSerializers;
 import com.nisovin.shopkeepers.util.inventory.ItemMigration;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -41,7 +42,8 @@ public class SKPriceOffer implements PriceOffer {
 	/**
 	 * Creates a new {@link SKPriceOffer}.
 	 * <p>
-	 * The given item stack is copied before it is stored by the price offer.
+	 * The given item stack is copied before it is stored by the price offer. Equal item stacks are
+	 * shared with other offers (see {@link ItemStackInterner}).
 	 * 
 	 * @param item
 	 *            the item being traded, not <code>null</code> or empty
@@ -56,7 +58,8 @@ public class SKPriceOffer implements PriceOffer {
 	 * Creates a new {@link SKPriceOffer}.
 	 * <p>
 	 * The given item stack is assumed to be immutable and therefore not copied before it is stored
-	 * by the price offer.
+	 * by the price offer. However, it may be replaced with an equal item stack that is shared with
+	 * other offers (see {@link ItemStackInterner}).
 	 * 
 	 * @param item
 	 *            the item being traded, not <code>null</code> or empty
@@ -66,7 +69,7 @@ public class SKPriceOffer implements PriceOffer {
 	public SKPriceOffer(UnmodifiableItemStack item, int price) {
 		Validate.isTrue(!ItemUtils.isEmpty(item), "item is empty");
 		Validate.isTrue(price > 0, "price has to be positive");
-		this.item = item;
+		this.item = ItemStackInterner.intern(item);
 		this.price = price;
 	}
 
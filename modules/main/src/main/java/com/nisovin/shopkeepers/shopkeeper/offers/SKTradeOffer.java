@@ -28,6 +28,7 @@ import com.nisovin.shopkeepers.util.data.serialization.MissingDataException;
 import com.nisovin.shopkeepers.util.data.serialization.bukkit.ItemStackSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
 import com.nisovin.shopkeepers.util.inventory.ItemMigration;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -39,7 +40,8 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 	/**
 	 * Creates a new {@link SKTradeOffer}.
 	 * <p>
-	 * The given item stacks are copied before they are stored by the trade offer.
+	 * The given item stacks are copied before they are stored by the trade offer. Equal item stacks
+	 * are shared with other offers (see {@link ItemStackInterner}).
 	 * 
 	 * @param resultItem
 	 *            the result item, not empty
@@ -53,14 +55,19 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			@ReadOnly ItemStack item1,
 			@ReadOnly @Nullable ItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		this(
+				ItemUtils.nonNullUnmodifiableClone(resultItem),
+				ItemUtils.nonNullUnmodifiableClone(item1),
+				ItemUtils.unmodifiableClone(item2)
+		);
 	}
 
 	/**
 	 * Creates a new {@link SKTradeOffer}.
 	 * <p>
 	 * The given item stacks are assumed to be immutable and therefore not copied before they are
-	 * stored by the trade offer.
+	 * stored by the trade offer. However, they may be replaced with equal item stacks that are
+	 * shared with other offers (see {@link ItemStackInterner}).
 	 * 
 	 * @param resultItem
 	 *            the result item, not empty
@@ -74,7 +81,11 @@ public class SKTradeOffer extends SKTradingRecipe implements TradeOffer {
 			UnmodifiableItemStack item1,
 			@Nullable UnmodifiableItemStack item2
 	) {
-		super(resultItem, item1, item2);
+		super(
+				ItemStackInterner.intern(resultItem),
+				ItemStackInterner.intern(item1),
+				ItemStackInterner.intern(item2)
+		);
 	}
 
 	@Override
@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.bukkit.Bukkit;
@@ -80,6 +81,7 @@ import com.nisovin.shopkeepers.util.data.serialization.java.StringSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.java.UUIDSerializers;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemMigration;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
@@ -446,6 +448,11 @@ public abstract class AbstractPlayerShopkeeper
 
 		// Inform the shop object:
 		this.getShopObject().onShopOwnerChanged();
+
+		// Inform shopkeeper registry:
+		if (this.isValid()) {
+			SKShopkeepersPlugin.getInstance().getShopkeeperRegistry().onPlayerShopOwnerChanged(this);
+		}
 	}
 
 	public User getOwnerUser() {
@@ -802,7 +809,7 @@ public abstract class AbstractPlayerShopkeeper
 			}
 		} else {
 			// Set for hire:
-			this.hireCost = Unsafe.assertNonNull(hireCost);
+			this.hireCost = ItemStackInterner.intern(Unsafe.assertNonNull(hireCost));
 			this.setName(Messages.forHireTitle);
 		}
 		// TODO Close any currently open hiring UIs for players.
@@ -920,6 +927,9 @@ public abstract class AbstractPlayerShopkeeper
 		if (this.isValid()) {
 			this.protectContainers();
 		}
+
+		// The stock might have changed:
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -992,6 +1002,9 @@ public abstract class AbstractPlayerShopkeeper
 		var newType = (type == null) ? container.getType() : type;
 		containers.set(index, container.withType(newType));
 		this.markDirty();
+
+		// The stock might have changed:
+		this.invalidateTradingRecipes();
 	}
 
 	@Deprecated
@@ -1119,6 +1132,64 @@ public abstract class AbstractPlayerShopkeeper
 		return CurrencyInventoryUtils.countCurrency(contents);
 	}
 
+	// TRADING RECIPES
+
+	// The cached trading recipes expire after this duration. This bounds how long we keep stale
+	// trading recipes after container changes that we do not detect, such as changes by other
+	// plugins, or containers that become unavailable.
+	private static final long TRADING_RECIPES_MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	// The trading recipes are cached, together with the currencies they were created for. The
+	// cache is invalidated when the offers, the containers, or the container contents change.
+	private @Nullable List<? extends TradingRecipe> cachedTradingRecipes = null;
+	private int cachedTradingRecipesCurrenciesVersion = 0;
+	private long cachedTradingRecipesNanos = 0L;
+
+	@Override
+	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
+		int currenciesVersion = Currencies.getVersion();
+		long nowNanos = System.nanoTime();
+
+		@Nullable List<? extends TradingRecipe> tradingRecipes = cachedTradingRecipes;
+		if (tradingRecipes != null
+				&& cachedTradingRecipesCurrenciesVersion == currenciesVersion
+				&& nowNanos - cachedTradingRecipesNanos < TRADING_RECIPES_MAX_AGE_NANOS) {
+			return tradingRecipes;
+		}
+
+		// Empty if no stock containers are found:
+		StockIndex stock = StockIndex.of(this.getStockContainerContents());
+		tradingRecipes = this.createTradingRecipes(stock);
+		cachedTradingRecipes = tradingRecipes;
+		cachedTradingRecipesCurrenciesVersion = currenciesVersion;
+		cachedTradingRecipesNanos = nowNanos;
+		return tradingRecipes;
+	}
+
+	/**
+	 * Creates the trading recipes of this shopkeeper.
+	 * <p>
+	 * The created trading recipes are cached until the currencies change, or until
+	 * {@link #invalidateTradingRecipes()} is invoked, e.g. when the contents of the shopkeeper's
+	 * containers change. They are therefore not allowed to depend on the trading player, and are
+	 * expected to derive all stock information from the given {@link StockIndex}.
+	 * 
+	 * @param stock
+	 *            the current contents of the shopkeeper's stock containers, not <code>null</code>
+	 * @return the trading recipes, not <code>null</code>
+	 */
+	protected abstract List<? extends TradingRecipe> createTradingRecipes(StockIndex stock);
+
+	/**
+	 * Invalidates the cached trading recipes.
+	 * <p>
+	 * This needs to be invoked whenever there are changes to the shopkeeper that affect its trading
+	 * recipes, such as changes to its offers or to the contents of its containers.
+	 */
+	public final void invalidateTradingRecipes() {
+		cachedTradingRecipes = null;
+	}
+
 	// Returns null (and logs a warning) if the price cannot be represented correctly by currency
 	// items.
 	protected final @Nullable TradingRecipe createSellingRecipe(
@@ -55,13 +55,38 @@ public final class PlayerShopTaxUtils {
 			@ReadOnly List<@ReadOnly @Nullable ItemStack @ReadWrite []> contentsList,
 			@Nullable UnmodifiableItemStack itemStack
 	) {
+		return addItemsAfterTaxes(contentsList, itemStack, 1);
+	}
+
+	/**
+	 * Applies taxes to the given item stack and adds the remaining items for the specified number
+	 * of trades to the given list of inventory contents.
+	 * <p>
+	 * The taxes are applied for each trade individually, so that the result matches the separate
+	 * application of each trade.
+	 * 
+	 * @param contentsList
+	 *            the list of contents, not <code>null</code>
+	 * @param itemStack
+	 *            the item stack to add per trade, not <code>null</code>
+	 * @param tradeCount
+	 *            the number of trades, at least <code>1</code>
+	 * @return the amount of items that could not be added, or <code>0</code> if all items were
+	 *         added
+	 */
+	public static int addItemsAfterTaxes(
+			@ReadOnly List<@ReadOnly @Nullable ItemStack @ReadWrite []> contentsList,
+			@Nullable UnmodifiableItemStack itemStack,
+			int tradeCount
+	) {
+		assert tradeCount >= 1;
 		if (ItemUtils.isEmpty(itemStack)) return 0;
 		assert itemStack != null;
 
 		int amountAfterTaxes = getAmountAfterTaxes(itemStack.getAmount());
 		if (amountAfterTaxes <= 0) return 0;
 
-		return InventoryUtils.addItems(contentsList, itemStack, amountAfterTaxes);
+		return InventoryUtils.addItems(contentsList, itemStack, amountAfterTaxes * tradeCount);
 	}
 
 	private PlayerShopTaxUtils() {
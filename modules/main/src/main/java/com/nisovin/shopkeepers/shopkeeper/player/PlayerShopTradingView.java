@@ -127,6 +127,100 @@ public class PlayerShopTradingView extends TradingView {
 		return true;
 	}
 
+	@Override
+	protected int getMaxBulkTradeCount(Trade trade, int maxTradeCount) {
+		int tradeCount = super.getMaxBulkTradeCount(trade, maxTradeCount);
+		if (tradeCount <= 1) return tradeCount;
+
+		// Binary search for the max number of trades whose changes the containers can hold:
+		// The required items and space usually grow with the number of trades. Any returned count
+		// greater than 1 has been checked. If not even two trades can be applied at once, the
+		// trades are handled individually.
+		int low = 1;
+		int high = tradeCount;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.canUpdateContainers(trade, mid)) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	// Checks if the container changes of the given number of trades can be applied, without
+	// modifying the container contents of the current trade.
+	private boolean canUpdateContainers(Trade trade, int tradeCount) {
+		List<@Nullable ItemStack[]> stockContentsCopy = new ArrayList<>(stockContents.size());
+		List<@Nullable ItemStack[]> earningsContentsCopy = new ArrayList<>(earningsContents.size());
+		for (TradeContainer tradeContainer : tradeContainers) {
+			// Shallow copy: The inventory utilities copy any item stacks that they modify.
+			@Nullable ItemStack[] contentsCopy = tradeContainer.contents.clone();
+			if (tradeContainer.shopContainer.getType().isStock()) {
+				stockContentsCopy.add(contentsCopy);
+			}
+
+			if (tradeContainer.shopContainer.getType().isEarnings()) {
+				earningsContentsCopy.add(contentsCopy);
+			}
+		}
+		return this.updateContainers(
+				trade,
+				tradeCount,
+				stockContentsCopy,
+				earningsContentsCopy,
+				true
+		);
+	}
+
+	@Override
+	protected boolean finalTradePreparation(Trade trade) {
+		if (!super.finalTradePreparation(trade)) return false;
+
+		return this.updateContainers(
+				trade,
+				trade.getBulkTradeCount(),
+				stockContents,
+				earningsContents,
+				false
+		);
+	}
+
+	/**
+	 * Applies the changes of the given number of trades to the given contents of the shop's stock
+	 * and earnings containers.
+	 * <p>
+	 * This is called during {@link #finalTradePreparation(Trade)} with the container contents of
+	 * the current trade, and when determining how often a trade can be
+	 * {@link #getMaxBulkTradeCount(Trade, int) applied in bulk} with copies of these contents.
+	 * <p>
+	 * If the changes cannot be applied, the given contents might have been partially modified.
+	 * 
+	 * @param trade
+	 *            the trade, not <code>null</code>
+	 * @param tradeCount
+	 *            the number of trades, at least <code>1</code>
+	 * @param stockContents
+	 *            the contents of the stock containers, not <code>null</code>
+	 * @param earningsContents
+	 *            the contents of the earnings containers, not <code>null</code>
+	 * @param silent
+	 *            <code>true</code> to not inform the trading player if the changes cannot be
+	 *            applied
+	 * @return <code>true</code> if the changes were applied, <code>false</code> if the containers
+	 *         cannot hold the changes
+	 */
+	protected boolean updateContainers(
+			Trade trade,
+			int tradeCount,
+			List<@Nullable ItemStack[]> stockContents,
+			List<@Nullable ItemStack[]> earningsContents,
+			boolean silent
+	) {
+		return true;
+	}
+
 	@Override
 	protected void onTradeApplied(Trade trade) {
 		super.onTradeApplied(trade);
@@ -135,6 +229,7 @@ public class PlayerShopTradingView extends TradingView {
 		for (TradeContainer container : tradeContainers) {
 			container.inventory.setContents(container.contents);
 		}
+		this.getShopkeeperNonNull().invalidateTradingRecipes();
 	}
 
 	@Override
@@ -0,0 +1,171 @@
+package com.nisovin.shopkeepers.shopkeeper.player;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.currency.Currencies;
+import com.nisovin.shopkeepers.currency.Currency;
+import com.nisovin.shopkeepers.currency.CurrencyInventoryUtils;
+import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The aggregated contents of a player shop's stock containers, i.e. the total amounts of the
+ * contained {@link ItemStack#isSimilar(ItemStack) similar} items.
+ * <p>
+ * Looking up the amount of a certain item only compares the item with the distinct stock items of
+ * the same type, instead of with the contents of all slots of all stock containers.
+ */
+public final class StockIndex {
+
+	private static final class StockItem {
+
+		// Copy with an amount of 1:
+		private final ItemStack item;
+		private int amount;
+
+		StockItem(ItemStack item, int amount) {
+			this.item = item;
+			this.amount = amount;
+		}
+	}
+
+	/**
+	 * Creates a {@link StockIndex} for the given container contents.
+	 * 
+	 * @param contents
+	 *            the container contents, not <code>null</code>
+	 * @return the stock index
+	 */
+	public static StockIndex of(@ReadOnly @Nullable ItemStack @ReadOnly [] contents) {
+		Validate.notNull(contents, "contents is null");
+		StockIndex stockIndex = new StockIndex();
+		for (ItemStack itemStack : contents) {
+			if (ItemUtils.isEmpty(itemStack)) continue;
+			assert itemStack != null;
+			stockIndex.add(itemStack);
+		}
+		return stockIndex;
+	}
+
+	// In the order in which the items were first encountered:
+	private final List<StockItem> stockItems = new ArrayList<>();
+	private final Map<Material, List<StockItem>> stockItemsByType = new EnumMap<>(Material.class);
+
+	private StockIndex() {
+	}
+
+	private void add(@ReadOnly ItemStack itemStack) {
+		List<StockItem> stockItemsOfType = stockItemsByType.computeIfAbsent(
+				itemStack.getType(),
+				// There are usually only few different items of the same type:
+				type -> new ArrayList<>(1)
+		);
+		for (StockItem stockItem : stockItemsOfType) {
+			if (stockItem.item.isSimilar(itemStack)) {
+				stockItem.amount += itemStack.getAmount();
+				return;
+			}
+		}
+
+		// We store a copy, because the container contents may be mirrors of the live container
+		// items:
+		StockItem stockItem = new StockItem(
+				ItemUtils.copySingleItem(itemStack),
+				itemStack.getAmount()
+		);
+		stockItemsOfType.add(stockItem);
+		stockItems.add(stockItem);
+	}
+
+	/**
+	 * Gets the total amount of the stock items that are
+	 * {@link UnmodifiableItemStack#isSimilar(ItemStack) similar} to the given item.
+	 * 
+	 * @param itemStack
+	 *            the item, not <code>null</code>
+	 * @return the amount in stock
+	 */
+	public int getAmount(UnmodifiableItemStack itemStack) {
+		Validate.notNull(itemStack, "itemStack is null");
+		@Nullable List<StockItem> stockItemsOfType = stockItemsByType.get(itemStack.getType());
+		if (stockItemsOfType == null) return 0;
+
+		for (StockItem stockItem : stockItemsOfType) {
+			if (itemStack.isSimilar(stockItem.item)) {
+				return stockItem.amount;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Checks if there are at least the specified amount of stock items that are
+	 * {@link UnmodifiableItemStack#isSimilar(ItemStack) similar} to the given item.
+	 * 
+	 * @param itemStack
+	 *            the item, not <code>null</code>
+	 * @param amount
+	 *            the amount to check for
+	 * @return <code>true</code> if at least the specified amount of items is in stock
+	 */
+	public boolean containsAtLeast(UnmodifiableItemStack itemStack, int amount) {
+		if (amount <= 0) return true;
+		return this.getAmount(itemStack) >= amount;
+	}
+
+	/**
+	 * Checks if the stock contains any items of the given type.
+	 * 
+	 * @param type
+	 *            the item type, not <code>null</code>
+	 * @return <code>true</code> if the stock contains items of the given type
+	 */
+	public boolean containsType(Material type) {
+		Validate.notNull(type, "type is null");
+		return stockItemsByType.containsKey(type);
+	}
+
+	/**
+	 * Gets the total value of the currency items in stock.
+	 * 
+	 * @return the total currency value
+	 * @see CurrencyInventoryUtils#countCurrency(ItemStack[])
+	 */
+	public int countCurrency() {
+		int totalCurrency = 0;
+		for (StockItem stockItem : stockItems) {
+			Currency currency = Currencies.match(stockItem.item);
+			if (currency != null) {
+				totalCurrency += (stockItem.amount * currency.getValue());
+			}
+		}
+		return totalCurrency;
+	}
+
+	/**
+	 * Invokes the given action for each distinct stock item, in the order in which the items were
+	 * first encountered.
+	 * <p>
+	 * The passed items have an amount of <code>1</code> and are not allowed to be modified. The
+	 * passed amounts are the total amounts in stock.
+	 * 
+	 * @param action
+	 *            the action, not <code>null</code>
+	 */
+	public void forEachItem(ObjIntConsumer<? super @ReadOnly ItemStack> action) {
+		Validate.notNull(action, "action is null");
+		for (StockItem stockItem : stockItems) {
+			action.accept(stockItem.item, stockItem.amount);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.nisovin.shopkeepers.shopkeeper.player.book;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.bukkit.Material;
@@ -91,28 +92,42 @@ public class BookPlayerShopTradingView extends PlayerShopTradingView {
 	}
 
 	@Override
-	protected boolean finalTradePreparation(Trade trade) {
-		if (!super.finalTradePreparation(trade)) return false;
+	protected boolean updateContainers(
+			Trade trade,
+			int tradeCount,
+			List<@Nullable ItemStack[]> stockContents,
+			List<@Nullable ItemStack[]> earningsContents,
+			boolean silent
+	) {
+		if (!super.updateContainers(trade, tradeCount, stockContents, earningsContents, silent)) {
+			return false;
+		}
 
 		Player tradingPlayer = trade.getTradingPlayer();
 		BookOffer offer = Unsafe.assertNonNull(this.currentOffer);
 
-		// Remove a blank book from the stock containers:
-		if (InventoryUtils.removeItems(this.stockContents, WRITABLE_BOOK_MATCHER, 1) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientWritableBooks);
-			this.debugPreventedTrade(
-					"The shop's containers do not contain any writable (book-and-quill) items."
-			);
+		// Remove a blank book per trade from the stock containers:
+		if (InventoryUtils.removeItems(stockContents, WRITABLE_BOOK_MATCHER, tradeCount) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientWritableBooks);
+				this.debugPreventedTrade(
+						"The shop's containers do not contain any writable (book-and-quill) items."
+				);
+			}
 			return false;
 		}
 
 		// Add the earnings to the earnings containers:
 		// Note: We always use the configured currency items here, ignoring any modifications to the
 		// "received" items during the trade event.
+		// The taxes are applied per trade:
 		int amountAfterTaxes = PlayerShopTaxUtils.getAmountAfterTaxes(offer.getPrice());
-		if (CurrencyInventoryUtils.addCurrency(this.earningsContents, amountAfterTaxes) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
-			this.debugPreventedTrade("The shop's containers cannot hold the traded items.");
+		int earnings = amountAfterTaxes * tradeCount;
+		if (CurrencyInventoryUtils.addCurrency(earningsContents, earnings) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
+				this.debugPreventedTrade("The shop's containers cannot hold the traded items.");
+			}
 			return false;
 		}
 
@@ -9,7 +9,6 @@ import java.util.Map;
 
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.inventory.meta.BookMeta.Generation;
@@ -30,6 +29,7 @@ import com.nisovin.shopkeepers.shopkeeper.migration.MigrationPhase;
 import com.nisovin.shopkeepers.shopkeeper.migration.ShopkeeperDataMigrator;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKBookOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.StockIndex;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
 import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.data.property.BasicProperty;
@@ -99,10 +99,9 @@ public class SKBookPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		Map<? extends String, ? extends ItemStack> containerBooksByTitle
-				= this.getCopyableBooksFromStockContainers();
-		boolean hasBlankBooks = this.hasContainerBlankBooks();
+	protected List<? extends TradingRecipe> createTradingRecipes(StockIndex stock) {
+		Map<? extends String, ? extends ItemStack> containerBooksByTitle = getCopyableBooks(stock);
+		boolean hasBlankBooks = stock.containsType(Material.WRITABLE_BOOK);
 		List<? extends BookOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(bookOffer -> {
@@ -145,48 +144,28 @@ public class SKBookPlayerShopkeeper
 	 *         found
 	 */
 	protected Map<? extends String, ? extends ItemStack> getCopyableBooksFromStockContainers() {
+		// Empty if no stock containers are found:
+		return getCopyableBooks(StockIndex.of(this.getStockContainerContents()));
+	}
+
+	// The returned book items are not allowed to be modified.
+	private static Map<? extends String, ? extends ItemStack> getCopyableBooks(StockIndex stock) {
 		// Linked Map: Preserves the order of encountered items.
 		Map<String, ItemStack> booksByTitle = new LinkedHashMap<>();
-		// Empty if no stock containers are found:
-		@Nullable ItemStack[] stockContainerContents = this.getStockContainerContents();
-		for (ItemStack itemStack : stockContainerContents) {
-			if (itemStack == null) continue;
+		stock.forEachItem((itemStack, amount) -> {
 			BookMeta bookMeta = BookItems.getBookMeta(itemStack);
-			if (bookMeta == null) continue; // Not a written book
-			if (!BookItems.isCopyable(bookMeta)) continue;
+			if (bookMeta == null) return; // Not a written book
+			if (!BookItems.isCopyable(bookMeta)) return;
 			String title = BookItems.getTitle(bookMeta);
-			if (title == null) continue;
+			if (title == null) return;
 
 			// The item is ignored if we already encountered another book item with the same title
 			// before:
 			booksByTitle.putIfAbsent(title, itemStack);
-		}
+		});
 		return booksByTitle;
 	}
 
-	/**
-	 * Checks if any of the shopkeeper's stock containers contains blank books (i.e. items of type
-	 * {@link Material#WRITABLE_BOOK}).
-	 * 
-	 * @return <code>true</code> if the stock containers contain blank books
-	 */
-	protected boolean hasContainerBlankBooks() {
-		for (var container : this.getContainers()) {
-			if (!container.getType().isStock()) {
-				continue;
-			}
-
-			Inventory containerInventory = container.getInventory();
-			if (containerInventory == null) continue; // Container not found
-
-			if (containerInventory.contains(Material.WRITABLE_BOOK)) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	/**
 	 * Creates a dummy book {@link ItemStack} that acts as substitute representation of the book
 	 * item with the given title.
@@ -297,6 +276,7 @@ public class SKBookPlayerShopkeeper
 		while (iterator.hasNext()) {
 			if (iterator.next().getBookTitle().equals(bookTitle)) {
 				iterator.remove();
+				this.invalidateTradingRecipes();
 				this.markDirty();
 				break;
 			}
@@ -311,6 +291,7 @@ public class SKBookPlayerShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -345,6 +326,7 @@ public class SKBookPlayerShopkeeper
 
 		// Add the new offer:
 		offers.add(skOffer);
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -1,6 +1,9 @@
 package com.nisovin.shopkeepers.shopkeeper.player.buy;
 
+import java.util.List;
+
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
@@ -72,8 +75,16 @@ public class BuyingPlayerShopTradingView extends PlayerShopTradingView {
 	}
 
 	@Override
-	protected boolean finalTradePreparation(Trade trade) {
-		if (!super.finalTradePreparation(trade)) return false;
+	protected boolean updateContainers(
+			Trade trade,
+			int tradeCount,
+			List<@Nullable ItemStack[]> stockContents,
+			List<@Nullable ItemStack[]> earningsContents,
+			boolean silent
+	) {
+		if (!super.updateContainers(trade, tradeCount, stockContents, earningsContents, silent)) {
+			return false;
+		}
 
 		Player tradingPlayer = trade.getTradingPlayer();
 		PriceOffer offer = Unsafe.assertNonNull(this.currentOffer);
@@ -81,16 +92,24 @@ public class BuyingPlayerShopTradingView extends PlayerShopTradingView {
 		// Remove the currency items from the stock containers:
 		// Note: We always use the configured currency items here, ignoring any modifications to the
 		// "result" item during the trade event.
-		int remaining = CurrencyInventoryUtils.removeCurrency(this.stockContents, offer.getPrice());
+		int remaining = CurrencyInventoryUtils.removeCurrency(
+				stockContents,
+				offer.getPrice() * tradeCount
+		);
 		if (remaining > 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientCurrency);
-			this.debugPreventedTrade("The shop's containers do not contain enough currency.");
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientCurrency);
+				this.debugPreventedTrade("The shop's containers do not contain enough currency.");
+			}
 			return false;
 		} else if (remaining < 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
-			this.debugPreventedTrade(
-					"The shop's containers do not have enough space to split large currency items."
-			);
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
+				this.debugPreventedTrade(
+						"The shop's containers do not have enough space to split large currency"
+								+ " items."
+				);
+			}
 			return false;
 		}
 
@@ -105,10 +124,16 @@ public class BuyingPlayerShopTradingView extends PlayerShopTradingView {
 		UnmodifiableItemStack receivedItem1 = tradeEvent.getReceivedItem1();
 		UnmodifiableItemStack receivedItem2 = tradeEvent.getReceivedItem2();
 
-		if (PlayerShopTaxUtils.addItemsAfterTaxes(this.earningsContents, receivedItem1) != 0
-				|| PlayerShopTaxUtils.addItemsAfterTaxes(this.earningsContents, receivedItem2) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
-			this.debugPreventedTrade("The shop's containers cannot hold the received items.");
+		if (PlayerShopTaxUtils.addItemsAfterTaxes(earningsContents, receivedItem1, tradeCount) != 0
+				|| PlayerShopTaxUtils.addItemsAfterTaxes(
+						earningsContents,
+						receivedItem2,
+						tradeCount
+				) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
+				this.debugPreventedTrade("The shop's containers cannot hold the received items.");
+			}
 			return false;
 		}
 
@@ -22,6 +22,7 @@ import com.nisovin.shopkeepers.shopkeeper.migration.MigrationPhase;
 import com.nisovin.shopkeepers.shopkeeper.migration.ShopkeeperDataMigrator;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.StockIndex;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
 import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.data.property.BasicProperty;
@@ -106,8 +107,8 @@ public class SKBuyingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		int currencyInContainer = this.getCurrencyInContainer();
+	protected List<? extends TradingRecipe> createTradingRecipes(StockIndex stock) {
+		int currencyInContainer = stock.countCurrency();
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
@@ -195,6 +196,7 @@ public class SKBuyingPlayerShopkeeper
 			PriceOffer offer = iterator.next();
 			if (offer.getItem().isSimilar(tradedItem)) {
 				iterator.remove();
+				this.invalidateTradingRecipes();
 				this.markDirty();
 				break;
 			}
@@ -215,6 +217,7 @@ public class SKBuyingPlayerShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -248,6 +251,7 @@ public class SKBuyingPlayerShopkeeper
 
 		// Add the new offer:
 		offers.add(skOffer);
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
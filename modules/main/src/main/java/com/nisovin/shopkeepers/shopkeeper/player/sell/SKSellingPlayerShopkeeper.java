@@ -22,12 +22,12 @@ import com.nisovin.shopkeepers.shopkeeper.migration.MigrationPhase;
 import com.nisovin.shopkeepers.shopkeeper.migration.ShopkeeperDataMigrator;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKPriceOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.StockIndex;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
 import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.data.property.BasicProperty;
 import com.nisovin.shopkeepers.util.data.property.Property;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
-import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -107,20 +107,14 @@ public class SKSellingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		// Empty if no stock containers are found:
-		@Nullable ItemStack[] stockContainerContents = this.getStockContainerContents();
+	protected List<? extends TradingRecipe> createTradingRecipes(StockIndex stock) {
 		List<? extends PriceOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
 			// Both the offer's and the trading recipe's items are immutable. So there is no need to
 			// copy the item.
 			UnmodifiableItemStack tradedItem = offer.getItem();
-			boolean outOfStock = !InventoryUtils.containsAtLeast(
-					stockContainerContents,
-					tradedItem,
-					tradedItem.getAmount()
-			);
+			boolean outOfStock = !stock.containsAtLeast(tradedItem, tradedItem.getAmount());
 			TradingRecipe recipe = this.createSellingRecipe(
 					tradedItem,
 					offer.getPrice(),
@@ -201,6 +195,7 @@ public class SKSellingPlayerShopkeeper
 			PriceOffer offer = iterator.next();
 			if (offer.getItem().isSimilar(tradedItem)) {
 				iterator.remove();
+				this.invalidateTradingRecipes();
 				this.markDirty();
 				break;
 			}
@@ -221,6 +216,7 @@ public class SKSellingPlayerShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -254,6 +250,7 @@ public class SKSellingPlayerShopkeeper
 
 		// Add the new offer:
 		offers.add(skOffer);
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -1,6 +1,9 @@
 package com.nisovin.shopkeepers.shopkeeper.player.sell;
 
+import java.util.List;
+
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
@@ -16,6 +19,7 @@ import com.nisovin.shopkeepers.ui.trading.Trade;
 import com.nisovin.shopkeepers.ui.trading.TradingContext;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 
 public class SellingPlayerShopTradingView extends PlayerShopTradingView {
 
@@ -72,8 +76,16 @@ public class SellingPlayerShopTradingView extends PlayerShopTradingView {
 	}
 
 	@Override
-	protected boolean finalTradePreparation(Trade trade) {
-		if (!super.finalTradePreparation(trade)) return false;
+	protected boolean updateContainers(
+			Trade trade,
+			int tradeCount,
+			List<@Nullable ItemStack[]> stockContents,
+			List<@Nullable ItemStack[]> earningsContents,
+			boolean silent
+	) {
+		if (!super.updateContainers(trade, tradeCount, stockContents, earningsContents, silent)) {
+			return false;
+		}
 
 		Player tradingPlayer = trade.getTradingPlayer();
 		TradingRecipe tradingRecipe = trade.getTradingRecipe();
@@ -84,19 +96,31 @@ public class SellingPlayerShopTradingView extends PlayerShopTradingView {
 		// "result" item during the trade event. The trading player will still receive the modified
 		// result item.
 		UnmodifiableItemStack soldItem = tradingRecipe.getResultItem();
-		if (InventoryUtils.removeItems(this.stockContents, soldItem) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStock);
-			this.debugPreventedTrade("The shop's containers do not contain the required items.");
+		if (InventoryUtils.removeItems(
+				stockContents,
+				ItemUtils.similarItems(soldItem),
+				soldItem.getAmount() * tradeCount
+		) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStock);
+				this.debugPreventedTrade(
+						"The shop's containers do not contain the required items."
+				);
+			}
 			return false;
 		}
 
 		// Add the earnings to the earnings containers:
 		// Note: We always use the configured currency items here, ignoring any modifications to the
 		// "received" items during the subsequent trade event.
+		// The taxes are applied per trade:
 		int amountAfterTaxes = PlayerShopTaxUtils.getAmountAfterTaxes(offer.getPrice());
-		if (CurrencyInventoryUtils.addCurrency(this.earningsContents, amountAfterTaxes) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
-			this.debugPreventedTrade("The shop's containers cannot hold the traded items.");
+		int earnings = amountAfterTaxes * tradeCount;
+		if (CurrencyInventoryUtils.addCurrency(earningsContents, earnings) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
+				this.debugPreventedTrade("The shop's containers cannot hold the traded items.");
+			}
 			return false;
 		}
 
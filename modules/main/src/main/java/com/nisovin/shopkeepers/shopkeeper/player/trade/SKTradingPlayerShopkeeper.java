@@ -21,11 +21,11 @@ import com.nisovin.shopkeepers.shopkeeper.migration.MigrationPhase;
 import com.nisovin.shopkeepers.shopkeeper.migration.ShopkeeperDataMigrator;
 import com.nisovin.shopkeepers.shopkeeper.offers.SKTradeOffer;
 import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.StockIndex;
 import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.data.property.BasicProperty;
 import com.nisovin.shopkeepers.util.data.property.Property;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
-import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
@@ -104,18 +104,12 @@ public class SKTradingPlayerShopkeeper
 	}
 
 	@Override
-	public List<? extends TradingRecipe> getTradingRecipes(@Nullable Player player) {
-		// Empty if no stock containers are found:
-		@Nullable ItemStack[] stockContainerContents = this.getStockContainerContents();
+	protected List<? extends TradingRecipe> createTradingRecipes(StockIndex stock) {
 		List<? extends TradeOffer> offers = this.getOffers();
 		List<TradingRecipe> recipes = new ArrayList<>(offers.size());
 		offers.forEach(offer -> {
 			UnmodifiableItemStack resultItem = offer.getResultItem();
-			boolean outOfStock = !InventoryUtils.containsAtLeast(
-					stockContainerContents,
-					resultItem,
-					resultItem.getAmount()
-			);
+			boolean outOfStock = !stock.containsAtLeast(resultItem, resultItem.getAmount());
 			TradingRecipe recipe = SKTradeOffer.toTradingRecipe(offer, outOfStock);
 			recipes.add(recipe);
 		});
@@ -192,6 +186,7 @@ public class SKTradingPlayerShopkeeper
 
 	private void _clearOffers() {
 		offers.clear();
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -222,6 +217,7 @@ public class SKTradingPlayerShopkeeper
 
 		// Add the new offer:
 		offers.add(skOffer);
+		this.invalidateTradingRecipes();
 	}
 
 	@Override
@@ -1,6 +1,10 @@
 package com.nisovin.shopkeepers.shopkeeper.player.trade;
 
+import java.util.List;
+
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
@@ -14,6 +18,7 @@ import com.nisovin.shopkeepers.ui.lib.UIState;
 import com.nisovin.shopkeepers.ui.trading.Trade;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 
 public class TradingPlayerShopTradingView extends PlayerShopTradingView {
 
@@ -51,8 +56,16 @@ public class TradingPlayerShopTradingView extends PlayerShopTradingView {
 	}
 
 	@Override
-	protected boolean finalTradePreparation(Trade trade) {
-		if (!super.finalTradePreparation(trade)) return false;
+	protected boolean updateContainers(
+			Trade trade,
+			int tradeCount,
+			List<@Nullable ItemStack[]> stockContents,
+			List<@Nullable ItemStack[]> earningsContents,
+			boolean silent
+	) {
+		if (!super.updateContainers(trade, tradeCount, stockContents, earningsContents, silent)) {
+			return false;
+		}
 
 		Player tradingPlayer = trade.getTradingPlayer();
 		TradingRecipe tradingRecipe = trade.getTradingRecipe();
@@ -63,9 +76,17 @@ public class TradingPlayerShopTradingView extends PlayerShopTradingView {
 		// result item.
 		UnmodifiableItemStack resultItem = tradingRecipe.getResultItem();
 		assert resultItem != null;
-		if (InventoryUtils.removeItems(this.stockContents, resultItem) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStock);
-			this.debugPreventedTrade("The shop's containers do not contain the required items.");
+		if (InventoryUtils.removeItems(
+				stockContents,
+				ItemUtils.similarItems(resultItem),
+				resultItem.getAmount() * tradeCount
+		) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStock);
+				this.debugPreventedTrade(
+						"The shop's containers do not contain the required items."
+				);
+			}
 			return false;
 		}
 
@@ -78,10 +99,16 @@ public class TradingPlayerShopTradingView extends PlayerShopTradingView {
 		UnmodifiableItemStack receivedItem1 = tradeEvent.getReceivedItem1();
 		UnmodifiableItemStack receivedItem2 = tradeEvent.getReceivedItem2();
 
-		if (PlayerShopTaxUtils.addItemsAfterTaxes(this.earningsContents, receivedItem1) != 0
-				|| PlayerShopTaxUtils.addItemsAfterTaxes(this.earningsContents, receivedItem2) != 0) {
-			TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
-			this.debugPreventedTrade("The shop's containers cannot hold the received items.");
+		if (PlayerShopTaxUtils.addItemsAfterTaxes(earningsContents, receivedItem1, tradeCount) != 0
+				|| PlayerShopTaxUtils.addItemsAfterTaxes(
+						earningsContents,
+						receivedItem2,
+						tradeCount
+				) != 0) {
+			if (!silent) {
+				TextUtils.sendMessage(tradingPlayer, Messages.cannotTradeInsufficientStorageSpace);
+				this.debugPreventedTrade("The shop's containers cannot hold the received items.");
+			}
 			return false;
 		}
 
@@ -0,0 +1,81 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+
+/**
+ * Indexes player shopkeepers by the unique ids of their owners.
+ */
+final class PlayerShopOwnerIndex {
+
+	// Set: Allows for fast removal.
+	private final Map<UUID, Set<AbstractPlayerShopkeeper>> shopkeepersByOwner = new HashMap<>();
+	// The owners under which the shopkeepers are currently indexed:
+	private final Map<AbstractPlayerShopkeeper, UUID> indexedOwners = new HashMap<>();
+
+	PlayerShopOwnerIndex() {
+	}
+
+	void addShopkeeper(AbstractPlayerShopkeeper shopkeeper) {
+		assert shopkeeper != null && !indexedOwners.containsKey(shopkeeper);
+		UUID ownerUUID = shopkeeper.getOwnerUUID();
+		indexedOwners.put(shopkeeper, ownerUUID);
+		shopkeepersByOwner.computeIfAbsent(ownerUUID, key -> new LinkedHashSet<>())
+				.add(shopkeeper);
+	}
+
+	void removeShopkeeper(AbstractPlayerShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		UUID ownerUUID = indexedOwners.remove(shopkeeper);
+		if (ownerUUID == null) return; // Not indexed
+
+		Set<AbstractPlayerShopkeeper> shopkeepers = shopkeepersByOwner.get(ownerUUID);
+		assert shopkeepers != null;
+		shopkeepers.remove(shopkeeper);
+		if (shopkeepers.isEmpty()) {
+			shopkeepersByOwner.remove(ownerUUID);
+		}
+	}
+
+	// This is expected to be called whenever the owner of an indexed shopkeeper has changed.
+	void updateShopkeeper(AbstractPlayerShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		if (shopkeeper.getOwnerUUID().equals(indexedOwners.get(shopkeeper))) return; // Unchanged
+
+		this.removeShopkeeper(shopkeeper);
+		this.addShopkeeper(shopkeeper);
+	}
+
+	void clear() {
+		shopkeepersByOwner.clear();
+		indexedOwners.clear();
+	}
+
+	boolean isEmpty() {
+		return indexedOwners.isEmpty();
+	}
+
+	// QUERIES
+
+	// Not null, can be empty. Unmodifiable, but not a live view: The returned set is only valid
+	// until the next modification of the index.
+	Set<? extends AbstractPlayerShopkeeper> getShopkeepers(UUID ownerUUID) {
+		@Nullable Set<AbstractPlayerShopkeeper> shopkeepers = shopkeepersByOwner.get(ownerUUID);
+		if (shopkeepers == null) return Collections.emptySet();
+		return Collections.unmodifiableSet(shopkeepers);
+	}
+
+	int getShopkeepersCount(UUID ownerUUID) {
+		@Nullable Set<AbstractPlayerShopkeeper> shopkeepers = shopkeepersByOwner.get(ownerUUID);
+		if (shopkeepers == null) return 0;
+		return shopkeepers.size();
+	}
+}
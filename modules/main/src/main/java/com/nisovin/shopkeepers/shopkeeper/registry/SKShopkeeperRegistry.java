@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.bukkit.Bukkit;
@@ -45,7 +46,7 @@ import com.nisovin.shopkeepers.shopobjects.block.BlockShopObjectIds;
 import com.nisovin.shopkeepers.shopobjects.entity.EntityShopObjectIds;
 import com.nisovin.shopkeepers.storage.SKShopkeeperStorage;
 import com.nisovin.shopkeepers.util.bukkit.LocationUtils;
-import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
 import com.nisovin.shopkeepers.util.java.StringUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
@@ -60,7 +61,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final Collection<? extends AbstractShopkeeper> allShopkeepersView = Collections.unmodifiableCollection(shopkeepersByUUID.values());
 	private final Map<Integer, AbstractShopkeeper> shopkeepersById = new HashMap<>();
 
-	// TODO Shopkeepers by name TreeMap to speedup name lookups and prefix matching?
+	// Shopkeepers by name:
+	private final ShopkeeperNameIndex nameIndex = new ShopkeeperNameIndex();
+
 	// TODO TreeMaps for shopkeeper owners by name and uuid to speedup prefix matching?
 
 	// Virtual shopkeepers:
@@ -69,6 +72,8 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 	private final Collection<? extends AbstractShopkeeper> virtualShopkeepersView = Collections.unmodifiableCollection(virtualShopkeepers);
 
 	private final ShopkeeperChunkMap chunkMap;
+	// Non-virtual shopkeepers by block:
+	private final ShopkeeperBlockIndex blockIndex = new ShopkeeperBlockIndex();
 	private final ChangeListener chunkMapChangeListener = new ChangeListener() {
 		@Override
 		public void onShopkeeperAdded(
@@ -131,6 +136,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		}
 	};
 
+	// Player shopkeepers by owner:
+	private final PlayerShopOwnerIndex ownerIndex = new PlayerShopOwnerIndex();
+
 	private final ShopObjectRegistry shopObjectRegistry = new ShopObjectRegistry();
 	private final ShopkeeperTicker shopkeeperTicker;
 	private final ShopkeeperSpawner shopkeeperSpawner;
@@ -174,16 +182,24 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	private void ensureEmpty() {
 		if (!shopkeepersByUUID.isEmpty() || !shopkeepersById.isEmpty()
-				|| !virtualShopkeepers.isEmpty() || playerShopCount != 0) {
+				|| !virtualShopkeepers.isEmpty() || playerShopCount != 0
+				|| !nameIndex.isEmpty() || !ownerIndex.isEmpty() || !blockIndex.isEmpty()) {
 			Log.warning("Some shopkeepers were not properly unregistered!");
 			shopkeepersByUUID.clear();
 			shopkeepersById.clear();
 			virtualShopkeepers.clear();
+			nameIndex.clear();
+			ownerIndex.clear();
+			blockIndex.clear();
 			playerShopCount = 0;
 		}
 		chunkMap.ensureEmpty();
 	}
 
+	public ShopkeeperTicker getShopkeeperTicker() {
+		return shopkeeperTicker;
+	}
+
 	public ShopkeeperSpawner getShopkeeperSpawner() {
 		return shopkeeperSpawner;
 	}
@@ -293,18 +309,23 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		SKShopkeeperStorage shopkeeperStorage = this.getShopkeeperStorage();
 		shopkeeperStorage.onShopkeeperIdUsed(shopkeeperId);
 
-		// Add shopkeeper to chunk-based storage:
+		// Add shopkeeper to chunk-based storage and block index:
 		if (shopkeeper.isVirtual()) {
 			virtualShopkeepers.add(shopkeeper);
 		} else {
 			chunkMap.addShopkeeper(shopkeeper);
+			blockIndex.addShopkeeper(shopkeeper);
 		}
 
-		// Update player shop count:
+		// Update player shop count and index by owner:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount++;
+			ownerIndex.addShopkeeper((AbstractPlayerShopkeeper) shopkeeper);
 		}
 
+		// Index by name:
+		nameIndex.addShopkeeper(shopkeeper);
+
 		// Log a warning if either the shop type or the shop object type is disabled. The shopkeeper
 		// is still added (so containers are still protected), but it might not get spawned, and
 		// there is no guarantee that the shop still works as expected. Admins are advised to either
@@ -376,18 +397,23 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		shopkeepersByUUID.remove(shopkeeperUniqueId);
 		shopkeepersById.remove(shopkeeper.getId());
 
-		// Remove shopkeeper from chunk-based storage:
+		// Remove shopkeeper from chunk-based storage and block index:
 		if (shopkeeper.isVirtual()) {
 			virtualShopkeepers.remove(shopkeeper);
 		} else {
 			chunkMap.removeShopkeeper(shopkeeper);
+			blockIndex.removeShopkeeper(shopkeeper);
 		}
 
-		// Update player shop count:
+		// Update player shop count and remove from owner index:
 		if (shopkeeper instanceof PlayerShopkeeper) {
 			playerShopCount--;
+			ownerIndex.removeShopkeeper((AbstractPlayerShopkeeper) shopkeeper);
 		}
 
+		// Remove from name index:
+		nameIndex.removeShopkeeper(shopkeeper);
+
 		if (cause == ShopkeeperRemoveEvent.Cause.DELETE) {
 			// Remove shopkeeper from storage:
 			this.getShopkeeperStorage().deleteShopkeeper(shopkeeper);
@@ -402,6 +428,9 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 		ChunkCoords oldChunk = Unsafe.assertNonNull(shopkeeper.getLastChunkCoords());
 
+		// Update the shopkeeper's block inside the block index:
+		blockIndex.updateShopkeeper(shopkeeper);
+
 		// Update the shopkeeper's location inside the chunk map:
 		if (!chunkMap.moveShopkeeper(shopkeeper)) {
 			// The shopkeeper's chunk did not change.
@@ -412,6 +441,20 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 		chunkActivator.onShopkeeperMoved(shopkeeper, oldChunk);
 	}
 
+	// This is not expected to be called for invalid shopkeepers.
+	public void onShopkeeperNameChanged(AbstractShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		Validate.isTrue(shopkeeper.isValid(), "shopkeeper is not valid");
+		nameIndex.updateShopkeeper(shopkeeper);
+	}
+
+	// This is not expected to be called for invalid shopkeepers.
+	public void onPlayerShopOwnerChanged(AbstractPlayerShopkeeper shopkeeper) {
+		Validate.notNull(shopkeeper, "shopkeeper is null");
+		Validate.isTrue(shopkeeper.isValid(), "shopkeeper is not valid");
+		ownerIndex.updateShopkeeper(shopkeeper);
+	}
+
 	private void unloadShopkeeper(AbstractShopkeeper shopkeeper) {
 		assert shopkeeper != null && shopkeeper.isValid();
 		this.removeShopkeeper(shopkeeper, ShopkeeperRemoveEvent.Cause.UNLOAD);
@@ -472,30 +515,17 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 			UUID ownerUUID
 	) {
 		Validate.notNull(ownerUUID, "ownerUUID is null");
-		// TODO Improve? Maybe keep an index of player shops? Or even index by owner?
 		// Note: Already unmodifiable.
 		return new AbstractSet<AbstractPlayerShopkeeper>() {
-			private Stream<? extends AbstractPlayerShopkeeper> createStream() {
-				return allPlayerShopkeepersView.stream()
-						.filter(shopkeeper -> shopkeeper.isOwner(ownerUUID));
-			}
-
 			@Override
 			public Iterator<AbstractPlayerShopkeeper> iterator() {
-				if (allPlayerShopkeepersView.isEmpty()) {
-					// There are no player shops at all:
-					return Collections.emptyIterator();
-				}
-				return Unsafe.cast(this.createStream().iterator());
+				// Resolved lazily, so that this view reflects subsequent changes:
+				return Unsafe.cast(ownerIndex.getShopkeepers(ownerUUID).iterator());
 			}
 
 			@Override
 			public int size() {
-				if (allPlayerShopkeepersView.isEmpty()) {
-					// There are no player shops at all:
-					return 0;
-				}
-				return this.createStream().mapToInt(shopkeeper -> 1).sum();
+				return ownerIndex.getShopkeepersCount(ownerUUID);
 			}
 		};
 	}
@@ -504,38 +534,18 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByName(String shopName) {
-		String normalizedShopName = StringUtils.normalize(TextUtils.stripColor(shopName));
+		String normalizedShopName = ShopkeeperNameIndex.normalize(shopName);
 		if (StringUtils.isEmpty(normalizedShopName)) return Stream.empty();
-
-		// TODO Improve via (Tree)Map?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
-
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			// Include shopkeeper if name matches:
-			return (shopkeeperName.equals(normalizedShopName));
-		});
+		return nameIndex.getShopkeepersByName(normalizedShopName);
 	}
 
 	@Override
 	public Stream<? extends AbstractShopkeeper> getShopkeepersByNamePrefix(
 			String shopNamePrefix
 	) {
-		String normalizedShopNamePrefix = StringUtils.normalize(TextUtils.stripColor(shopNamePrefix));
+		String normalizedShopNamePrefix = ShopkeeperNameIndex.normalize(shopNamePrefix);
 		if (StringUtils.isEmpty(normalizedShopNamePrefix)) return Stream.empty();
-
-		// TODO Improve via TreeMap?
-		return this.getAllShopkeepers().stream().filter(shopkeeper -> {
-			String shopkeeperName = shopkeeper.getName(); // Can be empty
-			if (shopkeeperName.isEmpty()) return false; // Has no name, filter
-
-			shopkeeperName = TextUtils.stripColor(shopkeeperName);
-			shopkeeperName = StringUtils.normalize(shopkeeperName);
-			// Include shopkeeper if name matches:
-			return shopkeeperName.startsWith(normalizedShopNamePrefix);
-		});
+		return nameIndex.getShopkeepersByNamePrefix(normalizedShopNamePrefix);
 	}
 
 	// BY WORLD
@@ -612,20 +622,81 @@ public class SKShopkeeperRegistry implements ShopkeeperRegistry {
 
 	@Override
 	public Collection<? extends AbstractShopkeeper> getShopkeepersAtLocation(Location location) {
+		World world = LocationUtils.getWorld(location);
+		return this.getShopkeepersAtBlock(
+				world.getName(),
+				location.getBlockX(),
+				location.getBlockY(),
+				location.getBlockZ()
+		);
+	}
+
+	// Unmodifiable, but only valid until the next shopkeeper is added, removed, or moved.
+	public List<? extends AbstractShopkeeper> getShopkeepersAtBlock(
+			String worldName,
+			int x,
+			int y,
+			int z
+	) {
+		return blockIndex.getShopkeepersAtBlock(worldName, x, y, z);
+	}
+
+	@Override
+	public List<? extends AbstractShopkeeper> getShopkeepersInRadius(
+			Location location,
+			double radius
+	) {
+		Validate.isTrue(radius >= 0.0D, "radius is negative");
 		World world = LocationUtils.getWorld(location);
 		String worldName = world.getName();
-		int x = location.getBlockX();
-		int y = location.getBlockY();
-		int z = location.getBlockZ();
+		WorldShopkeepers worldShopkeepers = chunkMap.getWorldShopkeepers(worldName);
+		if (worldShopkeepers == null) return Collections.emptyList();
+
+		double x = location.getX();
+		double y = location.getY();
+		double z = location.getZ();
+		double radiusSquared = radius * radius;
+		int minChunkX = ChunkCoords.fromBlock((int) Math.floor(x - radius));
+		int maxChunkX = ChunkCoords.fromBlock((int) Math.floor(x + radius));
+		int minChunkZ = ChunkCoords.fromBlock((int) Math.floor(z - radius));
+		int maxChunkZ = ChunkCoords.fromBlock((int) Math.floor(z + radius));
 
 		List<AbstractShopkeeper> shopkeepers = new ArrayList<>();
-		ChunkCoords chunkCoords = ChunkCoords.fromBlock(worldName, x, z);
-		this.getShopkeepersInChunk(chunkCoords).forEach(shopkeeper -> {
-			assert worldName.equals(shopkeeper.getWorldName());
-			if (shopkeeper.getX() == x && shopkeeper.getY() == y && shopkeeper.getZ() == z) {
-				shopkeepers.add(shopkeeper);
+		Consumer<List<? extends AbstractShopkeeper>> collectShopkeepers = chunkShopkeepers -> {
+			chunkShopkeepers.forEach(shopkeeper -> {
+				double dx = shopkeeper.getX() - x;
+				double dy = shopkeeper.getY() - y;
+				double dz = shopkeeper.getZ() - z;
+				if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+					shopkeepers.add(shopkeeper);
+				}
+			});
+		};
+
+		long chunksInRange = ((long) maxChunkX - minChunkX + 1)
+				* ((long) maxChunkZ - minChunkZ + 1);
+		if (chunksInRange > worldShopkeepers.getShopkeepersByChunk().size()) {
+			// There are fewer chunks with shopkeepers than chunks in range:
+			worldShopkeepers.getShopkeepersByChunk().forEach((chunkCoords, chunkShopkeepers) -> {
+				int chunkX = chunkCoords.getChunkX();
+				int chunkZ = chunkCoords.getChunkZ();
+				if (chunkX < minChunkX || chunkX > maxChunkX) return;
+				if (chunkZ < minChunkZ || chunkZ > maxChunkZ) return;
+				collectShopkeepers.accept(chunkShopkeepers);
+			});
+		} else {
+			MutableChunkCoords chunkCoords = new MutableChunkCoords();
+			for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+				for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+					chunkCoords.set(worldName, chunkX, chunkZ);
+					ChunkShopkeepers chunkShopkeepers = worldShopkeepers.getChunkShopkeepers(
+							chunkCoords
+					);
+					if (chunkShopkeepers == null) continue;
+					collectShopkeepers.accept(chunkShopkeepers.getShopkeepers());
+				}
 			}
-		});
+		}
 		return shopkeepers;
 	}
 
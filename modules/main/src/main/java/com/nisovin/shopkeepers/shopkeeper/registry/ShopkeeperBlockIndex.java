@@ -0,0 +1,155 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.java.LongHashMap;
+
+/**
+ * Indexes the non-virtual shopkeepers by the coordinates of the block they are located at.
+ * <p>
+ * Unlike a lookup via the shopkeepers of the block's chunk, lookups of the shopkeepers at a
+ * specific block do not need to allocate any location or key objects, and do not need to compare
+ * the coordinates of all shopkeepers inside the chunk.
+ */
+final class ShopkeeperBlockIndex {
+
+	// Minecraft's world border limits the x and z coordinates to +-30 million, and the build height
+	// limits the y coordinate to a range of less than 4096 blocks:
+	private static final int XZ_BITS = 26;
+	private static final int Y_BITS = 12;
+	private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+	/**
+	 * Packs the given block coordinates into a single <code>long</code> key.
+	 * <p>
+	 * Coordinates outside the value ranges that are supported by Minecraft may produce colliding
+	 * keys. Lookups therefore still need to compare the actual coordinates of the found
+	 * shopkeepers.
+	 * 
+	 * @param x
+	 *            the block x coordinate
+	 * @param y
+	 *            the block y coordinate
+	 * @param z
+	 *            the block z coordinate
+	 * @return the block key
+	 */
+	static long getBlockKey(int x, int y, int z) {
+		return ((x & XZ_MASK) << (XZ_BITS + Y_BITS))
+				| ((z & XZ_MASK) << Y_BITS)
+				| (y & Y_MASK);
+	}
+
+	private static final class IndexedBlock {
+
+		private final String worldName;
+		private final long blockKey;
+
+		IndexedBlock(String worldName, long blockKey) {
+			this.worldName = worldName;
+			this.blockKey = blockKey;
+		}
+	}
+
+	// List instead of Set: We don't expect there to be many shopkeepers at the same block.
+	private final Map<String, LongHashMap<List<AbstractShopkeeper>>> shopkeepersByWorld = new HashMap<>();
+	// The blocks under which the shopkeepers are currently indexed:
+	private final Map<AbstractShopkeeper, IndexedBlock> indexedBlocks = new HashMap<>();
+
+	ShopkeeperBlockIndex() {
+	}
+
+	// Only called for non-virtual shopkeepers.
+	void addShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null && !shopkeeper.isVirtual();
+		assert !indexedBlocks.containsKey(shopkeeper);
+		String worldName = Unsafe.assertNonNull(shopkeeper.getWorldName());
+		long blockKey = getBlockKey(shopkeeper.getX(), shopkeeper.getY(), shopkeeper.getZ());
+		indexedBlocks.put(shopkeeper, new IndexedBlock(worldName, blockKey));
+
+		LongHashMap<List<AbstractShopkeeper>> worldShopkeepers = shopkeepersByWorld.computeIfAbsent(
+				worldName,
+				key -> new LongHashMap<>()
+		);
+		List<AbstractShopkeeper> blockShopkeepers = worldShopkeepers.get(blockKey);
+		if (blockShopkeepers == null) {
+			blockShopkeepers = new ArrayList<>(1);
+			worldShopkeepers.put(blockKey, blockShopkeepers);
+		}
+		blockShopkeepers.add(shopkeeper);
+	}
+
+	void removeShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		IndexedBlock indexedBlock = indexedBlocks.remove(shopkeeper);
+		if (indexedBlock == null) return; // Not indexed
+
+		String worldName = indexedBlock.worldName;
+		LongHashMap<List<AbstractShopkeeper>> worldShopkeepers = Unsafe.assertNonNull(
+				shopkeepersByWorld.get(worldName)
+		);
+		List<AbstractShopkeeper> blockShopkeepers = Unsafe.assertNonNull(
+				worldShopkeepers.get(indexedBlock.blockKey)
+		);
+		blockShopkeepers.remove(shopkeeper);
+		if (blockShopkeepers.isEmpty()) {
+			worldShopkeepers.remove(indexedBlock.blockKey);
+			if (worldShopkeepers.isEmpty()) {
+				shopkeepersByWorld.remove(worldName);
+			}
+		}
+	}
+
+	// This is expected to be called whenever the location of an indexed shopkeeper has changed.
+	void updateShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null && !shopkeeper.isVirtual();
+		this.removeShopkeeper(shopkeeper);
+		this.addShopkeeper(shopkeeper);
+	}
+
+	void clear() {
+		shopkeepersByWorld.clear();
+		indexedBlocks.clear();
+	}
+
+	boolean isEmpty() {
+		return indexedBlocks.isEmpty();
+	}
+
+	// QUERIES
+
+	// Not null, can be empty. Unmodifiable, but not a live view: The returned list is only valid
+	// until the next modification of the index.
+	List<? extends AbstractShopkeeper> getShopkeepersAtBlock(String worldName, int x, int y, int z) {
+		LongHashMap<List<AbstractShopkeeper>> worldShopkeepers = shopkeepersByWorld.get(worldName);
+		if (worldShopkeepers == null) return Collections.emptyList();
+
+		List<AbstractShopkeeper> blockShopkeepers = worldShopkeepers.get(getBlockKey(x, y, z));
+		if (blockShopkeepers == null) return Collections.emptyList();
+
+		// Check for key collisions of out-of-range coordinates:
+		for (AbstractShopkeeper shopkeeper : blockShopkeepers) {
+			if (!isAtBlock(shopkeeper, x, y, z)) {
+				List<AbstractShopkeeper> matchingShopkeepers = new ArrayList<>();
+				blockShopkeepers.forEach(blockShopkeeper -> {
+					if (isAtBlock(blockShopkeeper, x, y, z)) {
+						matchingShopkeepers.add(blockShopkeeper);
+					}
+				});
+				return Collections.unmodifiableList(matchingShopkeepers);
+			}
+		}
+		return Collections.unmodifiableList(blockShopkeepers);
+	}
+
+	private static boolean isAtBlock(AbstractShopkeeper shopkeeper, int x, int y, int z) {
+		return shopkeeper.getX() == x && shopkeeper.getY() == y && shopkeeper.getZ() == z;
+	}
+}
@@ -0,0 +1,104 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.TextUtils;
+import com.nisovin.shopkeepers.util.java.StringUtils;
+
+/**
+ * Indexes shopkeepers by their normalized names in order to speed up exact and prefix name
+ * lookups.
+ * <p>
+ * Shopkeepers without name are not indexed.
+ */
+final class ShopkeeperNameIndex {
+
+	/**
+	 * Normalizes the given shop name for the purpose of name comparisons: Colors are removed, and
+	 * the case and whitespace are normalized.
+	 * 
+	 * @param shopName
+	 *            the shop name
+	 * @return the normalized shop name, not <code>null</code>, but can be empty
+	 */
+	static String normalize(String shopName) {
+		return StringUtils.normalize(TextUtils.stripColor(shopName));
+	}
+
+	// Sorted by the normalized names to support prefix lookups.
+	// Set: Allows for fast removal.
+	private final NavigableMap<String, Set<AbstractShopkeeper>> shopkeepersByName = new TreeMap<>();
+	// The normalized names under which the shopkeepers are currently indexed:
+	private final Map<AbstractShopkeeper, String> indexedNames = new HashMap<>();
+
+	ShopkeeperNameIndex() {
+	}
+
+	void addShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null && !indexedNames.containsKey(shopkeeper);
+		String normalizedName = normalize(shopkeeper.getName());
+		if (normalizedName.isEmpty()) return; // Not indexed
+
+		indexedNames.put(shopkeeper, normalizedName);
+		shopkeepersByName.computeIfAbsent(normalizedName, key -> new LinkedHashSet<>())
+				.add(shopkeeper);
+	}
+
+	void removeShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		String normalizedName = indexedNames.remove(shopkeeper);
+		if (normalizedName == null) return; // Not indexed
+
+		Set<AbstractShopkeeper> shopkeepers = shopkeepersByName.get(normalizedName);
+		assert shopkeepers != null;
+		shopkeepers.remove(shopkeeper);
+		if (shopkeepers.isEmpty()) {
+			shopkeepersByName.remove(normalizedName);
+		}
+	}
+
+	// This is expected to be called whenever the name of an indexed shopkeeper has changed.
+	void updateShopkeeper(AbstractShopkeeper shopkeeper) {
+		assert shopkeeper != null;
+		String normalizedName = normalize(shopkeeper.getName());
+		if (normalizedName.equals(indexedNames.get(shopkeeper))) return; // Unchanged
+
+		this.removeShopkeeper(shopkeeper);
+		this.addShopkeeper(shopkeeper);
+	}
+
+	void clear() {
+		shopkeepersByName.clear();
+		indexedNames.clear();
+	}
+
+	boolean isEmpty() {
+		return indexedNames.isEmpty();
+	}
+
+	// QUERIES
+
+	// The given name is expected to already be normalized.
+	Stream<? extends AbstractShopkeeper> getShopkeepersByName(String normalizedName) {
+		@Nullable Set<AbstractShopkeeper> shopkeepers = shopkeepersByName.get(normalizedName);
+		if (shopkeepers == null) return Stream.empty();
+		return shopkeepers.stream();
+	}
+
+	// The given prefix is expected to already be normalized.
+	Stream<? extends AbstractShopkeeper> getShopkeepersByNamePrefix(String normalizedPrefix) {
+		// All names that start with the prefix are sorted directly after the prefix:
+		return shopkeepersByName.tailMap(normalizedPrefix, true).entrySet().stream()
+				.takeWhile(entry -> entry.getKey().startsWith(normalizedPrefix))
+				.flatMap(entry -> entry.getValue().stream());
+	}
+}
@@ -7,6 +7,7 @@ import org.bukkit.plugin.Plugin;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.spawning.ShopkeeperSpawnState.State;
 import com.nisovin.shopkeepers.shopobjects.AbstractShopObject;
+import com.nisovin.shopkeepers.util.bukkit.PlayerPositions;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.taskqueue.TaskQueue;
 
@@ -17,20 +18,39 @@ import com.nisovin.shopkeepers.util.taskqueue.TaskQueue;
  * drops when chunks with lots of shopkeepers are activated, we use this queue to distribute the
  * spawning of shopkeepers over several ticks.
  * <p>
+ * Pending shopkeepers are spawned in the order of their horizontal distance to the nearest player
+ * in their world, so that players that teleport into an area with many shopkeepers do not have to
+ * wait for shopkeepers that are queued far away from any players. The order is updated whenever
+ * new shopkeepers are queued, and periodically while shopkeepers remain pending.
+ * <p>
+ * The number of spawns per execution is {@link ShopkeeperSpawnRate adapted} to the measured spawn
+ * costs and the current server load.
+ * <p>
  * Shopkeepers may already be ticked while they are still pending to be spawned. Shop objects can
  * use {@link AbstractShopObject#isSpawningScheduled()} to check if they are currently still pending
  * to be spawned.
  */
 public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 
-	// With this configuration we can spawn around 40 shopkeepers per second.
 	// A more frequently running task has a higher general overhead.
 	private static final int SPAWN_TASK_PERIOD_TICKS = 3;
+	// The initial number of spawns per execution, i.e. around 40 spawns per second. The actual
+	// number of spawns per execution is adapted at runtime.
 	// On my test setup, and without any GC taking place, the spawning of a shopkeeper seems to take
 	// between 0.05-0.25ms, with an average of around 0.1ms.
 	private static final int SPAWNS_PER_EXECUTION = 6;
+	// While shopkeepers remain pending, their order is updated after this number of executions to
+	// account for moving players (roughly once per second):
+	private static final int REORDER_PERIOD_EXECUTIONS = 7;
 
 	private final Consumer<? super AbstractShopkeeper> spawner;
+	private final ShopkeeperSpawnRate spawnRate = new ShopkeeperSpawnRate(SPAWN_TASK_PERIOD_TICKS);
+
+	// Whether shopkeepers were queued since the pending shopkeepers were last reordered:
+	private boolean reorderPending = false;
+	private int executionsSinceReorder = 0;
+	// Only used during reordering:
+	private final PlayerPositions playerPositions = new PlayerPositions();
 
 	ShopkeeperSpawnQueue(Plugin plugin, Consumer<? super AbstractShopkeeper> spawner) {
 		super(plugin, SPAWN_TASK_PERIOD_TICKS, SPAWNS_PER_EXECUTION);
@@ -41,18 +61,34 @@ public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 	private static class SpawnerTask implements Runnable {
 
 		private final Runnable parentTask;
+		private final ShopkeeperSpawnRate spawnRate;
 
-		SpawnerTask(Runnable parentTask) {
-			assert parentTask != null;
+		SpawnerTask(Runnable parentTask, ShopkeeperSpawnRate spawnRate) {
+			assert parentTask != null && spawnRate != null;
 			this.parentTask = parentTask;
+			this.spawnRate = spawnRate;
 		}
 
 		@Override
 		public void run() {
+			spawnRate.onTaskRun(System.nanoTime());
 			parentTask.run();
 		}
 	}
 
+	@Override
+	public void start() {
+		spawnRate.reset();
+		super.start();
+	}
+
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		reorderPending = false;
+		executionsSinceReorder = 0;
+	}
+
 	private void setQueued(AbstractShopkeeper shopkeeper) {
 		assert shopkeeper != null;
 		ShopkeeperSpawnState spawnState = shopkeeper.getComponents().getOrAdd(ShopkeeperSpawnState.class);
@@ -75,6 +111,7 @@ public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 		super.onAdded(shopkeeper);
 		// Mark the shopkeeper as 'queued':
 		this.setQueued(shopkeeper);
+		reorderPending = true;
 	}
 
 	@Override
@@ -86,7 +123,46 @@ public class ShopkeeperSpawnQueue extends TaskQueue<AbstractShopkeeper> {
 
 	@Override
 	protected Runnable createTask() {
-		return new SpawnerTask(super.createTask());
+		return new SpawnerTask(super.createTask(), spawnRate);
+	}
+
+	// STATISTICS
+
+	@Override
+	public int getWorkUnitsPerExecution() {
+		return spawnRate.getSpawnsPerExecution();
+	}
+
+	// PROCESSING
+
+	@Override
+	protected void prepareExecution() {
+		executionsSinceReorder++;
+		// Skip if all pending shopkeepers are spawned during this execution anyway:
+		if (this.getPendingCount() <= this.getWorkUnitsPerExecution()) return;
+		if (!reorderPending && executionsSinceReorder < REORDER_PERIOD_EXECUTIONS) return;
+
+		playerPositions.update();
+		this.reorder(this::getSpawnPriority);
+		playerPositions.clear();
+
+		reorderPending = false;
+		executionsSinceReorder = 0;
+	}
+
+	// The squared horizontal distance to the nearest player. Lower values are spawned first.
+	// Shopkeepers in worlds without players are spawned last.
+	private long getSpawnPriority(AbstractShopkeeper shopkeeper) {
+		return playerPositions.getNearestDistanceSq(
+				shopkeeper.getWorldName(),
+				shopkeeper.getX(),
+				shopkeeper.getZ()
+		);
+	}
+
+	@Override
+	protected void onExecutionCompleted(int processedWorkUnits, long durationNanos) {
+		spawnRate.onSpawned(processedWorkUnits, durationNanos, this.getPendingCount());
 	}
 
 	@Override
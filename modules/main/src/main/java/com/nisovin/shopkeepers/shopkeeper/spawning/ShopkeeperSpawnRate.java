@@ -0,0 +1,115 @@
+package com.nisovin.shopkeepers.shopkeeper.spawning;
+
+import java.util.concurrent.TimeUnit;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Adapts the number of shopkeepers that the {@link ShopkeeperSpawnQueue} spawns per execution to
+ * the measured spawn costs and the current server load.
+ * <p>
+ * The spawn queue may use a certain time budget per execution. The number of spawns per execution
+ * is derived from this budget and the average duration of recent spawns. While shopkeepers are
+ * pending and the server keeps up with its tick rate, the budget is increased up to a maximum.
+ * When the server falls behind its tick rate, the budget is halved.
+ * <p>
+ * The Bukkit API does not provide the server's tick times. Instead, the server load is estimated
+ * by measuring the interval between the executions of the spawn queue task: An average tick
+ * interval longer than the targeted tick duration indicates that the server is overloaded.
+ */
+final class ShopkeeperSpawnRate {
+
+	private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+	// The server is considered overloaded if the average tick interval exceeds this duration:
+	private static final long OVERLOADED_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(55L);
+	// Roughly the previous fixed rate of 6 spawns per execution:
+	private static final long MIN_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(600L);
+	private static final long MAX_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5L);
+	private static final double BUDGET_INCREASE_FACTOR = 1.5D;
+	private static final double BUDGET_DECREASE_FACTOR = 0.5D;
+	// The initially assumed duration of a single spawn:
+	private static final long INITIAL_SPAWN_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+	private static final int MAX_SPAWNS_PER_EXECUTION = 200;
+	// The weight of new samples in the moving averages:
+	private static final double SMOOTHING_FACTOR = 0.2D;
+
+	private final int taskPeriodTicks;
+
+	private double averageTickNanos = TICK_NANOS;
+	private double averageSpawnNanos = INITIAL_SPAWN_NANOS;
+	private long budgetNanos = MIN_BUDGET_NANOS;
+	private long lastTaskRunNanos = 0L; // 0 if not yet run
+
+	ShopkeeperSpawnRate(int taskPeriodTicks) {
+		Validate.isTrue(taskPeriodTicks > 0, "taskPeriodTicks has to be positive");
+		this.taskPeriodTicks = taskPeriodTicks;
+	}
+
+	/**
+	 * Resets the measurements, e.g. when the spawn queue task is restarted.
+	 */
+	void reset() {
+		averageTickNanos = TICK_NANOS;
+		averageSpawnNanos = INITIAL_SPAWN_NANOS;
+		budgetNanos = MIN_BUDGET_NANOS;
+		lastTaskRunNanos = 0L;
+	}
+
+	/**
+	 * This is invoked at the start of every execution of the spawn queue task, regardless of
+	 * whether there are pending shopkeepers.
+	 * 
+	 * @param nowNanos
+	 *            the current {@link System#nanoTime()}
+	 */
+	void onTaskRun(long nowNanos) {
+		if (lastTaskRunNanos != 0L) {
+			double tickNanos = (double) (nowNanos - lastTaskRunNanos) / taskPeriodTicks;
+			averageTickNanos += SMOOTHING_FACTOR * (tickNanos - averageTickNanos);
+			if (this.isServerOverloaded()) {
+				budgetNanos = Math.max(
+						MIN_BUDGET_NANOS,
+						(long) (budgetNanos * BUDGET_DECREASE_FACTOR)
+				);
+			}
+		}
+		lastTaskRunNanos = nowNanos;
+	}
+
+	/**
+	 * This is invoked after shopkeepers have been spawned.
+	 * 
+	 * @param spawns
+	 *            the number of spawned shopkeepers
+	 * @param durationNanos
+	 *            the total duration of these spawns
+	 * @param remainingPending
+	 *            the number of shopkeepers that are still pending to be spawned
+	 */
+	void onSpawned(int spawns, long durationNanos, int remainingPending) {
+		if (spawns > 0) {
+			double spawnNanos = (double) durationNanos / spawns;
+			averageSpawnNanos += SMOOTHING_FACTOR * (spawnNanos - averageSpawnNanos);
+		}
+		if (remainingPending > 0 && !this.isServerOverloaded()) {
+			budgetNanos = Math.min(
+					MAX_BUDGET_NANOS,
+					(long) (budgetNanos * BUDGET_INCREASE_FACTOR)
+			);
+		}
+	}
+
+	private boolean isServerOverloaded() {
+		return averageTickNanos > OVERLOADED_TICK_NANOS;
+	}
+
+	/**
+	 * Gets the number of shopkeepers that can currently be spawned per execution.
+	 * 
+	 * @return the number of spawns per execution, at least <code>1</code>
+	 */
+	int getSpawnsPerExecution() {
+		double spawns = budgetNanos / Math.max(1.0D, averageSpawnNanos);
+		return (int) Math.max(1L, Math.min(MAX_SPAWNS_PER_EXECUTION, Math.round(spawns)));
+	}
+}
@@ -2,6 +2,7 @@ package com.nisovin.shopkeepers.shopkeeper.ticking;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -9,13 +10,18 @@ import java.util.Map;
 import java.util.Set;
 
 import org.bukkit.scheduler.BukkitRunnable;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.debug.DebugOptions;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.util.bukkit.PlayerPositions;
 import com.nisovin.shopkeepers.util.java.CyclicCounter;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.timer.Timer;
+import com.nisovin.shopkeepers.util.timer.Timings;
 
 public class ShopkeeperTicker {
 
@@ -38,6 +44,10 @@ public class ShopkeeperTicker {
 	 * <p>
 	 * With {@code 4} ticking groups, one fourth of the active shopkeepers are processed every
 	 * {@code 5} ticks.
+	 * <p>
+	 * When a ticking group is due, its shopkeepers are added to the queue of pending shopkeepers.
+	 * Pending shopkeepers are ticked until the {@link Settings#shopkeeperTickBudgetMillis tick
+	 * budget} is used up. Any remaining shopkeepers are ticked during the subsequent ticks.
 	 */
 	public static final int TICKING_GROUPS = 4;
 	private static final CyclicCounter tickingGroupCounter = new CyclicCounter(TICKING_GROUPS);
@@ -46,6 +56,14 @@ public class ShopkeeperTicker {
 		return tickingGroupCounter.getAndIncrement();
 	}
 
+	/**
+	 * Shopkeepers within this horizontal distance (in blocks) to a player are ticked before other
+	 * pending shopkeepers.
+	 */
+	private static final int NEARBY_PLAYER_DISTANCE = 32;
+	private static final int NEARBY_PLAYER_DISTANCE_SQ = NEARBY_PLAYER_DISTANCE
+			* NEARBY_PLAYER_DISTANCE;
+
 	private static final class TickingGroup {
 
 		private final Set<AbstractShopkeeper> shopkeepers = new LinkedHashSet<>();
@@ -84,9 +102,22 @@ public class ShopkeeperTicker {
 	}
 
 	private final CyclicCounter activeTickingGroup = new CyclicCounter(TICKING_GROUPS);
+	// Counts the ticks until the next ticking group is due:
+	private final CyclicCounter tickingGroupTicks = new CyclicCounter(ShopkeeperTickTask.PERIOD);
 	private boolean currentlyTicking = false;
 	private boolean dirty;
 
+	// Shopkeepers that are due to be ticked, in the order in which they are ticked:
+	// Shopkeepers near players are ticked before all other pending shopkeepers.
+	private final Set<AbstractShopkeeper> pendingNearPlayers = new LinkedHashSet<>();
+	private final Set<AbstractShopkeeper> pending = new LinkedHashSet<>();
+	private final PlayerPositions playerPositions = new PlayerPositions();
+
+	// Statistics:
+	private int maxPending = 0;
+	private long budgetExceededCount = 0L;
+	private final Timer tickTimings = new Timer();
+
 	// True: Ticking started, False: Ticking stopped
 	// Note: The start/stop-ticking callbacks for these pending changes have already been invoked
 	// and only the actual registration change is deferred, because if a shopkeeper changes its
@@ -106,6 +137,7 @@ public class ShopkeeperTicker {
 		// (avoids possible confusion for users).
 		tickingGroupCounter.reset();
 		activeTickingGroup.setValue(0);
+		tickingGroupTicks.setValue(0);
 
 		// Start shopkeeper ticking task:
 		this.startShopkeeperTickTask();
@@ -122,9 +154,15 @@ public class ShopkeeperTicker {
 			dirty = false;
 			tickingGroups.forEach(TickingGroup::clear);
 			pendingTickingChanges.clear();
+			this.clearPending();
 		} else {
 			this.ensureEmpty();
 		}
+
+		// Reset statistics:
+		maxPending = 0;
+		budgetExceededCount = 0L;
+		tickTimings.reset();
 	}
 
 	private void ensureEmpty() {
@@ -138,6 +176,8 @@ public class ShopkeeperTicker {
 			Log.warning("Unexpected pending shopkeeper ticking changes!");
 			pendingTickingChanges.clear();
 		}
+		// Shopkeepers are removed from the pending shopkeepers when they stop ticking:
+		this.clearPending();
 	}
 
 	private TickingGroup getTickingGroup(int tickingGroupIndex) {
@@ -213,6 +253,49 @@ public class ShopkeeperTicker {
 		TickingGroup tickingGroup = this.getTickingGroup(shopkeeper);
 		assert tickingGroup != null;
 		tickingGroup.removeShopkeeper(shopkeeper);
+
+		pendingNearPlayers.remove(shopkeeper);
+		pending.remove(shopkeeper);
+	}
+
+	// STATISTICS
+
+	/**
+	 * Gets the number of shopkeepers that are currently pending to be ticked.
+	 * 
+	 * @return the number of pending shopkeepers
+	 */
+	public int getPendingCount() {
+		return pendingNearPlayers.size() + pending.size();
+	}
+
+	/**
+	 * Gets the maximum number of shopkeepers that were at some point pending to be ticked at the
+	 * same time.
+	 * 
+	 * @return the maximum number of pending shopkeepers
+	 */
+	public int getMaxPendingCount() {
+		return maxPending;
+	}
+
+	/**
+	 * Gets the number of ticks during which the tick budget was used up before all pending
+	 * shopkeepers were ticked.
+	 * 
+	 * @return the number of ticks that exceeded the tick budget
+	 */
+	public long getBudgetExceededCount() {
+		return budgetExceededCount;
+	}
+
+	/**
+	 * Gets the timings of the ticks during which shopkeepers were ticked.
+	 * 
+	 * @return the tick timings
+	 */
+	public Timings getTickTimings() {
+		return tickTimings;
 	}
 
 	// TICKING
@@ -223,10 +306,13 @@ public class ShopkeeperTicker {
 
 	private final class ShopkeeperTickTask extends BukkitRunnable {
 
+		// The period at which the ticking groups become due:
 		private static final int PERIOD = TICKING_PERIOD_TICKS / TICKING_GROUPS;
 
 		void start() {
-			this.runTaskTimer(plugin, PERIOD, PERIOD);
+			// Runs every tick, so that shopkeepers that exceeded the tick budget are ticked during
+			// the subsequent ticks:
+			this.runTaskTimer(plugin, 1L, 1L);
 		}
 
 		@Override
@@ -236,31 +322,110 @@ public class ShopkeeperTicker {
 	}
 
 	private void tickShopkeepers() {
+		if (tickingGroupTicks.getAndIncrement() == 0) {
+			// The next ticking group is due:
+			this.addPending(this.getTickingGroup(activeTickingGroup.getAndIncrement()));
+		}
+
+		// Skip if there are no pending shopkeepers:
+		if (pendingNearPlayers.isEmpty() && pending.isEmpty()) return;
+
 		dirty = false;
+		tickTimings.start();
+
+		long budgetNanos = (long) (Settings.shopkeeperTickBudgetMillis * 1000000.0D);
+		boolean unlimitedBudget = (budgetNanos <= 0L);
+		long startNanos = System.nanoTime();
 
 		currentlyTicking = true;
-		TickingGroup tickingGroup = this.getTickingGroup(activeTickingGroup.getValue());
-		tickingGroup.getShopkeepers().forEach(this::tickShopkeeper);
+		@Nullable AbstractShopkeeper shopkeeper;
+		while ((shopkeeper = this.pollPending()) != null) {
+			this.tickShopkeeper(shopkeeper);
+
+			// Always tick at least one shopkeeper per tick, so that we make progress even if
+			// individual shopkeepers exceed the budget:
+			if (!unlimitedBudget && System.nanoTime() - startNanos >= budgetNanos) {
+				if (!pendingNearPlayers.isEmpty() || !pending.isEmpty()) {
+					// The remaining shopkeepers are ticked during the next tick:
+					budgetExceededCount++;
+				}
+				break;
+			}
+		}
 		currentlyTicking = false;
 
 		// Process pending shopkeeper ticking registration changes:
-		pendingTickingChanges.forEach((shopkeeper, isTicking) -> {
+		pendingTickingChanges.forEach((changedShopkeeper, isTicking) -> {
 			if (isTicking) {
-				this.addShopkeeper(shopkeeper);
+				this.addShopkeeper(changedShopkeeper);
 			} else {
-				this.removeShopkeeper(shopkeeper);
+				this.removeShopkeeper(changedShopkeeper);
 			}
 		});
 		pendingTickingChanges.clear();
 
+		tickTimings.stop();
+
 		// Trigger a delayed save if any of the shopkeepers got marked as dirty or deleted during
 		// the ticking:
 		if (dirty) {
 			plugin.getShopkeeperStorage().saveDelayed();
 		}
+	}
+
+	private void addPending(TickingGroup tickingGroup) {
+		Collection<? extends AbstractShopkeeper> shopkeepers = tickingGroup.getShopkeepers();
+		if (shopkeepers.isEmpty()) return;
+
+		playerPositions.update();
+		for (AbstractShopkeeper shopkeeper : shopkeepers) {
+			// Shopkeepers that are still pending since the last time their ticking group was due
+			// are only ticked once, and retain their position in the queue (unless they are moved
+			// to the front because a player came near):
+			if (this.isNearPlayer(shopkeeper)) {
+				pending.remove(shopkeeper);
+				pendingNearPlayers.add(shopkeeper);
+			} else if (!pendingNearPlayers.contains(shopkeeper)) {
+				pending.add(shopkeeper);
+			}
+		}
+		playerPositions.clear();
+
+		// Update max pending:
+		int pendingCount = this.getPendingCount();
+		if (pendingCount > maxPending) {
+			maxPending = pendingCount;
+		}
+	}
+
+	private @Nullable AbstractShopkeeper pollPending() {
+		@Nullable AbstractShopkeeper shopkeeper = pollFirst(pendingNearPlayers);
+		if (shopkeeper == null) {
+			shopkeeper = pollFirst(pending);
+		}
+		return shopkeeper;
+	}
+
+	private static @Nullable AbstractShopkeeper pollFirst(Set<AbstractShopkeeper> shopkeepers) {
+		if (shopkeepers.isEmpty()) return null;
+		Iterator<AbstractShopkeeper> iterator = shopkeepers.iterator();
+		AbstractShopkeeper shopkeeper = iterator.next();
+		iterator.remove();
+		return shopkeeper;
+	}
+
+	private void clearPending() {
+		pendingNearPlayers.clear();
+		pending.clear();
+	}
 
-		// Update the active ticking group:
-		activeTickingGroup.getAndIncrement();
+	private boolean isNearPlayer(AbstractShopkeeper shopkeeper) {
+		return playerPositions.isNearPlayer(
+				shopkeeper.getWorldName(),
+				shopkeeper.getX(),
+				shopkeeper.getZ(),
+				NEARBY_PLAYER_DISTANCE_SQ
+		);
 	}
 
 	private void tickShopkeeper(AbstractShopkeeper shopkeeper) {
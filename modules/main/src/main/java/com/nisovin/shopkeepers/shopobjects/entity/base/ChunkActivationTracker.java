@@ -0,0 +1,332 @@
+package com.nisovin.shopkeepers.shopobjects.entity.base;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.Timer;
+import com.nisovin.shopkeepers.util.timer.Timings;
+
+/**
+ * Keeps track of the chunks around online players in which the {@link EntityAI} activates the AI
+ * and gravity of shop entities.
+ * <p>
+ * Each chunk keeps count of the players whose activation ranges include the chunk. Instead of
+ * periodically re-determining the active chunks around all players, these counts are only updated
+ * for the chunks that enter or leave the activation ranges of a player when the player moves into
+ * a different chunk, or when the player is added or removed. The cost of keeping the chunk
+ * activations up-to-date is therefore proportional to the player movement instead of the number of
+ * online players.
+ * <p>
+ * The chunks are tracked by their coordinates, regardless of whether they are loaded or contain
+ * any shop entities.
+ */
+final class ChunkActivationTracker {
+
+	enum ActivationType {
+		GRAVITY,
+		AI;
+	}
+
+	/**
+	 * Gets informed whenever a chunk is activated or deactivated.
+	 */
+	interface ActivationListener {
+
+		/**
+		 * This is invoked when the given chunk is activated or deactivated.
+		 * 
+		 * @param chunkCoords
+		 *            the chunk coordinates, not <code>null</code>
+		 * @param activationType
+		 *            the activation type, not <code>null</code>
+		 * @param active
+		 *            <code>true</code> if the chunk has been activated, <code>false</code> if it
+		 *            has been deactivated
+		 */
+		void onActivationChanged(
+				ChunkCoords chunkCoords,
+				ActivationType activationType,
+				boolean active
+		);
+	}
+
+	private static final class PlayerChunk {
+
+		private final String worldName;
+		private final int chunkX;
+		private final int chunkZ;
+
+		PlayerChunk(String worldName, int chunkX, int chunkZ) {
+			this.worldName = worldName;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+
+		boolean matches(String worldName, int chunkX, int chunkZ) {
+			return this.chunkX == chunkX
+					&& this.chunkZ == chunkZ
+					&& this.worldName.equals(worldName);
+		}
+
+		boolean isInRange(String worldName, int chunkX, int chunkZ, int chunkRange) {
+			return Math.abs(this.chunkX - chunkX) <= chunkRange
+					&& Math.abs(this.chunkZ - chunkZ) <= chunkRange
+					&& this.worldName.equals(worldName);
+		}
+	}
+
+	private static final class ChunkActivation {
+
+		private final ChunkCoords chunkCoords;
+		// The number of players in range:
+		private int aiCount = 0;
+		private int gravityCount = 0;
+
+		ChunkActivation(ChunkCoords chunkCoords) {
+			this.chunkCoords = chunkCoords;
+		}
+
+		int getCount(ActivationType activationType) {
+			return (activationType == ActivationType.AI) ? aiCount : gravityCount;
+		}
+
+		void setCount(ActivationType activationType, int count) {
+			assert count >= 0;
+			if (activationType == ActivationType.AI) {
+				aiCount = count;
+			} else {
+				gravityCount = count;
+			}
+		}
+
+		boolean isUnused() {
+			return aiCount == 0 && gravityCount == 0;
+		}
+	}
+
+	// Temporarily re-used objects:
+	private static final Location sharedLocation = new Location(null, 0, 0, 0);
+	private final MutableChunkCoords sharedChunkCoords = new MutableChunkCoords();
+
+	private final ActivationListener listener;
+	private int aiChunkRange = 0;
+	// Negative if disabled:
+	private int gravityChunkRange = -1;
+
+	private final Map<UUID, PlayerChunk> players = new HashMap<>();
+	private final Map<ChunkCoords, ChunkActivation> chunks = new HashMap<>();
+
+	private final Timer updateTimings = new Timer();
+
+	/**
+	 * Creates a new {@link ChunkActivationTracker}.
+	 * 
+	 * @param listener
+	 *            the listener that gets informed about chunk activation changes
+	 */
+	ChunkActivationTracker(ActivationListener listener) {
+		Validate.notNull(listener, "listener is null");
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the ranges in chunks around players in which chunks are activated.
+	 * <p>
+	 * This can only be called while no players are tracked.
+	 * 
+	 * @param aiChunkRange
+	 *            the AI activation range, not negative
+	 * @param gravityChunkRange
+	 *            the gravity activation range, or a negative value to not activate gravity
+	 */
+	void setChunkRanges(int aiChunkRange, int gravityChunkRange) {
+		Validate.isTrue(aiChunkRange >= 0, "aiChunkRange cannot be negative");
+		Validate.State.isTrue(players.isEmpty(), "There are players tracked currently!");
+		this.aiChunkRange = aiChunkRange;
+		this.gravityChunkRange = gravityChunkRange;
+	}
+
+	/**
+	 * Stops tracking all players and resets all chunk activations, without informing the listener.
+	 */
+	void clear() {
+		players.clear();
+		chunks.clear();
+		updateTimings.reset();
+	}
+
+	/**
+	 * Gets the timings of the updates that changed the chunk of a player.
+	 * 
+	 * @return the timings
+	 */
+	Timings getUpdateTimings() {
+		return updateTimings;
+	}
+
+	/**
+	 * Checks if the specified chunk is active.
+	 * 
+	 * @param chunkCoords
+	 *            the chunk coordinates
+	 * @param activationType
+	 *            the activation type
+	 * @return <code>true</code> if the chunk is active
+	 */
+	boolean isActive(ChunkCoords chunkCoords, ActivationType activationType) {
+		ChunkActivation chunkActivation = chunks.get(chunkCoords);
+		if (chunkActivation == null) return false;
+		return chunkActivation.getCount(activationType) > 0;
+	}
+
+	/**
+	 * Updates the chunk activations based on the current location of the given player.
+	 * <p>
+	 * If the player is not yet tracked, it is added. If the player is still in the same chunk as
+	 * during the previous update, this has no effect.
+	 * 
+	 * @param player
+	 *            the player
+	 */
+	void updatePlayer(Player player) {
+		Location location = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+		this.updatePlayer(player, location);
+		sharedLocation.setWorld(null); // Reset
+	}
+
+	/**
+	 * Updates the chunk activations based on the given new location of the given player.
+	 * 
+	 * @param player
+	 *            the player
+	 * @param location
+	 *            the new location of the player
+	 * @see #updatePlayer(Player)
+	 */
+	void updatePlayer(Player player, Location location) {
+		World world = location.getWorld();
+		if (world == null) return;
+
+		String worldName = world.getName();
+		// Note: We only use the chunk coordinates and do not access the chunk itself, since the
+		// player's current chunk may not be loaded yet on some server implementations.
+		int chunkX = ChunkCoords.fromBlock(location.getBlockX());
+		int chunkZ = ChunkCoords.fromBlock(location.getBlockZ());
+
+		UUID playerId = player.getUniqueId();
+		@Nullable PlayerChunk oldChunk = players.get(playerId);
+		if (oldChunk != null && oldChunk.matches(worldName, chunkX, chunkZ)) {
+			return; // The player is still in the same chunk
+		}
+
+		updateTimings.start();
+		PlayerChunk newChunk = new PlayerChunk(worldName, chunkX, chunkZ);
+		players.put(playerId, newChunk);
+		this.updateActivations(oldChunk, newChunk);
+		updateTimings.stop();
+	}
+
+	/**
+	 * Stops tracking the given player and deactivates the chunks that are no longer in range of
+	 * other players.
+	 * 
+	 * @param player
+	 *            the player
+	 */
+	void removePlayer(Player player) {
+		@Nullable PlayerChunk oldChunk = players.remove(player.getUniqueId());
+		if (oldChunk == null) return; // The player is not tracked
+
+		updateTimings.start();
+		this.updateActivations(oldChunk, null);
+		updateTimings.stop();
+	}
+
+	private void updateActivations(@Nullable PlayerChunk oldChunk, @Nullable PlayerChunk newChunk) {
+		this.updateActivations(oldChunk, newChunk, aiChunkRange, ActivationType.AI);
+		if (gravityChunkRange >= 0) {
+			this.updateActivations(oldChunk, newChunk, gravityChunkRange, ActivationType.GRAVITY);
+		}
+	}
+
+	// Only updates the chunks that enter or leave the range.
+	private void updateActivations(
+			@Nullable PlayerChunk oldChunk,
+			@Nullable PlayerChunk newChunk,
+			int chunkRange,
+			ActivationType activationType
+	) {
+		assert chunkRange >= 0 && activationType != null;
+		if (oldChunk != null) {
+			this.updateCounts(oldChunk, newChunk, chunkRange, activationType, -1);
+		}
+		if (newChunk != null) {
+			this.updateCounts(newChunk, oldChunk, chunkRange, activationType, 1);
+		}
+	}
+
+	// Updates the counts of the chunks in range of the given center chunk that are not in range of
+	// the other chunk.
+	private void updateCounts(
+			PlayerChunk centerChunk,
+			@Nullable PlayerChunk otherChunk,
+			int chunkRange,
+			ActivationType activationType,
+			int delta
+	) {
+		String worldName = centerChunk.worldName;
+		int minChunkX = centerChunk.chunkX - chunkRange;
+		int maxChunkX = centerChunk.chunkX + chunkRange;
+		int minChunkZ = centerChunk.chunkZ - chunkRange;
+		int maxChunkZ = centerChunk.chunkZ + chunkRange;
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+				if (otherChunk != null
+						&& otherChunk.isInRange(worldName, chunkX, chunkZ, chunkRange)) {
+					continue; // Chunk is in range of both chunks: Its count remains the same.
+				}
+				this.updateCount(worldName, chunkX, chunkZ, activationType, delta);
+			}
+		}
+	}
+
+	private void updateCount(
+			String worldName,
+			int chunkX,
+			int chunkZ,
+			ActivationType activationType,
+			int delta
+	) {
+		sharedChunkCoords.set(worldName, chunkX, chunkZ);
+		ChunkActivation chunkActivation = chunks.get(sharedChunkCoords);
+		if (chunkActivation == null) {
+			assert delta > 0;
+			ChunkCoords chunkCoords = new ChunkCoords(sharedChunkCoords); // Copy
+			chunkActivation = new ChunkActivation(chunkCoords);
+			chunks.put(chunkCoords, chunkActivation);
+		}
+
+		int oldCount = chunkActivation.getCount(activationType);
+		int newCount = oldCount + delta;
+		chunkActivation.setCount(activationType, newCount);
+
+		if (oldCount == 0) {
+			listener.onActivationChanged(chunkActivation.chunkCoords, activationType, true);
+		} else if (newCount == 0) {
+			if (chunkActivation.isUnused()) {
+				chunks.remove(chunkActivation.chunkCoords);
+			}
+			listener.onActivationChanged(chunkActivation.chunkCoords, activationType, false);
+		}
+	}
+}
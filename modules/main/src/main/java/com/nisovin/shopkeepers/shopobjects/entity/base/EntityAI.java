@@ -11,7 +11,6 @@ import java.util.Set;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -20,6 +19,8 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -29,6 +30,7 @@ import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.ChunkCoords;
 import com.nisovin.shopkeepers.compat.Compat;
 import com.nisovin.shopkeepers.config.Settings;
+import com.nisovin.shopkeepers.shopobjects.entity.base.ChunkActivationTracker.ActivationType;
 import com.nisovin.shopkeepers.util.bukkit.EntityUtils;
 import com.nisovin.shopkeepers.util.bukkit.MutableChunkCoords;
 import com.nisovin.shopkeepers.util.bukkit.WorldUtils;
@@ -53,6 +55,10 @@ import com.nisovin.shopkeepers.util.timer.Timings;
  * they do change their location, the AI system must be informed via
  * {@link #updateLocation(BaseEntityShopObject)} in order for their gravity and AI activation to
  * still function correctly.
+ * <p>
+ * The gravity and AI are only active in chunks near players. These chunk activations are tracked
+ * incrementally by a {@link ChunkActivationTracker}, which reacts to players moving into different
+ * chunks, teleporting, joining, and quitting.
  */
 public class EntityAI implements Listener {
 
@@ -62,14 +68,13 @@ public class EntityAI implements Listener {
 	public static final float LOOK_RANGE = 6.0F;
 
 	/**
-	 * Determines how often AI activations are rechecked (every X ticks).
+	 * Determines how often we check if players have moved into different chunks without us
+	 * noticing (every X ticks).
 	 * <p>
-	 * We also separately react to player joins and teleports in order to quickly activate the AI of
-	 * nearby shopkeepers in those cases. Note that this only has an effect if the nearby chunks
-	 * were already loaded and their shopkeepers were already spawned. However, if this is not the
-	 * case, the chunk will be marked as active by default anyway already once the shopkeepers are
-	 * spawned (which can happen deferred to chunk loading, due to the deferred chunk activation and
-	 * the spawn queue).
+	 * The chunk activations are usually updated in reaction to player movements, teleports, joins
+	 * and quits. However, not all player movements trigger a {@link PlayerMoveEvent}, e.g. when
+	 * players ride vehicles or respawn. These are detected by this periodic check, which only
+	 * compares the current chunk of each online player with its previously known chunk.
 	 */
 	// 30 ticks is quick enough to fluently react even to players flying in creative mode with
 	// default flying speed.
@@ -175,12 +180,12 @@ public class EntityAI implements Listener {
 		private final ChunkCoords chunkCoords;
 		// We don't expect there to be many entities within a single chunk, so using a list is okay:
 		private final List<EntityData> entities = new ArrayList<>();
-		// Active by default for fast initial reactions in case players are nearby:
 		public boolean activeGravity;
-		public boolean activeAI = true;
+		public boolean activeAI;
 
-		public ChunkData(ChunkCoords chunkCoords, boolean activeGravity) {
+		public ChunkData(ChunkCoords chunkCoords, boolean activeAI, boolean activeGravity) {
 			this.chunkCoords = chunkCoords;
+			this.activeAI = activeAI;
 			this.activeGravity = activeGravity;
 		}
 	}
@@ -188,6 +193,9 @@ public class EntityAI implements Listener {
 	private final Map<ChunkCoords, ChunkData> chunks = new LinkedHashMap<>();
 	// Index for fast removal: Shop object -> EntityData
 	private final Map<BaseEntityShopObject<?>, EntityData> shopObjects = new HashMap<>();
+	private final ChunkActivationTracker activationTracker = new ChunkActivationTracker(
+			this::onChunkActivationChanged
+	);
 
 	private @Nullable BukkitTask aiTask = null;
 	private boolean currentlyRunning = false;
@@ -200,10 +208,7 @@ public class EntityAI implements Listener {
 	private int activeGravityEntityCount = 0;
 
 	private final Timer totalTimings = new Timer();
-	// Note: This only captures the periodic full activation updates, and not the player-specific
-	// activations triggered
-	// by player joins and teleports.
-	private final Timer activationTimings = new Timer();
+	// Note: The chunk activation timings are captured by the activation tracker.
 	private final Timer gravityTimings = new Timer();
 	private final Timer aiTimings = new Timer();
 
@@ -217,6 +222,11 @@ public class EntityAI implements Listener {
 		maxFallingDistancePerUpdate = Settings.entityBehaviorTickPeriod * MAX_FALLING_DISTANCE_PER_TICK;
 		gravityCollisionCheckRange = maxFallingDistancePerUpdate + 0.1D;
 		customGravityEnabled = _isCustomGravityEnabled();
+		assert Settings.gravityChunkRange >= 0;
+		activationTracker.setChunkRanges(
+				AI_ACTIVATION_CHUNK_RANGE,
+				customGravityEnabled ? Settings.gravityChunkRange : -1
+		);
 
 		// Register listener:
 		Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -231,6 +241,7 @@ public class EntityAI implements Listener {
 		this.stopTask();
 		chunks.clear();
 		shopObjects.clear();
+		activationTracker.clear();
 		this.resetStatistics();
 	}
 
@@ -258,7 +269,11 @@ public class EntityAI implements Listener {
 		ChunkData chunkData = chunks.get(sharedChunkCoords);
 		if (chunkData == null) {
 			ChunkCoords chunkCoords = new ChunkCoords(sharedChunkCoords); // Copy
-			chunkData = new ChunkData(chunkCoords, customGravityEnabled);
+			chunkData = new ChunkData(
+					chunkCoords,
+					activationTracker.isActive(chunkCoords, ActivationType.AI),
+					activationTracker.isActive(chunkCoords, ActivationType.GRAVITY)
+			);
 			chunks.put(chunkCoords, chunkData);
 
 			// Update chunk statistics:
@@ -332,7 +347,6 @@ public class EntityAI implements Listener {
 		activeGravityEntityCount = 0;
 
 		totalTimings.reset();
-		activationTimings.reset();
 		gravityTimings.reset();
 		aiTimings.reset();
 	}
@@ -362,7 +376,7 @@ public class EntityAI implements Listener {
 	}
 
 	public Timings getActivationTimings() {
-		return activationTimings;
+		return activationTracker.getUpdateTimings();
 	}
 
 	public Timings getGravityTimings() {
@@ -418,10 +432,10 @@ public class EntityAI implements Listener {
 			gravityTimings.startPaused();
 			aiTimings.startPaused();
 
-			// Freshly determine active chunks/entities (near players) every AI_ACTIVATION_TICK_RATE
+			// Check for player chunk changes that we did not notice every AI_ACTIVATION_TICK_RATE
 			// ticks:
 			if (aiActivationLimiter.request(Settings.entityBehaviorTickPeriod)) {
-				updateChunkActivations();
+				updatePlayerChunks();
 			}
 
 			// Process entities:
@@ -438,69 +452,24 @@ public class EntityAI implements Listener {
 
 	// CHUNK ACTIVATIONS
 
-	private void updateChunkActivations() {
-		activationTimings.start();
-
-		// Deactivate all chunks:
-		chunks.values().forEach(chunkData -> {
-			chunkData.activeAI = false;
-			chunkData.activeGravity = false;
-		});
-		activeAIChunksCount = 0;
-		activeGravityChunksCount = 0;
-
-		// Activate chunks around online players:
+	private void updatePlayerChunks() {
 		for (Player player : Bukkit.getOnlinePlayers()) {
 			assert player != null;
-			this.activateNearbyChunks(player);
-		}
-
-		activationTimings.stop();
-	}
-
-	// Note: This only activates chunks around the player, but does not deactivate any chunks that
-	// have previously been activated by the player. The periodic full activation update deactivates
-	// all chunks that no longer require activation.
-	private void activateNearbyChunks(Player player) {
-		World world = player.getWorld();
-		Location location = Unsafe.assertNonNull(player.getLocation(sharedLocation));
-		// Note: On some Paper versions with their async chunk loading, the player's current chunk
-		// may sometimes not be loaded yet. We therefore avoid accessing (and thereby loading) that
-		// chunk here, but instead only use its coordinates. The subsequent activation of nearby
-		// chunks only considers loaded chunks.
-		int chunkX = ChunkCoords.fromBlock(location.getBlockX());
-		int chunkZ = ChunkCoords.fromBlock(location.getBlockZ());
-
-		this.activateNearbyChunks(
-				world,
-				chunkX,
-				chunkZ,
-				AI_ACTIVATION_CHUNK_RANGE,
-				ActivationType.AI
-		);
-		if (customGravityEnabled) {
-			assert Settings.gravityChunkRange >= 0;
-			this.activateNearbyChunks(
-					world,
-					chunkX,
-					chunkZ,
-					Settings.gravityChunkRange,
-					ActivationType.GRAVITY
-			);
+			// This only updates the chunk activations if the player moved into a different chunk:
+			activationTracker.updatePlayer(player);
 		}
-		sharedLocation.setWorld(null); // Reset
 	}
 
-	private void activateNearbyChunksDelayed(Player player) {
+	private void updatePlayerChunkDelayed(Player player) {
 		if (!player.isOnline()) return; // Player is no longer online
-		Bukkit.getScheduler().runTask(plugin, new ActivateNearbyChunksDelayedTask(player));
+		Bukkit.getScheduler().runTask(plugin, new UpdatePlayerChunkDelayedTask(player));
 	}
 
-	private class ActivateNearbyChunksDelayedTask implements Runnable {
+	private class UpdatePlayerChunkDelayedTask implements Runnable {
 
 		private final Player player;
 
-		ActivateNearbyChunksDelayedTask(Player player) {
+		UpdatePlayerChunkDelayedTask(Player player) {
 			assert player != null;
 			this.player = player;
 		}
@@ -508,52 +477,33 @@ public class EntityAI implements Listener {
 		@Override
 		public void run() {
 			if (!player.isOnline()) return; // Player is no longer online
-			activateNearbyChunks(player);
+			activationTracker.updatePlayer(player);
 		}
 	}
 
-	private enum ActivationType {
-		GRAVITY,
-		AI;
-	}
-
-	private void activateNearbyChunks(
-			World world,
-			int centerChunkX,
-			int centerChunkZ,
-			int chunkRadius,
-			ActivationType activationType
+	private void onChunkActivationChanged(
+			ChunkCoords chunkCoords,
+			ActivationType activationType,
+			boolean active
 	) {
-		assert world != null && chunkRadius >= 0 && activationType != null;
-		String worldName = world.getName();
-		int minChunkX = centerChunkX - chunkRadius;
-		int maxChunkX = centerChunkX + chunkRadius;
-		int minChunkZ = centerChunkZ - chunkRadius;
-		int maxChunkZ = centerChunkZ + chunkRadius;
-		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-				sharedChunkCoords.set(worldName, chunkX, chunkZ);
-				ChunkData chunkData = chunks.get(sharedChunkCoords);
-				if (chunkData == null) continue;
-
-				switch (activationType) {
-				case GRAVITY:
-					if (!chunkData.activeGravity) {
-						chunkData.activeGravity = true;
-						activeGravityChunksCount++;
-					}
-					break;
-				case AI:
-					if (!chunkData.activeAI) {
-						chunkData.activeAI = true;
-						activeAIChunksCount++;
-					}
-					break;
-				default:
-					throw new IllegalStateException("Unexpected activation type: "
-							+ activationType);
-				}
+		ChunkData chunkData = chunks.get(chunkCoords);
+		if (chunkData == null) return; // There are no shop entities in this chunk
+
+		switch (activationType) {
+		case GRAVITY:
+			if (chunkData.activeGravity != active) {
+				chunkData.activeGravity = active;
+				activeGravityChunksCount += active ? 1 : -1;
 			}
+			break;
+		case AI:
+			if (chunkData.activeAI != active) {
+				chunkData.activeAI = active;
+				activeAIChunksCount += active ? 1 : -1;
+			}
+			break;
+		default:
+			throw new IllegalStateException("Unexpected activation type: " + activationType);
 		}
 	}
 
@@ -736,8 +686,23 @@ public class EntityAI implements Listener {
 
 	// EVENT HANDLERS
 
-	// By reacting to player joins and teleports we can very quickly activate chunks around players
-	// that suddenly appear near shopkeepers.
+	// By reacting to player movements, joins and teleports we can very quickly activate chunks
+	// around players that suddenly appear near shopkeepers.
+
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	void onPlayerMove(PlayerMoveEvent event) {
+		// This event is called frequently: Quickly ignore movements within the same chunk.
+		Location from = event.getFrom();
+		Location to = event.getTo();
+		if (to == null) return;
+		if (ChunkCoords.fromBlock(from.getBlockX()) == ChunkCoords.fromBlock(to.getBlockX())
+				&& ChunkCoords.fromBlock(from.getBlockZ()) == ChunkCoords.fromBlock(to.getBlockZ())
+				&& from.getWorld() == to.getWorld()) {
+			return;
+		}
+
+		activationTracker.updatePlayer(event.getPlayer(), to);
+	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onPlayerJoin(PlayerJoinEvent event) {
@@ -745,7 +710,7 @@ public class EntityAI implements Listener {
 		// Note: This also checks if the player is still online (some other plugin might have kicked
 		// the player during the event) and otherwise ignores the request.
 		Player player = event.getPlayer();
-		this.activateNearbyChunksDelayed(player);
+		this.updatePlayerChunkDelayed(player);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -755,8 +720,14 @@ public class EntityAI implements Listener {
 		Location targetLocation = event.getTo();
 		if (targetLocation == null) return;
 
-		// Activate chunks around the player after the teleport:
+		// Update the chunk activations around the player after the teleport:
 		Player player = event.getPlayer();
-		this.activateNearbyChunksDelayed(player);
+		this.updatePlayerChunkDelayed(player);
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	void onPlayerQuit(PlayerQuitEvent event) {
+		// Deactivate the chunks that are no longer near any players:
+		activationTracker.removePlayer(event.getPlayer());
 	}
 }
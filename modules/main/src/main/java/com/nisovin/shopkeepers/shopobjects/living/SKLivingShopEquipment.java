@@ -16,6 +16,7 @@ import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
 import com.nisovin.shopkeepers.util.data.serialization.bukkit.ItemStackSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.bukkit.MinecraftEnumSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 
@@ -94,7 +95,7 @@ public class SKLivingShopEquipment implements LivingShopEquipment {
 			items.remove(slot);
 		} else {
 			assert item != null;
-			items.put(slot, item);
+			items.put(slot, ItemStackInterner.intern(item));
 		}
 
 		// Inform the changed listener:
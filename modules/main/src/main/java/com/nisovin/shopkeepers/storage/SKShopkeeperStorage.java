@@ -1,21 +1,22 @@
 package com.nisovin.shopkeepers.storage;
 
-import java.io.Reader;
-import java.nio.charset.StandardCharsets;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
@@ -29,26 +30,19 @@ import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.ShopkeeperRegistry;
 import com.nisovin.shopkeepers.api.storage.ShopkeeperStorage;
 import com.nisovin.shopkeepers.config.Settings;
-import com.nisovin.shopkeepers.debug.Debug;
 import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
 import com.nisovin.shopkeepers.shopkeeper.ShopkeeperData;
 import com.nisovin.shopkeepers.shopkeeper.registry.SKShopkeeperRegistry;
-import com.nisovin.shopkeepers.storage.migration.RawDataMigrations;
+import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
 import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
-import com.nisovin.shopkeepers.util.bukkit.PluginUtils;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
 import com.nisovin.shopkeepers.util.data.container.DataContainer;
-import com.nisovin.shopkeepers.util.data.persistence.DataStore;
 import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
 import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
 import com.nisovin.shopkeepers.util.data.serialization.InvalidDataException;
 import com.nisovin.shopkeepers.util.java.ConversionUtils;
-import com.nisovin.shopkeepers.util.java.FileUtils;
-import com.nisovin.shopkeepers.util.java.Retry;
-import com.nisovin.shopkeepers.util.java.ThrowableUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
-import com.nisovin.shopkeepers.util.java.VoidCallable;
 import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
@@ -59,6 +53,8 @@ import com.nisovin.shopkeepers.util.logging.Log;
  * <li>There can at most be one thread doing file IO at the same time.
  * <li>Saving preparation always happens on the server's main thread. At most one save can be
  * prepared and processed at the same time.
+ * <li>The saving preparation captures the data of the dirty shopkeepers as snapshots of plain data.
+ * The subsequent serialization and writing of this data can happen asynchronously.
  * <li>If there is a request for another <b>async</b> save while an async save is already in
  * progress, a flag is set to indicate that another save needs to take place once the current async
  * save completes.
@@ -71,27 +67,17 @@ import com.nisovin.shopkeepers.util.logging.Log;
  */
 public class SKShopkeeperStorage implements ShopkeeperStorage {
 
-	private static final String DATA_FOLDER = "data";
-	private static final String SAVE_FILE_NAME = "save.yml";
-
-	private static final String DATA_VERSION_KEY = "data-version";
-
-	private static final List<@Nullable String> HEADER = Collections.unmodifiableList(Arrays.asList(
-			"This file is not intended to be manually modified! If you want to manually edit this"
-					+ " file anyway, ensure that the server is not running currently and that you"
-					+ " have prepared a backup of this file."
-	));
+	static final String DATA_VERSION_KEY = "data-version";
 
 	private static final int DELAYED_SAVE_TICKS = 600; // 30 seconds
 
-	// Max total delay: 500ms
-	private static final int SAVING_MAX_ATTEMPTS = 20;
-	private static final long SAVING_ATTEMPTS_DELAY_MILLIS = 25;
 	private static final long SAVE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(4);
+	// The shopkeepers are prepared and loaded in batches of this size:
+	private static final int LOAD_BATCH_SIZE = 1000;
 
 	private final SKShopkeepersPlugin plugin;
 
-	private final Path saveFile;
+	private final SaveFiles saveFiles;
 
 	/* Data */
 	/*
@@ -123,6 +109,13 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	// Shopkeepers that got deleted during the last async save. Their data is removed from memory
 	// after the current save completes, and removed from the save file by the subsequent save.
 	private final Set<AbstractShopkeeper> shopkeepersToDelete = new LinkedHashSet<>();
+	// Whether the next save needs to write the data of all shopkeepers, and not only the data of
+	// the shopkeepers with unsaved changes. Only relevant for the segmented storage type.
+	private boolean fullSaveRequired = false;
+	// The save data of the previously used storage type, if we migrated the save data to a
+	// different storage type during loading. The next successful save moves this save data to a
+	// backup location.
+	private @Nullable Path migratedSaveData = null;
 
 	/* Loading */
 	private boolean currentlyLoading = false;
@@ -138,22 +131,10 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	public SKShopkeeperStorage(SKShopkeepersPlugin plugin) {
 		DataVersion.init();
 		this.plugin = plugin;
-		this.saveFile = Unsafe.initialized(this)._getSaveFile();
+		this.saveFiles = new SaveFiles(plugin.getDataFolder().toPath());
 		this.saveTask = new SaveTask(plugin);
 	}
 
-	private Path getPluginDataFolder() {
-		return plugin.getDataFolder().toPath();
-	}
-
-	private Path _getDataFolder() {
-		return this.getPluginDataFolder().resolve(DATA_FOLDER);
-	}
-
-	private Path _getSaveFile() {
-		return this._getDataFolder().resolve(SAVE_FILE_NAME);
-	}
-
 	public void onEnable() {
 		// Start periodic save task:
 		if (!Settings.saveInstantly) {
@@ -363,6 +344,8 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 	 */
 	private void clearSaveData() {
 		saveData.clear();
+		fullSaveRequired = false;
+		migratedSaveData = null;
 		maxUsedShopkeeperId = 0;
 		nextShopkeeperId = 1;
 	}
@@ -405,85 +388,34 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		shopkeeperRegistry.unloadAllShopkeepers();
 		this.clearSaveData();
 
-		Path saveFile = this.saveFile;
-		if (!Files.exists(saveFile)) {
-			var tempSaveFile = FileUtils.getTempSibling(saveFile);
-			if (Files.exists(tempSaveFile)) {
-				// Load from temporary save file instead:
-				Log.warning("Found no save file, but an existing temporary save file ("
-						+ PluginUtils.relativize(plugin, tempSaveFile) + ")!"
-						+ " This might indicate an issue during a previous saving attempt!"
-						+ " We try to load the Shopkeepers data from this temporary save file"
-						+ " instead!");
-				saveFile = tempSaveFile;
-			} else {
-				// No save file exists yet -> No shopkeeper data available.
-				// We silently set up the data version and abort:
-				saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
-				return true;
-			}
+		// Load the save data:
+		// The storage type and compression are determined during loading, so that changes to
+		// these settings only take effect after a reload:
+		if (!saveFiles.load(Settings.shopkeeperStorage, Settings.compressSaveData, saveData)) {
+			return false; // Disable without save
 		}
 
-		boolean rawDataMigrated = false;
-
-		// Load the save data:
-		try (Reader reader = Files.newBufferedReader(saveFile, StandardCharsets.UTF_8)) {
-			var content = FileUtils.read(reader);
-
-			// Apply string-based migrations:
-			var migratedContent = RawDataMigrations.applyMigrations(content);
-			rawDataMigrated = !content.equals(migratedContent);
-
-			if (rawDataMigrated) {
-				var now = LocalDateTime.now();
-				var backupSaveFile = saveFile.resolveSibling(
-						now.format(FileUtils.DATE_TIME_FORMATTER) + "_" + saveFile.getFileName()
-								+ ".backup"
-				);
-				Log.info("Shopkeeper data migrated. Writing backup to "
-						+ PluginUtils.relativize(plugin, backupSaveFile));
-
-				try {
-					// Error if a file already exists at the destination:
-					Files.copy(saveFile, backupSaveFile);
-				} catch (Exception e) {
-					Log.severe("Failed to write backup file!", e);
-					return false; // Disable without save
-				}
-			}
+		Path previousSaveData = saveFiles.getMigratedSaveData();
+		if (previousSaveData != null) {
+			// The next save writes the data of all shopkeepers to the new storage location, and
+			// then moves the previous save data out of the way:
+			migratedSaveData = previousSaveData;
+			fullSaveRequired = true;
+			this.requestSave();
+		}
 
-			// If a migration was applied, write the intermediate result to disk for debugging
-			// purposes (e.g. if the subsequent loading fails):
-			if (Debug.isDebugging() && rawDataMigrated) {
-				var migratedSaveFile = saveFile.resolveSibling(saveFile.getFileName() + ".migrated");
-				Log.info("Writing migrated save file to "
-						+ PluginUtils.relativize(plugin, migratedSaveFile));
-				try {
-					FileUtils.writeSafely(
-							migratedSaveFile,
-							migratedContent,
-							StandardCharsets.UTF_8,
-							Log.getLogger(),
-							getPluginDataFolder()
-					);
-				} catch (Exception e) {
-					Log.warning("Failed to write migrated save file ("
-							+ PluginUtils.relativize(plugin, migratedSaveFile)
-							+ "). This file is only written for debugging purposes."
-							+ " Continuing the data loading ...", e);
-				}
-			}
+		if (saveFiles.isCompressionChanged()) {
+			Log.info("The compression of the save data has changed. All save files are written"
+					+ (saveFiles.isCompressSaveData() ? " compressed" : " uncompressed")
+					+ " during the next save.");
+			fullSaveRequired = true;
+			this.requestSave();
+		}
 
-			// Since Bukkit 1.16.5, this automatically clears the save data before loading the new
-			// entries:
-			saveData.loadFromString(migratedContent);
-		} catch (InvalidDataFormatException e) {
-			Log.severe("Failed to load the save file! Note: Server downgrades or manually "
-					+ "editing the save file are not supported!", e);
-			return false; // Disable without save
-		} catch (Exception e) {
-			Log.severe("Failed to load the save file!", e);
-			return false; // Disable without save
+		if (saveData.isEmpty()) {
+			// No shopkeeper data available. We silently set up the data version and abort:
+			saveData.set(DATA_VERSION_KEY, DataVersion.current().toString());
+			return true;
 		}
 
 		// Insert the data version as the first (top) entry:
@@ -557,7 +489,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		// Check if the data version has changed, and whether we need to trigger a full save of all
 		// shopkeeper data:
 		boolean dataVersionChanged = !DataVersion.current().equals(dataVersion);
-		boolean forceSaveAllShopkeepers = rawDataMigrated
+		boolean forceSaveAllShopkeepers = saveFiles.isRawDataMigrated()
 				|| DataVersion.current().isMinecraftUpgrade(dataVersion)
 				|| DataVersion.current().isShopkeeperStorageUpgrade(dataVersion);
 		if (dataVersionChanged) {
@@ -576,65 +508,180 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			this.requestSave();
 		}
 
-		for (String key : keys) {
-			if (key.equals(DATA_VERSION_KEY)) continue; // Skip the data version entry
-
-			// If the shopkeeper cannot be loaded, it is skipped and the loading continues with the
-			// remaining shopkeepers:
-			// Note: When a player shopkeeper cannot be loaded, its associated containers might no
-			// longer be protected. So this is potentially a severe issue that admins should
-			// immediately look into. However, we do not abort the enabling of the plugin if
-			// individual shopkeepers cannot be loaded, because this would disable the protection of
-			// all player shop containers on the server (which is even worse).
-			this.loadShopkeeper(key, forceSaveAllShopkeepers);
+		// Prepare and load the shopkeepers in batches, in save data order:
+		// Only the reading and parsing of the save files happens in parallel. The deserialization
+		// of the shopkeeper data (e.g. of item stacks) and the data migrations invoke Bukkit and
+		// Minecraft logic and therefore happen on the main thread. The save data itself keeps the
+		// parsed data, which can be saved again as it is, e.g. if a shopkeeper fails to load.
+		List<String> shopkeeperKeys = new ArrayList<>(shopkeepersCount);
+		keys.forEach(key -> {
+			if (key.equals(DATA_VERSION_KEY)) return; // Skip the data version entry
+			shopkeeperKeys.add(key);
+		});
+		long deserializationNanos = 0L;
+		long migrationNanos = 0L;
+		long registrationNanos = 0L;
+		for (int start = 0; start < shopkeeperKeys.size(); start += LOAD_BATCH_SIZE) {
+			int end = Math.min(start + LOAD_BATCH_SIZE, shopkeeperKeys.size());
+			List<PreparedShopkeeperData> batch = new ArrayList<>(end - start);
+			shopkeeperKeys.subList(start, end).forEach(key -> {
+				batch.add(new PreparedShopkeeperData(key));
+			});
+
+			final long deserializationStartNanos = System.nanoTime();
+			if (!this.deserializeBatch(batch)) {
+				return false; // Disable without save
+			}
+
+			final long migrationStartNanos = System.nanoTime();
+			batch.forEach(this::migrateShopkeeperData);
+
+			final long registrationStartNanos = System.nanoTime();
+			for (PreparedShopkeeperData preparedShopkeeper : batch) {
+				// If the shopkeeper cannot be loaded, it is skipped and the loading continues with
+				// the remaining shopkeepers:
+				// Note: When a player shopkeeper cannot be loaded, its associated containers might
+				// no longer be protected. So this is potentially a severe issue that admins should
+				// immediately look into. However, we do not abort the enabling of the plugin if
+				// individual shopkeepers cannot be loaded, because this would disable the
+				// protection of all player shop containers on the server (which is even worse).
+				this.loadShopkeeper(preparedShopkeeper, forceSaveAllShopkeepers);
+			}
+			final long batchEndNanos = System.nanoTime();
+
+			deserializationNanos += migrationStartNanos - deserializationStartNanos;
+			migrationNanos += registrationStartNanos - migrationStartNanos;
+			registrationNanos += batchEndNanos - registrationStartNanos;
 		}
+
+		final long readMillis = toMillis(saveFiles.getReadNanos());
+		final long parseMillis = toMillis(saveFiles.getParseNanos());
+		final long deserializationMillis = toMillis(deserializationNanos);
+		final long migrationMillis = toMillis(migrationNanos);
+		final long registrationMillis = toMillis(registrationNanos);
+		Log.debug(() -> "Loading timings: Reading: " + readMillis
+				+ " ms, Parsing: " + parseMillis
+				+ " ms, Item deserialization: " + deserializationMillis
+				+ " ms, Data migrations: " + migrationMillis
+				+ " ms, Shopkeeper loading: " + registrationMillis + " ms");
 		return true;
 	}
 
-	private @Nullable ShopkeeperData getShopkeeperData(int shopkeeperId) {
+	// Returns a deserialized copy of the stored shopkeeper data.
+	// This needs to be called within ConfigUtils#deserializeSafely.
+	private @Nullable ShopkeeperData getShopkeeperData(
+			int shopkeeperId
+	) throws InvalidDataFormatException {
 		DataContainer shopkeeperDataContainer = saveData.getContainer(String.valueOf(shopkeeperId));
 		if (shopkeeperDataContainer == null) {
 			return null;
 		}
 
-		// We create a shallow copy of the shopkeeper data and then re-insert the separately stored
-		// shopkeeper id:
-		// The copy is required because we don't want to insert the id into the data container that
-		// is stored by
-		// saveData, because that data container can end up being saved back to disk again (e.g.
-		// when the shopkeeper
-		// fails to load, or when it fails to save its state during shopkeeper saving).
+		// We create a deserialized copy of the shopkeeper data and then re-insert the separately
+		// stored shopkeeper id:
+		// The copy is required because we don't want to modify the data container that is stored
+		// by saveData, because that data container can end up being saved back to disk again (e.g.
+		// when the shopkeeper fails to load, or when it fails to save its state during shopkeeper
+		// saving).
 		ShopkeeperData shopkeeperData = ShopkeeperData.ofNonNull(DataContainer.ofNonNull(
-				shopkeeperDataContainer.getValuesCopy()
+				SaveDataParser.deserialize(shopkeeperDataContainer.getValues())
 		));
 		shopkeeperData.set(AbstractShopkeeper.ID, shopkeeperId);
 		return shopkeeperData;
 	}
 
-	private void loadShopkeeper(String key, boolean forceSave) {
+	// The data of a shopkeeper that is prepared for loading.
+	private static final class PreparedShopkeeperData {
+
+		final String key;
+		// 0 if the key is not a valid shopkeeper id:
+		int shopkeeperId = 0;
+		// Null if the data is not yet deserialized, or if the preparation failed:
+		@Nullable ShopkeeperData shopkeeperData = null;
+		boolean migrated = false;
+		@Nullable String failureReason = null;
+		@Nullable Throwable failureCause = null;
+
+		PreparedShopkeeperData(String key) {
+			this.key = key;
+		}
+
+		void failed(String failureReason, @Nullable Throwable failureCause) {
+			this.shopkeeperData = null;
+			this.failureReason = failureReason;
+			this.failureCause = failureCause;
+		}
+	}
+
+	// Deserializes the data of the given shopkeepers, e.g. their item stacks.
+	// Returns true on success, and false if there was some severe issue during loading. If the data
+	// of individual shopkeepers cannot be deserialized, these shopkeepers are marked as failed.
+	private boolean deserializeBatch(List<? extends PreparedShopkeeperData> batch) {
+		try {
+			// The logger of Bukkit's config serialization is only redirected once per batch:
+			ConfigUtils.deserializeSafely(() -> batch.forEach(this::deserializeShopkeeperData));
+			return true;
+		} catch (InvalidConfigurationException e) {
+			// Not expected: Errors during the deserialization of individual objects are already
+			// handled per shopkeeper.
+			Log.severe("Failed to deserialize the shopkeeper data!", e);
+			return false;
+		}
+	}
+
+	private void deserializeShopkeeperData(PreparedShopkeeperData preparedShopkeeper) {
+		String key = preparedShopkeeper.key;
 		Integer idInt = ConversionUtils.parseInt(key);
 		if (idInt == null || idInt <= 0) {
-			this.failedToLoadShopkeeper(key, "Invalid id: " + key);
+			preparedShopkeeper.failed("Invalid id: " + key, null);
 			return;
 		}
 
 		int shopkeeperId = idInt.intValue();
-		if (shopkeeperId > maxUsedShopkeeperId) {
-			maxUsedShopkeeperId = shopkeeperId;
+		preparedShopkeeper.shopkeeperId = shopkeeperId;
+		ShopkeeperData shopkeeperData;
+		try {
+			shopkeeperData = this.getShopkeeperData(shopkeeperId);
+		} catch (InvalidDataFormatException e) {
+			preparedShopkeeper.failed("Shopkeeper data could not be deserialized!", e);
+			return;
 		}
-
-		ShopkeeperData shopkeeperData = this.getShopkeeperData(shopkeeperId);
 		if (shopkeeperData == null) {
-			this.failedToLoadShopkeeper(key, "Invalid shopkeeper data!");
+			preparedShopkeeper.failed("Invalid shopkeeper data!", null);
 			return;
 		}
+		preparedShopkeeper.shopkeeperData = shopkeeperData;
+	}
+
+	// Applies the shopkeeper data migrations to the deserialized shopkeeper data.
+	private void migrateShopkeeperData(PreparedShopkeeperData preparedShopkeeper) {
+		ShopkeeperData shopkeeperData = preparedShopkeeper.shopkeeperData;
+		if (shopkeeperData == null) return; // Failed
 
-		// Perform data migrations:
-		boolean migrated;
 		try {
-			migrated = shopkeeperData.migrate(AbstractShopkeeper.getLogPrefix(shopkeeperId));
+			int shopkeeperId = preparedShopkeeper.shopkeeperId;
+			preparedShopkeeper.migrated = shopkeeperData.migrate(
+					AbstractShopkeeper.getLogPrefix(shopkeeperId)
+			);
 		} catch (InvalidDataException e) {
-			this.failedToLoadShopkeeper(key, "Shopkeeper data migration failed!", e);
+			preparedShopkeeper.failed("Shopkeeper data migration failed!", e);
+		}
+	}
+
+	private void loadShopkeeper(PreparedShopkeeperData preparedShopkeeper, boolean forceSave) {
+		String key = preparedShopkeeper.key;
+		int shopkeeperId = preparedShopkeeper.shopkeeperId;
+		if (shopkeeperId > maxUsedShopkeeperId) {
+			maxUsedShopkeeperId = shopkeeperId;
+		}
+
+		ShopkeeperData shopkeeperData = preparedShopkeeper.shopkeeperData;
+		if (shopkeeperData == null) {
+			this.failedToLoadShopkeeper(
+					key,
+					Unsafe.assertNonNull(preparedShopkeeper.failureReason),
+					preparedShopkeeper.failureCause
+			);
 			return;
 		}
 
@@ -656,11 +703,15 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		// dirty:
 		// During plugin enable, after the shopkeepers have been loaded, a save is triggered if the
 		// storage has been marked as dirty.
-		if (migrated || forceSave) {
+		if (preparedShopkeeper.migrated || forceSave) {
 			shopkeeper.markDirty();
 		}
 	}
 
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
 	private void failedToLoadShopkeeper(String idKey, String reason) {
 		this.failedToLoadShopkeeper(idKey, reason, null);
 	}
@@ -673,6 +724,42 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		Log.warning("Failed to load shopkeeper '" + idKey + "': " + reason, throwable);
 	}
 
+	// DEBUGGING
+
+	/**
+	 * Gets the save file of the current storage type, for debugging purposes.
+	 * <p>
+	 * For the {@link ShopkeeperStorageType#SEGMENTED segmented} storage type, this returns the
+	 * segment file that stores the data of the specified shopkeeper, or the segments meta file if
+	 * no shopkeeper id is specified.
+	 * 
+	 * @param shopkeeperId
+	 *            the shopkeeper id, or <code>0</code> to not specify any shopkeeper
+	 * @return the save file, not <code>null</code>
+	 */
+	public Path getSaveFile(int shopkeeperId) {
+		return saveFiles.getSaveFile(shopkeeperId);
+	}
+
+	/**
+	 * Reads the decoded contents of the given save file, for debugging purposes.
+	 * <p>
+	 * If the save file is compressed, it is decompressed. No data migrations are applied.
+	 * 
+	 * @param file
+	 *            the save file, not <code>null</code>
+	 * @return the decoded contents, not <code>null</code>
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public String readDecodedSaveFile(Path file) throws IOException {
+		Validate.notNull(file, "file is null");
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+			boolean compressed = SaveDataCompression.isCompressed(inputStream);
+			return SaveDataCompression.read(inputStream, compressed);
+		}
+	}
+
 	// SHOPKEEPER DATA CHANGES
 
 	// Note: This does not take into account any unsaved data that a save in progress might
@@ -906,6 +993,14 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		Set<AbstractShopkeeper> savingDirtyShopkeepers = new LinkedHashSet<>();
 		// The shopkeepers that we were not able to save for some reason:
 		private final Set<AbstractShopkeeper> failedToSave = new LinkedHashSet<>();
+		// Segmented storage: The segments that we write during the current save. If all segments
+		// are written, this Set is only populated once the async save has determined the segments
+		// to write.
+		private final Set<Integer> savingSegments = new TreeSet<>();
+		private boolean savingAllSegments = false;
+		// The save data of the previous storage type that we move to a backup location once the
+		// current save succeeded.
+		private @Nullable Path savingMigratedSaveData = null;
 
 		/* Last save */
 		// These variables get replaced during the next save.
@@ -951,7 +1046,7 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// Set up the file header:
 			// This replaces any previously existing and loaded header and thereby ensures that it
 			// is always up-to-date after we have saved the file.
-			saveData.getConfig().options().setHeader(HEADER);
+			saveData.getConfig().options().setHeader(SaveFiles.HEADER);
 
 			// Reset the pendingSaveRequest flag here (and not just after a successful save), so
 			// that we can track any save requests that occur in the meantime, which require another
@@ -968,21 +1063,56 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			// Save the data of dirty shopkeepers:
 			assert failedToSave.isEmpty();
 			savingDirtyShopkeepers.forEach(this::saveShopkeeper);
+
+			// Determine the segments that need to be written:
+			if (saveFiles.getStorageType() == ShopkeeperStorageType.SEGMENTED) {
+				assert savingSegments.isEmpty();
+				savingAllSegments = fullSaveRequired;
+				fullSaveRequired = false;
+				if (!savingAllSegments) {
+					// Note: This includes the segments of the shopkeepers that we failed to save
+					// above. Their segment files are written with their previous data.
+					savingDirtyShopkeepers.forEach(shopkeeper -> {
+						savingSegments.add(SaveSegments.getSegment(shopkeeper.getId()));
+					});
+					unsavedShopkeepers.forEach(shopkeeperId -> {
+						savingSegments.add(SaveSegments.getSegment(shopkeeperId));
+					});
+					unsavedDeletedShopkeepers.forEach(shopkeeperId -> {
+						savingSegments.add(SaveSegments.getSegment(shopkeeperId));
+					});
+				}
+			}
+
+			savingMigratedSaveData = migratedSaveData;
 		}
 
 		private void saveShopkeeper(AbstractShopkeeper shopkeeper) {
 			// Note: The shopkeeper might no longer be valid (loaded).
 			assert shopkeeper.isDirty();
-			String key = String.valueOf(shopkeeper.getId());
-			Object previousData = saveData.get(key);
-			// This replaces the previous shopkeeper data:
-			ShopkeeperData newData = ShopkeeperData.ofNonNull(saveData.createContainer(key));
+			// We capture the shopkeeper's current data as a snapshot of plain data (i.e. with any
+			// ConfigurationSerializables already serialized) that is not shared with the shopkeeper
+			// or any other mutable state. This allows us to serialize the save data asynchronously.
+			ShopkeeperData newData = ShopkeeperData.ofNonNull(DataContainer.create());
+			Object newDataSnapshot;
 			try {
 				shopkeeper.save(newData, false); // May reference externally stored data
+
+				// Remove the separately stored shopkeeper id from the shopkeeper data:
+				newData.set(AbstractShopkeeper.ID.getUnvalidatedSaver(), null);
+
+				// The saved shopkeeper data is expected to already consist of plain data: Items are
+				// saved in our own serialization format, and the components data of the pooled
+				// items of shopkeepers is only captured once (see ItemStackInterner). This only
+				// traverses the data in order to serialize any remaining ConfigurationSerializables
+				// (e.g. player profiles, or the data of shopkeepers of other plugins), and only
+				// copies the containers that contain them.
+				newDataSnapshot = Unsafe.assertNonNull(ConfigUtils.serializeDeeply(
+						newData.serialize()
+				));
 			} catch (Exception e) {
 				// Error while saving shopkeeper data:
-				// Restore previous shopkeeper data and then skip this shopkeeper.
-				saveData.set(key, previousData);
+				// Keep the previous shopkeeper data and skip this shopkeeper.
 				Log.warning(shopkeeper.getLogPrefix() + "Saving failed!", e);
 				// We remember the shopkeeper and keep it marked as dirty, so that the next save of
 				// all shopkeepers attempts to save it again.
@@ -992,8 +1122,8 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				return;
 			}
 
-			// Remove the separately stored shopkeeper id from the shopkeeper data:
-			newData.set(AbstractShopkeeper.ID.getUnvalidatedSaver(), null);
+			// This replaces the previous shopkeeper data:
+			saveData.set(String.valueOf(shopkeeper.getId()), newDataSnapshot);
 
 			// We transferred the shopkeeper's data into the storage. Reset the shopkeeper's dirty
 			// flag:
@@ -1003,56 +1133,18 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 		// Can be run async or sync.
 		@Override
 		protected void execute() {
-			savingSucceeded = this.saveToFile(saveData);
+			savingSucceeded = this.saveToFile();
+
+			Path previousSaveData = savingMigratedSaveData;
+			if (savingSucceeded && previousSaveData != null) {
+				saveFiles.backupMigratedSaveData(previousSaveData);
+			}
 		}
 
 		// Returns true if the saving was successful.
-		private boolean saveToFile(DataStore saveData) {
+		private boolean saveToFile() {
 			try {
-				// Serialize data to String:
-				// TODO Do this on the main thread? Bukkit's serialization API is not strictly
-				// thread-safe ...
-				// However, this should usually not be an issue if the serialized objects inside the
-				// save data are not accessed externally, and do not rely on external state during
-				// serialization.
-				String data;
-				try {
-					data = saveData.saveToString();
-				} catch (Exception e) {
-					throw new ShopkeeperStorageSaveException(
-							"Could not serialize shopkeeper data!", e
-					);
-				}
-
-				Retry.retry((VoidCallable) () -> {
-					this.doSaveToFile(data);
-				}, SAVING_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
-					// Saving failed:
-					assert exception != null;
-					// Don't spam with errors and stacktraces: Only print them once for the first
-					// failed saving attempt (and again for the last failed attempt), and otherwise
-					// log a compact description of the issue:
-					String errorMsg = "Failed to save shopkeepers (attempt " + attemptNumber + ")";
-					if (attemptNumber == 1) {
-						Log.severe(errorMsg, exception);
-					} else {
-						String issue = ThrowableUtils.getDescription(exception);
-						Log.severe(errorMsg + ": " + issue);
-					}
-
-					// Try again after a small delay:
-					if (retry) {
-						try {
-							Thread.sleep(SAVING_ATTEMPTS_DELAY_MILLIS);
-						} catch (InterruptedException e) {
-							// Restore the interrupt status for anyone interested in it, but
-							// otherwise ignore the interrupt here, because we prefer to keep
-							// retrying to still save the data to disk after all:
-							Thread.currentThread().interrupt();
-						}
-					}
-				});
-
+				saveFiles.save(saveData, savingSegments, savingAllSegments);
 				return true; // Success
 			} catch (Exception e) {
 				// Saving failed even after several attempts:
@@ -1061,52 +1153,24 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 			}
 		}
 
-		/**
-		 * Writes the given properly formatted shopkeeper data to disk.
-		 * <p>
-		 * Saving procedure:
-		 * <ul>
-		 * <li>If there already is a temporary save file:
-		 * <ul>
-		 * <li>If there is no save file: Rename temporary save file to save file (ideally atomic).
-		 * <li>Else: Remove temporary save file.
-		 * </ul>
-		 * <li>Create temporary save file's parent directories (if required).
-		 * <li>Create new temporary save file and write data to it.
-		 * <li>Sync temporary save file and containing directory (ensures that the data is persisted
-		 * to disk).
-		 * <li>Remove old save file (if it exists).
-		 * <li>Create save file's parent directories (if required).
-		 * <li>Rename temporary save file to save file (ideally atomic).
-		 * <li>Sync save file's parent directory (ensures that the rename operation is persisted to
-		 * disk).
-		 * </ul>
-		 * 
-		 * @param data
-		 *            the formatted data
-		 * @throws ShopkeeperStorageSaveException
-		 *             if something goes wrong
-		 */
-		private void doSaveToFile(String data) throws ShopkeeperStorageSaveException {
-			assert data != null;
-			try {
-				FileUtils.writeSafely(
-						saveFile,
-						data,
-						StandardCharsets.UTF_8,
-						Log.getLogger(),
-						getPluginDataFolder()
-				);
-			} catch (Exception e) {
-				throw new ShopkeeperStorageSaveException(e.getMessage(), e);
-			}
-		}
-
 		@Override
 		protected void syncCallback() {
 			// Print debug info:
 			printDebugInfo();
 
+			savingSegments.clear();
+			if (savingSucceeded) {
+				if (savingMigratedSaveData != null && savingMigratedSaveData == migratedSaveData) {
+					// Even if moving the previous save data failed, we don't try again.
+					migratedSaveData = null;
+				}
+			} else if (savingAllSegments) {
+				// Try to write all segments again during the next save:
+				fullSaveRequired = true;
+			}
+			savingAllSegments = false;
+			savingMigratedSaveData = null;
+
 			if (savingSucceeded) {
 				// Saving succeeded:
 
@@ -1203,6 +1267,11 @@ public class SKShopkeeperStorage implements ShopkeeperStorage {
 				// Dirty shopkeepers:
 				sb.append(savingDirtyShopkeepers.size()).append(" dirty");
 
+				// Written segments:
+				if (saveFiles.getStorageType() == ShopkeeperStorageType.SEGMENTED) {
+					sb.append(", ").append(savingSegments.size()).append(" segments");
+				}
+
 				// Previously unsaved shopkeepers:
 				if (!unsavedShopkeepers.isEmpty()) {
 					sb.append(", ").append(unsavedShopkeepers.size()).append(" previously unsaved");
@@ -0,0 +1,99 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Utilities related to the optional GZIP compression of the shopkeeper save files.
+ * <p>
+ * Compressed save files contain the same YAML data as uncompressed save files. When loading, we
+ * detect compressed save files by their content, so that the compression can be enabled or disabled
+ * at any time. Compressed save files can be inspected with common tools, such as {@code gzip -dc}.
+ */
+final class SaveDataCompression {
+
+	// The first two bytes of any GZIP stream:
+	private static final int GZIP_MAGIC_1 = 0x1f;
+	private static final int GZIP_MAGIC_2 = 0x8b;
+
+	/**
+	 * Checks if the data provided by the given input stream is GZIP compressed.
+	 * <p>
+	 * This peeks at the first bytes of the given input stream and then resets the stream to its
+	 * initial position. The given input stream is therefore required to support
+	 * {@link InputStream#mark(int) marks}.
+	 * 
+	 * @param inputStream
+	 *            the input stream, not <code>null</code>
+	 * @return <code>true</code> if the data is compressed
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static boolean isCompressed(InputStream inputStream) throws IOException {
+		Validate.notNull(inputStream, "inputStream is null");
+		Validate.isTrue(inputStream.markSupported(), "inputStream does not support marks");
+		inputStream.mark(2);
+		try {
+			return inputStream.read() == GZIP_MAGIC_1 && inputStream.read() == GZIP_MAGIC_2;
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	/**
+	 * Reads the UTF-8 encoded text from the given input stream, decompressing it if necessary.
+	 * <p>
+	 * The given input stream is closed once the content has been read.
+	 * 
+	 * @param inputStream
+	 *            the input stream, not <code>null</code>
+	 * @param compressed
+	 *            whether the data is compressed, see {@link #isCompressed(InputStream)}
+	 * @return the read text, not <code>null</code>
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static String read(InputStream inputStream, boolean compressed) throws IOException {
+		Validate.notNull(inputStream, "inputStream is null");
+		InputStream dataInputStream = compressed ? new GZIPInputStream(inputStream) : inputStream;
+		// Unlike the InputStreamReader constructor that accepts a Charset directly, this decoder
+		// throws exceptions when it encounters invalid data.
+		Reader reader = new InputStreamReader(dataInputStream, StandardCharsets.UTF_8.newDecoder());
+		return FileUtils.read(reader);
+	}
+
+	/**
+	 * Encodes the given text with UTF-8 and compresses it.
+	 * 
+	 * @param data
+	 *            the text, not <code>null</code>
+	 * @return the compressed data, not <code>null</code>
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static byte[] compress(String data) throws IOException {
+		Validate.notNull(data, "data is null");
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (Writer writer = new OutputStreamWriter(
+				new GZIPOutputStream(outputStream),
+				StandardCharsets.UTF_8.newEncoder()
+		)) {
+			writer.write(data);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private SaveDataCompression() {
+	}
+}
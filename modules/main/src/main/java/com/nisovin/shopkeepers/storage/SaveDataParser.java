@@ -0,0 +1,225 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Parses the (already decompressed and migrated) contents of shopkeeper save files.
+ * <p>
+ * Unlike {@link YamlConfiguration#loadFromString(String)}, this parses the YAML data and
+ * deserializes the contained {@link ConfigurationSerializable}s, such as item stacks, in two
+ * separate steps. The parsing is thread-safe, and the contents of a save file can be
+ * {@link #splitEntries(String, int) split} at its top-level entries. This allows us to parse large
+ * save files in parallel. The deserialization invokes Bukkit's serialization logic and therefore
+ * needs to happen on the server's main thread. It produces a deserialized copy of the parsed data,
+ * so that the parsed data can still be saved as it is, e.g. if the shopkeeper fails to load.
+ */
+final class SaveDataParser {
+
+	// Similar to Bukkit's YamlConstructor, but without the deserialization of
+	// ConfigurationSerializables. Yaml instances are not thread-safe.
+	private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(() -> {
+		LoaderOptions yamlLoaderOptions = new LoaderOptions();
+		// Similar settings as in Bukkit:
+		yamlLoaderOptions.setMaxAliasesForCollections(Integer.MAX_VALUE);
+		yamlLoaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+		// Similar to YamlUtils: Nested bundles can easily exceed the default nesting limit (50).
+		yamlLoaderOptions.setNestingDepthLimit(100);
+		return new Yaml(new SafeConstructor(yamlLoaderOptions));
+	});
+
+	/**
+	 * Splits the given YAML contents at its top-level entries into chunks of roughly the given
+	 * minimum length.
+	 * <p>
+	 * This only inspects the lines of the given contents and does not parse the YAML data. If any
+	 * of the split chunks fails to {@link #parse(String) parse}, e.g. because of a YAML alias that
+	 * refers to an anchor in a different chunk, or a multi-line value that is not indented, the
+	 * caller is expected to retry with the unsplit contents.
+	 * 
+	 * @param content
+	 *            the YAML contents, not <code>null</code>
+	 * @param minChunkLength
+	 *            the minimum length of the chunks
+	 * @return the chunks in their original order, not <code>null</code> or empty
+	 */
+	public static List<String> splitEntries(String content, int minChunkLength) {
+		Validate.notNull(content, "content is null");
+		List<String> chunks = new ArrayList<>();
+		if (content.length() <= minChunkLength) {
+			chunks.add(content);
+			return chunks;
+		}
+
+		int chunkStart = 0;
+		int lineStart = 0;
+		final int length = content.length();
+		while (lineStart < length) {
+			if (lineStart - chunkStart >= minChunkLength && isTopLevelEntry(content, lineStart)) {
+				chunks.add(content.substring(chunkStart, lineStart));
+				chunkStart = lineStart;
+			}
+
+			int lineEnd = content.indexOf('\n', lineStart);
+			if (lineEnd < 0) break;
+			lineStart = lineEnd + 1;
+		}
+		chunks.add(content.substring(chunkStart));
+		return chunks;
+	}
+
+	// Checks if the line that starts at the given index starts a new top-level mapping entry, i.e.
+	// a non-indented key, such as "'1':" or "data-version:".
+	private static boolean isTopLevelEntry(String content, int lineStart) {
+		char c = content.charAt(lineStart);
+		if (c != '\'' && c != '"' && !Character.isLetterOrDigit(c)) {
+			// Indentation, comment, sequence entry, document marker, flow collection, empty line,
+			// etc.
+			return false;
+		}
+
+		int lineEnd = content.indexOf('\n', lineStart);
+		if (lineEnd < 0) lineEnd = content.length();
+		return content.lastIndexOf(':', lineEnd - 1) >= lineStart;
+	}
+
+	/**
+	 * Parses the given YAML contents into a map of its top-level entries.
+	 * <p>
+	 * Similar to Bukkit's config sections, the keys of nested maps are converted to Strings.
+	 * Serialized {@link ConfigurationSerializable}s are not yet deserialized (see
+	 * {@link #deserialize(Map)}).
+	 * 
+	 * @param content
+	 *            the YAML contents, not <code>null</code>
+	 * @return the parsed top-level entries, not <code>null</code>
+	 * @throws InvalidDataFormatException
+	 *             if the contents cannot be parsed
+	 */
+	public static Map<String, Object> parse(String content) throws InvalidDataFormatException {
+		Validate.notNull(content, "content is null");
+		Object parsed;
+		try {
+			parsed = YAML.get().load(content);
+		} catch (Exception e) {
+			throw new InvalidDataFormatException("Failed to parse YAML data!", e);
+		}
+
+		if (parsed == null) {
+			// Empty contents:
+			return new LinkedHashMap<>();
+		}
+		if (!(parsed instanceof Map)) {
+			throw new InvalidDataFormatException("Top-level YAML data is not a map!");
+		}
+		return toSectionMap((Map<?, ?>) parsed);
+	}
+
+	// Similar to Bukkit's config sections: Converts the keys to Strings, skips null values, and
+	// also converts any nested maps.
+	private static Map<String, Object> toSectionMap(Map<?, ?> map) {
+		Map<String, Object> sectionMap = new LinkedHashMap<>(map.size());
+		for (Entry<?, ?> entry : map.entrySet()) {
+			Object value = entry.getValue();
+			if (value == null) continue;
+
+			if (value instanceof Map && !isSerializedObject((Map<?, ?>) value)) {
+				value = toSectionMap((Map<?, ?>) value);
+			}
+			sectionMap.put(String.valueOf(entry.getKey()), value);
+		}
+		return sectionMap;
+	}
+
+	private static boolean isSerializedObject(Map<?, ?> map) {
+		return map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY);
+	}
+
+	/**
+	 * Deserializes all serialized {@link ConfigurationSerializable}s inside the given
+	 * {@link #parse(String) parsed} data.
+	 * <p>
+	 * The given data is not modified: This returns a copy of the given data, with all serialized
+	 * objects replaced by their deserialized objects. Similar to Bukkit, inner serialized objects
+	 * are deserialized before their outer objects.
+	 * <p>
+	 * This needs to be called within an action that is run via
+	 * {@link ConfigUtils#deserializeSafely(ConfigUtils.DeserializationAction)}.
+	 * 
+	 * @param data
+	 *            the parsed data, not <code>null</code>
+	 * @return the deserialized copy of the data, not <code>null</code>
+	 * @throws InvalidDataFormatException
+	 *             if the deserialization of an object fails
+	 */
+	public static Map<String, Object> deserialize(
+			Map<? extends String, ?> data
+	) throws InvalidDataFormatException {
+		Validate.notNull(data, "data is null");
+		Map<String, Object> deserializedData = new LinkedHashMap<>(data.size());
+		for (Entry<? extends String, ?> entry : data.entrySet()) {
+			Object value = entry.getValue();
+			if (value == null) continue;
+			deserializedData.put(entry.getKey(), deserializeValue(value));
+		}
+		return deserializedData;
+	}
+
+	private static Object deserializeValue(Object value) throws InvalidDataFormatException {
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (!isSerializedObject(map)) {
+				// Section map: Already has String keys.
+				return deserialize(Unsafe.castNonNull(map));
+			}
+
+			// Similar to Bukkit's YamlConstructor: Converts the keys to Strings.
+			Map<String, @Nullable Object> serializedData = new LinkedHashMap<>(map.size());
+			for (Entry<?, ?> entry : map.entrySet()) {
+				@Nullable Object entryValue = entry.getValue();
+				if (entryValue != null) {
+					entryValue = deserializeValue(entryValue);
+				}
+				serializedData.put(String.valueOf(entry.getKey()), entryValue);
+			}
+			try {
+				return ConfigUtils.deserializeObjectSafely(serializedData);
+			} catch (InvalidConfigurationException e) {
+				throw new InvalidDataFormatException("Failed to deserialize object: "
+						+ e.getMessage(), e);
+			}
+		} else if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			List<@Nullable Object> deserializedList = new ArrayList<>(list.size());
+			for (Object element : list) {
+				if (element != null) {
+					element = deserializeValue(element);
+				}
+				deserializedList.add(element);
+			}
+			return deserializedList;
+		} else {
+			return value;
+		}
+	}
+
+	private SaveDataParser() {
+	}
+}
@@ -0,0 +1,724 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.debug.Debug;
+import com.nisovin.shopkeepers.storage.migration.RawDataMigrations;
+import com.nisovin.shopkeepers.util.data.persistence.DataStore;
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Retry;
+import com.nisovin.shopkeepers.util.java.ThrowableUtils;
+import com.nisovin.shopkeepers.util.java.VoidCallable;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Reads and writes the save files of the {@link SKShopkeeperStorage}.
+ * <p>
+ * Depending on the {@link ShopkeeperStorageType}, the save data is either stored inside a single
+ * save file, or split into several segment files (see {@link SaveSegments}). If there is no save
+ * data for the current storage type yet, the save data of the other storage type is loaded instead
+ * and then migrated by the next save.
+ * <p>
+ * This does not depend on any plugin or server state. The storage type and compression are
+ * determined during {@link #load(ShopkeeperStorageType, boolean, DataStore) loading} and are not
+ * modified by saves, so that the save data can be written asynchronously.
+ */
+final class SaveFiles {
+
+	private static final String DATA_FOLDER = "data";
+	private static final String SAVE_FILE_NAME = "save.yml";
+	private static final String SEGMENTS_FOLDER = "shopkeepers";
+
+	static final List<@Nullable String> HEADER = Collections.unmodifiableList(Arrays.asList(
+			"This file is not intended to be manually modified! If you want to manually edit this"
+					+ " file anyway, ensure that the server is not running currently and that you"
+					+ " have prepared a backup of this file."
+	));
+
+	// Max total delay: 500ms
+	private static final int SAVING_MAX_ATTEMPTS = 20;
+	private static final long SAVING_ATTEMPTS_DELAY_MILLIS = 25;
+	// Large save files are split into chunks of at least this length, which are then parsed in
+	// parallel:
+	private static final int MIN_PARSE_CHUNK_LENGTH = 64 * 1024;
+
+	private final Path pluginDataFolder;
+	private final Path saveFile;
+	private final Path segmentsFolder;
+	private final Path segmentsMetaFile;
+
+	// The storage type that is used by the current/next save. This is determined during loading,
+	// so that changes to the storage type setting only take effect after a reload.
+	private ShopkeeperStorageType storageType = ShopkeeperStorageType.SINGLE_FILE;
+	// Whether the current/next save compresses the save files. This is determined during loading.
+	private boolean compressSaveData = false;
+
+	/* Loading */
+	// The following state is only accessed on the main thread, and reset by every loading.
+	// The save data of the other storage type, if we loaded it instead of the save data of the
+	// current storage type.
+	private @Nullable Path migratedSaveData = null;
+	// Whether we applied any raw data migrations.
+	private boolean rawDataMigrated = false;
+	// Whether we loaded any save files whose compression does not match the current setting.
+	private boolean compressionChanged = false;
+	// The durations of the individual loading phases, for debugging purposes:
+	private long readNanos = 0L;
+	private long parseNanos = 0L;
+
+	/**
+	 * Creates a new {@link SaveFiles}.
+	 * 
+	 * @param pluginDataFolder
+	 *            the plugin's data folder, not <code>null</code>
+	 */
+	SaveFiles(Path pluginDataFolder) {
+		this.pluginDataFolder = pluginDataFolder;
+		Path dataFolder = pluginDataFolder.resolve(DATA_FOLDER);
+		this.saveFile = dataFolder.resolve(SAVE_FILE_NAME);
+		this.segmentsFolder = dataFolder.resolve(SEGMENTS_FOLDER);
+		this.segmentsMetaFile = segmentsFolder.resolve(SaveSegments.META_FILE_NAME);
+	}
+
+	private Path relativize(Path path) {
+		return FileUtils.relativize(pluginDataFolder, path);
+	}
+
+	ShopkeeperStorageType getStorageType() {
+		return storageType;
+	}
+
+	boolean isCompressSaveData() {
+		return compressSaveData;
+	}
+
+	/**
+	 * Gets the save file of the current storage type.
+	 * <p>
+	 * For the {@link ShopkeeperStorageType#SEGMENTED segmented} storage type, this returns the
+	 * segment file that stores the data of the specified shopkeeper, or the segments meta file if
+	 * no shopkeeper id is specified.
+	 * 
+	 * @param shopkeeperId
+	 *            the shopkeeper id, or <code>0</code> to not specify any shopkeeper
+	 * @return the save file, not <code>null</code>
+	 */
+	Path getSaveFile(int shopkeeperId) {
+		if (storageType != ShopkeeperStorageType.SEGMENTED) {
+			return saveFile;
+		}
+		if (shopkeeperId <= 0) {
+			return segmentsMetaFile;
+		}
+		return SaveSegments.getSegmentFile(segmentsFolder, SaveSegments.getSegment(shopkeeperId));
+	}
+
+	// LOADING
+
+	/**
+	 * Loads the save data of the given storage type into the given {@link DataStore}, or the save
+	 * data of the other storage type if there is no save data for the given storage type yet.
+	 * <p>
+	 * The given storage type and compression setting are used by all subsequent saves.
+	 * 
+	 * @param storageType
+	 *            the storage type, not <code>null</code>
+	 * @param compressSaveData
+	 *            whether the save files are compressed
+	 * @param saveData
+	 *            the save data to load the data into, not <code>null</code>
+	 * @return <code>true</code> on success (including if there is no save data yet), and
+	 *         <code>false</code> if there was some severe issue during loading
+	 */
+	boolean load(
+			ShopkeeperStorageType storageType,
+			boolean compressSaveData,
+			DataStore saveData
+	) {
+		this.storageType = storageType;
+		this.compressSaveData = compressSaveData;
+		migratedSaveData = null;
+		rawDataMigrated = false;
+		compressionChanged = false;
+		readNanos = 0L;
+		parseNanos = 0L;
+
+		boolean saveFileExists = Files.exists(saveFile)
+				|| Files.exists(FileUtils.getTempSibling(saveFile));
+		boolean segmentsExist = Files.exists(segmentsMetaFile);
+
+		if (storageType == ShopkeeperStorageType.SEGMENTED) {
+			if (segmentsExist) {
+				return this.loadSegments(saveData);
+			} else if (saveFileExists) {
+				this.onStorageTypeMigration(ShopkeeperStorageType.SINGLE_FILE, saveFile);
+				return this.loadSaveFile(saveData);
+			}
+		} else {
+			if (saveFileExists) {
+				return this.loadSaveFile(saveData);
+			} else if (segmentsExist) {
+				this.onStorageTypeMigration(ShopkeeperStorageType.SEGMENTED, segmentsFolder);
+				return this.loadSegments(saveData);
+			}
+		}
+
+		// No save data exists yet:
+		return true;
+	}
+
+	/**
+	 * Gets the save data of the other storage type that was loaded by the last
+	 * {@link #load(ShopkeeperStorageType, boolean, DataStore) loading}, because there was no save
+	 * data for the current storage type yet.
+	 * 
+	 * @return the save file or segments folder of the other storage type, or <code>null</code> if
+	 *         no save data was migrated
+	 */
+	@Nullable Path getMigratedSaveData() {
+		return migratedSaveData;
+	}
+
+	/**
+	 * Checks if any raw data migrations have been applied during the last loading.
+	 * 
+	 * @return <code>true</code> if raw data migrations have been applied
+	 */
+	boolean isRawDataMigrated() {
+		return rawDataMigrated;
+	}
+
+	/**
+	 * Checks if the last loading loaded any save files whose compression does not match the
+	 * current compression setting.
+	 * 
+	 * @return <code>true</code> if the compression of the save data has changed
+	 */
+	boolean isCompressionChanged() {
+		return compressionChanged;
+	}
+
+	long getReadNanos() {
+		return readNanos;
+	}
+
+	long getParseNanos() {
+		return parseNanos;
+	}
+
+	private void onStorageTypeMigration(
+			ShopkeeperStorageType previousStorageType,
+			Path previousSaveData
+	) {
+		Log.info("Migrating the shopkeeper data from storage type '" + previousStorageType
+				+ "' to '" + storageType + "'. The previous save data ("
+				+ this.relativize(previousSaveData)
+				+ ") is moved to a backup location after the next successful save.");
+		migratedSaveData = previousSaveData;
+	}
+
+	// Returns true on success, and false if there was some severe issue during loading.
+	private boolean loadSaveFile(DataStore saveData) {
+		Path saveFile = this.saveFile;
+		if (!Files.exists(saveFile)) {
+			var tempSaveFile = FileUtils.getTempSibling(saveFile);
+			assert Files.exists(tempSaveFile);
+			// Load from temporary save file instead:
+			Log.warning("Found no save file, but an existing temporary save file ("
+					+ this.relativize(tempSaveFile) + ")!"
+					+ " This might indicate an issue during a previous saving attempt!"
+					+ " We try to load the Shopkeepers data from this temporary save file"
+					+ " instead!");
+			saveFile = tempSaveFile;
+		}
+
+		return this.loadFiles(Collections.singletonList(saveFile), false, saveData);
+	}
+
+	// Returns true on success, and false if there was some severe issue during loading.
+	private boolean loadSegments(DataStore saveData) {
+		// The meta file provides the data version:
+		if (!this.loadFiles(Collections.singletonList(segmentsMetaFile), false, saveData)) {
+			return false;
+		}
+
+		NavigableMap<Integer, Path> segmentFiles;
+		try {
+			segmentFiles = SaveSegments.findSegmentFiles(segmentsFolder);
+		} catch (Exception e) {
+			Log.severe("Failed to find the save files inside "
+					+ this.relativize(segmentsFolder) + "!", e);
+			return false;
+		}
+
+		for (Path segmentFile : segmentFiles.values()) {
+			if (SaveSegments.getSegment(segmentFile) < 0) {
+				// Temporary segment file:
+				Log.warning("Found no save file, but an existing temporary save file ("
+						+ this.relativize(segmentFile) + ")!"
+						+ " This might indicate an issue during a previous saving attempt!"
+						+ " We try to load the Shopkeepers data from this temporary save file"
+						+ " instead!");
+			}
+		}
+
+		// Only copy the shopkeeper entries. Segment files are not expected to contain any other
+		// entries.
+		return this.loadFiles(new ArrayList<>(segmentFiles.values()), true, saveData);
+	}
+
+	// Loads the save data of the given files, in the order of the given files, into the save data.
+	// If shopkeeperEntriesOnly is true, only the shopkeeper entries of the given files are loaded.
+	// Returns true on success, and false if there was some severe issue during loading.
+	// The reading and parsing of the files does not depend on any plugin or server state and is
+	// executed in parallel for all files, and for the chunks of large files. The results are
+	// combined on the calling thread. The contained ConfigurationSerializables, such as item stacks,
+	// are not yet deserialized: The save data stores the parsed data.
+	private boolean loadFiles(
+			List<? extends Path> files,
+			boolean shopkeeperEntriesOnly,
+			DataStore saveData
+	) {
+		// Read the files and apply the raw data migrations:
+		final long readStartNanos = System.nanoTime();
+		List<@Nullable SaveFileContent> fileContents = files.parallelStream()
+				.map(this::readFile)
+				.collect(Collectors.toList());
+		readNanos += System.nanoTime() - readStartNanos;
+
+		List<SaveDataChunk> chunks = new ArrayList<>();
+		for (SaveFileContent fileContent : fileContents) {
+			if (fileContent == null) {
+				return false;
+			}
+
+			if (fileContent.compressed != compressSaveData) {
+				compressionChanged = true;
+			}
+			if (fileContent.rawDataMigrated) {
+				rawDataMigrated = true;
+			}
+
+			String content = fileContent.content;
+			int minChunkLength = Math.max(
+					MIN_PARSE_CHUNK_LENGTH,
+					content.length() / (ForkJoinPool.getCommonPoolParallelism() * 4)
+			);
+			List<String> contentChunks = SaveDataParser.splitEntries(content, minChunkLength);
+			for (String contentChunk : contentChunks) {
+				chunks.add(new SaveDataChunk(fileContent, contentChunk));
+			}
+		}
+
+		// Parse the YAML data:
+		final long parseStartNanos = System.nanoTime();
+		chunks.parallelStream().forEach(SaveDataChunk::parse);
+		for (int i = 0; i < chunks.size(); i++) {
+			SaveDataChunk chunk = chunks.get(i);
+			if (chunk.error == null) continue;
+
+			// Retry with the complete file contents: The file contents might not have been
+			// splittable at the detected top-level entries. This also ensures that we report the
+			// same errors as when parsing the file as a whole.
+			SaveFileContent fileContent = chunk.fileContent;
+			SaveDataChunk fileChunk = new SaveDataChunk(fileContent, fileContent.content);
+			fileChunk.parse();
+			if (fileChunk.error != null) {
+				this.failedToLoadFile(fileContent.file, fileChunk.error);
+				return false;
+			}
+
+			// Replace all chunks of the file:
+			int firstIndex = i;
+			while (firstIndex > 0 && chunks.get(firstIndex - 1).fileContent == fileContent) {
+				firstIndex--;
+			}
+			int endIndex = i + 1;
+			while (endIndex < chunks.size() && chunks.get(endIndex).fileContent == fileContent) {
+				endIndex++;
+			}
+			chunks.subList(firstIndex, endIndex).clear();
+			chunks.add(firstIndex, fileChunk);
+			i = firstIndex;
+		}
+		parseNanos += System.nanoTime() - parseStartNanos;
+
+		// Copy the entries into the save data, in file and chunk order:
+		for (SaveDataChunk chunk : chunks) {
+			Exception error = chunk.error;
+			if (error != null) {
+				this.failedToLoadFile(chunk.fileContent.file, error);
+				return false;
+			}
+
+			Map<String, Object> data = Unsafe.assertNonNull(chunk.data);
+			data.forEach((key, value) -> {
+				if (shopkeeperEntriesOnly && key.equals(SKShopkeeperStorage.DATA_VERSION_KEY)) {
+					return;
+				}
+				saveData.set(key, value);
+			});
+		}
+		return true;
+	}
+
+	// The contents of a read save file, after the raw data migrations have been applied.
+	private static final class SaveFileContent {
+
+		final Path file;
+		final String content;
+		// Whether the file was compressed:
+		final boolean compressed;
+		// Whether any raw data migrations have been applied:
+		final boolean rawDataMigrated;
+
+		SaveFileContent(
+				Path file,
+				String content,
+				boolean compressed,
+				boolean rawDataMigrated
+		) {
+			this.file = file;
+			this.content = content;
+			this.compressed = compressed;
+			this.rawDataMigrated = rawDataMigrated;
+		}
+	}
+
+	// A chunk of top-level entries of a save file. Different chunks can be parsed in parallel.
+	private static final class SaveDataChunk {
+
+		final SaveFileContent fileContent;
+		final String content;
+		@Nullable Map<String, Object> data = null;
+		@Nullable Exception error = null;
+
+		SaveDataChunk(SaveFileContent fileContent, String content) {
+			this.fileContent = fileContent;
+			this.content = content;
+		}
+
+		void parse() {
+			try {
+				data = SaveDataParser.parse(content);
+			} catch (Exception e) {
+				error = e;
+			}
+		}
+	}
+
+	private void failedToLoadFile(Path file, Exception error) {
+		if (error instanceof InvalidDataFormatException) {
+			Log.severe("Failed to load the save file (" + this.relativize(file)
+					+ ")! Note: Server downgrades or manually editing the save file are not"
+					+ " supported!", error);
+		} else {
+			Log.severe("Failed to load the save file (" + this.relativize(file) + ")!", error);
+		}
+	}
+
+	// Reads the given file and applies any raw data migrations. Returns null if there was some
+	// severe issue during loading.
+	// This does not access any server state and can be invoked for different files in parallel.
+	private @Nullable SaveFileContent readFile(Path file) {
+		try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+			boolean compressed = SaveDataCompression.isCompressed(inputStream);
+			var content = SaveDataCompression.read(inputStream, compressed);
+
+			// Apply string-based migrations:
+			var migratedContent = RawDataMigrations.applyMigrations(content);
+			boolean migrated = !content.equals(migratedContent);
+
+			if (migrated) {
+				var now = LocalDateTime.now();
+				var backupFile = file.resolveSibling(
+						now.format(FileUtils.DATE_TIME_FORMATTER) + "_" + file.getFileName()
+								+ ".backup"
+				);
+				Log.info("Shopkeeper data migrated. Writing backup to "
+						+ this.relativize(backupFile));
+
+				try {
+					// Error if a file already exists at the destination:
+					Files.copy(file, backupFile);
+				} catch (Exception e) {
+					Log.severe("Failed to write backup file!", e);
+					return null;
+				}
+			}
+
+			// If a migration was applied, write the intermediate result to disk for debugging
+			// purposes (e.g. if the subsequent loading fails):
+			if (Debug.isDebugging() && migrated) {
+				var migratedFile = file.resolveSibling(file.getFileName() + ".migrated");
+				Log.info("Writing migrated save file to " + this.relativize(migratedFile));
+				try {
+					FileUtils.writeSafely(
+							migratedFile,
+							migratedContent,
+							StandardCharsets.UTF_8,
+							Log.getLogger(),
+							pluginDataFolder
+					);
+				} catch (Exception e) {
+					Log.warning("Failed to write migrated save file ("
+							+ this.relativize(migratedFile)
+							+ "). This file is only written for debugging purposes."
+							+ " Continuing the data loading ...", e);
+				}
+			}
+
+			return new SaveFileContent(file, migratedContent, compressed, migrated);
+		} catch (Exception e) {
+			this.failedToLoadFile(file, e);
+			return null;
+		}
+	}
+
+	// SAVING
+
+	/**
+	 * Writes the given save data to the save files of the current storage type.
+	 * <p>
+	 * For the {@link ShopkeeperStorageType#SEGMENTED segmented} storage type, this only writes the
+	 * specified segments, and then the segments meta file. Segments without any data are deleted.
+	 * If all segments are written, the segments of all save data and of all existing segment files
+	 * are added to the given segments.
+	 * <p>
+	 * The given save data is expected to only contain plain data, so that this can be invoked
+	 * asynchronously, as long as the save data is not modified in the meantime.
+	 * 
+	 * @param saveData
+	 *            the save data, not <code>null</code>
+	 * @param segments
+	 *            the segments to write, not <code>null</code>
+	 * @param allSegments
+	 *            <code>true</code> to write all segments
+	 * @throws Exception
+	 *             if the saving fails, even after several attempts
+	 */
+	void save(DataStore saveData, Set<Integer> segments, boolean allSegments) throws Exception {
+		if (storageType == ShopkeeperStorageType.SEGMENTED) {
+			this.saveToSegmentFiles(saveData, segments, allSegments);
+		} else {
+			this.saveToFile(saveFile, saveData);
+		}
+	}
+
+	private void saveToSegmentFiles(
+			DataStore saveData,
+			Set<Integer> segments,
+			boolean allSegments
+	) throws Exception {
+		if (allSegments) {
+			assert segments.isEmpty();
+			// Write all segments that contain data:
+			for (String key : saveData.getKeys()) {
+				if (key.equals(SKShopkeeperStorage.DATA_VERSION_KEY)) continue;
+
+				int segment = SaveSegments.getSegment(key);
+				if (segment < 0) {
+					Log.warning("Omitting data with invalid shopkeeper id from the save: " + key);
+					continue;
+				}
+				segments.add(segment);
+			}
+
+			// Also write (i.e. delete) all other existing segments:
+			segments.addAll(SaveSegments.findSegmentFiles(segmentsFolder).keySet());
+		}
+
+		for (int segment : segments) {
+			this.saveSegment(saveData, segment);
+		}
+
+		// The meta file is written last:
+		BukkitConfigDataStore metaData = BukkitConfigDataStore.ofNewYamlConfig();
+		metaData.getConfig().options().setHeader(HEADER);
+		metaData.set(
+				SKShopkeeperStorage.DATA_VERSION_KEY,
+				saveData.get(SKShopkeeperStorage.DATA_VERSION_KEY)
+		);
+		this.saveToFile(segmentsMetaFile, metaData);
+	}
+
+	private void saveSegment(DataStore saveData, int segment) throws Exception {
+		BukkitConfigDataStore segmentData = BukkitConfigDataStore.ofNewYamlConfig();
+		long firstId = Math.max(1, SaveSegments.getFirstShopkeeperId(segment));
+		long lastId = SaveSegments.getLastShopkeeperId(segment);
+		for (long shopkeeperId = firstId; shopkeeperId <= lastId; shopkeeperId++) {
+			String key = String.valueOf(shopkeeperId);
+			Object shopkeeperData = saveData.get(key);
+			if (shopkeeperData != null) {
+				segmentData.set(key, shopkeeperData);
+			}
+		}
+
+		Path segmentFile = SaveSegments.getSegmentFile(segmentsFolder, segment);
+		if (segmentData.isEmpty()) {
+			// Delete the segment file (if it exists), including any leftover temporary file:
+			Retry.retry((VoidCallable) () -> {
+				FileUtils.deleteIfExists(FileUtils.getTempSibling(segmentFile));
+				FileUtils.deleteIfExists(segmentFile);
+			}, SAVING_MAX_ATTEMPTS, SaveFiles::onSaveAttemptFailed);
+		} else {
+			segmentData.getConfig().options().setHeader(HEADER);
+			this.saveToFile(segmentFile, segmentData);
+		}
+	}
+
+	private void saveToFile(Path file, DataStore data) throws Exception {
+		// Serialize data to String:
+		// Bukkit's serialization API is not thread-safe. However, the save data only contains
+		// plain data: The data of saved shopkeepers is captured as plain data snapshots on the
+		// main thread, and any ConfigurationSerializables inside the loaded data are serialized
+		// during loading. Also, the save data is not modified while an async save is in
+		// progress.
+		String serializedData;
+		try {
+			serializedData = data.saveToString();
+		} catch (Exception e) {
+			throw new ShopkeeperStorageSaveException(
+					"Could not serialize shopkeeper data!", e
+			);
+		}
+
+		Retry.retry((VoidCallable) () -> {
+			this.doSaveToFile(file, serializedData);
+		}, SAVING_MAX_ATTEMPTS, SaveFiles::onSaveAttemptFailed);
+	}
+
+	private static void onSaveAttemptFailed(int attemptNumber, Exception exception, boolean retry) {
+		// Saving failed:
+		// Don't spam with errors and stacktraces: Only print them once for the first failed
+		// saving attempt (and again for the last failed attempt), and otherwise log a compact
+		// description of the issue:
+		String errorMsg = "Failed to save shopkeepers (attempt " + attemptNumber + ")";
+		if (attemptNumber == 1) {
+			Log.severe(errorMsg, exception);
+		} else {
+			String issue = ThrowableUtils.getDescription(exception);
+			Log.severe(errorMsg + ": " + issue);
+		}
+
+		// Try again after a small delay:
+		if (retry) {
+			try {
+				Thread.sleep(SAVING_ATTEMPTS_DELAY_MILLIS);
+			} catch (InterruptedException e) {
+				// Restore the interrupt status for anyone interested in it, but otherwise ignore
+				// the interrupt here, because we prefer to keep retrying to still save the data
+				// to disk after all:
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Writes the given properly formatted shopkeeper data to disk.
+	 * <p>
+	 * Saving procedure:
+	 * <ul>
+	 * <li>If there already is a temporary save file:
+	 * <ul>
+	 * <li>If there is no save file: Rename temporary save file to save file (ideally atomic).
+	 * <li>Else: Remove temporary save file.
+	 * </ul>
+	 * <li>Create temporary save file's parent directories (if required).
+	 * <li>Create new temporary save file and write data to it.
+	 * <li>Sync temporary save file and containing directory (ensures that the data is persisted
+	 * to disk).
+	 * <li>Remove old save file (if it exists).
+	 * <li>Create save file's parent directories (if required).
+	 * <li>Rename temporary save file to save file (ideally atomic).
+	 * <li>Sync save file's parent directory (ensures that the rename operation is persisted to
+	 * disk).
+	 * </ul>
+	 * 
+	 * @param file
+	 *            the save file
+	 * @param data
+	 *            the formatted data
+	 * @throws ShopkeeperStorageSaveException
+	 *             if something goes wrong
+	 */
+	private void doSaveToFile(Path file, String data) throws ShopkeeperStorageSaveException {
+		assert file != null && data != null;
+		try {
+			if (compressSaveData) {
+				FileUtils.writeSafely(
+						file,
+						SaveDataCompression.compress(data),
+						Log.getLogger(),
+						pluginDataFolder
+				);
+			} else {
+				FileUtils.writeSafely(
+						file,
+						data,
+						StandardCharsets.UTF_8,
+						Log.getLogger(),
+						pluginDataFolder
+				);
+			}
+		} catch (Exception e) {
+			throw new ShopkeeperStorageSaveException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Moves the given save data of the previous storage type out of the way, so that it is not
+	 * loaded again if the storage type is changed back later.
+	 * <p>
+	 * Any errors are logged.
+	 * 
+	 * @param previousSaveData
+	 *            the save file or segments folder of the previous storage type, not
+	 *            <code>null</code>
+	 */
+	void backupMigratedSaveData(Path previousSaveData) {
+		var source = previousSaveData;
+		var tempSource = FileUtils.getTempSibling(previousSaveData);
+		if (!Files.exists(source)) {
+			source = tempSource;
+		}
+
+		var now = LocalDateTime.now();
+		var backup = previousSaveData.resolveSibling(
+				now.format(FileUtils.DATE_TIME_FORMATTER) + "_" + previousSaveData.getFileName()
+						+ ".backup"
+		);
+		try {
+			Files.move(source, backup);
+			// Any remaining temporary file is outdated:
+			FileUtils.deleteIfExists(tempSource);
+			Log.info("Moved the shopkeeper data of the previous storage type to "
+					+ this.relativize(backup));
+		} catch (Exception e) {
+			Log.severe("Failed to move the shopkeeper data of the previous storage type ("
+					+ this.relativize(source) + ") to a backup location!"
+					+ " Manually move or delete it before switching back to the previous"
+					+ " storage type, because it would otherwise be loaded instead of the"
+					+ " current shopkeeper data!", e);
+		}
+	}
+}
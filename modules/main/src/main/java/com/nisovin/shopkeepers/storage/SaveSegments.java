@@ -0,0 +1,164 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import com.nisovin.shopkeepers.util.java.ConversionUtils;
+
+/**
+ * Utilities related to the file layout of the {@link ShopkeeperStorageType#SEGMENTED segmented}
+ * shopkeeper storage.
+ * <p>
+ * The shopkeepers are grouped into segments of consecutive shopkeeper ids. The data of each segment
+ * is stored inside its own file, named after the segment's index. An additional meta file stores
+ * the data version of the saved data. This meta file is written last during every save, and its
+ * existence indicates that the segmented storage has been set up completely.
+ */
+final class SaveSegments {
+
+	/**
+	 * The number of consecutive shopkeeper ids that are stored inside the same segment.
+	 */
+	static final int SEGMENT_SIZE = 100;
+
+	static final String META_FILE_NAME = "meta.yml";
+	private static final String SEGMENT_FILE_EXTENSION = ".yml";
+	// See FileUtils#getTempSibling
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+	/**
+	 * Gets the index of the segment that stores the data of the shopkeeper with the given id.
+	 * 
+	 * @param shopkeeperId
+	 *            the shopkeeper id, expected to be positive
+	 * @return the segment index
+	 */
+	static int getSegment(int shopkeeperId) {
+		assert shopkeeperId > 0;
+		return shopkeeperId / SEGMENT_SIZE;
+	}
+
+	/**
+	 * Gets the index of the segment that stores the data with the given key.
+	 * 
+	 * @param key
+	 *            the key, usually a shopkeeper id
+	 * @return the segment index, or <code>-1</code> if the key is not a valid shopkeeper id
+	 */
+	static int getSegment(String key) {
+		Integer shopkeeperId = ConversionUtils.parseInt(key);
+		if (shopkeeperId == null || shopkeeperId <= 0) return -1;
+		return getSegment(shopkeeperId.intValue());
+	}
+
+	/**
+	 * Gets the first shopkeeper id that is part of the specified segment.
+	 * <p>
+	 * This may return <code>0</code>, which is not a valid shopkeeper id.
+	 * 
+	 * @param segment
+	 *            the segment index
+	 * @return the first shopkeeper id of the segment
+	 */
+	static int getFirstShopkeeperId(int segment) {
+		assert segment >= 0;
+		return segment * SEGMENT_SIZE;
+	}
+
+	/**
+	 * Gets the last shopkeeper id that is part of the specified segment.
+	 * 
+	 * @param segment
+	 *            the segment index
+	 * @return the last shopkeeper id of the segment
+	 */
+	static int getLastShopkeeperId(int segment) {
+		assert segment >= 0;
+		// Avoid overflows for the last segment:
+		return (int) Math.min(
+				(long) getFirstShopkeeperId(segment) + SEGMENT_SIZE - 1,
+				Integer.MAX_VALUE
+		);
+	}
+
+	static Path getSegmentFile(Path directory, int segment) {
+		return directory.resolve(segment + SEGMENT_FILE_EXTENSION);
+	}
+
+	/**
+	 * Gets the segment index represented by the given segment file.
+	 * 
+	 * @param file
+	 *            the file
+	 * @return the segment index, or <code>-1</code> if the given file is not a segment file
+	 */
+	static int getSegment(Path file) {
+		Path fileNamePath = file.getFileName();
+		if (fileNamePath == null) return -1;
+		String fileName = fileNamePath.toString();
+		if (!fileName.endsWith(SEGMENT_FILE_EXTENSION)) return -1;
+
+		String segmentString = fileName.substring(
+				0,
+				fileName.length() - SEGMENT_FILE_EXTENSION.length()
+		);
+		Integer segment = ConversionUtils.parseInt(segmentString);
+		if (segment == null || segment < 0) return -1;
+		// Ignore files with a non-canonical name, e.g. with leading zeros:
+		if (!segment.toString().equals(segmentString)) return -1;
+		return segment;
+	}
+
+	/**
+	 * Finds the segment files inside the specified directory.
+	 * <p>
+	 * If there is no segment file for a segment, but there is a temporary segment file, e.g. left
+	 * behind by a previously interrupted save, the temporary file is returned instead.
+	 * 
+	 * @param directory
+	 *            the directory
+	 * @return the segment files, ordered by their segment index, not <code>null</code> but
+	 *         possibly empty
+	 * @throws IOException
+	 *             if the directory cannot be read
+	 */
+	static NavigableMap<Integer, Path> findSegmentFiles(Path directory) throws IOException {
+		NavigableMap<Integer, Path> segmentFiles = new TreeMap<>();
+		if (!Files.isDirectory(directory)) return segmentFiles;
+
+		NavigableMap<Integer, Path> tempSegmentFiles = new TreeMap<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				if (!Files.isRegularFile(file)) return;
+
+				int segment = getSegment(file);
+				if (segment >= 0) {
+					segmentFiles.put(segment, file);
+					return;
+				}
+
+				Path fileNamePath = file.getFileName();
+				if (fileNamePath == null) return;
+				String fileName = fileNamePath.toString();
+				if (!fileName.endsWith(TEMP_FILE_EXTENSION)) return;
+				Path tempSource = file.resolveSibling(
+						fileName.substring(0, fileName.length() - TEMP_FILE_EXTENSION.length())
+				);
+				int tempSegment = getSegment(tempSource);
+				if (tempSegment >= 0) {
+					tempSegmentFiles.put(tempSegment, file);
+				}
+			});
+		}
+
+		tempSegmentFiles.forEach(segmentFiles::putIfAbsent);
+		return segmentFiles;
+	}
+
+	private SaveSegments() {
+	}
+}
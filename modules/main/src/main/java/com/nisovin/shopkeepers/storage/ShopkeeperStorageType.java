@@ -0,0 +1,21 @@
+package com.nisovin.shopkeepers.storage;
+
+/**
+ * The available shopkeeper storage types.
+ */
+public enum ShopkeeperStorageType {
+
+	/**
+	 * Stores the data of all shopkeepers inside a single save file.
+	 * <p>
+	 * Every save rewrites the complete save file.
+	 */
+	SINGLE_FILE,
+	/**
+	 * Distributes the data of the shopkeepers across multiple segment files, based on the
+	 * shopkeeper ids.
+	 * <p>
+	 * Saves only rewrite the segments that contain shopkeepers with unsaved changes.
+	 */
+	SEGMENTED
+}
@@ -9,6 +9,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.util.bukkit.RegistryUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.logging.Log;
 import com.nisovin.shopkeepers.util.yaml.YamlUtils;
 
 /**
@@ -90,6 +92,49 @@ public class TradeLogUtils {
 		return ItemStack.deserialize(itemData);
 	}
 
+	/**
+	 * Loads the logged item.
+	 * <p>
+	 * If the item metadata cannot be loaded, this logs a debug message and returns the item without
+	 * its metadata.
+	 * 
+	 * @param itemType
+	 *            the logged item type, can be <code>null</code> or empty if there is no item
+	 * @param amount
+	 *            the logged item amount
+	 * @param metadata
+	 *            the logged item metadata, can be <code>null</code> or empty
+	 * @return the item, or <code>null</code> if there is no item
+	 * @throws RuntimeException
+	 *             if the item type is invalid
+	 */
+	public static @Nullable UnmodifiableItemStack loadItemStackOrNull(
+			@Nullable String itemType,
+			int amount,
+			@Nullable String metadata
+	) {
+		if (itemType == null || itemType.isEmpty() || amount <= 0) {
+			return null;
+		}
+
+		var material = ItemUtils.parseMaterial(itemType);
+		if (material == null || !material.isItem()) {
+			throw new RuntimeException("Invalid item type: " + itemType);
+		}
+
+		ItemStack itemStack;
+		try {
+			itemStack = loadItemStack(material, amount, metadata);
+		} catch (Exception e) {
+			Log.debug("Failed to load item stack metadata from history!", e);
+
+			// Continue with the item without the item metadata:
+			itemStack = new ItemStack(material, amount);
+		}
+
+		return UnmodifiableItemStack.ofNonNull(itemStack);
+	}
+
 	private TradeLogUtils() {
 	}
 }
@@ -26,4 +26,13 @@ public interface TradeLogger {
 	 * any pending writes to complete.
 	 */
 	public void flush();
+
+	/**
+	 * Writes any buffered {@link TradeRecord trade records} to storage, waits (blocking!) for any
+	 * pending writes to complete, and then releases any resources held by this trade logger.
+	 * <p>
+	 * This is invoked once when the trade logger is no longer used. No more trades are logged
+	 * afterwards.
+	 */
+	public void shutdown();
 }
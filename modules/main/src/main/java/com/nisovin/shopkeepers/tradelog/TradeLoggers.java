@@ -1,6 +1,7 @@
 package com.nisovin.shopkeepers.tradelog;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.bukkit.Bukkit;
@@ -12,12 +13,14 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeCompletedEvent;
+import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.csv.CsvTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryProvider;
 import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteTradeLogger;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsProvider;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.trading.MergedTrades;
 import com.nisovin.shopkeepers.util.trading.TradeMerger;
@@ -85,10 +88,19 @@ public class TradeLoggers implements Listener {
 		Unsafe.assertNonNull(tradeMerger).onDisable();
 
 		// Wait for any pending writes to complete:
-		loggers.forEach(TradeLogger::flush);
+		loggers.forEach(TradeLogger::shutdown);
 		loggers.clear();
 	}
 
+	/**
+	 * Gets the currently active {@link TradeLogger}s.
+	 * 
+	 * @return an unmodifiable view on the active trade loggers
+	 */
+	public List<? extends TradeLogger> getTradeLoggers() {
+		return Collections.unmodifiableList(loggers);
+	}
+
 	/**
 	 * Gets the currently active {@link TradingHistoryProvider}.
 	 * <p>
@@ -106,11 +118,43 @@ public class TradeLoggers implements Listener {
 		return null;
 	}
 
+	/**
+	 * Gets the currently active {@link TradeStatisticsProvider}.
+	 * <p>
+	 * There can only be one active {@link TradeStatisticsProvider}: This returns the first active
+	 * {@link TradeLogger} that implements {@link TradeStatisticsProvider}.
+	 * 
+	 * @return the active {@link TradeStatisticsProvider}, or <code>null</code> if there is none
+	 */
+	public @Nullable TradeStatisticsProvider getTradeStatisticsProvider() {
+		for (var logger : loggers) {
+			if (logger instanceof TradeStatisticsProvider tradeStatisticsProvider) {
+				return tradeStatisticsProvider;
+			}
+		}
+		return null;
+	}
+
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	void onTradeCompleted(ShopkeeperTradeCompletedEvent event) {
+		this.onTradesCompleted(event.getCompletedTrade(), 1);
+	}
+
+	/**
+	 * Logs the given number of equal trades that were applied at once.
+	 * <p>
+	 * This is used instead of the {@link ShopkeeperTradeCompletedEvent} when several trades are
+	 * applied in bulk.
+	 * 
+	 * @param tradeEvent
+	 *            the trade event of the trades, not <code>null</code>
+	 * @param tradeCount
+	 *            the number of trades, at least <code>1</code>
+	 */
+	public void onTradesCompleted(ShopkeeperTradeEvent tradeEvent, int tradeCount) {
 		if (loggers.isEmpty()) return; // Nothing to log
 
-		Unsafe.assertNonNull(tradeMerger).mergeTrade(event.getCompletedTrade());
+		Unsafe.assertNonNull(tradeMerger).mergeTrades(tradeEvent, tradeCount);
 	}
 
 	private void processTrades(MergedTrades trades) {
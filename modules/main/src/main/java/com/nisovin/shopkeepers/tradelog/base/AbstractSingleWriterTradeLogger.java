@@ -3,17 +3,21 @@ package com.nisovin.shopkeepers.tradelog.base;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitTask;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
@@ -24,15 +28,20 @@ import com.nisovin.shopkeepers.util.bukkit.PermissionUtils;
 import com.nisovin.shopkeepers.util.bukkit.SchedulerUtils;
 import com.nisovin.shopkeepers.util.bukkit.SingletonTask;
 import com.nisovin.shopkeepers.util.java.CollectionUtils;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 import com.nisovin.shopkeepers.util.java.Retry;
 import com.nisovin.shopkeepers.util.java.ThrowableUtils;
 import com.nisovin.shopkeepers.util.java.Validate;
 import com.nisovin.shopkeepers.util.java.VoidCallable;
 import com.nisovin.shopkeepers.util.logging.Log;
+import com.nisovin.shopkeepers.util.timer.Timer;
+import com.nisovin.shopkeepers.util.timer.Timings;
 
 /**
  * Base class for {@link TradeLogger}s with a single concurrent writer. Trades are buffered and
- * periodically persisted in batches.
+ * persisted in batches by a dedicated writer thread.
+ * <p>
+ * Logging a trade only adds it to a lock-free queue, which the writer thread drains in batches.
  * <p>
  * If any initial setup is required, override {@link #preSetup()}, {@link #asyncSetup()} and
  * {@link #postSetup()} accordingly.
@@ -46,11 +55,24 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 	// - The IO overhead of saving operations is relatively low.
 	// - Other components may depend on the persisted trade history (e.g. external tools and our own
 	// history feature). Keeping the delay small improves the user experience of those tools.
-	private static final int DELAYED_SAVE_TICKS = 200; // 10 seconds
+	private static final long BUFFERING_DELAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+	// If this many trades are pending, they are written right away, without waiting for the
+	// buffering delay to pass:
+	private static final int BATCH_SIZE = 500;
+	// The maximum number of trades that are written as part of the same batch:
+	private static final int MAX_BATCH_SIZE = 5000;
+	// The number of pending trades at which we warn that the writer cannot keep up:
+	private static final int PENDING_WARNING_THRESHOLD = 50000;
+	private static final long PENDING_WARNING_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
 
 	private static final int SAVE_MAX_ATTEMPTS = 20;
 	private static final long SAVE_RETRY_DELAY_MILLIS = 25L;
+	// The delay before we attempt to save the trades of a failed batch again:
+	private static final long FAILED_SAVE_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(10);
 	private static final long SAVE_ERROR_MSG_THROTTLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	private static final long WRITER_STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+	private static final int ITEM_METADATA_CACHE_SIZE = 512;
 
 	protected final Plugin plugin;
 	protected final TradeLogStorageType storageType;
@@ -59,15 +81,35 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 	private final SetupTask setupTask;
 	private boolean setupCompleted = false;
 
-	private boolean enabled = true;
+	private volatile boolean enabled = true;
+
+	// Trades may be logged concurrently, e.g. on servers with region-based multithreading. The
+	// writer thread is the only consumer.
+	private final Queue<TradeRecord> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	// Updated by the logging threads:
+	private final AtomicLong lastPendingWarningMillis = new AtomicLong();
+	private volatile @Nullable WriterThread writerThread = null;
 
-	private List<TradeRecord> pending = new ArrayList<>();
-	private final SaveTask saveTask;
-	private @Nullable BukkitTask delayedSaveTask = null;
-	// This is reset to the current configuration value prior to every save. This ensures that the
+	// Only accessed by the writer thread:
+	// This is reset to the current configuration value prior to every batch. This ensures that the
 	// value of this setting remains constant during the save and does not differ for the items of
 	// the trades that are being saved as part of the same batch.
 	private boolean logItemMetadata;
+	// Repeated trades of the same shop offer usually involve equal items. The serialized metadata of
+	// these items is cached, so that we only serialize it once for each distinct item.
+	private final Map<UnmodifiableItemStack, String> itemMetadataCache = new LRUCache<>(
+			ITEM_METADATA_CACHE_SIZE
+	);
+
+	// Statistics:
+	// These are only updated by the writer thread. Reads from other threads might observe slightly
+	// outdated values.
+	private volatile int maxPendingCount = 0;
+	private volatile long batchCount = 0L;
+	private volatile long batchedTradesCount = 0L;
+	private volatile int maxBatchSize = 0;
+	private final Timer writeTimings = new Timer();
 
 	public AbstractSingleWriterTradeLogger(Plugin plugin, TradeLogStorageType storageType) {
 		Validate.notNull(plugin, "plugin is null");
@@ -75,7 +117,15 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		this.storageType = storageType;
 		this.logPrefix = storageType.toString() + " trade log: ";
 		this.setupTask = new SetupTask(plugin);
-		this.saveTask = new SaveTask(plugin);
+	}
+
+	/**
+	 * Gets the {@link TradeLogStorageType} of this trade logger.
+	 * 
+	 * @return the storage type
+	 */
+	public final TradeLogStorageType getStorageType() {
+		return storageType;
 	}
 
 	@Override
@@ -148,8 +198,9 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 			postSetup();
 			setupCompleted = true;
 
-			// Save any pending trades that were buffered while the setup was in progress:
-			savePending();
+			// Start the writer thread. This also saves any pending trades that were buffered while
+			// the setup was in progress.
+			startWriter();
 		}
 	}
 
@@ -166,8 +217,9 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 
 		Log.severe(logPrefix + "Disabled (trades won't be logged)! Reason: " + reason);
 		enabled = false;
-		this.cancelDelayedSave();
+		this.stopWriter();
 		pending.clear();
+		pendingCount.set(0);
 	}
 
 	@Override
@@ -175,201 +227,405 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		if (!enabled) return;
 
 		pending.add(trade);
+		int count = pendingCount.incrementAndGet();
 
 		// It is likely for there to be additional trades to log in the immediate future. In order
-		// to reduce IO overhead, we do not trigger a save right away, but buffer the incoming trade
-		// records over a short period of time.
-		this.savePendingDelayed();
+		// to reduce IO overhead, the writer thread does not write the first pending trade right
+		// away, but buffers the incoming trade records over a short period of time, or until there
+		// are enough trades for a batch.
+		if (count == 1 || count == BATCH_SIZE) {
+			WriterThread writerThread = this.writerThread;
+			if (writerThread != null) {
+				writerThread.wakeUp();
+			}
+		} else if (count >= PENDING_WARNING_THRESHOLD) {
+			// We never block the logging thread or drop trades. Instead, the writer thread
+			// continuously writes batches while there are many pending trades, and we warn if it
+			// cannot keep up (throttled):
+			long nowMillis = System.currentTimeMillis();
+			long lastWarningMillis = lastPendingWarningMillis.get();
+			if (Math.abs(nowMillis - lastWarningMillis) > PENDING_WARNING_THROTTLE_MILLIS
+					// Only one of the concurrently logging threads warns:
+					&& lastPendingWarningMillis.compareAndSet(lastWarningMillis, nowMillis)) {
+				Log.warning(logPrefix + count + " trades are pending to be logged!"
+						+ " The trade log storage might be too slow.");
+			}
+		}
 	}
 
 	@Override
 	public void flush() {
 		setupTask.awaitExecutions();
-		this.savePending();
-		saveTask.awaitExecutions();
-	}
+		WriterThread writerThread = this.writerThread;
+		if (writerThread == null) return; // Not set up or disabled
 
-	private boolean hasPending() {
-		return !pending.isEmpty();
+		writerThread.flush();
 	}
 
-	private void savePendingDelayed() {
-		if (!setupCompleted) {
-			// Any pending trades are saved once the setup completes.
-			return;
-		}
-
-		if (!this.hasPending()) {
-			// There are no pending trades to save:
-			return;
-		}
+	@Override
+	public void shutdown() {
+		this.flush();
+		enabled = false;
+		this.stopWriter();
+	}
 
-		if (delayedSaveTask != null) {
-			// There is already a delayed save in progress:
-			return;
-		}
+	private void startWriter() {
+		if (!enabled) return;
+		if (writerThread != null) return; // Already started
 
-		delayedSaveTask = SchedulerUtils.runTaskLaterOrOmit(
-				plugin,
-				new DelayedSaveTask(),
-				DELAYED_SAVE_TICKS
-		);
+		WriterThread writerThread = new WriterThread();
+		this.writerThread = writerThread;
+		writerThread.start();
 	}
 
-	private class DelayedSaveTask implements Runnable {
-		@Override
-		public void run() {
-			delayedSaveTask = null;
-			savePending();
+	private void stopWriter() {
+		WriterThread writerThread = this.writerThread;
+		if (writerThread == null) return;
+		this.writerThread = null;
+
+		writerThread.requestStop();
+		try {
+			writerThread.join(WRITER_STOP_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			// Restore the interrupt status for anyone interested in it, but otherwise ignore the
+			// interrupt here:
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			Log.severe(logPrefix + "The writer thread did not stop in time!");
 		}
 	}
 
-	private void cancelDelayedSave() {
-		if (delayedSaveTask != null) {
-			delayedSaveTask.cancel();
-			delayedSaveTask = null;
+	// Invoked by the writer thread if it terminates due to an unexpected error.
+	private void onWriterDied(WriterThread writerThread, int unsavedBatchSize) {
+		// There is no consumer for the pending trades anymore: Disable this trade logger, so that
+		// we do not keep buffering trades that are never written.
+		enabled = false;
+		if (this.writerThread == writerThread) {
+			this.writerThread = null;
 		}
-	}
 
-	private void savePending() {
-		assert setupCompleted;
-		if (!this.hasPending()) {
-			// There are no pending trades to save:
-			return;
+		// Trades that are logged concurrently might still be added to the queue, but are not
+		// counted here:
+		int unsavedCount = unsavedBatchSize + pendingCount.getAndSet(0);
+		pending.clear();
+
+		String lostTradesMsg = "";
+		if (unsavedCount > 0) {
+			lostTradesMsg = " Failed to log " + unsavedCount + " trades!"
+					+ " Data might have been lost!";
 		}
+		Log.severe(logPrefix + "Disabled (trades won't be logged)! Reason: The writer thread"
+				+ " terminated unexpectedly." + lostTradesMsg);
+		this.informAdmins("Trade logging stopped due to an unexpected error!");
+	}
 
-		saveTask.run(); // Usually async, but may be sync during plugin disable
+	// May be invoked asynchronously.
+	private void informAdmins(String message) {
+		String errorMsg = ChatColor.DARK_RED + "[Shopkeepers] " + ChatColor.RED
+				+ logPrefix + message
+				+ " Please check the server logs and look into the issue!";
+		// This is omitted during plugin disable:
+		SchedulerUtils.runTaskOrOmit(plugin, () -> {
+			for (Player player : Bukkit.getOnlinePlayers()) {
+				assert player != null;
+				if (PermissionUtils.hasPermission(player, ShopkeepersPlugin.ADMIN_PERMISSION)) {
+					player.sendMessage(errorMsg);
+				}
+			}
+		});
 	}
 
-	private class SaveTask extends SingletonTask {
+	private final class WriterThread extends Thread {
 
-		private List<TradeRecord> saving = new ArrayList<>();
-		private @Nullable SaveContext saveContext = null;
-		private boolean saveSucceeded = false;
+		// The unsaved trades of the current batch: If the saving of a batch fails, its unsaved
+		// trades remain at the front of the batch and are saved again as part of the next batch.
+		private final List<TradeRecord> batch = new ArrayList<>();
 		private long lastSaveErrorMsgMillis = 0L;
 
-		private SaveTask(Plugin plugin) {
-			super(plugin);
+		private volatile boolean stopRequested = false;
+		private final Object flushLock = new Object();
+		// Modified while holding the flush lock:
+		private volatile long flushRequestId = 0L;
+		private volatile long completedFlushId = 0L;
+
+		WriterThread() {
+			super(plugin.getName() + " " + storageType + " trade log writer");
+			// Do not prevent the JVM from exiting, e.g. if the plugin is not properly disabled:
+			this.setDaemon(true);
 		}
 
-		private class InternalAsyncTask extends SingletonTask.InternalAsyncTask {
+		void wakeUp() {
+			LockSupport.unpark(this);
 		}
 
-		private class InternalSyncCallbackTask extends SingletonTask.InternalSyncCallbackTask {
+		void requestStop() {
+			stopRequested = true;
+			this.wakeUp();
 		}
 
-		@Override
-		protected InternalAsyncTask createInternalAsyncTask() {
-			return new InternalAsyncTask();
+		// Blocks until all trades that were logged prior to this call have been written, or the
+		// attempt to write them failed.
+		void flush() {
+			long requestId;
+			synchronized (flushLock) {
+				requestId = ++flushRequestId;
+			}
+			this.wakeUp();
+
+			synchronized (flushLock) {
+				while (completedFlushId < requestId && this.isAlive()) {
+					try {
+						// Periodically check if the writer thread is still alive:
+						flushLock.wait(1000L);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
 		}
 
-		@Override
-		protected InternalSyncCallbackTask createInternalSyncCallbackTask() {
-			return new InternalSyncCallbackTask();
+		private void completeFlush(long requestId) {
+			synchronized (flushLock) {
+				if (requestId > completedFlushId) {
+					completedFlushId = requestId;
+				}
+				flushLock.notifyAll();
+			}
+		}
+
+		private boolean isFlushOrStopRequested() {
+			return stopRequested || flushRequestId > completedFlushId;
 		}
 
 		@Override
-		protected void prepare() {
-			// Stop any active delayed save task:
-			cancelDelayedSave();
+		public void run() {
+			try {
+				while (true) {
+					this.awaitWork();
+
+					boolean stopping = stopRequested;
+					// All trades logged prior to the flush request are pending now:
+					long flushId = flushRequestId;
+					boolean flushing = stopping || flushId > completedFlushId;
+
+					// When flushing, write batches until there are no more pending trades:
+					boolean saveSucceeded;
+					do {
+						saveSucceeded = this.writeBatch();
+					} while (saveSucceeded && flushing && pendingCount.get() > 0);
+
+					if (flushing) {
+						this.completeFlush(flushId);
+					}
 
-			// Reset local logItemMetadata setting:
-			logItemMetadata = Settings.logItemMetadata;
+					if (stopping) {
+						int unsavedCount = batch.size() + pendingCount.get();
+						if (unsavedCount > 0) {
+							Log.severe(logPrefix + "Failed to log " + unsavedCount
+									+ " trades! Data might have been lost! :(");
+						}
+						break;
+					}
+				}
+			} catch (Throwable e) {
+				Log.severe(logPrefix + "Unexpected error in the writer thread!", e);
+				onWriterDied(this, batch.size());
+			}
+		}
 
-			// Swap the pending and saving lists of trades:
-			assert saving.isEmpty();
-			List<TradeRecord> temp = saving;
-			saving = pending;
-			pending = temp;
+		private void awaitWork() {
+			if (!batch.isEmpty()) {
+				// The previous save failed: Attempt the save again after a short delay.
+				this.awaitUntil(System.nanoTime() + FAILED_SAVE_RETRY_DELAY_NANOS, false);
+				return;
+			}
+
+			// Wait for the first pending trade:
+			while (pendingCount.get() == 0 && !this.isFlushOrStopRequested()) {
+				LockSupport.park(this);
+			}
 
-			// Setup new SaveContext:
-			assert saveContext == null;
-			this.saveContext = new SaveContext(saving);
+			// Buffer any further trades over a short period of time:
+			this.awaitUntil(System.nanoTime() + BUFFERING_DELAY_NANOS, true);
 		}
 
-		@Override
-		protected void execute() {
-			SaveContext saveContext = Unsafe.assertNonNull(this.saveContext);
-			saveSucceeded = writeTradesWithRetry(saveContext);
-			assert saveSucceeded ? !saveContext.hasUnsavedTrades() : saveContext.hasUnsavedTrades();
+		// Returns early if a flush or stop is requested, or if there are enough pending trades for
+		// a batch (if awaitBatch is true).
+		private void awaitUntil(long deadlineNanos, boolean awaitBatch) {
+			while (!this.isFlushOrStopRequested()) {
+				if (awaitBatch && pendingCount.get() >= BATCH_SIZE) return;
+
+				long remainingNanos = deadlineNanos - System.nanoTime();
+				if (remainingNanos <= 0L) return;
+
+				LockSupport.parkNanos(this, remainingNanos);
+			}
 		}
 
-		@Override
-		protected void syncCallback() {
-			SaveContext saveContext = Unsafe.assertNonNull(this.saveContext);
+		// Returns true on success.
+		private boolean writeBatch() {
+			// Update the max pending statistic (the pending count is usually largest just before
+			// we drain the pending trades):
+			int currentPendingCount = pendingCount.get();
+			if (currentPendingCount > maxPendingCount) {
+				maxPendingCount = currentPendingCount;
+			}
+
+			// Move pending trades to the batch:
+			int drainedCount = 0;
+			while (batch.size() < MAX_BATCH_SIZE) {
+				@Nullable TradeRecord trade = pending.poll();
+				if (trade == null) break;
+
+				batch.add(trade);
+				drainedCount++;
+			}
+			if (drainedCount > 0) {
+				pendingCount.addAndGet(-drainedCount);
+			}
+			if (batch.isEmpty()) return true;
 
-			this.printDebugInfo();
+			// Reset local logItemMetadata setting:
+			logItemMetadata = Settings.logItemMetadata;
+
+			int batchSize = batch.size();
+			SaveContext saveContext = new SaveContext(batch);
+			writeTimings.start();
+			boolean saveSucceeded = writeTradesWithRetry(saveContext);
+			writeTimings.stop();
+			assert saveSucceeded ? !saveContext.hasUnsavedTrades() : saveContext.hasUnsavedTrades();
+
+			// Update statistics:
+			batchCount++;
+			batchedTradesCount += batchSize;
+			if (batchSize > maxBatchSize) {
+				maxBatchSize = batchSize;
+			}
+
+			this.printDebugInfo(saveContext, batchSize, saveSucceeded);
+
+			// Remove the saved trades from the batch:
+			batch.subList(0, saveContext.getSavedCount()).clear();
 
 			if (!saveSucceeded) {
-				// Save failed:
-
-				// Add the unsaved trades to the front of the pending trades:
-				pending.addAll(0, saveContext.getUnsavedTrades());
-
-				// Attempt the save again after a short delay:
-				// However, during the final save attempt during plugin disable, this is skipped and
-				// data might be lost.
-				savePendingDelayed();
-
-				// Inform admins about the issue (throttled to once every x minutes):
-				long nowMillis = System.currentTimeMillis();
-				if (Math.abs(nowMillis - lastSaveErrorMsgMillis) > SAVE_ERROR_MSG_THROTTLE_MILLIS) {
-					lastSaveErrorMsgMillis = nowMillis;
-					String errorMsg = ChatColor.DARK_RED + "[Shopkeepers] " + ChatColor.RED
-							+ logPrefix + "Failed to log trades!"
-							+ " Please check the server logs and look into the issue!";
-					for (Player player : Bukkit.getOnlinePlayers()) {
-						assert player != null;
-						if (PermissionUtils.hasPermission(player, ShopkeepersPlugin.ADMIN_PERMISSION)) {
-							player.sendMessage(errorMsg);
-						}
-					}
-				}
+				this.informAdminsAboutSaveFailure();
+			}
+			return saveSucceeded;
+		}
+
+		private void informAdminsAboutSaveFailure() {
+			// Inform admins about the issue (throttled to once every x minutes):
+			long nowMillis = System.currentTimeMillis();
+			if (Math.abs(nowMillis - lastSaveErrorMsgMillis) <= SAVE_ERROR_MSG_THROTTLE_MILLIS) {
+				return;
 			}
+			lastSaveErrorMsgMillis = nowMillis;
 
-			// Reset:
-			this.saveContext = null;
-			saving.clear();
+			informAdmins("Failed to log trades!");
 		}
 
-		private void printDebugInfo() {
+		private void printDebugInfo(SaveContext saveContext, int batchSize, boolean saveSucceeded) {
 			Log.debug(() -> {
-				SaveContext saveContext = Unsafe.assertNonNull(this.saveContext);
-
 				StringBuilder sb = new StringBuilder();
 				sb.append("Logged trades to the ");
 				sb.append(storageType);
 				sb.append(" trade log (");
 
 				// Number of logged trade records:
-				sb.append(saving.size()).append(" records");
+				sb.append(batchSize).append(" records");
 
 				// Number of trade records that we failed to log:
-				if (saveContext.hasUnsavedTrades()) {
-					sb.append(", ")
-							.append(saveContext.getUnsavedTrades().size())
-							.append(" failed to log");
+				int unsavedCount = batchSize - saveContext.getSavedCount();
+				if (unsavedCount > 0) {
+					sb.append(", ").append(unsavedCount).append(" failed to log");
 				}
 
-				// Timing summary:
-				sb.append("): ");
-				sb.append(this.getExecutionTimingString());
+				// Number of trade records that are still pending:
+				int currentPendingCount = pendingCount.get();
+				if (currentPendingCount > 0) {
+					sb.append(", ").append(currentPendingCount).append(" pending");
+				}
 
 				// Failure indicator:
 				if (!saveSucceeded) {
-					if (saveContext.getUnsavedTrades().size() == saving.size()) {
-						sb.append(" -- Logging failed!");
+					if (unsavedCount == batchSize) {
+						sb.append(") -- Logging failed!");
 					} else {
-						sb.append(" -- Logging partially failed!");
+						sb.append(") -- Logging partially failed!");
 					}
+				} else {
+					sb.append(")");
 				}
 				return sb.toString();
 			});
 		}
 	}
 
+	// STATISTICS
+
+	/**
+	 * Gets the number of trades that are currently pending to be written.
+	 * 
+	 * @return the number of pending trades
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
 	/**
-	 * The context for a particular invocation of the save task to persist a batch of trade records.
+	 * Gets the maximum number of trades that were pending at the same time.
+	 * 
+	 * @return the maximum number of pending trades
+	 */
+	public int getMaxPendingCount() {
+		return maxPendingCount;
+	}
+
+	/**
+	 * Gets the number of written batches, including failed attempts.
+	 * 
+	 * @return the number of batches
+	 */
+	public long getBatchCount() {
+		return batchCount;
+	}
+
+	/**
+	 * Gets the average number of trades per batch.
+	 * 
+	 * @return the average batch size
+	 */
+	public double getAverageBatchSize() {
+		long batchCount = this.batchCount;
+		if (batchCount == 0L) return 0.0D;
+		return (double) batchedTradesCount / batchCount;
+	}
+
+	/**
+	 * Gets the maximum number of trades that were written as part of the same batch.
+	 * 
+	 * @return the maximum batch size
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * Gets the timings of the writing of batches.
+	 * <p>
+	 * These timings are updated by the writer thread. When read from other threads, the returned
+	 * values might be slightly inconsistent.
+	 * 
+	 * @return the write timings
+	 */
+	public Timings getWriteTimings() {
+		return writeTimings;
+	}
+
+	/**
+	 * The context for a particular attempt to persist a batch of trade records.
 	 */
 	protected static class SaveContext {
 
@@ -404,13 +660,21 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 			return trades.get(nextUnsaved);
 		}
 
-		// May return a sublist view:
-		private List<? extends TradeRecord> getUnsavedTrades() {
-			if (!this.hasUnsavedTrades()) {
-				return Collections.emptyList();
-			} else {
-				return trades.subList(nextUnsaved, trades.size());
-			}
+		/**
+		 * Gets the remaining unsaved {@link TradeRecord}s of this batch, in the order in which they
+		 * need to be persisted.
+		 * <p>
+		 * Call {@link #onTradesSuccessfullySaved(int)} once trade records have been successfully
+		 * persisted.
+		 * 
+		 * @return an unmodifiable view on the unsaved trade records, not <code>null</code>
+		 */
+		public List<? extends TradeRecord> getUnsavedTrades() {
+			return Collections.unmodifiableList(trades.subList(nextUnsaved, trades.size()));
+		}
+
+		private int getSavedCount() {
+			return nextUnsaved;
 		}
 
 		/**
@@ -420,6 +684,19 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		public void onTradeSuccessfullySaved() {
 			nextUnsaved++;
 		}
+
+		/**
+		 * This must be called after successfully persisting the given number of the
+		 * {@link #getUnsavedTrades() unsaved trades}.
+		 * 
+		 * @param count
+		 *            the number of saved trades
+		 */
+		public void onTradesSuccessfullySaved(int count) {
+			Validate.isTrue(count >= 0 && nextUnsaved + count <= trades.size(),
+					"count is out of bounds");
+			nextUnsaved += count;
+		}
 	}
 
 	/**
@@ -434,7 +711,12 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 		assert itemStack != null;
 		if (!logItemMetadata) return ""; // Disabled
 
-		return TradeLogUtils.getItemMetadata(itemStack);
+		String metadata = itemMetadataCache.get(itemStack);
+		if (metadata == null) {
+			metadata = TradeLogUtils.getItemMetadata(itemStack);
+			itemMetadataCache.put(itemStack, metadata);
+		}
+		return metadata;
 	}
 
 	// May be invoked asynchronously.
@@ -485,8 +767,8 @@ public abstract class AbstractSingleWriterTradeLogger implements TradeLogger {
 	 * <li>Persist trades in the order in which they occurred.
 	 * <li>Persist individual trades atomically, i.e. not partially, intertwined, or duplicated
 	 * (e.g. if we retry failed log attempts).
-	 * <li>Usually invoked asynchronously, but may be invoked on the server's main thread, for
-	 * example during plugin shutdown.
+	 * <li>Invoked by the writer thread. Implementations only need to handle a single concurrent
+	 * writer.
 	 * </ul>
 	 * <p>
 	 * If the saving of a trade record fails, i.e. if this method throws an exception, this method
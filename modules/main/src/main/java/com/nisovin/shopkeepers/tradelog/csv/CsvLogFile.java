@@ -0,0 +1,264 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Identifies one of the CSV trade log files.
+ * <p>
+ * Trades are logged to one log file per day. If a log file exceeds the configured maximum size,
+ * the subsequent trades of that day are logged to additional numbered parts of the log file.
+ * <p>
+ * Once the trades are logged to another file, the previous log file is closed: An
+ * {@link CsvLogFileIndex index} is written for it and, if enabled, it is compressed. Closed log
+ * files are not modified anymore.
+ */
+final class CsvLogFile implements Comparable<CsvLogFile> {
+
+	private static final String FILE_NAME_PREFIX = "trades-";
+	private static final String CSV_EXTENSION = ".csv";
+	private static final String COMPRESSED_EXTENSION = ".csv.gz";
+	private static final String INDEX_EXTENSION = ".idx";
+
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	// trades-<date>[-<part>].csv[.gz]
+	private static final Pattern FILE_NAME_PATTERN = Pattern.compile(
+			Pattern.quote(FILE_NAME_PREFIX)
+					+ "(\\d{4}-\\d{2}-\\d{2})(?:-(\\d{1,9}))?\\.csv(\\.gz)?"
+	);
+
+	/**
+	 * Parses the {@link CsvLogFile} from the given file name.
+	 * 
+	 * @param fileName
+	 *            the name of the CSV or compressed CSV log file
+	 * @return the log file, or <code>null</code> if the file name does not match the name of a log
+	 *         file
+	 */
+	static @Nullable CsvLogFile parse(String fileName) {
+		Matcher matcher = FILE_NAME_PATTERN.matcher(fileName);
+		if (!matcher.matches()) return null;
+
+		LocalDate date;
+		try {
+			date = LocalDate.parse(Unsafe.assertNonNull(matcher.group(1)), DATE_FORMAT);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+
+		String partString = matcher.group(2);
+		int part = (partString != null) ? Integer.parseInt(partString) : 0;
+		if (part == 0 && partString != null) return null; // Part 0 has no suffix
+
+		return new CsvLogFile(date, part);
+	}
+
+	/**
+	 * Gets all log files inside the given folder, ordered from oldest to newest.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @return the log files
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	static List<CsvLogFile> list(Path folder) throws IOException {
+		if (!Files.isDirectory(folder)) return Collections.emptyList();
+
+		// Uncompressed and compressed files of the same log file are only listed once:
+		TreeSet<CsvLogFile> logFiles = new TreeSet<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+			for (Path file : files) {
+				Path fileName = file.getFileName();
+				if (fileName == null) continue;
+
+				CsvLogFile logFile = parse(fileName.toString());
+				if (logFile != null) {
+					logFiles.add(logFile);
+				}
+			}
+		}
+		return new ArrayList<>(logFiles);
+	}
+
+	/**
+	 * Gets the newest existing log file for the given date.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @param date
+	 *            the date
+	 * @return the newest log file of the given date, or <code>null</code> if there is none
+	 * @throws IOException
+	 *             if the folder cannot be read
+	 */
+	static @Nullable CsvLogFile getLatest(Path folder, LocalDate date) throws IOException {
+		@Nullable CsvLogFile latest = null;
+		for (CsvLogFile logFile : list(folder)) {
+			if (logFile.getDate().equals(date)) {
+				latest = logFile; // The list is ordered
+			}
+		}
+		return latest;
+	}
+
+	private final LocalDate date;
+	private final int part;
+	private final String baseName;
+
+	CsvLogFile(LocalDate date, int part) {
+		Validate.notNull(date, "date is null");
+		Validate.isTrue(part >= 0, "part cannot be negative");
+		this.date = date;
+		this.part = part;
+		String baseName = FILE_NAME_PREFIX + DATE_FORMAT.format(date);
+		if (part > 0) {
+			baseName += "-" + part;
+		}
+		this.baseName = baseName;
+	}
+
+	/**
+	 * Gets the date of the logged trades.
+	 * 
+	 * @return the date
+	 */
+	LocalDate getDate() {
+		return date;
+	}
+
+	/**
+	 * Gets the part number of this log file within its date.
+	 * 
+	 * @return the part number, starting at <code>0</code>
+	 */
+	int getPart() {
+		return part;
+	}
+
+	/**
+	 * Gets the log file that succeeds this log file on the same date.
+	 * 
+	 * @return the next part
+	 */
+	CsvLogFile getNextPart() {
+		return new CsvLogFile(date, part + 1);
+	}
+
+	/**
+	 * Gets the file name without extension.
+	 * 
+	 * @return the base name
+	 */
+	String getBaseName() {
+		return baseName;
+	}
+
+	Path getCsvFile(Path folder) {
+		return folder.resolve(baseName + CSV_EXTENSION);
+	}
+
+	Path getCompressedFile(Path folder) {
+		return folder.resolve(baseName + COMPRESSED_EXTENSION);
+	}
+
+	Path getIndexFile(Path folder) {
+		return folder.resolve(baseName + INDEX_EXTENSION);
+	}
+
+	/**
+	 * Checks if this log file has been closed, i.e. if trades are no longer logged to it.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @return <code>true</code> if the log file is closed
+	 */
+	boolean isClosed(Path folder) {
+		return Files.exists(this.getIndexFile(folder))
+				|| Files.exists(this.getCompressedFile(folder));
+	}
+
+	/**
+	 * Opens a reader for the contents of this log file.
+	 * <p>
+	 * If both a compressed and an uncompressed file exist, e.g. because the log file is currently
+	 * being compressed, this reads the compressed file. If the uncompressed file is concurrently
+	 * removed, this falls back to the compressed file.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @return the reader
+	 * @throws IOException
+	 *             if the file does not exist or cannot be opened
+	 */
+	BufferedReader newReader(Path folder) throws IOException {
+		Path compressedFile = this.getCompressedFile(folder);
+		if (!Files.exists(compressedFile)) {
+			try {
+				InputStream input = Files.newInputStream(this.getCsvFile(folder));
+				return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+			} catch (NoSuchFileException e) {
+				// The file might have been compressed in the meantime.
+			}
+		}
+
+		InputStream input = Files.newInputStream(compressedFile);
+		try {
+			return new BufferedReader(new InputStreamReader(
+					new GZIPInputStream(input),
+					StandardCharsets.UTF_8
+			));
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public int compareTo(CsvLogFile other) {
+		int result = date.compareTo(other.date);
+		if (result != 0) return result;
+		return Integer.compare(part, other.part);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(date, part);
+	}
+
+	@Override
+	public boolean equals(@Nullable Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof CsvLogFile)) return false;
+		CsvLogFile other = (CsvLogFile) obj;
+		return part == other.part && date.equals(other.date);
+	}
+
+	@Override
+	public String toString() {
+		return baseName;
+	}
+}
@@ -0,0 +1,196 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.BloomFilter;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+
+/**
+ * The index of a closed {@link CsvLogFile}.
+ * <p>
+ * The index is stored in a small sidecar file next to the log file. It contains the number of
+ * records, the timestamps of the oldest and newest records, and a {@link BloomFilter} of the
+ * involved player, shop, and shop owner UUIDs. This allows trading history queries to skip log
+ * files without reading them.
+ * <p>
+ * Since closed log files are not modified anymore, the index also caches the number of records
+ * that matched previous queries.
+ */
+final class CsvLogFileIndex {
+
+	private static final int FORMAT_VERSION = 1;
+	private static final double FALSE_POSITIVE_PROBABILITY = 0.01D;
+	private static final int MAX_CACHED_COUNTS = 16;
+
+	/**
+	 * Builds the index of the given log file by reading all of its records.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @param logFile
+	 *            the log file
+	 * @param zone
+	 *            the time zone of the logged times
+	 * @return the index
+	 * @throws IOException
+	 *             if the log file cannot be read
+	 */
+	static CsvLogFileIndex build(Path folder, CsvLogFile logFile, ZoneId zone)
+			throws IOException {
+		int recordCount = 0;
+		Instant minTimestamp = Instant.MAX;
+		Instant maxTimestamp = Instant.MIN;
+		Set<UUID> uuids = new HashSet<>();
+		try (CsvLogFileReader reader = new CsvLogFileReader(folder, logFile, zone)) {
+			CsvLogFileReader.CsvRecord record;
+			while ((record = reader.nextRecord()) != null) {
+				recordCount++;
+				Instant timestamp = record.getTimestamp();
+				if (timestamp.isBefore(minTimestamp)) {
+					minTimestamp = timestamp;
+				}
+				if (timestamp.isAfter(maxTimestamp)) {
+					maxTimestamp = timestamp;
+				}
+				addUUID(uuids, record.getUUID(CsvTradeLogger.COLUMN_PLAYER_UUID));
+				addUUID(uuids, record.getUUID(CsvTradeLogger.COLUMN_SHOP_UUID));
+				addUUID(uuids, record.getUUID(CsvTradeLogger.COLUMN_SHOP_OWNER_UUID));
+			}
+		}
+
+		if (recordCount == 0) {
+			minTimestamp = Instant.EPOCH;
+			maxTimestamp = Instant.EPOCH;
+		}
+
+		BloomFilter uuidFilter = BloomFilter.create(uuids.size(), FALSE_POSITIVE_PROBABILITY);
+		uuids.forEach(uuidFilter::add);
+		return new CsvLogFileIndex(recordCount, minTimestamp, maxTimestamp, uuidFilter);
+	}
+
+	private static void addUUID(Set<UUID> uuids, @Nullable UUID uuid) {
+		if (uuid != null) {
+			uuids.add(uuid);
+		}
+	}
+
+	/**
+	 * Loads the index from the given index file.
+	 * 
+	 * @param indexFile
+	 *            the index file
+	 * @return the index
+	 * @throws IOException
+	 *             if the file cannot be read or contains invalid data
+	 */
+	static CsvLogFileIndex load(Path indexFile) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(indexFile))) {
+			DataInputStream dataInput = new DataInputStream(input);
+			int formatVersion = dataInput.readInt();
+			if (formatVersion != FORMAT_VERSION) {
+				throw new IOException("Unsupported trade log index format: " + formatVersion);
+			}
+			int recordCount = dataInput.readInt();
+			Instant minTimestamp = Instant.ofEpochSecond(dataInput.readLong());
+			Instant maxTimestamp = Instant.ofEpochSecond(dataInput.readLong());
+			BloomFilter uuidFilter = BloomFilter.read(dataInput);
+			return new CsvLogFileIndex(recordCount, minTimestamp, maxTimestamp, uuidFilter);
+		}
+	}
+
+	private final int recordCount;
+	private final Instant minTimestamp;
+	private final Instant maxTimestamp;
+	private final BloomFilter uuidFilter;
+	// Query key -> matching records count:
+	private final Map<String, Integer> cachedCounts = new LRUCache<>(MAX_CACHED_COUNTS);
+
+	private CsvLogFileIndex(
+			int recordCount,
+			Instant minTimestamp,
+			Instant maxTimestamp,
+			BloomFilter uuidFilter
+	) {
+		this.recordCount = recordCount;
+		this.minTimestamp = minTimestamp;
+		this.maxTimestamp = maxTimestamp;
+		this.uuidFilter = uuidFilter;
+	}
+
+	/**
+	 * Writes this index to the given output.
+	 * 
+	 * @param output
+	 *            the output
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	void write(OutputStream output) throws IOException {
+		DataOutputStream dataOutput = new DataOutputStream(new BufferedOutputStream(output));
+		dataOutput.writeInt(FORMAT_VERSION);
+		dataOutput.writeInt(recordCount);
+		// The logged times have a precision of seconds:
+		dataOutput.writeLong(minTimestamp.getEpochSecond());
+		dataOutput.writeLong(maxTimestamp.getEpochSecond());
+		uuidFilter.write(dataOutput);
+		dataOutput.flush();
+	}
+
+	int getRecordCount() {
+		return recordCount;
+	}
+
+	Instant getMinTimestamp() {
+		return minTimestamp;
+	}
+
+	Instant getMaxTimestamp() {
+		return maxTimestamp;
+	}
+
+	/**
+	 * Checks if the log file might contain records that involve the given UUID.
+	 * 
+	 * @param uuid
+	 *            the player, shop, or shop owner UUID
+	 * @return <code>false</code> if the log file definitely contains no such records
+	 */
+	boolean mightContain(UUID uuid) {
+		return uuidFilter.mightContain(uuid);
+	}
+
+	/**
+	 * Gets the cached number of records that matched the given query.
+	 * 
+	 * @param queryKey
+	 *            the query key
+	 * @return the cached count, or <code>null</code> if not cached
+	 */
+	@Nullable Integer getCachedCount(String queryKey) {
+		synchronized (cachedCounts) {
+			return cachedCounts.get(queryKey);
+		}
+	}
+
+	void setCachedCount(String queryKey, int count) {
+		synchronized (cachedCounts) {
+			cachedCounts.put(queryKey, count);
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.csv.CsvParser;
+
+/**
+ * Reads the records of a {@link CsvLogFile} one by one.
+ * <p>
+ * The columns are looked up by the names in the header of the file. A last line that is not yet
+ * terminated by a newline, e.g. because it is concurrently being written, is ignored.
+ */
+final class CsvLogFileReader implements Closeable {
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+	private static final int BUFFER_SIZE = 1024;
+
+	private final CsvLogFile logFile;
+	private final ZoneId zone;
+	private final BufferedReader reader;
+	private final CsvParser parser = new CsvParser();
+	private final Map<String, Integer> columns = new HashMap<>();
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int bufferPosition = 0;
+	private int bufferLimit = 0;
+	private final StringBuilder line = new StringBuilder();
+
+	private int recordIndex = -1;
+
+	/**
+	 * Opens the given log file and reads its header.
+	 * 
+	 * @param folder
+	 *            the trade logs folder
+	 * @param logFile
+	 *            the log file
+	 * @param zone
+	 *            the time zone of the logged times
+	 * @throws IOException
+	 *             if the file cannot be opened or read
+	 */
+	CsvLogFileReader(Path folder, CsvLogFile logFile, ZoneId zone) throws IOException {
+		this.logFile = logFile;
+		this.zone = zone;
+		this.reader = logFile.newReader(folder);
+		try {
+			String header = this.readLine();
+			if (header != null) {
+				List<String> columnNames = parser.parseRecord(header);
+				for (int i = 0; i < columnNames.size(); i++) {
+					columns.put(columnNames.get(i), i);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			reader.close();
+			throw e;
+		}
+	}
+
+	// Returns null if there is no further complete line.
+	private @Nullable String readLine() throws IOException {
+		line.setLength(0);
+		while (true) {
+			if (bufferPosition >= bufferLimit) {
+				bufferLimit = reader.read(buffer);
+				bufferPosition = 0;
+				if (bufferLimit <= 0) {
+					bufferLimit = 0;
+					return null; // Any incomplete line is ignored
+				}
+			}
+
+			for (int i = bufferPosition; i < bufferLimit; i++) {
+				if (buffer[i] == '\n') {
+					line.append(buffer, bufferPosition, i - bufferPosition);
+					bufferPosition = i + 1;
+					int length = line.length();
+					if (length > 0 && line.charAt(length - 1) == '\r') {
+						line.setLength(length - 1);
+					}
+					return line.toString();
+				}
+			}
+			line.append(buffer, bufferPosition, bufferLimit - bufferPosition);
+			bufferPosition = bufferLimit;
+		}
+	}
+
+	/**
+	 * A record of the log file.
+	 */
+	static final class CsvRecord {
+
+		private final Map<String, Integer> columns;
+		private final List<String> fields;
+		private final int recordIndex;
+		private final Instant timestamp;
+
+		private CsvRecord(
+				Map<String, Integer> columns,
+				List<String> fields,
+				int recordIndex,
+				Instant timestamp
+		) {
+			this.columns = columns;
+			this.fields = fields;
+			this.recordIndex = recordIndex;
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * Gets the index of this record within its file, starting at <code>0</code> for the first
+		 * record after the header.
+		 * 
+		 * @return the record index
+		 */
+		int getRecordIndex() {
+			return recordIndex;
+		}
+
+		/**
+		 * Gets the timestamp of this record.
+		 * <p>
+		 * The records only store the time of day: The date is derived from the log file.
+		 * 
+		 * @return the timestamp
+		 */
+		Instant getTimestamp() {
+			return timestamp;
+		}
+
+		/**
+		 * Gets the value of the given column.
+		 * 
+		 * @param column
+		 *            the column name
+		 * @return the value, or an empty String if the column is missing
+		 */
+		String get(String column) {
+			Integer columnIndex = columns.get(column);
+			if (columnIndex == null || columnIndex >= fields.size()) return "";
+			return fields.get(columnIndex);
+		}
+
+		/**
+		 * Gets the value of the given column as {@link UUID}.
+		 * 
+		 * @param column
+		 *            the column name
+		 * @return the UUID, or <code>null</code> if the value is empty or not a valid UUID
+		 */
+		@Nullable UUID getUUID(String column) {
+			String value = this.get(column);
+			if (value.isEmpty()) return null;
+			try {
+				return UUID.fromString(value);
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next record.
+	 * 
+	 * @return the record, or <code>null</code> if there are no further records
+	 * @throws IOException
+	 *             if the file cannot be read or contains a malformed record
+	 */
+	@Nullable CsvRecord nextRecord() throws IOException {
+		String nextLine = this.readLine();
+		if (nextLine == null) return null;
+
+		List<String> fields;
+		try {
+			fields = parser.parseRecord(nextLine);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Malformed record in trade log file " + logFile + ": "
+					+ e.getMessage(), e);
+		}
+		recordIndex++;
+
+		Integer timeColumnIndex = columns.get(CsvTradeLogger.COLUMN_TIME);
+		String time = (timeColumnIndex != null && timeColumnIndex < fields.size())
+				? fields.get(timeColumnIndex) : "";
+		LocalTime localTime;
+		try {
+			localTime = LocalTime.parse(time, TIME_FORMAT);
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid time in trade log file " + logFile + ": " + time, e);
+		}
+		Instant timestamp = logFile.getDate().atTime(localTime).atZone(zone).toInstant();
+		return new CsvRecord(columns, fields, recordIndex, timestamp);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -1,6 +1,8 @@
 package com.nisovin.shopkeepers.tradelog.csv;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -8,21 +10,33 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import org.bukkit.plugin.Plugin;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.config.Settings;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.tradelog.base.AbstractFileTradeLogger;
 import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
 import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryProvider;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryRequest;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryResult;
 import com.nisovin.shopkeepers.util.csv.CsvFormatter;
 import com.nisovin.shopkeepers.util.java.FileUtils;
 import com.nisovin.shopkeepers.util.java.StringUtils;
@@ -30,40 +44,68 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
  * Logs trades to CSV files.
+ * <p>
+ * Trades are logged to daily log files, which are split into several parts if they exceed the
+ * configured maximum size. Once trades are no longer logged to a log file, it is closed: An
+ * {@link CsvLogFileIndex index} is written for it and, if enabled, the log file is compressed.
+ * <p>
+ * This also provides the trading history by reading the logged trades from the log files.
  */
-public class CsvTradeLogger extends AbstractFileTradeLogger {
+public class CsvTradeLogger extends AbstractFileTradeLogger implements TradingHistoryProvider {
+
+	static final String COLUMN_TIME = "time";
+	static final String COLUMN_PLAYER_UUID = "player_uuid";
+	static final String COLUMN_PLAYER_NAME = "player_name";
+	static final String COLUMN_SHOP_UUID = "shop_uuid";
+	static final String COLUMN_SHOP_TYPE = "shop_type";
+	static final String COLUMN_SHOP_WORLD = "shop_world";
+	static final String COLUMN_SHOP_X = "shop_x";
+	static final String COLUMN_SHOP_Y = "shop_y";
+	static final String COLUMN_SHOP_Z = "shop_z";
+	static final String COLUMN_SHOP_OWNER_UUID = "shop_owner_uuid";
+	static final String COLUMN_SHOP_OWNER_NAME = "shop_owner_name";
+	static final String COLUMN_ITEM_1_TYPE = "item1_type";
+	static final String COLUMN_ITEM_1_AMOUNT = "item1_amount";
+	static final String COLUMN_ITEM_1_METADATA = "item1_metadata";
+	static final String COLUMN_ITEM_2_TYPE = "item2_type";
+	static final String COLUMN_ITEM_2_AMOUNT = "item2_amount";
+	static final String COLUMN_ITEM_2_METADATA = "item2_metadata";
+	static final String COLUMN_RESULT_ITEM_TYPE = "result_item_type";
+	static final String COLUMN_RESULT_ITEM_AMOUNT = "result_item_amount";
+	static final String COLUMN_RESULT_ITEM_METADATA = "result_item_metadata";
+	static final String COLUMN_TRADE_COUNT = "trade_count";
 
-	private static final String FILE_NAME_PREFIX = "trades-";
 	private static final List<? extends String> CSV_HEADER = Collections.unmodifiableList(Arrays.asList(
-			"time",
-			"player_uuid",
-			"player_name",
-			"shop_uuid",
-			"shop_type",
-			"shop_world",
-			"shop_x",
-			"shop_y",
-			"shop_z",
-			"shop_owner_uuid",
-			"shop_owner_name",
-			"item1_type",
-			"item1_amount",
-			"item1_metadata",
-			"item2_type",
-			"item2_amount",
-			"item2_metadata",
-			"result_item_type",
-			"result_item_amount",
-			"result_item_metadata",
-			"trade_count"
+			COLUMN_TIME,
+			COLUMN_PLAYER_UUID,
+			COLUMN_PLAYER_NAME,
+			COLUMN_SHOP_UUID,
+			COLUMN_SHOP_TYPE,
+			COLUMN_SHOP_WORLD,
+			COLUMN_SHOP_X,
+			COLUMN_SHOP_Y,
+			COLUMN_SHOP_Z,
+			COLUMN_SHOP_OWNER_UUID,
+			COLUMN_SHOP_OWNER_NAME,
+			COLUMN_ITEM_1_TYPE,
+			COLUMN_ITEM_1_AMOUNT,
+			COLUMN_ITEM_1_METADATA,
+			COLUMN_ITEM_2_TYPE,
+			COLUMN_ITEM_2_AMOUNT,
+			COLUMN_ITEM_2_METADATA,
+			COLUMN_RESULT_ITEM_TYPE,
+			COLUMN_RESULT_ITEM_AMOUNT,
+			COLUMN_RESULT_ITEM_METADATA,
+			COLUMN_TRADE_COUNT
 	));
 
 	// TODO This uses the system locale and timezone currently. Config option(s) to change the
 	// locale and timezone? Or always store in UTC?
-	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd")
-			.withZone(Unsafe.assertNonNull(ZoneId.systemDefault()));
+	private static final ZoneId ZONE = Unsafe.assertNonNull(ZoneId.systemDefault());
 	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss")
-			.withZone(Unsafe.assertNonNull(ZoneId.systemDefault()));
+			.withZone(ZONE);
+	private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+	private static final int COPY_BUFFER_SIZE = 8192;
 
 	// Note: Even though the CSV format allows quoted fields to span across multiple lines, we want
 	// each CSV record to only span a single line. However, even though we do not want fields to
@@ -75,14 +117,162 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			.escapeNewlines(false)
 			.warnOnNewlines();
 
+	// 0 if there is no size limit:
+	private final long maxFileSize;
+	private final boolean compressClosedFiles;
+	private final CsvTradingHistoryProvider tradingHistoryProvider;
+
+	// Only accessed by the writer thread, or during the setup:
+	private @Nullable CsvLogFile currentLogFile = null;
+	// Closed log files whose index has not yet been written, or that have not yet been compressed:
+	private final Set<CsvLogFile> unfinishedLogFiles = new LinkedHashSet<>();
+
 	public CsvTradeLogger(Plugin plugin) {
 		super(plugin, TradeLogStorageType.CSV);
+
+		this.maxFileSize = Settings.tradeLogCsvMaxFileSizeMegabytes * BYTES_PER_MEGABYTE;
+		this.compressClosedFiles = Settings.tradeLogCsvCompressClosedFiles;
+		this.tradingHistoryProvider = new CsvTradingHistoryProvider(
+				tradeLogsFolder,
+				ZONE,
+				((SKShopkeepersPlugin) plugin).getAsyncExecutor()
+		);
+	}
+
+	@Override
+	protected void asyncSetup() {
+		super.asyncSetup();
+
+		// Finish any log files that have been closed, but not yet indexed or compressed, e.g.
+		// because the server stopped before the next trade was logged, or because the setting to
+		// compress closed log files has been enabled. Only the newest log file of today might
+		// still receive further trades.
+		try {
+			LocalDate today = LocalDate.now(ZONE);
+			List<CsvLogFile> logFiles = CsvLogFile.list(tradeLogsFolder);
+			for (int i = 0; i < logFiles.size(); i++) {
+				CsvLogFile logFile = logFiles.get(i);
+				boolean isNewest = (i == logFiles.size() - 1);
+				if (isNewest && !logFile.getDate().isBefore(today)) continue;
+				if (this.isFinished(logFile)) continue;
+
+				unfinishedLogFiles.add(logFile);
+			}
+		} catch (IOException e) {
+			Log.warning(logPrefix + "Failed to list the trade log files!", e);
+		}
+		this.finishClosedLogFiles();
+	}
+
+	@Override
+	public CompletableFuture<TradingHistoryResult> getTradingHistory(TradingHistoryRequest request) {
+		return tradingHistoryProvider.getTradingHistory(request);
 	}
 
-	private Path getLogFile(Instant timestamp) {
+	private CsvLogFile getLogFile(Instant timestamp) throws IOException {
 		assert timestamp != null;
-		String fileName = FILE_NAME_PREFIX + DATE_FORMAT.format(timestamp) + ".csv";
-		return tradeLogsFolder.resolve(fileName);
+		LocalDate date = LocalDate.ofInstant(timestamp, ZONE);
+		CsvLogFile logFile = currentLogFile;
+		if (logFile == null || !logFile.getDate().equals(date)) {
+			// Continue with the newest existing log file of that date:
+			logFile = CsvLogFile.getLatest(tradeLogsFolder, date);
+			if (logFile == null) {
+				logFile = new CsvLogFile(date, 0);
+			} else if (unfinishedLogFiles.contains(logFile) || logFile.isClosed(tradeLogsFolder)) {
+				// The log file has already been closed, e.g. because the system time has been
+				// changed:
+				logFile = logFile.getNextPart();
+			}
+		}
+
+		// Roll over to the next part of the log file if it exceeds the maximum size:
+		while (maxFileSize > 0L) {
+			Path csvFile = logFile.getCsvFile(tradeLogsFolder);
+			if (!Files.exists(csvFile) || Files.size(csvFile) < maxFileSize) break;
+			logFile = logFile.getNextPart();
+		}
+
+		CsvLogFile previousLogFile = currentLogFile;
+		if (!logFile.equals(previousLogFile)) {
+			if (previousLogFile != null) {
+				unfinishedLogFiles.add(previousLogFile);
+			}
+			currentLogFile = logFile;
+		}
+		return logFile;
+	}
+
+	private boolean isFinished(CsvLogFile logFile) {
+		if (!Files.exists(logFile.getIndexFile(tradeLogsFolder))) return false;
+		return !compressClosedFiles || !Files.exists(logFile.getCsvFile(tradeLogsFolder));
+	}
+
+	// Writes the index of closed log files and compresses them. Failures are logged, and retried
+	// the next time trades are written.
+	private void finishClosedLogFiles() {
+		Iterator<CsvLogFile> iterator = unfinishedLogFiles.iterator();
+		while (iterator.hasNext()) {
+			CsvLogFile logFile = iterator.next();
+			try {
+				this.finishClosedLogFile(logFile);
+				iterator.remove();
+			} catch (IOException e) {
+				Log.warning(logPrefix + "Failed to index or compress the closed trade log file "
+						+ logFile + "!", e);
+			}
+		}
+	}
+
+	private void finishClosedLogFile(CsvLogFile logFile) throws IOException {
+		Path csvFile = logFile.getCsvFile(tradeLogsFolder);
+		Path indexFile = logFile.getIndexFile(tradeLogsFolder);
+		if (!Files.exists(indexFile)) {
+			Path compressedFile = logFile.getCompressedFile(tradeLogsFolder);
+			if (!Files.exists(csvFile) && !Files.exists(compressedFile)) {
+				return; // The log file has been removed
+			}
+
+			CsvLogFileIndex index = CsvLogFileIndex.build(tradeLogsFolder, logFile, ZONE);
+			this.writeFileSafely(indexFile, index::write);
+		}
+
+		if (compressClosedFiles && Files.exists(csvFile)) {
+			Path compressedFile = logFile.getCompressedFile(tradeLogsFolder);
+			this.writeFileSafely(compressedFile, output -> {
+				try (InputStream input = Files.newInputStream(csvFile)) {
+					// Note: This also closes the underlying output, which is fine.
+					try (var gzipOutput = new GZIPOutputStream(output, COPY_BUFFER_SIZE)) {
+						input.transferTo(gzipOutput);
+					}
+				}
+			});
+			// Concurrent readers fall back to the compressed file:
+			FileUtils.delete(csvFile);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ContentWriter {
+
+		void write(OutputStream output) throws IOException;
+	}
+
+	// Writes to a temporary file first and then moves it to the target path, so that readers
+	// never observe a partially written file.
+	private void writeFileSafely(Path file, ContentWriter contentWriter) throws IOException {
+		Path tempFile = FileUtils.getTempSibling(file);
+		// Any remaining temporary file is incomplete:
+		FileUtils.deleteIfExists(tempFile);
+		try (OutputStream output = Files.newOutputStream(
+				tempFile,
+				StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE
+		)) {
+			contentWriter.write(output);
+		}
+		FileUtils.fsync(tempFile);
+		FileUtils.moveFile(tempFile, file, Log.getLogger());
+		FileUtils.fsyncParentDirectory(file);
 	}
 
 	private String toCSVRecord(TradeRecord trade) {
@@ -179,7 +369,8 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 		TradeRecord trade = saveContext.getNextUnsavedTrade();
 		if (trade == null) return; // There are no unsaved trades
 
-		Path logFile = this.getLogFile(trade.getTimestamp());
+		CsvLogFile currentLogFile = this.getLogFile(trade.getTimestamp());
+		Path logFile = currentLogFile.getCsvFile(tradeLogsFolder);
 
 		// Create the parent directories if they are missing:
 		FileUtils.createParentDirectories(logFile);
@@ -194,7 +385,8 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 		boolean isNew = !Files.exists(logFile);
 		// Check if the file is empty: This may for example occur if we were able to create the file
 		// during a previous log attempt, but then failed to write to it.
-		boolean isEmpty = (isNew || Files.size(logFile) == 0L);
+		long fileSize = isNew ? 0L : Files.size(logFile);
+		boolean isEmpty = (fileSize == 0L);
 
 		// Check the write permission for the log file, if it already exists:
 		if (!isNew) {
@@ -246,16 +438,21 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 			if (isEmpty) {
 				// Note: A BOM should not be required for UTF-8, and it is actually recommended
 				// omitting it.
-				writer.write(csv.formatRecord(CSV_HEADER));
+				String header = csv.formatRecord(CSV_HEADER);
+				writer.write(header);
 				writer.flush();
+				fileSize += header.length();
 			}
 
 			// Instead of closing and reopening the log file for each trade, we log all consecutive
 			// trades that need to be logged to the same log file before we close it again:
 			do {
 				// Write the new trade record:
-				writer.write(this.toCSVRecord(trade));
+				String record = this.toCSVRecord(trade);
+				writer.write(record);
 				writer.flush();
+				// Approximation: Most characters are encoded as a single byte.
+				fileSize += record.length();
 
 				// If we did not throw an IOException up until this point, we assume that the trade
 				// has been successfully written to the trade log.
@@ -265,10 +462,14 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 				trade = saveContext.getNextUnsavedTrade();
 				if (trade == null) break; // There are no more trades to save
 
-				Path nextLogFile = this.getLogFile(trade.getTimestamp());
-				if (!logFile.equals(nextLogFile)) {
-					break;
-				} // Else: Continue.
+				LocalDate nextDate = LocalDate.ofInstant(trade.getTimestamp(), ZONE);
+				if (!nextDate.equals(currentLogFile.getDate())) {
+					break; // The trade is logged to another log file
+				}
+				if (maxFileSize > 0L && fileSize >= maxFileSize) {
+					break; // Continue with the next part of the log file
+				}
+				// Else: Continue.
 			} while (true);
 
 			// We are about to close the log file:
@@ -288,6 +489,10 @@ public class CsvTradeLogger extends AbstractFileTradeLogger {
 		// Recursively log the remaining trades to their target log files:
 		if (saveContext.hasUnsavedTrades()) {
 			this.writeTrades(saveContext);
+			return;
 		}
+
+		// The previous log files might have been closed:
+		this.finishClosedLogFiles();
 	}
 }
@@ -0,0 +1,541 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.tradelog.TradeLogUtils;
+import com.nisovin.shopkeepers.tradelog.csv.CsvLogFileReader.CsvRecord;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.history.PlayerSelector;
+import com.nisovin.shopkeepers.tradelog.history.ShopSelector;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryCursor;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryProvider;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryRequest;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryResult;
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.java.MathUtils;
+import com.nisovin.shopkeepers.util.java.Range;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * A {@link TradingHistoryProvider} that reads the trades from the CSV trade log files.
+ * <p>
+ * The log files are streamed from the newest to the oldest, and only the trades of the requested
+ * range are kept in memory. The {@link CsvLogFileIndex indices} of closed log files are used to
+ * skip files that contain no matching trades, and to reuse the number of matching trades of
+ * previous queries.
+ * <p>
+ * The {@link TradingHistoryCursor#getId() id} of the returned cursors combines the part number of
+ * the log file and the index of the trade within that file.
+ */
+final class CsvTradingHistoryProvider implements TradingHistoryProvider {
+
+	private static final int MAX_CACHED_INDICES = 256;
+
+	private static final class CachedIndex {
+
+		private final FileTime lastModified;
+		private final CsvLogFileIndex index;
+
+		private CachedIndex(FileTime lastModified, CsvLogFileIndex index) {
+			this.lastModified = lastModified;
+			this.index = index;
+		}
+	}
+
+	/**
+	 * The trades selected by a request.
+	 */
+	private static final class TradeFilter {
+
+		static TradeFilter of(PlayerSelector playerSelector, ShopSelector shopSelector) {
+			@Nullable UUID playerUUID = null;
+			@Nullable UUID shopUUID = null;
+			@Nullable UUID ownerUUID = null;
+			boolean adminShops = false;
+			boolean playerShops = false;
+
+			if (playerSelector == PlayerSelector.ALL) {
+				// No filter.
+			} else if (playerSelector instanceof PlayerSelector.ByUUID playerByUUIDSelector) {
+				playerUUID = playerByUUIDSelector.getPlayerUUID();
+			} else {
+				throw Validate.State.error("Unexpected player selector: "
+						+ playerSelector.getClass().getName());
+			}
+
+			if (shopSelector == ShopSelector.ALL) {
+				// No filter.
+			} else if (shopSelector == ShopSelector.ADMIN_SHOPS) {
+				adminShops = true;
+			} else if (shopSelector == ShopSelector.PLAYER_SHOPS) {
+				playerShops = true;
+			} else if (shopSelector instanceof ShopSelector.ByOwnerUUID byOwnerUUIDSelector) {
+				ownerUUID = byOwnerUUIDSelector.getOwnerUUID();
+			} else if (shopSelector instanceof ShopSelector.ByShopUUID byShopUUIDSelector) {
+				shopUUID = byShopUUIDSelector.getShopUUID();
+				ownerUUID = byShopUUIDSelector.getOwnerUUID();
+			} else {
+				throw Validate.State.error("Unexpected shop selector: "
+						+ shopSelector.getClass().getName());
+			}
+			return new TradeFilter(playerUUID, shopUUID, ownerUUID, adminShops, playerShops);
+		}
+
+		private final @Nullable UUID playerUUID;
+		private final @Nullable UUID shopUUID;
+		private final @Nullable UUID ownerUUID;
+		// The logged UUIDs are compared as Strings:
+		private final String playerUUIDString;
+		private final String shopUUIDString;
+		private final String ownerUUIDString;
+		// Assumption: All player shops always have an owner and all admin shops always have no
+		// owner.
+		private final boolean adminShops;
+		private final boolean playerShops;
+		private final String key;
+
+		private TradeFilter(
+				@Nullable UUID playerUUID,
+				@Nullable UUID shopUUID,
+				@Nullable UUID ownerUUID,
+				boolean adminShops,
+				boolean playerShops
+		) {
+			this.playerUUID = playerUUID;
+			this.shopUUID = shopUUID;
+			this.ownerUUID = ownerUUID;
+			this.playerUUIDString = (playerUUID != null) ? playerUUID.toString() : "";
+			this.shopUUIDString = (shopUUID != null) ? shopUUID.toString() : "";
+			this.ownerUUIDString = (ownerUUID != null) ? ownerUUID.toString() : "";
+			this.adminShops = adminShops;
+			this.playerShops = playerShops;
+			this.key = playerUUIDString + "|" + shopUUIDString + "|" + ownerUUIDString
+					+ "|" + adminShops + "|" + playerShops;
+		}
+
+		boolean isUnfiltered() {
+			return playerUUID == null && shopUUID == null && ownerUUID == null
+					&& !adminShops && !playerShops;
+		}
+
+		// Returns false if the log file definitely contains no matching trades.
+		boolean mightMatch(CsvLogFileIndex index) {
+			if (playerUUID != null && !index.mightContain(playerUUID)) return false;
+			if (shopUUID != null && !index.mightContain(shopUUID)) return false;
+			if (ownerUUID != null && !index.mightContain(ownerUUID)) return false;
+			return true;
+		}
+
+		boolean matches(CsvRecord record) {
+			if (playerUUID != null
+					&& !playerUUIDString.equals(record.get(CsvTradeLogger.COLUMN_PLAYER_UUID))) {
+				return false;
+			}
+			if (shopUUID != null
+					&& !shopUUIDString.equals(record.get(CsvTradeLogger.COLUMN_SHOP_UUID))) {
+				return false;
+			}
+			String owner = record.get(CsvTradeLogger.COLUMN_SHOP_OWNER_UUID);
+			if (ownerUUID != null && !ownerUUIDString.equals(owner)) return false;
+			if (adminShops && !owner.isEmpty()) return false;
+			if (playerShops && owner.isEmpty()) return false;
+			return true;
+		}
+
+		String getKey() {
+			return key;
+		}
+	}
+
+	/**
+	 * The state of a log file during a request.
+	 */
+	private static final class LogFileState {
+
+		private final CsvLogFile logFile;
+		private final @Nullable CsvLogFileIndex index;
+		private int matchingCount = 0;
+		// Newly logged trades are ignored during the request:
+		private int recordCount = 0;
+
+		private LogFileState(CsvLogFile logFile, @Nullable CsvLogFileIndex index) {
+			this.logFile = logFile;
+			this.index = index;
+		}
+	}
+
+	private final Path tradeLogsFolder;
+	private final ZoneId zone;
+	private final Executor executor;
+	// Log file base name -> index:
+	private final Map<String, CachedIndex> indices = new LRUCache<>(MAX_CACHED_INDICES);
+
+	CsvTradingHistoryProvider(Path tradeLogsFolder, ZoneId zone, Executor executor) {
+		Validate.notNull(tradeLogsFolder, "tradeLogsFolder is null");
+		Validate.notNull(zone, "zone is null");
+		Validate.notNull(executor, "executor is null");
+		this.tradeLogsFolder = tradeLogsFolder;
+		this.zone = zone;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<TradingHistoryResult> getTradingHistory(TradingHistoryRequest request) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.readTradingHistory(request);
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to fetch trading history: " + request.toString(), e);
+			}
+		}, executor);
+	}
+
+	// Returns null if the log file has no index yet or the index cannot be loaded.
+	private @Nullable CsvLogFileIndex getIndex(CsvLogFile logFile) {
+		Path indexFile = logFile.getIndexFile(tradeLogsFolder);
+		String key = logFile.getBaseName();
+		FileTime lastModified;
+		try {
+			lastModified = Files.getLastModifiedTime(indexFile);
+		} catch (IOException e) {
+			// The index file does not exist (yet):
+			synchronized (indices) {
+				indices.remove(key);
+			}
+			return null;
+		}
+
+		synchronized (indices) {
+			CachedIndex cachedIndex = indices.get(key);
+			if (cachedIndex != null && cachedIndex.lastModified.equals(lastModified)) {
+				return cachedIndex.index;
+			}
+		}
+
+		CsvLogFileIndex index;
+		try {
+			index = CsvLogFileIndex.load(indexFile);
+		} catch (IOException e) {
+			Log.debug(() -> "Failed to load trade log index " + indexFile + ": " + e.getMessage());
+			return null;
+		}
+
+		synchronized (indices) {
+			indices.put(key, new CachedIndex(lastModified, index));
+		}
+		return index;
+	}
+
+	private TradingHistoryResult readTradingHistory(TradingHistoryRequest request)
+			throws IOException {
+		TradeFilter filter = TradeFilter.of(request.playerSelector, request.shopSelector);
+
+		// Newest log files first:
+		List<CsvLogFile> logFiles = CsvLogFile.list(tradeLogsFolder);
+		Collections.reverse(logFiles);
+
+		List<LogFileState> logFileStates = new ArrayList<>(logFiles.size());
+		long totalCount = 0;
+		for (CsvLogFile logFile : logFiles) {
+			LogFileState state = new LogFileState(logFile, this.getIndex(logFile));
+			this.countMatchingTrades(state, filter);
+			logFileStates.add(state);
+			totalCount += state.matchingCount;
+		}
+
+		int totalTradesCount = (int) Math.min(totalCount, Integer.MAX_VALUE);
+		List<TradeRecord> trades = new ArrayList<>();
+		if (totalTradesCount == 0) {
+			return new TradingHistoryResult(trades, totalTradesCount);
+		}
+
+		Range range = request.range;
+		int startIndex = range.getStartIndex(totalTradesCount);
+		int endIndex = range.getEndIndex(totalTradesCount);
+		int limit = (endIndex - startIndex);
+
+		List<CsvRecord> records = new ArrayList<>(limit);
+		List<CsvLogFile> recordLogFiles = new ArrayList<>(limit);
+		@Nullable TradingHistoryCursor cursor = request.cursor;
+		if (cursor != null) {
+			this.collectTradesAfterCursor(logFileStates, filter, cursor, limit, records,
+					recordLogFiles);
+		} else {
+			this.collectTradesInRange(logFileStates, filter, startIndex, endIndex, records,
+					recordLogFiles);
+		}
+
+		@Nullable TradingHistoryCursor nextCursor = null;
+		for (int i = 0; i < records.size(); i++) {
+			CsvRecord record = records.get(i);
+			CsvLogFile logFile = recordLogFiles.get(i);
+			trades.add(this.toTradeRecord(record));
+			nextCursor = new TradingHistoryCursor(
+					record.getTimestamp(),
+					((long) logFile.getPart() << 32) | record.getRecordIndex()
+			);
+		}
+		return new TradingHistoryResult(trades, totalTradesCount, nextCursor);
+	}
+
+	private void countMatchingTrades(LogFileState state, TradeFilter filter) throws IOException {
+		CsvLogFileIndex index = state.index;
+		if (index != null) {
+			state.recordCount = index.getRecordCount();
+			if (filter.isUnfiltered()) {
+				state.matchingCount = index.getRecordCount();
+				return;
+			}
+			if (!filter.mightMatch(index)) {
+				state.matchingCount = 0;
+				return;
+			}
+			Integer cachedCount = index.getCachedCount(filter.getKey());
+			if (cachedCount != null) {
+				state.matchingCount = cachedCount;
+				return;
+			}
+		}
+
+		int recordCount = 0;
+		int matchingCount = 0;
+		try (CsvLogFileReader reader = new CsvLogFileReader(tradeLogsFolder, state.logFile, zone)) {
+			CsvRecord record;
+			while ((record = reader.nextRecord()) != null) {
+				recordCount++;
+				if (filter.matches(record)) {
+					matchingCount++;
+				}
+			}
+		}
+
+		state.matchingCount = matchingCount;
+		if (index != null) {
+			index.setCachedCount(filter.getKey(), matchingCount);
+		} else {
+			state.recordCount = recordCount;
+		}
+	}
+
+	// The trades are ordered from newest to oldest. The log files contain the trades from oldest to
+	// newest.
+	private void collectTradesInRange(
+			List<LogFileState> logFileStates,
+			TradeFilter filter,
+			int startIndex,
+			int endIndex,
+			List<CsvRecord> records,
+			List<CsvLogFile> recordLogFiles
+	) throws IOException {
+		int newerCount = 0; // The number of matching trades in newer log files
+		for (LogFileState state : logFileStates) {
+			if (newerCount >= endIndex) break;
+
+			int count = state.matchingCount;
+			if (count > 0 && newerCount + count > startIndex) {
+				// The range of matching trades within this log file, in file order:
+				int fileStartIndex = Math.max(0, newerCount + count - endIndex);
+				int fileEndIndex = Math.min(count, newerCount + count - startIndex);
+				this.collectTrades(
+						state,
+						filter,
+						state.recordCount,
+						fileEndIndex,
+						fileEndIndex - fileStartIndex,
+						records,
+						recordLogFiles
+				);
+			}
+			newerCount += count;
+		}
+	}
+
+	private void collectTradesAfterCursor(
+			List<LogFileState> logFileStates,
+			TradeFilter filter,
+			TradingHistoryCursor cursor,
+			int limit,
+			List<CsvRecord> records,
+			List<CsvLogFile> recordLogFiles
+	) throws IOException {
+		Instant cursorTimestamp = cursor.getTimestamp();
+		LocalDate cursorDate = LocalDate.ofInstant(cursorTimestamp, zone);
+		int cursorPart = (int) (cursor.getId() >>> 32);
+		int cursorRecordIndex = (int) cursor.getId();
+		if (cursorPart < 0 || cursorRecordIndex < 0) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+		CsvLogFile cursorLogFile = new CsvLogFile(cursorDate, cursorPart);
+
+		for (LogFileState state : logFileStates) {
+			int remaining = limit - records.size();
+			if (remaining <= 0) break;
+			if (state.matchingCount == 0) continue;
+
+			CsvLogFileIndex index = state.index;
+			if (index != null && index.getMinTimestamp().isAfter(cursorTimestamp)) {
+				// All trades of this log file are newer than the cursor:
+				continue;
+			}
+
+			int comparison = state.logFile.compareTo(cursorLogFile);
+			if (comparison > 0) continue; // Newer than the cursor
+
+			if (comparison < 0
+					|| (index != null && index.getMaxTimestamp().isBefore(cursorTimestamp))) {
+				// All trades of this log file are older than the cursor:
+				int count = state.matchingCount;
+				this.collectTrades(
+						state,
+						filter,
+						state.recordCount,
+						count,
+						Math.min(count, remaining),
+						records,
+						recordLogFiles
+				);
+			} else {
+				// Only the trades before the cursor:
+				this.collectTrades(
+						state,
+						filter,
+						Math.min(cursorRecordIndex, state.recordCount),
+						Integer.MAX_VALUE,
+						remaining,
+						records,
+						recordLogFiles
+				);
+			}
+		}
+	}
+
+	// Considers the matching trades among the first recordLimit records, up to the given number of
+	// matching trades, and adds the last maxCount of them in reverse order, i.e. newest first.
+	private void collectTrades(
+			LogFileState state,
+			TradeFilter filter,
+			int recordLimit,
+			int matchLimit,
+			int maxCount,
+			List<CsvRecord> records,
+			List<CsvLogFile> recordLogFiles
+	) throws IOException {
+		if (maxCount <= 0) return;
+
+		ArrayDeque<CsvRecord> collected = new ArrayDeque<>(MathUtils.clamp(maxCount, 1, 1024));
+		int matchCount = 0;
+		try (CsvLogFileReader reader = new CsvLogFileReader(tradeLogsFolder, state.logFile, zone)) {
+			CsvRecord record;
+			while (matchCount < matchLimit && (record = reader.nextRecord()) != null) {
+				if (record.getRecordIndex() >= recordLimit) break;
+				if (!filter.matches(record)) continue;
+
+				matchCount++;
+				if (collected.size() == maxCount) {
+					collected.removeFirst();
+				}
+				collected.addLast(record);
+			}
+		}
+
+		while (!collected.isEmpty()) {
+			records.add(collected.removeLast());
+			recordLogFiles.add(state.logFile);
+		}
+	}
+
+	private TradeRecord toTradeRecord(CsvRecord record) {
+		Instant timestamp = record.getTimestamp();
+
+		UUID playerUniqueId = Validate.notNull(record.getUUID(CsvTradeLogger.COLUMN_PLAYER_UUID),
+				"Invalid player uuid");
+		String playerName = record.get(CsvTradeLogger.COLUMN_PLAYER_NAME);
+		PlayerRecord player = PlayerRecord.of(playerUniqueId, playerName);
+
+		UUID shopUniqueId = Validate.notNull(record.getUUID(CsvTradeLogger.COLUMN_SHOP_UUID),
+				"Invalid shop uuid");
+		String shopType = record.get(CsvTradeLogger.COLUMN_SHOP_TYPE);
+		@Nullable PlayerRecord owner = null;
+		UUID ownerUniqueId = record.getUUID(CsvTradeLogger.COLUMN_SHOP_OWNER_UUID);
+		if (ownerUniqueId != null) {
+			String ownerName = record.get(CsvTradeLogger.COLUMN_SHOP_OWNER_NAME);
+			owner = PlayerRecord.of(ownerUniqueId, ownerName);
+		}
+		String shopName = ""; // Not stored
+		String worldName = record.get(CsvTradeLogger.COLUMN_SHOP_WORLD);
+		ShopRecord shop = new ShopRecord(
+				shopUniqueId,
+				shopType,
+				owner,
+				shopName,
+				worldName.isEmpty() ? null : worldName,
+				parseInt(record.get(CsvTradeLogger.COLUMN_SHOP_X)),
+				parseInt(record.get(CsvTradeLogger.COLUMN_SHOP_Y)),
+				parseInt(record.get(CsvTradeLogger.COLUMN_SHOP_Z))
+		);
+
+		var item1 = TradeLogUtils.loadItemStackOrNull(
+				record.get(CsvTradeLogger.COLUMN_ITEM_1_TYPE),
+				parseInt(record.get(CsvTradeLogger.COLUMN_ITEM_1_AMOUNT)),
+				record.get(CsvTradeLogger.COLUMN_ITEM_1_METADATA)
+		);
+		if (item1 == null) {
+			throw new RuntimeException("item1 is empty!");
+		}
+
+		var item2 = TradeLogUtils.loadItemStackOrNull(
+				record.get(CsvTradeLogger.COLUMN_ITEM_2_TYPE),
+				parseInt(record.get(CsvTradeLogger.COLUMN_ITEM_2_AMOUNT)),
+				record.get(CsvTradeLogger.COLUMN_ITEM_2_METADATA)
+		);
+
+		var resultItem = TradeLogUtils.loadItemStackOrNull(
+				record.get(CsvTradeLogger.COLUMN_RESULT_ITEM_TYPE),
+				parseInt(record.get(CsvTradeLogger.COLUMN_RESULT_ITEM_AMOUNT)),
+				record.get(CsvTradeLogger.COLUMN_RESULT_ITEM_METADATA)
+		);
+		if (resultItem == null) {
+			throw new RuntimeException("resultItem is empty!");
+		}
+
+		int tradeCount = parseInt(record.get(CsvTradeLogger.COLUMN_TRADE_COUNT));
+		return new TradeRecord(
+				timestamp,
+				player,
+				shop,
+				resultItem,
+				item1,
+				item2,
+				tradeCount
+		);
+	}
+
+	// Returns 0 if the value is empty or invalid.
+	private static int parseInt(String value) {
+		if (value.isEmpty()) return 0;
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
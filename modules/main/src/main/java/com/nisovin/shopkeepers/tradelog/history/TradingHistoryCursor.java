@@ -0,0 +1,77 @@
+package com.nisovin.shopkeepers.tradelog.history;
+
+import java.time.Instant;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The position of a logged trade within the trading history, which is ordered from newest to
+ * oldest.
+ * <p>
+ * Trades are ordered by their timestamp and then by their storage specific id. A cursor can be used
+ * to continue the retrieval of the trading history after a previously retrieved trade without
+ * having to skip all the preceding trades again (keyset pagination).
+ */
+public final class TradingHistoryCursor {
+
+	private final Instant timestamp;
+	private final long id;
+
+	/**
+	 * Creates a new {@link TradingHistoryCursor}.
+	 * 
+	 * @param timestamp
+	 *            the timestamp of the trade, not <code>null</code>
+	 * @param id
+	 *            the storage specific id of the trade
+	 */
+	public TradingHistoryCursor(Instant timestamp, long id) {
+		Validate.notNull(timestamp, "timestamp is null");
+		this.timestamp = timestamp;
+		this.id = id;
+	}
+
+	/**
+	 * @return the timestamp of the trade
+	 */
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the storage specific id of the trade
+	 */
+	public long getId() {
+		return id;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + timestamp.hashCode();
+		result = prime * result + Long.hashCode(id);
+		return result;
+	}
+
+	@Override
+	public boolean equals(@Nullable Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof TradingHistoryCursor)) return false;
+		TradingHistoryCursor other = (TradingHistoryCursor) obj;
+		return id == other.id && timestamp.equals(other.timestamp);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("TradingHistoryCursor [timestamp=");
+		builder.append(timestamp);
+		builder.append(", id=");
+		builder.append(id);
+		builder.append("]");
+		return builder.toString();
+	}
+}
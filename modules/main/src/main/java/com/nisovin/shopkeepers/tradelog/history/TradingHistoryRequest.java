@@ -1,5 +1,7 @@
 package com.nisovin.shopkeepers.tradelog.history;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import com.nisovin.shopkeepers.util.java.Range;
 import com.nisovin.shopkeepers.util.java.Validate;
 
@@ -8,6 +10,8 @@ public class TradingHistoryRequest {
 	public final PlayerSelector playerSelector; // Not null
 	public final ShopSelector shopSelector; // Not null
 	public final Range range; // Not null
+	// The position of the trade that immediately precedes the range, if known:
+	public final @Nullable TradingHistoryCursor cursor;
 
 	/**
 	 * Creates a {@link TradingHistoryRequest} for logged trades in the specified range matching the
@@ -21,12 +25,42 @@ public class TradingHistoryRequest {
 	 *            the range of records to retrieve, not <code>null</code>
 	 */
 	public TradingHistoryRequest(PlayerSelector playerSelector, ShopSelector shopSelector, Range range) {
+		this(playerSelector, shopSelector, range, null);
+	}
+
+	/**
+	 * Creates a {@link TradingHistoryRequest} for logged trades in the specified range matching the
+	 * given criteria.
+	 * <p>
+	 * The optional cursor specifies the position of the trade that immediately precedes the start
+	 * of the range, e.g. the {@link TradingHistoryResult#getNextCursor() next cursor} of the
+	 * previous page. Providers can use it to continue the retrieval after this trade, instead of
+	 * skipping all the preceding trades again. If new trades have been logged in the meantime, this
+	 * continues with the trades that directly followed the previously retrieved trades, even though
+	 * their index in the history has shifted. Providers may also ignore the cursor.
+	 * 
+	 * @param playerSelector
+	 *            specifies the involved trading player(s), not <code>null</code>
+	 * @param shopSelector
+	 *            specifies the involved shop(s), not <code>null</code>
+	 * @param range
+	 *            the range of records to retrieve, not <code>null</code>
+	 * @param cursor
+	 *            the position of the trade preceding the range, or <code>null</code>
+	 */
+	public TradingHistoryRequest(
+			PlayerSelector playerSelector,
+			ShopSelector shopSelector,
+			Range range,
+			@Nullable TradingHistoryCursor cursor
+	) {
 		Validate.notNull(playerSelector, "playerSelector is null");
 		Validate.notNull(shopSelector, "shopSelector is null");
 		Validate.notNull(range, "range is null");
 		this.playerSelector = playerSelector;
 		this.shopSelector = shopSelector;
 		this.range = range;
+		this.cursor = cursor;
 	}
 
 	@Override
@@ -38,6 +72,8 @@ public class TradingHistoryRequest {
 		builder.append(shopSelector);
 		builder.append(", range=");
 		builder.append(range);
+		builder.append(", cursor=");
+		builder.append(cursor);
 		builder.append("]");
 		return builder.toString();
 	}
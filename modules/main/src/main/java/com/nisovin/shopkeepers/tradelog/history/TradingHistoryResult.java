@@ -2,6 +2,8 @@ package com.nisovin.shopkeepers.tradelog.history;
 
 import java.util.List;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
 import com.nisovin.shopkeepers.util.java.Validate;
 
@@ -9,16 +11,26 @@ public class TradingHistoryResult {
 
 	private final List<TradeRecord> trades;
 	private final int totalTradesCount;
+	private final @Nullable TradingHistoryCursor nextCursor;
 
 	public TradingHistoryResult(
 			List<TradeRecord> trades,
 			int totalTradesCount
+	) {
+		this(trades, totalTradesCount, null);
+	}
+
+	public TradingHistoryResult(
+			List<TradeRecord> trades,
+			int totalTradesCount,
+			@Nullable TradingHistoryCursor nextCursor
 	) {
 		Validate.notNull(trades, "trades is null!");
 		Validate.noNullElements(trades, "trades cannot contain null!");
 		Validate.isTrue(totalTradesCount >= 0, "Total trades count cannot be negative!");
 		this.trades = trades;
 		this.totalTradesCount = totalTradesCount;
+		this.nextCursor = nextCursor;
 	}
 
 	/**
@@ -34,4 +46,17 @@ public class TradingHistoryResult {
 	public int getTotalTradesCount() {
 		return totalTradesCount;
 	}
+
+	/**
+	 * Gets the position of the last returned trade.
+	 * <p>
+	 * This can be used to request the subsequent trades via
+	 * {@link TradingHistoryRequest#cursor}.
+	 * 
+	 * @return the position of the last returned trade, or <code>null</code> if there are no
+	 *         returned trades or if the provider does not support cursors
+	 */
+	public @Nullable TradingHistoryCursor getNextCursor() {
+		return nextCursor;
+	}
 }
@@ -0,0 +1,324 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.logging.Log;
+
+/**
+ * Manages long-lived connections to an SQLite database.
+ * <p>
+ * There is a single connection for writes, and a small pool of connections for concurrent reads.
+ * The database uses write-ahead logging (WAL), so that reads do not block the writer and vice
+ * versa. Prepared statements are cached per connection.
+ * <p>
+ * If a connection fails, it is closed and a new connection is opened the next time it is needed.
+ * The same applies if the database file no longer exists, e.g. because it has been deleted while
+ * the server is running. Newly opened connections run the setup callback first, which can be used
+ * to (re-)create the database schema.
+ */
+public final class SQLiteConnectionManager {
+
+	// The maximum number of idle read connections that are kept open:
+	private static final int MAX_IDLE_READ_CONNECTIONS = 2;
+	private static final int BUSY_TIMEOUT_MILLIS = 5000;
+	// Negative values are in KiB:
+	private static final int CACHE_SIZE_KIB = 8192;
+
+	/**
+	 * Sets up the database, e.g. by creating any missing tables.
+	 * <p>
+	 * This is invoked for every newly opened connection and is therefore expected to be idempotent.
+	 */
+	@FunctionalInterface
+	public interface SetupCallback {
+
+		public void setup(Connection connection) throws Exception;
+	}
+
+	/**
+	 * Runs some logic with a {@link SQLiteConnection}.
+	 * 
+	 * @param <T>
+	 *            the return type
+	 */
+	@FunctionalInterface
+	public interface ConnectionTask<T> {
+
+		public T execute(SQLiteConnection connection) throws Exception;
+	}
+
+	/**
+	 * An open connection with a cache of prepared statements.
+	 */
+	public static final class SQLiteConnection {
+
+		private final Connection connection;
+		private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+		private SQLiteConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		/**
+		 * Gets the underlying JDBC {@link Connection}.
+		 * <p>
+		 * Do not close the connection.
+		 * 
+		 * @return the connection
+		 */
+		public Connection getConnection() {
+			return connection;
+		}
+
+		/**
+		 * Gets a cached {@link PreparedStatement} for the given SQL, or prepares a new one.
+		 * <p>
+		 * Do not close the returned statement. Its parameters might still be set from a previous
+		 * use.
+		 * 
+		 * @param sql
+		 *            the SQL
+		 * @return the prepared statement
+		 * @throws SQLException
+		 *             if the statement cannot be prepared
+		 */
+		public PreparedStatement prepareStatement(String sql) throws SQLException {
+			PreparedStatement statement = statements.get(sql);
+			if (statement == null) {
+				statement = connection.prepareStatement(sql);
+				statements.put(sql, statement);
+			}
+			return statement;
+		}
+
+		private void close() {
+			try {
+				// Closing the connection also closes its statements:
+				connection.close();
+			} catch (SQLException e) {
+				Log.severe("Failed to close the database connection!", e);
+			}
+			statements.clear();
+		}
+	}
+
+	private final Path databaseFile;
+	private final String connectionURL;
+	private final SetupCallback setupCallback;
+
+	private final Object writeLock = new Object();
+	// Guarded by the write lock:
+	private @Nullable SQLiteConnection writeConnection = null;
+
+	private final ConcurrentLinkedDeque<SQLiteConnection> idleReadConnections
+			= new ConcurrentLinkedDeque<>();
+	private final AtomicInteger idleReadConnectionsCount = new AtomicInteger();
+
+	// If closed, connections are closed after every use.
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a new {@link SQLiteConnectionManager}.
+	 * 
+	 * @param databaseFile
+	 *            the database file, not <code>null</code>
+	 * @param setupCallback
+	 *            the setup callback, not <code>null</code>
+	 */
+	public SQLiteConnectionManager(Path databaseFile, SetupCallback setupCallback) {
+		Validate.notNull(databaseFile, "databaseFile is null");
+		Validate.notNull(setupCallback, "setupCallback is null");
+		this.databaseFile = databaseFile;
+		this.connectionURL = "jdbc:sqlite:" + databaseFile;
+		this.setupCallback = setupCallback;
+	}
+
+	private SQLiteConnection openConnection(boolean readOnly) throws Exception {
+		Path parent = databaseFile.getParent();
+		if (parent != null) {
+			FileUtils.createDirectories(parent);
+		}
+
+		Connection connection = DriverManager.getConnection(connectionURL);
+		try {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS + ";");
+				// WAL is persisted in the database file. Reads and writes no longer block each
+				// other.
+				statement.execute("PRAGMA journal_mode = WAL;");
+				// In WAL mode, NORMAL is still safe from corruption. Only the most recent
+				// transactions might be rolled back after a power loss.
+				statement.execute("PRAGMA synchronous = NORMAL;");
+				statement.execute("PRAGMA cache_size = -" + CACHE_SIZE_KIB + ";");
+			}
+
+			setupCallback.setup(connection);
+
+			if (readOnly) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("PRAGMA query_only = ON;");
+				}
+			}
+		} catch (Exception e) {
+			try {
+				connection.close();
+			} catch (SQLException e2) {
+				e.addSuppressed(e2);
+			}
+			throw e;
+		}
+		return new SQLiteConnection(connection);
+	}
+
+	private boolean isDatabaseFileMissing() {
+		return !Files.exists(databaseFile);
+	}
+
+	/**
+	 * Runs the given task with the write connection.
+	 * <p>
+	 * Write tasks are run one after the other. If the task fails, the write connection is closed
+	 * and a new connection is opened for the next write task.
+	 * 
+	 * @param <T>
+	 *            the return type
+	 * @param task
+	 *            the task
+	 * @return the result of the task
+	 * @throws Exception
+	 *             if the task or opening the connection fails
+	 */
+	public <T> T write(ConnectionTask<T> task) throws Exception {
+		synchronized (writeLock) {
+			SQLiteConnection connection = writeConnection;
+			if (connection != null && this.isDatabaseFileMissing()) {
+				// Reopen the connection to recreate the database file:
+				connection.close();
+				connection = null;
+			}
+			if (connection == null) {
+				connection = this.openConnection(false);
+				writeConnection = connection;
+			}
+
+			try {
+				return task.execute(connection);
+			} catch (Exception e) {
+				this.closeWriteConnection();
+				throw e;
+			} finally {
+				if (closed) {
+					this.closeWriteConnection();
+				}
+			}
+		}
+	}
+
+	private void closeWriteConnection() {
+		assert Thread.holdsLock(writeLock);
+		SQLiteConnection connection = writeConnection;
+		if (connection == null) return;
+
+		writeConnection = null;
+		connection.close();
+	}
+
+	/**
+	 * Runs the given read task with one of the read connections.
+	 * <p>
+	 * Read tasks can run concurrently to each other and to write tasks. Read connections do not
+	 * allow any modifications of the database. If the task fails, the used read connection is
+	 * closed.
+	 * 
+	 * @param <T>
+	 *            the return type
+	 * @param task
+	 *            the task
+	 * @return the result of the task
+	 * @throws Exception
+	 *             if the task or opening the connection fails
+	 */
+	public <T> T read(ConnectionTask<T> task) throws Exception {
+		if (this.isDatabaseFileMissing()) {
+			// Any open connections refer to the deleted database file:
+			this.closeIdleReadConnections();
+		}
+
+		SQLiteConnection connection = idleReadConnections.pollFirst();
+		if (connection != null) {
+			idleReadConnectionsCount.decrementAndGet();
+		} else {
+			connection = this.openConnection(true);
+		}
+
+		boolean success = false;
+		try {
+			T result = task.execute(connection);
+			success = true;
+			return result;
+		} finally {
+			if (!success || closed) {
+				connection.close();
+			} else if (idleReadConnectionsCount.incrementAndGet() > MAX_IDLE_READ_CONNECTIONS) {
+				idleReadConnectionsCount.decrementAndGet();
+				connection.close();
+			} else {
+				idleReadConnections.offerFirst(connection);
+				if (closed) {
+					// Closed concurrently:
+					this.closeIdleReadConnections();
+				}
+			}
+		}
+	}
+
+	private void closeIdleReadConnections() {
+		SQLiteConnection connection;
+		while ((connection = idleReadConnections.pollFirst()) != null) {
+			idleReadConnectionsCount.decrementAndGet();
+			connection.close();
+		}
+	}
+
+	/**
+	 * Closes all open connections.
+	 * <p>
+	 * Subsequent read and write tasks are still run, but the connections are closed again after
+	 * every task.
+	 */
+	public void close() {
+		closed = true;
+		synchronized (writeLock) {
+			this.closeWriteConnection();
+		}
+		this.closeIdleReadConnections();
+	}
+
+	/**
+	 * Gets the database file.
+	 * 
+	 * @return the database file
+	 */
+	public Path getDatabaseFile() {
+		return databaseFile;
+	}
+
+	@Override
+	public String toString() {
+		return "SQLiteConnectionManager [databaseFile=" + databaseFile + "]";
+	}
+}
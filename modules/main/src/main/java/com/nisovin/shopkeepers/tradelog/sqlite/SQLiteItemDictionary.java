@@ -0,0 +1,198 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.util.java.LRUCache;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Maps the logged items to the ids of their entries in the item table of the SQLite trade log.
+ * <p>
+ * Each distinct combination of item type and item metadata is only stored once. Items are looked
+ * up by a content hash of their type and metadata. The ids of recently used items are cached in
+ * memory.
+ * <p>
+ * This is not thread-safe: Each writer is expected to use its own instance. Items that are newly
+ * inserted during a transaction are only cached once the transaction has been
+ * {@link #onCommit() committed}.
+ */
+final class SQLiteItemDictionary {
+
+	static final String TABLE_ITEM = "item";
+	static final String COLUMN_ID = "id";
+	static final String COLUMN_HASH = "hash";
+	static final String COLUMN_TYPE = "type";
+	static final String COLUMN_METADATA = "metadata";
+
+	static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS " + TABLE_ITEM + " ("
+			+ COLUMN_ID + " INTEGER PRIMARY KEY, "
+			// Hex encoded SHA-256 hash of the item type and metadata:
+			+ COLUMN_HASH + " CHARACTER(64) NOT NULL UNIQUE, "
+			+ COLUMN_TYPE + " VARCHAR(64) NOT NULL, "
+			+ COLUMN_METADATA + " TEXT NOT NULL" // Empty if the item has no metadata
+			+ ");";
+	// Schema version 3: Used to look up the items of an item type for the trade statistics.
+	static final String CREATE_TYPE_INDEX_SQL = "CREATE INDEX IF NOT EXISTS idx_item_type ON "
+			+ TABLE_ITEM + "(" + COLUMN_TYPE + ");";
+	private static final String SELECT_ITEM_ID_SQL = "SELECT " + COLUMN_ID + " FROM " + TABLE_ITEM
+			+ " WHERE " + COLUMN_HASH + "=?;";
+	private static final String INSERT_ITEM_SQL = "INSERT INTO " + TABLE_ITEM
+			+ "(" + COLUMN_HASH + ", " + COLUMN_TYPE + ", " + COLUMN_METADATA + ") "
+			+ "VALUES(?, ?, ?);";
+	private static final String SELECT_INSERTED_ITEM_ID_SQL = "SELECT last_insert_rowid();";
+
+	private final MessageDigest messageDigest;
+	// Item hash -> item id:
+	private final Map<String, Long> itemIds;
+	private final Map<String, Long> uncommittedItemIds = new HashMap<>();
+
+	// The connection the cached item ids and the prepared statements belong to:
+	private @Nullable Connection connection = null;
+	private @Nullable PreparedStatement selectItemIdStatement = null;
+	private @Nullable PreparedStatement insertItemStatement = null;
+	private @Nullable PreparedStatement selectInsertedItemIdStatement = null;
+
+	SQLiteItemDictionary(int cacheSize) {
+		Validate.isTrue(cacheSize > 0, "cacheSize must be positive");
+		this.itemIds = new LRUCache<>(cacheSize);
+		try {
+			this.messageDigest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException("SHA-256 is not supported!", e);
+		}
+	}
+
+	/**
+	 * Gets the content hash of the given item.
+	 * 
+	 * @param itemType
+	 *            the item type
+	 * @param itemMetadata
+	 *            the item metadata, or an empty string
+	 * @return the item hash
+	 */
+	String getItemHash(String itemType, String itemMetadata) {
+		messageDigest.reset();
+		messageDigest.update(itemType.getBytes(StandardCharsets.UTF_8));
+		messageDigest.update((byte) 0); // Separator
+		messageDigest.update(itemMetadata.getBytes(StandardCharsets.UTF_8));
+		return HexFormat.of().formatHex(messageDigest.digest());
+	}
+
+	/**
+	 * Gets the id of the given item, and inserts the item into the item table if it is not yet
+	 * stored.
+	 * <p>
+	 * This is expected to be called during a transaction.
+	 * 
+	 * @param connection
+	 *            the connection
+	 * @param itemType
+	 *            the item type
+	 * @param itemMetadata
+	 *            the item metadata, or an empty string
+	 * @return the item id
+	 * @throws SQLException
+	 *             if the item cannot be looked up or inserted
+	 */
+	long getItemId(Connection connection, String itemType, String itemMetadata)
+			throws SQLException {
+		if (connection != this.connection) {
+			// The cached item ids might no longer be valid, e.g. if the database file has been
+			// deleted:
+			this.reset();
+			this.connection = connection;
+		}
+
+		String itemHash = this.getItemHash(itemType, itemMetadata);
+		Long itemId = itemIds.get(itemHash);
+		if (itemId == null) {
+			itemId = uncommittedItemIds.get(itemHash);
+		}
+		if (itemId != null) return itemId;
+
+		long newItemId = this.lookupOrInsertItem(connection, itemHash, itemType, itemMetadata);
+		uncommittedItemIds.put(itemHash, newItemId);
+		return newItemId;
+	}
+
+	private long lookupOrInsertItem(
+			Connection connection,
+			String itemHash,
+			String itemType,
+			String itemMetadata
+	) throws SQLException {
+		PreparedStatement selectItemIdStatement = this.selectItemIdStatement;
+		if (selectItemIdStatement == null) {
+			selectItemIdStatement = connection.prepareStatement(SELECT_ITEM_ID_SQL);
+			this.selectItemIdStatement = selectItemIdStatement;
+		}
+		selectItemIdStatement.setString(1, itemHash);
+		try (ResultSet resultSet = selectItemIdStatement.executeQuery()) {
+			if (resultSet.next()) {
+				return resultSet.getLong(1);
+			}
+		}
+
+		PreparedStatement insertItemStatement = this.insertItemStatement;
+		if (insertItemStatement == null) {
+			insertItemStatement = connection.prepareStatement(INSERT_ITEM_SQL);
+			this.insertItemStatement = insertItemStatement;
+		}
+		insertItemStatement.setString(1, itemHash);
+		insertItemStatement.setString(2, itemType);
+		insertItemStatement.setString(3, itemMetadata);
+		insertItemStatement.executeUpdate();
+
+		PreparedStatement selectInsertedItemIdStatement = this.selectInsertedItemIdStatement;
+		if (selectInsertedItemIdStatement == null) {
+			selectInsertedItemIdStatement = connection.prepareStatement(
+					SELECT_INSERTED_ITEM_ID_SQL
+			);
+			this.selectInsertedItemIdStatement = selectInsertedItemIdStatement;
+		}
+		try (ResultSet resultSet = selectInsertedItemIdStatement.executeQuery()) {
+			if (!resultSet.next()) {
+				throw new SQLException("Missing the id of the inserted item!");
+			}
+			return resultSet.getLong(1);
+		}
+	}
+
+	/**
+	 * Caches the ids of the items that were inserted during the committed transaction.
+	 */
+	void onCommit() {
+		itemIds.putAll(uncommittedItemIds);
+		uncommittedItemIds.clear();
+	}
+
+	/**
+	 * Discards the ids of the items that were inserted during the rolled back transaction.
+	 */
+	void onRollback() {
+		uncommittedItemIds.clear();
+	}
+
+	private void reset() {
+		itemIds.clear();
+		uncommittedItemIds.clear();
+		// The statements are closed together with their connection:
+		connection = null;
+		selectItemIdStatement = null;
+		insertItemStatement = null;
+		selectInsertedItemIdStatement = null;
+	}
+}
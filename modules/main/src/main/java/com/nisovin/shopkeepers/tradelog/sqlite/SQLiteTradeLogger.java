@@ -1,8 +1,6 @@
 package com.nisovin.shopkeepers.tradelog.sqlite;
 
-import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -10,15 +8,16 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
-import org.bukkit.inventory.ItemStack;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.SKShopkeepersPlugin;
-import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
 import com.nisovin.shopkeepers.tradelog.TradeLogStorageType;
 import com.nisovin.shopkeepers.tradelog.TradeLogUtils;
@@ -28,12 +27,18 @@ import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
 import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
 import com.nisovin.shopkeepers.tradelog.history.PlayerSelector;
 import com.nisovin.shopkeepers.tradelog.history.ShopSelector;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryCursor;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryProvider;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryRequest;
 import com.nisovin.shopkeepers.tradelog.history.TradingHistoryResult;
-import com.nisovin.shopkeepers.util.inventory.ItemUtils;
-import com.nisovin.shopkeepers.util.java.FileUtils;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteConnectionManager.SQLiteConnection;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsGranularity;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsProvider;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsRequest;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsScope;
 import com.nisovin.shopkeepers.util.java.JdbcUtils;
+import com.nisovin.shopkeepers.util.java.LRUCache;
 import com.nisovin.shopkeepers.util.java.Range;
 import com.nisovin.shopkeepers.util.java.Retry;
 import com.nisovin.shopkeepers.util.java.StringUtils;
@@ -42,14 +47,32 @@ import com.nisovin.shopkeepers.util.logging.Log;
 
 /**
  * Logs trades to an SQLite database.
+ * <p>
+ * The database also stores pre-aggregated {@link SQLiteTradeStatistics trade statistics}, which
+ * are updated together with the logged trades.
  */
-public class SQLiteTradeLogger extends AbstractFileTradeLogger implements TradingHistoryProvider {
+public class SQLiteTradeLogger extends AbstractFileTradeLogger
+		implements TradingHistoryProvider, TradeStatisticsProvider {
 
 	private static final int TRANSACTION_RETRY_MAX_ATTEMPTS = 20;
 	private static final long TRANSACTION_RETRY_DELAY_MILLIS = 50L;
 
 	private static final String FILE_NAME = "trades.db";
+	// The current version of the database schema, stored as the database's user_version:
+	private static final int SCHEMA_VERSION = 3;
+	// The number of cached trade counts:
+	private static final int TRADES_COUNT_CACHE_SIZE = 64;
+	// The number of cached item ids:
+	private static final int ITEM_ID_CACHE_SIZE = 1024;
+	// The number of trades that are migrated per transaction:
+	private static final int MIGRATION_BATCH_SIZE = 10000;
+
 	private static final String TABLE_TRADE = "trade";
+	// Temporary table during the migration to schema version 2:
+	private static final String TABLE_TRADE_MIGRATION = "trade_migration";
+	private static final String COLUMN_ROWID = "rowid";
+	// Qualified, since the item table also has a rowid:
+	private static final String TRADE_ROWID = TABLE_TRADE + "." + COLUMN_ROWID;
 	private static final String COLUMN_TIMESTAMP = "timestamp";
 	private static final String COLUMN_PLAYER_UUID = "player_uuid";
 	private static final String COLUMN_PLAYER_NAME = "player_name";
@@ -71,10 +94,15 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 	private static final String COLUMN_RESULT_ITEM_AMOUNT = "result_item_amount";
 	private static final String COLUMN_RESULT_ITEM_METADATA = "result_item_metadata";
 	private static final String COLUMN_TRADE_COUNT = "trade_count";
+	// Schema version 2: References to the item table.
+	private static final String COLUMN_ITEM_1_ID = "item_1_id";
+	private static final String COLUMN_ITEM_2_ID = "item_2_id";
+	private static final String COLUMN_RESULT_ITEM_ID = "result_item_id";
 
 	// Note: SQLite does not have rigid data types, but storage classes and type affinity. The data
 	// types specified here are not enforced by SQLite or us, but only used to document the expected
 	// structure of the data.
+	// The initial table, i.e. schema version 0. The current schema is reached via migrations.
 	private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS " + TABLE_TRADE + " ("
 	// ISO 8601 UTC date time with fractional seconds:
 			+ COLUMN_TIMESTAMP + " VARCHAR(30) NOT NULL, "
@@ -99,41 +127,167 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 			+ COLUMN_RESULT_ITEM_METADATA + " TEXT NOT NULL, "
 			+ COLUMN_TRADE_COUNT + " SMALLINT UNSIGNED NOT NULL"
 			+ ");";
-	private static final String INSERT_TRADE_SQL = "INSERT INTO " + TABLE_TRADE
-			+ "(" + String.join(", ",
-					COLUMN_TIMESTAMP,
-					COLUMN_PLAYER_UUID,
-					COLUMN_PLAYER_NAME,
-					COLUMN_SHOP_UUID,
-					COLUMN_SHOP_TYPE,
-					COLUMN_SHOP_WORLD,
-					COLUMN_SHOP_X,
-					COLUMN_SHOP_Y,
-					COLUMN_SHOP_Z,
-					COLUMN_SHOP_OWNER_UUID,
-					COLUMN_SHOP_OWNER_NAME,
-					COLUMN_ITEM_1_TYPE,
-					COLUMN_ITEM_1_AMOUNT,
-					COLUMN_ITEM_1_METADATA,
-					COLUMN_ITEM_2_TYPE,
-					COLUMN_ITEM_2_AMOUNT,
-					COLUMN_ITEM_2_METADATA,
-					COLUMN_RESULT_ITEM_TYPE,
-					COLUMN_RESULT_ITEM_AMOUNT,
-					COLUMN_RESULT_ITEM_METADATA,
-					COLUMN_TRADE_COUNT)
-			+ ") "
-			+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-	private static String getSelectTradesSql(
+
+	// Schema version 2: The items are stored in a separate item table.
+	private static final List<? extends String> TRADE_COLUMNS = List.of(
+			COLUMN_TIMESTAMP,
+			COLUMN_PLAYER_UUID,
+			COLUMN_PLAYER_NAME,
+			COLUMN_SHOP_UUID,
+			COLUMN_SHOP_TYPE,
+			COLUMN_SHOP_WORLD,
+			COLUMN_SHOP_X,
+			COLUMN_SHOP_Y,
+			COLUMN_SHOP_Z,
+			COLUMN_SHOP_OWNER_UUID,
+			COLUMN_SHOP_OWNER_NAME,
+			COLUMN_ITEM_1_ID,
+			COLUMN_ITEM_1_AMOUNT,
+			COLUMN_ITEM_2_ID,
+			COLUMN_ITEM_2_AMOUNT,
+			COLUMN_RESULT_ITEM_ID,
+			COLUMN_RESULT_ITEM_AMOUNT,
+			COLUMN_TRADE_COUNT
+	);
+	private static final String CREATE_MIGRATION_TABLE_SQL = "CREATE TABLE IF NOT EXISTS "
+			+ TABLE_TRADE_MIGRATION + " ("
+			+ COLUMN_TIMESTAMP + " VARCHAR(30) NOT NULL, "
+			+ COLUMN_PLAYER_UUID + " CHARACTER(36) NOT NULL, "
+			+ COLUMN_PLAYER_NAME + " VARCHAR(16) NOT NULL, "
+			+ COLUMN_SHOP_UUID + " CHARACTER(36) NOT NULL, "
+			+ COLUMN_SHOP_TYPE + " VARCHAR(32) NOT NULL, "
+			+ COLUMN_SHOP_WORLD + " VARCHAR(32), "
+			+ COLUMN_SHOP_X + " INTEGER NOT NULL, "
+			+ COLUMN_SHOP_Y + " INTEGER NOT NULL, "
+			+ COLUMN_SHOP_Z + " INTEGER NOT NULL, "
+			+ COLUMN_SHOP_OWNER_UUID + " CHARACTER(36), "
+			+ COLUMN_SHOP_OWNER_NAME + " VARCHAR(16), "
+			+ COLUMN_ITEM_1_ID + " INTEGER NOT NULL, "
+			+ COLUMN_ITEM_1_AMOUNT + " TINYINT UNSIGNED NOT NULL, "
+			+ COLUMN_ITEM_2_ID + " INTEGER, " // Null if there is no second item
+			+ COLUMN_ITEM_2_AMOUNT + " TINYINT UNSIGNED, "
+			+ COLUMN_RESULT_ITEM_ID + " INTEGER NOT NULL, "
+			+ COLUMN_RESULT_ITEM_AMOUNT + " TINYINT UNSIGNED NOT NULL, "
+			+ COLUMN_TRADE_COUNT + " SMALLINT UNSIGNED NOT NULL"
+			+ ");";
+	private static final String INSERT_TRADE_SQL = getInsertTradeSql(TABLE_TRADE, false);
+	// Preserves the rowids, so that the trades keep their order and their cursors remain valid:
+	private static final String INSERT_MIGRATED_TRADE_SQL = getInsertTradeSql(
+			TABLE_TRADE_MIGRATION,
+			true
+	);
+
+	private static String getInsertTradeSql(String tableName, boolean withRowid) {
+		var columns = new ArrayList<String>();
+		if (withRowid) {
+			columns.add(COLUMN_ROWID);
+		}
+		columns.addAll(TRADE_COLUMNS);
+		return "INSERT INTO " + tableName + "(" + String.join(", ", columns) + ") "
+				+ "VALUES(" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ");";
+	}
+
+	private static final String SELECT_UNMIGRATED_TRADES_SQL = "SELECT " + COLUMN_ROWID + ", * "
+			+ "FROM " + TABLE_TRADE + " WHERE " + COLUMN_ROWID + " > ? "
+			+ "ORDER BY " + COLUMN_ROWID + " LIMIT " + MIGRATION_BATCH_SIZE + ";";
+
+	// Schema version 1: Indices for the trading history queries. The rowid is implicitly part of
+	// every index, so that these indices also provide the order by (timestamp, rowid).
+	private static final List<? extends String> CREATE_INDICES_SQL = List.of(
+			createIndexSql("idx_trade_timestamp", COLUMN_TIMESTAMP),
+			createIndexSql("idx_trade_player", COLUMN_PLAYER_UUID, COLUMN_TIMESTAMP),
+			createIndexSql("idx_trade_shop", COLUMN_SHOP_UUID, COLUMN_TIMESTAMP),
+			createIndexSql("idx_trade_shop_owner", COLUMN_SHOP_OWNER_UUID, COLUMN_TIMESTAMP)
+	);
+	// Schema version 2: Indices for looking up the trades of specific items.
+	private static final List<? extends String> CREATE_ITEM_INDICES_SQL = List.of(
+			createIndexSql("idx_trade_item_1", COLUMN_ITEM_1_ID, COLUMN_TIMESTAMP),
+			createIndexSql("idx_trade_item_2", COLUMN_ITEM_2_ID, COLUMN_TIMESTAMP),
+			createIndexSql("idx_trade_result_item", COLUMN_RESULT_ITEM_ID, COLUMN_TIMESTAMP)
+	);
+
+	private static String createIndexSql(String indexName, String... columns) {
+		return "CREATE INDEX IF NOT EXISTS " + indexName + " ON " + TABLE_TRADE
+				+ "(" + String.join(", ", columns) + ");";
+	}
+
+	// Schema version 3: Aggregates the already logged trades into the trade statistics.
+	private static String getInsertTradeStatsSql(
+			TradeStatisticsScope scope,
+			TradeStatisticsGranularity granularity
+	) {
+		String subjectSql;
+		String whereSql = "";
+		switch (scope) {
+		case SHOP:
+			subjectSql = COLUMN_SHOP_UUID;
+			break;
+		case OWNER:
+			subjectSql = COLUMN_SHOP_OWNER_UUID;
+			whereSql = " WHERE " + COLUMN_SHOP_OWNER_UUID + " IS NOT NULL";
+			break;
+		case ITEM:
+			// The id of the traded item (see SQLiteTradeStatistics#isFirstItemTraded):
+			subjectSql = "CAST(CASE WHEN " + COLUMN_SHOP_TYPE + " = '"
+					+ SQLiteTradeStatistics.BUYING_SHOP_TYPE_ID + "' THEN " + COLUMN_ITEM_1_ID
+					+ " ELSE " + COLUMN_RESULT_ITEM_ID + " END AS TEXT)";
+			break;
+		default:
+			throw new IllegalArgumentException("Unexpected scope: " + scope);
+		}
+
+		long periodSeconds = granularity.getPeriodSeconds();
+		String periodStartSql = "(CAST(strftime('%s', " + COLUMN_TIMESTAMP + ") AS INTEGER) / "
+				+ periodSeconds + ") * " + periodSeconds;
+		return SQLiteTradeStatistics.INSERT_COLUMNS_SQL
+				+ "SELECT '" + scope.getKey() + "', " + subjectSql + ", "
+				+ "'" + granularity.getKey() + "', " + periodStartSql + " AS period_start, "
+				+ "SUM(" + COLUMN_TRADE_COUNT + "), "
+				+ "SUM(" + COLUMN_RESULT_ITEM_AMOUNT + " * " + COLUMN_TRADE_COUNT + ")"
+				+ " FROM " + TABLE_TRADE + whereSql
+				+ " GROUP BY " + subjectSql + ", period_start;";
+	}
+
+	// Joins the trades with their items. The cross joins ensure that the trade table is the outer
+	// loop, so that the trade indices are used for the filtering and ordering.
+	private static final String SELECT_TRADES_SQL = "SELECT "
+			+ TRADE_ROWID + " AS " + COLUMN_ROWID + ", "
+			+ TABLE_TRADE + ".*, "
+			+ getSelectItemSql("item_1", COLUMN_ITEM_1_TYPE, COLUMN_ITEM_1_METADATA) + ", "
+			+ getSelectItemSql("item_2", COLUMN_ITEM_2_TYPE, COLUMN_ITEM_2_METADATA) + ", "
+			+ getSelectItemSql("result_item", COLUMN_RESULT_ITEM_TYPE, COLUMN_RESULT_ITEM_METADATA)
+			+ " FROM " + TABLE_TRADE
+			+ getJoinItemSql("CROSS JOIN", "item_1", COLUMN_ITEM_1_ID)
+			+ getJoinItemSql("LEFT JOIN", "item_2", COLUMN_ITEM_2_ID)
+			+ getJoinItemSql("CROSS JOIN", "result_item", COLUMN_RESULT_ITEM_ID);
+
+	// Selects the item type and metadata under the column names of schema version 0:
+	private static String getSelectItemSql(String alias, String typeColumn, String metadataColumn) {
+		return alias + "." + SQLiteItemDictionary.COLUMN_TYPE + " AS " + typeColumn + ", "
+				+ alias + "." + SQLiteItemDictionary.COLUMN_METADATA + " AS " + metadataColumn;
+	}
+
+	private static String getJoinItemSql(String join, String alias, String itemIdColumn) {
+		return " " + join + " " + SQLiteItemDictionary.TABLE_ITEM + " AS " + alias
+				+ " ON " + alias + "." + SQLiteItemDictionary.COLUMN_ID
+				+ " = " + TABLE_TRADE + "." + itemIdColumn;
+	}
+
+	private static final String ORDER_BY_SQL = " ORDER BY " + COLUMN_TIMESTAMP + " DESC, "
+			+ TRADE_ROWID + " DESC";
+	// Selects the trades that are older than the cursor:
+	private static final String CURSOR_FILTER_SQL = "(" + COLUMN_TIMESTAMP + ", " + TRADE_ROWID
+			+ ") < (?, ?)";
+	// Selects the trades that have been logged after the given rowid:
+	private static final String ROWID_FILTER_SQL = TRADE_ROWID + " > ?";
+
+	private static List<String> getTradeFilters(
 			boolean filterByPlayer,
 			boolean filterByShop,
 			boolean filterByOwner,
 			boolean filterByAdminShop,
 			boolean filterByPlayerShop
 	) {
-		var query = "SELECT * FROM " + TABLE_TRADE;
-
 		var filters = new ArrayList<String>();
 		if (filterByPlayer) {
 			filters.add(COLUMN_PLAYER_UUID + "=?");
@@ -152,49 +306,86 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		if (filterByPlayerShop) {
 			filters.add(COLUMN_SHOP_OWNER_UUID + " IS NOT NULL");
 		}
+		return filters;
+	}
 
-		if (!filters.isEmpty()) {
-			query += " WHERE " + String.join(" AND ", filters);
-		}
+	private static String toWhereSql(List<? extends String> filters, String... additionalFilters) {
+		var allFilters = new ArrayList<String>(filters);
+		allFilters.addAll(Arrays.asList(additionalFilters));
+		if (allFilters.isEmpty()) return "";
+		return " WHERE " + String.join(" AND ", allFilters);
+	}
 
-		query += " ORDER BY " + COLUMN_TIMESTAMP + " DESC LIMIT ? OFFSET ?;";
-		return query;
+	private static String getSelectTradesSql(List<? extends String> filters) {
+		return SELECT_TRADES_SQL
+				+ toWhereSql(filters)
+				+ ORDER_BY_SQL + " LIMIT ? OFFSET ?;";
 	}
 
-	private static String toTradesCountSql(String selectTradesSql) {
-		String tradesCountSql = selectTradesSql;
-		tradesCountSql = StringUtils.replaceFirst(tradesCountSql, "SELECT *", "SELECT COUNT(*)");
-		tradesCountSql = StringUtils.replaceFirst(tradesCountSql, " ORDER BY " + COLUMN_TIMESTAMP + " DESC", "");
-		tradesCountSql = StringUtils.replaceFirst(tradesCountSql, " LIMIT ? OFFSET ?", "");
-		return tradesCountSql;
+	private static String getSelectTradesAfterCursorSql(List<? extends String> filters) {
+		return SELECT_TRADES_SQL
+				+ toWhereSql(filters, CURSOR_FILTER_SQL)
+				+ ORDER_BY_SQL + " LIMIT ?;";
 	}
 
-	private final String connectionURL;
+	// Counts the matching trades after the given rowid, and also returns the current max rowid.
+	// Both are based on the same database snapshot.
+	private static String getTradesCountSql(List<? extends String> filters) {
+		return "SELECT COUNT(*), (SELECT MAX(" + TRADE_ROWID + ") FROM " + TABLE_TRADE + ")"
+				+ " FROM " + TABLE_TRADE
+				+ toWhereSql(filters, ROWID_FILTER_SQL) + ";";
+	}
+
+	/**
+	 * The number of trades that matched a certain query, up to a certain rowid.
+	 * <p>
+	 * Trades are only ever appended. Subsequent counts of the same query therefore only need to
+	 * count the trades that have been logged after this rowid.
+	 */
+	private static final class TradesCount {
+
+		private final long maxRowid;
+		private final int count;
+
+		TradesCount(long maxRowid, int count) {
+			this.maxRowid = maxRowid;
+			this.count = count;
+		}
+	}
+
+	private final SQLiteConnectionManager connectionManager;
 
 	private volatile @Nullable String setupFailureReason = null;
-	private volatile boolean performSetupAgain = false;
+	private final Object migrationLock = new Object();
+	// Only used by the writer thread:
+	private final SQLiteItemDictionary itemDictionary = new SQLiteItemDictionary(
+			ITEM_ID_CACHE_SIZE
+	);
+
+	// Keyed by the count query and its parameters. Synchronized on the map.
+	private final Map<String, TradesCount> tradesCountCache = new LRUCache<>(
+			TRADES_COUNT_CACHE_SIZE
+	);
 
 	public SQLiteTradeLogger(SKShopkeepersPlugin plugin) {
 		super(plugin, TradeLogStorageType.SQLITE);
 
-		this.connectionURL = "jdbc:sqlite:" + tradeLogsFolder.resolve(FILE_NAME);
-	}
-
-	// TODO Keep the connection open (at least until we observe an error)? Cache the
-	// PreparedStatements?
-	private Connection getConnection() throws SQLException, IOException {
-		FileUtils.createDirectories(tradeLogsFolder);
-		return DriverManager.getConnection(connectionURL);
+		this.connectionManager = new SQLiteConnectionManager(
+				tradeLogsFolder.resolve(FILE_NAME),
+				this::performSetup
+		);
 	}
 
 	@FunctionalInterface
 	public interface SqlTransaction<T> {
 
-		public T execute(Connection connection) throws Exception;
+		public T execute(SQLiteConnection connection) throws Exception;
 	}
 
 	/**
-	 * Runs the given transaction.
+	 * Runs the given read-only transaction.
+	 * <p>
+	 * Read transactions can run concurrently to each other and to the writer thread.
 	 * 
 	 * @param <T>
 	 *            The return type.
@@ -204,38 +395,58 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 	 * @throws Exception
 	 *             If something goes wrong.
 	 */
-	private <T> T runTransaction(SqlTransaction<T> transaction) throws Exception {
-		boolean done = false;
-		@Nullable T result = null;
-		try (var connection = this.getConnection()) {
-			if (performSetupAgain) {
-				this.performSetup(connection);
-			}
-
-			result = transaction.execute(connection);
+	private <T> T runReadTransaction(SqlTransaction<T> transaction) throws Exception {
+		// If the transaction fails, the connection is closed and the subsequent retry uses a new
+		// connection, which re-attempts the database setup. This handles cases in which the
+		// database file might have been dynamically deleted.
+		return connectionManager.read(transaction::execute);
+	}
 
-			// We are about to close the connection:
-			done = true;
-			return Unsafe.cast(result);
-		} catch (Exception e) {
-			if (done) {
-				// The transaction completed successfully: We log but otherwise ignore any
-				// exceptions raised during the closing of the connection, so that they do not
-				// trigger a retry of the transaction.
-				Log.severe("Failed to close the database connection!", e);
-				return Unsafe.cast(result);
+	/**
+	 * Runs the given transaction with the write connection.
+	 * <p>
+	 * All changes of the transaction are committed at once at the end of the transaction, or
+	 * rolled back if the transaction fails.
+	 * 
+	 * @param <T>
+	 *            The return type.
+	 * @param transaction
+	 *            The transaction logic.
+	 * @return The result of the transaction.
+	 * @throws Exception
+	 *             If something goes wrong.
+	 */
+	private <T> T runWriteTransaction(SqlTransaction<T> transaction) throws Exception {
+		return connectionManager.write(sqliteConnection -> {
+			Connection connection = sqliteConnection.getConnection();
+			connection.setAutoCommit(false);
+			try {
+				T result = transaction.execute(sqliteConnection);
+				connection.commit();
+				return result;
+			} catch (Exception e) {
+				try {
+					connection.rollback();
+				} catch (SQLException e2) {
+					e.addSuppressed(e2);
+				}
+				// The connection is closed and reopened for the next transaction.
+				throw e;
+			} finally {
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					// Ignored so that a committed transaction does not trigger a retry: If the
+					// connection is broken, the next transaction fails and reopens it.
+					Log.severe(logPrefix + "Failed to reset the auto-commit mode!", e);
+				}
 			}
-
-			// If the transaction failed, we re-attempt the database setup during the subsequent
-			// retry to handle cases in which the database file might have been dynamically deleted.
-			performSetupAgain = true;
-			throw e;
-		}
+		});
 	}
 
 	private <T> T retryTransaction(SqlTransaction<T> transaction) throws Exception {
 		return Retry.retry(() -> {
-			return this.runTransaction(transaction);
+			return this.runReadTransaction(transaction);
 		}, TRANSACTION_RETRY_MAX_ATTEMPTS, (attemptNumber, exception, retry) -> {
 			// Try again after a small delay:
 			if (retry) {
@@ -254,8 +465,9 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 	protected void asyncSetup() {
 		super.asyncSetup();
 
-		try (Connection connection = this.getConnection()) {
-			this.performSetup(connection);
+		try {
+			// Opening the write connection also sets up the database:
+			connectionManager.write(connection -> null);
 		} catch (Exception e) {
 			setupFailureReason = e.getMessage();
 			Log.severe(logPrefix + setupFailureReason, e);
@@ -270,8 +482,16 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		}
 	}
 
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		connectionManager.close();
+	}
+
+	// Invoked for every newly opened connection.
 	private void performSetup(Connection connection) throws Exception {
 		this.createTable(connection);
+		this.migrateSchema(connection);
 	}
 
 	private void createTable(Connection connection) throws Exception {
@@ -282,6 +502,203 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		}
 	}
 
+	private static int getSchemaVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery("PRAGMA user_version;")) {
+				return resultSet.next() ? resultSet.getInt(1) : 0;
+			}
+		}
+	}
+
+	private static void setSchemaVersion(Connection connection, int schemaVersion)
+			throws SQLException {
+		// Note: Setting the user_version is part of the current transaction.
+		execute(connection, "PRAGMA user_version = " + schemaVersion + ";");
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static long queryLong(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet resultSet = statement.executeQuery(sql)) {
+				return resultSet.next() ? resultSet.getLong(1) : 0L; // 0 if null
+			}
+		}
+	}
+
+	private static void rollback(Connection connection, Exception exception) {
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			exception.addSuppressed(e);
+		}
+	}
+
+	private void migrateSchema(Connection connection) throws Exception {
+		// Only one connection migrates the schema at a time. Any other connections wait and then
+		// find the schema to be up-to-date.
+		synchronized (migrationLock) {
+			int schemaVersion = getSchemaVersion(connection);
+			if (schemaVersion >= SCHEMA_VERSION) return; // Up-to-date
+
+			Log.info(logPrefix + "Migrating the database schema from version " + schemaVersion
+					+ " to " + SCHEMA_VERSION + ". This may take a while ...");
+			connection.setAutoCommit(false);
+			try {
+				// Schema version 1 only added the indices of the trade table. We skip this step,
+				// because the migration to version 2 replaces the trade table and then creates
+				// these indices anyway.
+				if (schemaVersion < 2) {
+					this.migrateToItemTable(connection);
+				}
+				if (schemaVersion < 3) {
+					this.migrateToTradeStats(connection);
+				}
+			} catch (Exception e) {
+				rollback(connection, e);
+				throw new Exception("Could not migrate the database schema!", e);
+			} finally {
+				connection.setAutoCommit(true);
+			}
+			Log.info(logPrefix + "Database schema migrated.");
+		}
+	}
+
+	// Schema version 2: Moves the items into the item table. The trades are copied into a new table
+	// in batches, each in its own transaction. If the migration is interrupted, e.g. by a server
+	// shutdown, it continues after the last copied trade.
+	private void migrateToItemTable(Connection connection) throws Exception {
+		assert !connection.getAutoCommit();
+		execute(connection, SQLiteItemDictionary.CREATE_TABLE_SQL);
+		execute(connection, CREATE_MIGRATION_TABLE_SQL);
+		connection.commit();
+
+		long totalTrades = queryLong(connection, "SELECT COUNT(*) FROM " + TABLE_TRADE + ";");
+		long migratedTrades = queryLong(connection,
+				"SELECT COUNT(*) FROM " + TABLE_TRADE_MIGRATION + ";");
+		long lastRowid = queryLong(connection,
+				"SELECT MAX(" + COLUMN_ROWID + ") FROM " + TABLE_TRADE_MIGRATION + ";");
+
+		// Separate from the item dictionary of the writer thread:
+		SQLiteItemDictionary itemDictionary = new SQLiteItemDictionary(ITEM_ID_CACHE_SIZE);
+		try (PreparedStatement selectStatement = connection.prepareStatement(
+				SELECT_UNMIGRATED_TRADES_SQL
+		)) {
+			try (PreparedStatement insertStatement = connection.prepareStatement(
+					INSERT_MIGRATED_TRADE_SQL
+			)) {
+				int batches = 0;
+				while (true) {
+					int batchTrades = 0;
+					selectStatement.setLong(1, lastRowid);
+					try (ResultSet resultSet = selectStatement.executeQuery()) {
+						while (resultSet.next()) {
+							lastRowid = resultSet.getLong(COLUMN_ROWID);
+							this.insertMigratedTrade(
+									connection,
+									itemDictionary,
+									insertStatement,
+									lastRowid,
+									resultSet
+							);
+							batchTrades++;
+						}
+					}
+					if (batchTrades == 0) break;
+
+					connection.commit();
+					itemDictionary.onCommit();
+					migratedTrades += batchTrades;
+					batches++;
+					if (batches % 10 == 0) {
+						Log.info(logPrefix + "Migrated " + migratedTrades + " / " + totalTrades
+								+ " trades ...");
+					}
+				}
+			}
+		}
+
+		// Replace the old table:
+		execute(connection, "DROP TABLE " + TABLE_TRADE + ";");
+		execute(connection, "ALTER TABLE " + TABLE_TRADE_MIGRATION
+				+ " RENAME TO " + TABLE_TRADE + ";");
+		for (String createIndexSql : CREATE_INDICES_SQL) {
+			execute(connection, createIndexSql);
+		}
+		for (String createIndexSql : CREATE_ITEM_INDICES_SQL) {
+			execute(connection, createIndexSql);
+		}
+		setSchemaVersion(connection, 2);
+		connection.commit();
+	}
+
+	// Schema version 3: Creates the trade statistics and aggregates the already logged trades.
+	private void migrateToTradeStats(Connection connection) throws Exception {
+		assert !connection.getAutoCommit();
+		createTradeStats(connection);
+		setSchemaVersion(connection, 3);
+		connection.commit();
+	}
+
+	// Creates the trade statistics table and aggregates the logged trades. Any previous statistics
+	// are replaced.
+	static void createTradeStats(Connection connection) throws SQLException {
+		execute(connection, SQLiteItemDictionary.CREATE_TYPE_INDEX_SQL);
+		execute(connection, SQLiteTradeStatistics.CREATE_TABLE_SQL);
+		execute(connection, "DELETE FROM " + SQLiteTradeStatistics.TABLE_TRADE_STATS + ";");
+		for (TradeStatisticsScope scope : TradeStatisticsScope.values()) {
+			for (TradeStatisticsGranularity granularity : TradeStatisticsGranularity.values()) {
+				execute(connection, getInsertTradeStatsSql(scope, granularity));
+			}
+		}
+	}
+
+	private void insertMigratedTrade(
+			Connection connection,
+			SQLiteItemDictionary itemDictionary,
+			PreparedStatement insertStatement,
+			long rowid,
+			ResultSet resultSet
+	) throws SQLException {
+		insertStatement.setLong(1, rowid);
+		int parameterIndex = 2;
+		for (String column : TRADE_COLUMNS) {
+			@Nullable Object value;
+			if (column.equals(COLUMN_ITEM_1_ID)) {
+				value = getMigratedItemId(connection, itemDictionary, resultSet,
+						COLUMN_ITEM_1_TYPE, COLUMN_ITEM_1_METADATA);
+			} else if (column.equals(COLUMN_ITEM_2_ID)) {
+				value = getMigratedItemId(connection, itemDictionary, resultSet,
+						COLUMN_ITEM_2_TYPE, COLUMN_ITEM_2_METADATA);
+			} else if (column.equals(COLUMN_RESULT_ITEM_ID)) {
+				value = getMigratedItemId(connection, itemDictionary, resultSet,
+						COLUMN_RESULT_ITEM_TYPE, COLUMN_RESULT_ITEM_METADATA);
+			} else {
+				value = resultSet.getObject(column);
+			}
+			insertStatement.setObject(parameterIndex++, value);
+		}
+		insertStatement.executeUpdate();
+	}
+
+	private static @Nullable Long getMigratedItemId(
+			Connection connection,
+			SQLiteItemDictionary itemDictionary,
+			ResultSet resultSet,
+			String typeColumn,
+			String metadataColumn
+	) throws SQLException {
+		@Nullable String itemType = resultSet.getString(typeColumn);
+		if (itemType == null) return null; // E.g. if there is no second item
+
+		String itemMetadata = StringUtils.getOrEmpty(resultSet.getString(metadataColumn));
+		return itemDictionary.getItemId(connection, itemType, itemMetadata);
+	}
+
 	@Override
 	protected void writeTrades(SaveContext saveContext) throws Exception {
 		if (!saveContext.hasUnsavedTrades()) {
@@ -289,37 +706,46 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		}
 
 		// Note: Retrying is handled by the caller.
-		this.runTransaction(connection -> {
-			boolean done = false;
-			try (var insertStatement = connection.prepareStatement(INSERT_TRADE_SQL)) {
-				var trade = saveContext.getNextUnsavedTrade();
-				while (trade != null) {
-					this.insertTrade(insertStatement, trade);
-
-					// Trade successfully saved:
-					saveContext.onTradeSuccessfullySaved();
-
-					// Get the next trade to insert:
-					trade = saveContext.getNextUnsavedTrade();
+		// All trades of the batch are inserted within a single transaction: This avoids a disk
+		// sync per trade. If the transaction fails, none of the trades are saved.
+		var trades = saveContext.getUnsavedTrades();
+		try {
+			this.runWriteTransaction(connection -> {
+				var insertStatement = connection.prepareStatement(INSERT_TRADE_SQL);
+				long[] tradedItemIds = new long[trades.size()];
+				for (int i = 0; i < tradedItemIds.length; i++) {
+					tradedItemIds[i] = this.insertTrade(
+							connection.getConnection(),
+							insertStatement,
+							trades.get(i)
+					);
 				}
-
+				SQLiteTradeStatistics.update(connection, trades, tradedItemIds);
 				return null; // No result to return
-			} catch (Exception e) {
-				if (done) {
-					// The saving completed successfully: We log but otherwise ignore any exceptions
-					// raised during the closing of the statement, so that they do not trigger a
-					// retry of the saving.
-					Log.severe("Failed to close the database statement", e);
-					return null; // No result to return
-				}
+			});
+		} catch (Exception e) {
+			itemDictionary.onRollback();
+			throw e;
+		}
+		itemDictionary.onCommit();
 
-				throw e;
-			}
-		});
+		// The trades are only saved once the transaction has been committed:
+		saveContext.onTradesSuccessfullySaved(trades.size());
 	}
 
-	private void insertTrade(PreparedStatement insertStatement, TradeRecord trade)
+	private long getItemId(Connection connection, UnmodifiableItemStack itemStack)
 			throws SQLException {
+		// TODO Store the namespaced key instead
+		String itemType = itemStack.getType().name();
+		return itemDictionary.getItemId(connection, itemType, this.getItemMetadata(itemStack));
+	}
+
+	// Returns the item id of the traded item (see SQLiteTradeStatistics#isFirstItemTraded).
+	private long insertTrade(
+			Connection connection,
+			PreparedStatement insertStatement,
+			TradeRecord trade
+	) throws SQLException {
 		Instant timestamp = trade.getTimestamp();
 		PlayerRecord player = trade.getPlayer();
 
@@ -335,13 +761,11 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		UnmodifiableItemStack resultItem = trade.getResultItem();
 		UnmodifiableItemStack item1 = trade.getItem1();
 		UnmodifiableItemStack item2 = trade.getItem2(); // Can be null
-		@Nullable String item2Type = null;
+		@Nullable Long item2Id = null;
 		@Nullable Integer item2Amount = null;
-		@Nullable String item2Metadata = null;
 		if (item2 != null) {
-			item2Type = item2.getType().name(); // TODO Store the namespaced key instead
+			item2Id = this.getItemId(connection, item2);
 			item2Amount = item2.getAmount();
-			item2Metadata = this.getItemMetadata(item2);
 		}
 
 		insertStatement.setString(1, timestamp.toString()); // timestamp as ISO UTC
@@ -359,23 +783,22 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		insertStatement.setString(10, shopOwnerId); // shop_owner_uuid
 		insertStatement.setString(11, shopOwnerName); // shop_owner_name
 
-		// TODO Store the namespaced key instead
-		insertStatement.setString(12, item1.getType().name()); // item_1_type
+		long item1Id = this.getItemId(connection, item1);
+		long resultItemId = this.getItemId(connection, resultItem);
+
+		insertStatement.setLong(12, item1Id); // item_1_id
 		insertStatement.setInt(13, item1.getAmount()); // item_1_amount
-		insertStatement.setString(14, this.getItemMetadata(item1)); // item_1_metadata
 
-		insertStatement.setString(15, item2Type); // item_2_type
-		insertStatement.setObject(16, item2Amount, Types.TINYINT); // item_2_amount
-		insertStatement.setString(17, item2Metadata); // item_2_metadata
+		insertStatement.setObject(14, item2Id, Types.BIGINT); // item_2_id
+		insertStatement.setObject(15, item2Amount, Types.TINYINT); // item_2_amount
 
-		// TODO Store the namespaced key instead
-		insertStatement.setString(18, resultItem.getType().name()); // result_item_type
-		insertStatement.setInt(19, resultItem.getAmount()); // result_item_amount
-		insertStatement.setString(20, this.getItemMetadata(resultItem)); // result_item_metadata
+		insertStatement.setLong(16, resultItemId); // result_item_id
+		insertStatement.setInt(17, resultItem.getAmount()); // result_item_amount
 
-		insertStatement.setInt(21, trade.getTradeCount()); // trade_count
+		insertStatement.setInt(18, trade.getTradeCount()); // trade_count
 
 		insertStatement.executeUpdate();
+		return SQLiteTradeStatistics.isFirstItemTraded(shop.getTypeId()) ? item1Id : resultItemId;
 	}
 
 	@Override
@@ -444,29 +867,23 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 						+ shopSelector.getClass().getName());
 			}
 
-			var selectTradesSql = getSelectTradesSql(
+			var filters = getTradeFilters(
 					filterByPlayer,
 					filterByShop,
 					filterByOwner,
 					filterByAdminShop,
 					filterByPlayerShop
 			);
-			var tradesCountSql = toTradesCountSql(selectTradesSql);
+			var cursor = request.cursor;
 
 			try {
 				return this.retryTransaction(connection -> {
-					int totalTradesCount = 0;
 					List<TradeRecord> trades = new ArrayList<>();
-
-					try (var tradesCountStatement = connection.prepareStatement(tradesCountSql)) {
-						JdbcUtils.setParameters(tradesCountStatement, 0, filterParameters.toArray());
-						try (var resultSet = tradesCountStatement.executeQuery()) {
-							if (resultSet.next()) {
-								totalTradesCount = resultSet.getInt(1);
-							}
-						}
-					}
-
+					int totalTradesCount = this.getTradesCount(
+							connection,
+							filters,
+							filterParameters
+					);
 					if (totalTradesCount == 0) {
 						// No trades found:
 						return new TradingHistoryResult(trades, totalTradesCount);
@@ -477,18 +894,40 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 					int offset = startIndex;
 					int limit = (endIndex - startIndex);
 
-					try (var selectTradesStatement = connection.prepareStatement(selectTradesSql)) {
-						JdbcUtils.setParameters(selectTradesStatement, 0, filterParameters.toArray());
-						JdbcUtils.setParameters(selectTradesStatement, filterParameters.size(), limit, offset);
+					// Note: The prepared statements are cached and must not be closed.
+					PreparedStatement selectTradesStatement;
+					if (cursor != null) {
+						// Continue after the cursor instead of skipping the preceding trades:
+						selectTradesStatement = connection.prepareStatement(
+								getSelectTradesAfterCursorSql(filters)
+						);
+						Object[] parameters = filterParameters.toArray();
+						JdbcUtils.setParameters(selectTradesStatement, 0, parameters);
+						JdbcUtils.setParameters(selectTradesStatement, parameters.length,
+								cursor.getTimestamp().toString(), cursor.getId(), limit);
+					} else {
+						selectTradesStatement = connection.prepareStatement(
+								getSelectTradesSql(filters)
+						);
+						Object[] parameters = filterParameters.toArray();
+						JdbcUtils.setParameters(selectTradesStatement, 0, parameters);
+						JdbcUtils.setParameters(selectTradesStatement, parameters.length,
+								limit, offset);
+					}
 
-						try (var resultSet = selectTradesStatement.executeQuery()) {
-							while (resultSet.next()) {
-								trades.add(this.readTradeRecord(resultSet));
-							}
+					@Nullable TradingHistoryCursor nextCursor = null;
+					try (var resultSet = selectTradesStatement.executeQuery()) {
+						while (resultSet.next()) {
+							TradeRecord trade = this.readTradeRecord(resultSet);
+							trades.add(trade);
+							nextCursor = new TradingHistoryCursor(
+									trade.getTimestamp(),
+									resultSet.getLong(COLUMN_ROWID)
+							);
 						}
 					}
 
-					return new TradingHistoryResult(trades, totalTradesCount);
+					return new TradingHistoryResult(trades, totalTradesCount, nextCursor);
 				});
 			} catch (Exception e) {
 				throw new RuntimeException("Failed to fetch trading history: " + request.toString(), e);
@@ -496,6 +935,72 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		}, ((SKShopkeepersPlugin) plugin).getAsyncExecutor());
 	}
 
+	// Counts the matching trades. Only the trades that were logged since the previous count of the
+	// same query are actually counted.
+	private int getTradesCount(
+			SQLiteConnection connection,
+			List<? extends String> filters,
+			List<?> filterParameters
+	) throws SQLException {
+		String tradesCountSql = getTradesCountSql(filters);
+		String cacheKey = tradesCountSql + filterParameters;
+		@Nullable TradesCount cachedCount;
+		synchronized (tradesCountCache) {
+			cachedCount = tradesCountCache.get(cacheKey);
+		}
+
+		var tradesCountStatement = connection.prepareStatement(tradesCountSql);
+		TradesCount tradesCount = this.countTrades(
+				tradesCountStatement,
+				filterParameters,
+				cachedCount
+		);
+		if (cachedCount != null && tradesCount.maxRowid < cachedCount.maxRowid) {
+			// The database has been replaced or trades have been deleted: Count all trades again.
+			tradesCount = this.countTrades(tradesCountStatement, filterParameters, null);
+		}
+
+		synchronized (tradesCountCache) {
+			tradesCountCache.put(cacheKey, tradesCount);
+		}
+		return tradesCount.count;
+	}
+
+	private TradesCount countTrades(
+			PreparedStatement tradesCountStatement,
+			List<?> filterParameters,
+			@Nullable TradesCount previousCount
+	) throws SQLException {
+		long previousMaxRowid = (previousCount != null) ? previousCount.maxRowid : 0L;
+		int previousCountValue = (previousCount != null) ? previousCount.count : 0;
+
+		JdbcUtils.setParameters(tradesCountStatement, 0, filterParameters.toArray());
+		JdbcUtils.setParameters(tradesCountStatement, filterParameters.size(), previousMaxRowid);
+		try (var resultSet = tradesCountStatement.executeQuery()) {
+			if (!resultSet.next()) {
+				return new TradesCount(0L, 0);
+			}
+
+			int newTradesCount = resultSet.getInt(1);
+			long maxRowid = resultSet.getLong(2); // 0 if there are no trades
+			return new TradesCount(maxRowid, previousCountValue + newTradesCount);
+		}
+	}
+
+	@Override
+	public CompletableFuture<TradeStatistics> getTradeStatistics(TradeStatisticsRequest request) {
+		Validate.notNull(request, "request is null");
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return this.retryTransaction(connection -> {
+					return SQLiteTradeStatistics.query(connection, request);
+				});
+			} catch (Exception e) {
+				throw new RuntimeException("Failed to fetch trade statistics: " + request, e);
+			}
+		}, ((SKShopkeepersPlugin) plugin).getAsyncExecutor());
+	}
+
 	private TradeRecord readTradeRecord(ResultSet resultSet) throws SQLException {
 		assert resultSet != null;
 		Instant timestamp = Instant.parse(Validate.notNull(resultSet.getString(COLUMN_TIMESTAMP)));
@@ -532,7 +1037,7 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		String item1Type = resultSet.getString(COLUMN_ITEM_1_TYPE);
 		int item1Amount = resultSet.getInt(COLUMN_ITEM_1_AMOUNT);
 		@Nullable String item1Metadata = resultSet.getString(COLUMN_ITEM_1_METADATA);
-		var item1 = loadItemStack(item1Type, item1Amount, item1Metadata);
+		var item1 = TradeLogUtils.loadItemStackOrNull(item1Type, item1Amount, item1Metadata);
 		if (item1 == null) {
 			throw new RuntimeException("item1 is empty!");
 		}
@@ -540,12 +1045,16 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 		@Nullable String item2Type = resultSet.getString(COLUMN_ITEM_2_TYPE);
 		int item2Amount = resultSet.getInt(COLUMN_ITEM_2_AMOUNT);
 		@Nullable String item2Metadata = resultSet.getString(COLUMN_ITEM_2_METADATA);
-		var item2 = loadItemStack(item2Type, item2Amount, item2Metadata);
+		var item2 = TradeLogUtils.loadItemStackOrNull(item2Type, item2Amount, item2Metadata);
 
 		String resultItemType = resultSet.getString(COLUMN_RESULT_ITEM_TYPE);
 		int resultItemAmount = resultSet.getInt(COLUMN_RESULT_ITEM_AMOUNT);
 		@Nullable String resultItemMetadata = resultSet.getString(COLUMN_RESULT_ITEM_METADATA);
-		var resultItem = loadItemStack(resultItemType, resultItemAmount, resultItemMetadata);
+		var resultItem = TradeLogUtils.loadItemStackOrNull(
+				resultItemType,
+				resultItemAmount,
+				resultItemMetadata
+		);
 		if (resultItem == null) {
 			throw new RuntimeException("resultItem is empty!");
 		}
@@ -561,31 +1070,4 @@ public class SQLiteTradeLogger extends AbstractFileTradeLogger implements Tradin
 				tradeCount
 		);
 	}
-
-	private static @Nullable UnmodifiableItemStack loadItemStack(
-			@Nullable String itemType,
-			int amount,
-			@Nullable String metadata
-	) {
-		if (itemType == null || itemType.isEmpty() || amount <= 0) {
-			return null;
-		}
-
-		var material = ItemUtils.parseMaterial(itemType);
-		if (material == null || !material.isItem()) {
-			throw new RuntimeException("Invalid item type: " + itemType);
-		}
-
-		ItemStack itemStack;
-		try {
-			itemStack = TradeLogUtils.loadItemStack(material, amount, metadata);
-		} catch (Exception e) {
-			Log.debug("Failed to load item stack metadata from history!", e);
-
-			// Continue with the item without the item metadata:
-			itemStack = new ItemStack(material, amount);
-		}
-
-		return UnmodifiableItemStack.ofNonNull(itemStack);
-	}
 }
@@ -0,0 +1,264 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteConnectionManager.SQLiteConnection;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsGranularity;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsRequest;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsScope;
+import com.nisovin.shopkeepers.util.java.JdbcUtils;
+
+/**
+ * Maintains the pre-aggregated trade statistics of the SQLite trade log.
+ * <p>
+ * For each {@link TradeStatisticsScope scope}, subject, and {@link TradeStatisticsGranularity
+ * period}, the statistics table stores the number of trades and the total amount of traded result
+ * items. The statistics are incrementally updated within the same transaction that inserts the
+ * trades, so that they always match the logged trades. Statistics queries only read the few rows
+ * of the requested periods instead of aggregating the logged trades.
+ * <p>
+ * The item statistics are stored per traded item, i.e. per entry of the
+ * {@link SQLiteItemDictionary item table}, and queried per item type.
+ */
+final class SQLiteTradeStatistics {
+
+	static final String TABLE_TRADE_STATS = "trade_stats";
+	static final String COLUMN_SCOPE = "scope";
+	static final String COLUMN_SUBJECT = "subject";
+	static final String COLUMN_GRANULARITY = "granularity";
+	static final String COLUMN_PERIOD_START = "period_start";
+	static final String COLUMN_TRADES = "trades";
+	static final String COLUMN_RESULT_ITEMS = "result_items";
+
+	static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS " + TABLE_TRADE_STATS + " ("
+			+ COLUMN_SCOPE + " VARCHAR(8) NOT NULL, " // shop, owner, or item
+			+ COLUMN_SUBJECT + " VARCHAR(64) NOT NULL, " // Shop or owner uuid, or item id
+			+ COLUMN_GRANULARITY + " VARCHAR(8) NOT NULL, " // hour or day
+			+ COLUMN_PERIOD_START + " INTEGER NOT NULL, " // UTC epoch seconds
+			+ COLUMN_TRADES + " INTEGER NOT NULL, "
+			+ COLUMN_RESULT_ITEMS + " INTEGER NOT NULL, "
+			+ "PRIMARY KEY (" + COLUMN_SCOPE + ", " + COLUMN_SUBJECT + ", " + COLUMN_GRANULARITY
+			+ ", " + COLUMN_PERIOD_START + ")"
+			+ ") WITHOUT ROWID;";
+	static final String INSERT_COLUMNS_SQL = "INSERT INTO " + TABLE_TRADE_STATS + "("
+			+ COLUMN_SCOPE + ", " + COLUMN_SUBJECT + ", " + COLUMN_GRANULARITY + ", "
+			+ COLUMN_PERIOD_START + ", " + COLUMN_TRADES + ", " + COLUMN_RESULT_ITEMS + ") ";
+	private static final String UPSERT_SQL = INSERT_COLUMNS_SQL
+			+ "VALUES(?, ?, ?, ?, ?, ?) "
+			+ "ON CONFLICT(" + COLUMN_SCOPE + ", " + COLUMN_SUBJECT + ", " + COLUMN_GRANULARITY
+			+ ", " + COLUMN_PERIOD_START + ") DO UPDATE SET "
+			+ COLUMN_TRADES + " = " + COLUMN_TRADES + " + excluded." + COLUMN_TRADES + ", "
+			+ COLUMN_RESULT_ITEMS + " = "
+			+ COLUMN_RESULT_ITEMS + " + excluded." + COLUMN_RESULT_ITEMS + ";";
+	private static final String SELECT_SQL = "SELECT "
+			+ COLUMN_PERIOD_START + ", " + COLUMN_TRADES + ", " + COLUMN_RESULT_ITEMS
+			+ " FROM " + TABLE_TRADE_STATS
+			+ " WHERE " + COLUMN_SCOPE + "=? AND " + COLUMN_SUBJECT + "=? AND "
+			+ COLUMN_GRANULARITY + "=? AND " + COLUMN_PERIOD_START + ">=? AND "
+			+ COLUMN_PERIOD_START + "<?"
+			+ " ORDER BY " + COLUMN_PERIOD_START + ";";
+	// Sums up the statistics of all items of the requested item type:
+	private static final String SELECT_ITEM_TYPE_SQL = "SELECT "
+			+ COLUMN_PERIOD_START + ", SUM(" + COLUMN_TRADES + "), SUM(" + COLUMN_RESULT_ITEMS + ")"
+			+ " FROM " + TABLE_TRADE_STATS
+			+ " WHERE " + COLUMN_SCOPE + "=? AND " + COLUMN_SUBJECT + " IN ("
+			+ "SELECT CAST(" + SQLiteItemDictionary.COLUMN_ID + " AS TEXT)"
+			+ " FROM " + SQLiteItemDictionary.TABLE_ITEM
+			+ " WHERE " + SQLiteItemDictionary.COLUMN_TYPE + "=?) AND "
+			+ COLUMN_GRANULARITY + "=? AND " + COLUMN_PERIOD_START + ">=? AND "
+			+ COLUMN_PERIOD_START + "<?"
+			+ " GROUP BY " + COLUMN_PERIOD_START
+			+ " ORDER BY " + COLUMN_PERIOD_START + ";";
+
+	// The identifier of the buying player shop type (see BuyingPlayerShopType):
+	static final String BUYING_SHOP_TYPE_ID = "buy";
+
+	/**
+	 * Checks if the traded item of the trades of the given shop type is the first item instead of
+	 * the result item.
+	 * <p>
+	 * The item statistics aggregate the trades by the traded item, i.e. the item that is not the
+	 * currency: Buying shops receive the traded item as the first item and pay with the currency.
+	 * All other shops hand out the traded item as the result item.
+	 * 
+	 * @param shopTypeId
+	 *            the shop type id
+	 * @return <code>true</code> if the first item is the traded item
+	 */
+	static boolean isFirstItemTraded(String shopTypeId) {
+		return shopTypeId.equals(BUYING_SHOP_TYPE_ID);
+	}
+
+	private static final class Key {
+
+		private final TradeStatisticsScope scope;
+		private final String subject;
+		private final TradeStatisticsGranularity granularity;
+		private final long periodStart;
+
+		Key(
+				TradeStatisticsScope scope,
+				String subject,
+				TradeStatisticsGranularity granularity,
+				long periodStart
+		) {
+			this.scope = scope;
+			this.subject = subject;
+			this.granularity = granularity;
+			this.periodStart = periodStart;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(scope, subject, granularity, periodStart);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return scope == other.scope
+					&& granularity == other.granularity
+					&& periodStart == other.periodStart
+					&& subject.equals(other.subject);
+		}
+	}
+
+	/**
+	 * Adds the given trades to the statistics.
+	 * <p>
+	 * This is expected to be called during the transaction that inserts the trades. The trades are
+	 * first aggregated in memory, so that each affected statistics row is only updated once.
+	 * 
+	 * @param connection
+	 *            the connection
+	 * @param trades
+	 *            the trades
+	 * @param tradedItemIds
+	 *            the item ids of the {@link #isFirstItemTraded(String) traded items}, in the same
+	 *            order as the trades
+	 * @throws SQLException
+	 *             if the statistics cannot be updated
+	 */
+	static void update(
+			SQLiteConnection connection,
+			List<? extends TradeRecord> trades,
+			long[] tradedItemIds
+	) throws SQLException {
+		assert tradedItemIds.length == trades.size();
+		// Key -> (trades, result items):
+		Map<Key, long[]> aggregates = new LinkedHashMap<>();
+		for (int i = 0; i < trades.size(); i++) {
+			TradeRecord trade = trades.get(i);
+			int tradeCount = trade.getTradeCount();
+			long resultItems = (long) trade.getResultItem().getAmount() * tradeCount;
+			Instant timestamp = trade.getTimestamp();
+			String shopId = trade.getShop().getUniqueId().toString();
+			@Nullable PlayerRecord shopOwner = trade.getShop().getOwner();
+			String itemId = String.valueOf(tradedItemIds[i]);
+
+			for (TradeStatisticsGranularity granularity : TradeStatisticsGranularity.values()) {
+				long periodStart = granularity.getPeriodStart(timestamp).getEpochSecond();
+				aggregate(aggregates, TradeStatisticsScope.SHOP, shopId, granularity, periodStart,
+						tradeCount, resultItems);
+				if (shopOwner != null) {
+					String ownerId = shopOwner.getUniqueId().toString();
+					aggregate(aggregates, TradeStatisticsScope.OWNER, ownerId, granularity,
+							periodStart, tradeCount, resultItems);
+				}
+				aggregate(aggregates, TradeStatisticsScope.ITEM, itemId, granularity,
+						periodStart, tradeCount, resultItems);
+			}
+		}
+
+		// Note: The prepared statement is cached and must not be closed.
+		PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_SQL);
+		for (Map.Entry<Key, long[]> entry : aggregates.entrySet()) {
+			Key key = entry.getKey();
+			long[] values = entry.getValue();
+			JdbcUtils.setParameters(upsertStatement, 0,
+					key.scope.getKey(),
+					key.subject,
+					key.granularity.getKey(),
+					key.periodStart,
+					values[0],
+					values[1]
+			);
+			upsertStatement.executeUpdate();
+		}
+	}
+
+	private static void aggregate(
+			Map<Key, long[]> aggregates,
+			TradeStatisticsScope scope,
+			String subject,
+			TradeStatisticsGranularity granularity,
+			long periodStart,
+			long trades,
+			long resultItems
+	) {
+		long[] values = aggregates.computeIfAbsent(
+				new Key(scope, subject, granularity, periodStart),
+				key -> new long[2]
+		);
+		values[0] += trades;
+		values[1] += resultItems;
+	}
+
+	/**
+	 * Reads the statistics of the given request.
+	 * <p>
+	 * The subject of item statistics requests is the item type name.
+	 * 
+	 * @param connection
+	 *            the connection
+	 * @param request
+	 *            the request
+	 * @return the statistics
+	 * @throws SQLException
+	 *             if the statistics cannot be read
+	 */
+	static TradeStatistics query(SQLiteConnection connection, TradeStatisticsRequest request)
+			throws SQLException {
+		// Note: The prepared statement is cached and must not be closed.
+		PreparedStatement selectStatement = connection.prepareStatement(
+				(request.scope == TradeStatisticsScope.ITEM) ? SELECT_ITEM_TYPE_SQL : SELECT_SQL
+		);
+		JdbcUtils.setParameters(selectStatement, 0,
+				request.scope.getKey(),
+				request.subject,
+				request.granularity.getKey(),
+				request.from.getEpochSecond(),
+				request.to.getEpochSecond()
+		);
+
+		List<TradeStatistics.Period> periods = new ArrayList<>();
+		try (ResultSet resultSet = selectStatement.executeQuery()) {
+			while (resultSet.next()) {
+				periods.add(new TradeStatistics.Period(
+						Instant.ofEpochSecond(resultSet.getLong(1)),
+						resultSet.getLong(2),
+						resultSet.getLong(3)
+				));
+			}
+		}
+		return new TradeStatistics(periods);
+	}
+
+	private SQLiteTradeStatistics() {
+	}
+}
@@ -0,0 +1,105 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The aggregated trades of a {@link TradeStatisticsRequest}.
+ */
+public class TradeStatistics {
+
+	/**
+	 * The aggregated trades of a single period.
+	 */
+	public static class Period {
+
+		private final Instant start;
+		private final long trades;
+		private final long resultItems;
+
+		public Period(Instant start, long trades, long resultItems) {
+			Validate.notNull(start, "start is null");
+			Validate.isTrue(trades >= 0, "trades cannot be negative");
+			Validate.isTrue(resultItems >= 0, "resultItems cannot be negative");
+			this.start = start;
+			this.trades = trades;
+			this.resultItems = resultItems;
+		}
+
+		/**
+		 * @return the start of the period
+		 */
+		public Instant getStart() {
+			return start;
+		}
+
+		/**
+		 * Gets the number of trades, including the trades that were merged into a single logged
+		 * trade.
+		 * 
+		 * @return the number of trades
+		 */
+		public long getTrades() {
+			return trades;
+		}
+
+		/**
+		 * @return the total amount of the result items of all trades
+		 */
+		public long getResultItems() {
+			return resultItems;
+		}
+	}
+
+	private final List<? extends Period> periods;
+	private final long totalTrades;
+	private final long totalResultItems;
+
+	/**
+	 * Creates a new {@link TradeStatistics}.
+	 * 
+	 * @param periods
+	 *            the periods that contain trades, ordered from oldest to newest, not
+	 *            <code>null</code>
+	 */
+	public TradeStatistics(List<? extends Period> periods) {
+		Validate.notNull(periods, "periods is null");
+		Validate.noNullElements(periods, "periods cannot contain null");
+		this.periods = periods;
+		long totalTrades = 0L;
+		long totalResultItems = 0L;
+		for (Period period : periods) {
+			totalTrades += period.getTrades();
+			totalResultItems += period.getResultItems();
+		}
+		this.totalTrades = totalTrades;
+		this.totalResultItems = totalResultItems;
+	}
+
+	/**
+	 * Gets the periods that contain trades.
+	 * <p>
+	 * Periods without trades are omitted.
+	 * 
+	 * @return the periods, ordered from oldest to newest, not <code>null</code> but can be empty
+	 */
+	public List<? extends Period> getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the total number of trades of all periods
+	 */
+	public long getTotalTrades() {
+		return totalTrades;
+	}
+
+	/**
+	 * @return the total amount of the result items of all periods
+	 */
+	public long getTotalResultItems() {
+		return totalResultItems;
+	}
+}
@@ -0,0 +1,56 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.time.Instant;
+import java.util.Locale;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * The time periods by which the logged trades are aggregated.
+ * <p>
+ * Periods are aligned to UTC, i.e. days start at midnight UTC.
+ */
+public enum TradeStatisticsGranularity {
+
+	HOUR(60L * 60L),
+	DAY(24L * 60L * 60L);
+
+	private final long periodSeconds;
+	private final String key;
+
+	private TradeStatisticsGranularity(long periodSeconds) {
+		this.periodSeconds = periodSeconds;
+		this.key = this.name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Gets the length of the periods in seconds.
+	 * 
+	 * @return the period length in seconds
+	 */
+	public long getPeriodSeconds() {
+		return periodSeconds;
+	}
+
+	/**
+	 * Gets the key by which this granularity is stored.
+	 * 
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Gets the start of the period that contains the given timestamp.
+	 * 
+	 * @param timestamp
+	 *            the timestamp, not <code>null</code>
+	 * @return the start of the period
+	 */
+	public Instant getPeriodStart(Instant timestamp) {
+		Validate.notNull(timestamp, "timestamp is null");
+		long epochSecond = timestamp.getEpochSecond();
+		return Instant.ofEpochSecond(epochSecond - Math.floorMod(epochSecond, periodSeconds));
+	}
+}
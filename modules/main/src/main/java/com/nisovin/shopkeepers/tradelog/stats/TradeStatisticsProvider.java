@@ -0,0 +1,18 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles trade statistics requests.
+ */
+public interface TradeStatisticsProvider {
+
+	/**
+	 * Retrieves the aggregated trade statistics according to the given request.
+	 * 
+	 * @param request
+	 *            the request
+	 * @return the trade statistics
+	 */
+	public CompletableFuture<TradeStatistics> getTradeStatistics(TradeStatisticsRequest request);
+}
@@ -0,0 +1,70 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.time.Instant;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+public class TradeStatisticsRequest {
+
+	public final TradeStatisticsScope scope; // Not null
+	public final String subject; // Not null
+	public final TradeStatisticsGranularity granularity; // Not null
+	// The start of the first period, inclusive:
+	public final Instant from; // Not null
+	// The end of the last period, exclusive:
+	public final Instant to; // Not null
+
+	/**
+	 * Creates a {@link TradeStatisticsRequest} for the aggregated trades of the given subject
+	 * within the specified time span.
+	 * <p>
+	 * The statistics include all periods that start within the time span.
+	 * 
+	 * @param scope
+	 *            the scope of the subject, not <code>null</code>
+	 * @param subject
+	 *            the subject, e.g. the shop's unique id, not <code>null</code> or empty
+	 * @param granularity
+	 *            the granularity of the periods, not <code>null</code>
+	 * @param from
+	 *            the start of the time span, inclusive, not <code>null</code>
+	 * @param to
+	 *            the end of the time span, exclusive, not <code>null</code>
+	 */
+	public TradeStatisticsRequest(
+			TradeStatisticsScope scope,
+			String subject,
+			TradeStatisticsGranularity granularity,
+			Instant from,
+			Instant to
+	) {
+		Validate.notNull(scope, "scope is null");
+		Validate.notEmpty(subject, "subject is null or empty");
+		Validate.notNull(granularity, "granularity is null");
+		Validate.notNull(from, "from is null");
+		Validate.notNull(to, "to is null");
+		Validate.isTrue(!to.isBefore(from), "to is before from");
+		this.scope = scope;
+		this.subject = subject;
+		this.granularity = granularity;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("TradeStatisticsRequest [scope=");
+		builder.append(scope);
+		builder.append(", subject=");
+		builder.append(subject);
+		builder.append(", granularity=");
+		builder.append(granularity);
+		builder.append(", from=");
+		builder.append(from);
+		builder.append(", to=");
+		builder.append(to);
+		builder.append("]");
+		return builder.toString();
+	}
+}
@@ -0,0 +1,38 @@
+package com.nisovin.shopkeepers.tradelog.stats;
+
+import java.util.Locale;
+
+/**
+ * The subjects by which the logged trades are aggregated.
+ */
+public enum TradeStatisticsScope {
+
+	/**
+	 * Aggregates the trades per shop. The subject is the shop's unique id.
+	 */
+	SHOP,
+	/**
+	 * Aggregates the trades of player shops per shop owner. The subject is the owner's unique id.
+	 */
+	OWNER,
+	/**
+	 * Aggregates the trades per type of traded item, i.e. the item that is not the currency. The
+	 * subject is the item type name.
+	 */
+	ITEM;
+
+	private final String key;
+
+	private TradeStatisticsScope() {
+		this.key = this.name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Gets the key by which this scope is stored.
+	 * 
+	 * @return the key
+	 */
+	public String getKey() {
+		return key;
+	}
+}
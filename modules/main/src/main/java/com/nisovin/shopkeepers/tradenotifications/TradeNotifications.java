@@ -218,6 +218,21 @@ public class TradeNotifications implements Listener {
 		tradeMerger.mergeTrade(event.getCompletedTrade());
 	}
 
+	/**
+	 * Sends the notifications for the given number of equal trades that were applied at once.
+	 * <p>
+	 * This is used instead of the {@link ShopkeeperTradeCompletedEvent} when several trades are
+	 * applied in bulk.
+	 * 
+	 * @param tradeEvent
+	 *            the trade event of the trades, not <code>null</code>
+	 * @param tradeCount
+	 *            the number of trades, at least <code>1</code>
+	 */
+	public void onTradesCompleted(ShopkeeperTradeEvent tradeEvent, int tradeCount) {
+		tradeMerger.mergeTrades(tradeEvent, tradeCount);
+	}
+
 	private void onTradesCompleted(MergedTrades mergedTrades) {
 		TradeContext tradeContext = new TradeContext(mergedTrades);
 		this.sendTradeNotifications(tradeContext);
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -45,6 +46,16 @@ public final class UISessionManager {
 		}
 	}
 
+	/**
+	 * The UI sessions that share a certain key, such as the same context object or UI type.
+	 */
+	private static final class SessionIndexEntry {
+
+		private final List<View> sessions = new ArrayList<>();
+		private final Collection<? extends View> sessionsView
+				= Collections.unmodifiableList(sessions);
+	}
+
 	private static @Nullable UISessionManager instance;
 
 	public static UISessionManager getInstance() {
@@ -71,6 +82,14 @@ public final class UISessionManager {
 	private final Map<UUID, View> uiSessions = new HashMap<>();
 	private final Collection<? extends View> uiSessionsView
 			= Collections.unmodifiableCollection(uiSessions.values());
+	// Secondary indices: The context objects and UI types are compared by identity.
+	// Context object -> Views
+	// Entries are removed once they no longer contain any sessions.
+	private final Map<Object, SessionIndexEntry> uiSessionsByContext = new IdentityHashMap<>();
+	// UI type -> Views
+	// Since there are only a few UI types, entries are retained even if they no longer contain any
+	// sessions.
+	private final Map<UIType, SessionIndexEntry> uiSessionsByType = new IdentityHashMap<>();
 
 	private UISessionManager(Plugin plugin, SessionHandler sessionHandler) {
 		Validate.notNull(plugin, "plugin is null");
@@ -175,7 +194,7 @@ public final class UISessionManager {
 		view.getAdditionalInventoryEvents().forEach(uiListener::registerEventType);
 
 		// Register the new UI session:
-		uiSessions.put(player.getUniqueId(), view);
+		this.addUISession(player, view);
 
 		// Open the view for the player:
 		if (!view.open()) {
@@ -187,43 +206,107 @@ public final class UISessionManager {
 		return true;
 	}
 
+	private void addUISession(Player player, View session) {
+		assert player != null && session != null;
+		View oldSession = uiSessions.put(player.getUniqueId(), session);
+		assert oldSession == null;
+
+		Object contextObject = session.getContext().getObject();
+		uiSessionsByContext.computeIfAbsent(contextObject, key -> new SessionIndexEntry())
+				.sessions.add(session);
+		uiSessionsByType.computeIfAbsent(session.getUIType(), key -> new SessionIndexEntry())
+				.sessions.add(session);
+	}
+
+	private @Nullable View removeUISession(Player player) {
+		assert player != null;
+		View session = uiSessions.remove(player.getUniqueId());
+		if (session == null) return null;
+
+		Object contextObject = session.getContext().getObject();
+		SessionIndexEntry contextEntry = uiSessionsByContext.get(contextObject);
+		if (contextEntry != null) {
+			contextEntry.sessions.remove(session);
+			if (contextEntry.sessions.isEmpty()) {
+				uiSessionsByContext.remove(contextObject);
+			}
+		}
+
+		SessionIndexEntry typeEntry = uiSessionsByType.get(session.getUIType());
+		if (typeEntry != null) {
+			typeEntry.sessions.remove(session);
+		}
+		return session;
+	}
+
 	public Collection<? extends View> getUISessions() {
 		return uiSessionsView;
 	}
 
+	/**
+	 * Gets the UI sessions whose {@link View#getContext() context object} is the given object.
+	 * <p>
+	 * The returned collection is an unmodifiable view on the current UI sessions. However, it is
+	 * only guaranteed to reflect UI sessions that are started for the context object as long as
+	 * there is at least one active UI session for the context object. The returned collection must
+	 * be copied before any UI sessions are aborted while iterating it.
+	 * 
+	 * @param contextObject
+	 *            the context object, compared by identity, not <code>null</code>
+	 * @return an unmodifiable view on the UI sessions, not <code>null</code>
+	 */
 	public Collection<? extends View> getUISessionsForContext(Object contextObject) {
 		Validate.notNull(contextObject, "contextObject is null");
-		List<View> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getContext().getObject() == contextObject) {
-				sessions.add(uiSession);
-			}
-		});
-		return sessions;
+		SessionIndexEntry contextEntry = uiSessionsByContext.get(contextObject);
+		if (contextEntry == null) return Collections.emptyList();
+		return contextEntry.sessionsView;
 	}
 
+	/**
+	 * Gets the UI sessions of the specified UI type whose {@link View#getContext() context object}
+	 * is the given object.
+	 * <p>
+	 * Unlike {@link #getUISessionsForContext(Object)}, this returns a snapshot of the current UI
+	 * sessions. This only allocates a new collection if there are matching UI sessions.
+	 * 
+	 * @param contextObject
+	 *            the context object, compared by identity, not <code>null</code>
+	 * @param uiType
+	 *            the UI type, not <code>null</code>
+	 * @return the UI sessions, not <code>null</code>
+	 */
 	public Collection<? extends View> getUISessionsForContext(Object contextObject, UIType uiType) {
 		Validate.notNull(contextObject, "contextObject is null");
 		Validate.notNull(uiType, "uiType is null");
-		List<View> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getContext().getObject() == contextObject
-					&& uiSession.getUIType() == uiType) {
-				sessions.add(uiSession);
+		SessionIndexEntry contextEntry = uiSessionsByContext.get(contextObject);
+		if (contextEntry == null) return Collections.emptyList();
+
+		List<View> sessions = Collections.emptyList();
+		for (View uiSession : contextEntry.sessions) {
+			if (uiSession.getUIType() != uiType) continue;
+			if (sessions.isEmpty()) {
+				sessions = new ArrayList<>();
 			}
-		});
+			sessions.add(uiSession);
+		}
 		return sessions;
 	}
 
+	/**
+	 * Gets the UI sessions of the specified UI type.
+	 * <p>
+	 * The returned collection is an unmodifiable view on the current UI sessions. It must be copied
+	 * before any UI sessions are aborted while iterating it.
+	 * 
+	 * @param uiType
+	 *            the UI type, not <code>null</code>
+	 * @return an unmodifiable view on the UI sessions, not <code>null</code>
+	 */
 	public Collection<? extends View> getUISessions(UIType uiType) {
 		Validate.notNull(uiType, "uiType is null");
-		List<View> sessions = new ArrayList<>();
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getUIType() == uiType) {
-				sessions.add(uiSession);
-			}
-		});
-		return sessions;
+		SessionIndexEntry typeEntry = uiSessionsByType.get(uiType);
+		if (typeEntry == null) return Collections.emptyList();
+		return typeEntry.sessionsView;
 	}
 
 	public @Nullable View getUISession(Player player) {
@@ -255,7 +338,7 @@ public final class UISessionManager {
 	// closeEvent can be null.
 	void endUISession(Player player, @Nullable InventoryCloseEvent closeEvent) {
 		assert player != null;
-		View session = uiSessions.remove(player.getUniqueId());
+		View session = this.removeUISession(player);
 		if (session == null) return;
 
 		this.onSessionEnded(session, closeEvent);
@@ -282,12 +365,15 @@ public final class UISessionManager {
 	public void abortUISessions() {
 		// Copy to prevent concurrent modifications:
 		new ArrayList<>(this.getUISessions()).forEach(View::abort);
-		assert uiSessions.isEmpty();
+		assert uiSessions.isEmpty() && uiSessionsByContext.isEmpty();
 	}
 
 	public void abortUISessionsForContext(Object contextObject) {
-		// Note: The returned collection is already a copy.
-		this.getUISessionsForContext(contextObject).forEach(View::abort);
+		Collection<? extends View> uiSessions = this.getUISessionsForContext(contextObject);
+		if (uiSessions.isEmpty()) return;
+
+		// Copy to prevent concurrent modifications:
+		new ArrayList<>(uiSessions).forEach(View::abort);
 	}
 
 	public void abortUISessionsForContext(Object contextObject, UIType uiType) {
@@ -320,18 +406,13 @@ public final class UISessionManager {
 
 	private void deactivateUIsForContext(Object contextObject) {
 		assert contextObject != null;
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getContext().getObject() == contextObject) {
-				uiSession.deactivateUI();
-			}
-		});
+		this.getUISessionsForContext(contextObject).forEach(View::deactivateUI);
 	}
 
 	private void deactivateUIsForContext(Object contextObject, UIType uiType) {
 		assert contextObject != null;
-		uiSessionsView.forEach(uiSession -> {
-			if (uiSession.getContext().getObject() == contextObject
-					&& uiSession.getUIType() == uiType) {
+		this.getUISessionsForContext(contextObject).forEach(uiSession -> {
+			if (uiSession.getUIType() == uiType) {
 				uiSession.deactivateUI();
 			}
 		});
@@ -33,6 +33,7 @@ public final class Trade {
 	private final ShopkeeperTradeEvent tradeEvent;
 
 	private boolean tradeEventCalled = false;
+	private int bulkTradeCount = 1;
 
 	/**
 	 * Creates a new {@link Trade}.
@@ -228,6 +229,31 @@ public final class Trade {
 		return swappedItemOrder;
 	}
 
+	/**
+	 * Gets the number of equal trades that are applied at once by this {@link Trade}.
+	 * <p>
+	 * When trading in bulk, a single {@link Trade} applies the changes of several equal trades at
+	 * once, and the {@link #getTradeEvent() trade event} is only called once for all of these
+	 * trades. The trade event describes a single one of these trades.
+	 * 
+	 * @return the number of trades, at least <code>1</code>
+	 */
+	public int getBulkTradeCount() {
+		return bulkTradeCount;
+	}
+
+	/**
+	 * Sets the number of equal trades that are applied at once by this {@link Trade}.
+	 * 
+	 * @param bulkTradeCount
+	 *            the number of trades, at least <code>1</code>
+	 * @see #getBulkTradeCount()
+	 */
+	void setBulkTradeCount(int bulkTradeCount) {
+		Validate.isTrue(bulkTradeCount >= 1, "bulkTradeCount is less than 1");
+		this.bulkTradeCount = bulkTradeCount;
+	}
+
 	/**
 	 * Gets the {@link KeyValueStore} that stores additional arbitrary metadata related to this
 	 * {@link Trade}.
@@ -22,10 +22,13 @@ import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantInventory;
 import org.bukkit.inventory.MerchantRecipe;
 import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.plugin.Plugin;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.nisovin.shopkeepers.SKShopkeepersPlugin;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeCompletedEvent;
 import com.nisovin.shopkeepers.api.events.ShopkeeperTradeEvent;
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.api.shopkeeper.Shopkeeper;
 import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
 import com.nisovin.shopkeepers.api.trading.TradeEffect;
@@ -38,7 +41,9 @@ import com.nisovin.shopkeepers.lang.Messages;
 import com.nisovin.shopkeepers.ui.lib.UIState;
 import com.nisovin.shopkeepers.ui.lib.View;
 import com.nisovin.shopkeepers.util.annotations.ReadOnly;
+import com.nisovin.shopkeepers.util.annotations.ReadWrite;
 import com.nisovin.shopkeepers.util.bukkit.ConfigUtils;
+import com.nisovin.shopkeepers.util.bukkit.EventUtils;
 import com.nisovin.shopkeepers.util.bukkit.MerchantUtils;
 import com.nisovin.shopkeepers.util.bukkit.TextUtils;
 import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
@@ -57,6 +62,10 @@ public class TradingView extends View {
 	protected static final int BUY_ITEM_2_SLOT_ID = 1;
 	protected static final int RESULT_ITEM_SLOT_ID = 2;
 
+	// The version of the trading recipes that the merchant recipes of the trading window correspond
+	// to:
+	private int merchantRecipesVersion = TradingViewProvider.UNVERSIONED;
+
 	public TradingView(TradingViewProvider provider, Player player, UIState uiState) {
 		super(provider, player, uiState);
 	}
@@ -115,11 +124,30 @@ public class TradingView extends View {
 
 	protected void setupMerchantRecipes(Merchant merchant, List<? extends TradingRecipe> recipes) {
 		// Create list of merchant recipes:
-		List<MerchantRecipe> merchantRecipes = this.createMerchantRecipes(recipes);
+		List<MerchantRecipe> merchantRecipes = this.getOrCreateMerchantRecipes(recipes);
 		// Set merchant's recipes:
 		merchant.setRecipes(merchantRecipes);
 	}
 
+	// If the trading recipes are versioned, this reuses the merchant recipes that were already
+	// created for the current version. The merchant copies the recipes when they are set, so they
+	// can be shared with other trading views. Returns a new list that can be modified.
+	private List<MerchantRecipe> getOrCreateMerchantRecipes(List<? extends TradingRecipe> recipes) {
+		TradingViewProvider provider = this.getTradingViewProvider();
+		int version = provider.getTradingRecipesVersion(this.getPlayer());
+		merchantRecipesVersion = version;
+		if (version == TradingViewProvider.UNVERSIONED) {
+			return this.createMerchantRecipes(recipes);
+		}
+
+		List<MerchantRecipe> merchantRecipes = provider.getCachedMerchantRecipes(version);
+		if (merchantRecipes == null) {
+			merchantRecipes = this.createMerchantRecipes(recipes);
+			provider.setCachedMerchantRecipes(version, merchantRecipes);
+		}
+		return new ArrayList<>(merchantRecipes);
+	}
+
 	protected List<MerchantRecipe> createMerchantRecipes(List<? extends TradingRecipe> recipes) {
 		List<MerchantRecipe> merchantRecipes = new ArrayList<>();
 		for (TradingRecipe recipe : recipes) {
@@ -150,6 +178,15 @@ public class TradingView extends View {
 		if (!this.isOpen()) return;
 
 		Player player = this.getPlayer();
+		int version = this.getTradingViewProvider().getTradingRecipesVersion(player);
+		if (version != TradingViewProvider.UNVERSIONED && version == merchantRecipesVersion) {
+			// The trading recipes did not change since the merchant recipes were last set. We can
+			// skip the creation and comparison of the merchant recipes.
+			Log.debug(() -> this.getContext().getLogPrefix()
+					+ "Trades are still up-to-date for player " + player.getName());
+			return;
+		}
+
 		InventoryView openInventory = player.getOpenInventory();
 		assert openInventory.getType() == InventoryType.MERCHANT;
 		MerchantInventory merchantInventory = (MerchantInventory) openInventory.getTopInventory();
@@ -158,7 +195,7 @@ public class TradingView extends View {
 
 		Shopkeeper shopkeeper = this.getShopkeeperNonNull();
 		List<? extends TradingRecipe> recipes = shopkeeper.getTradingRecipes(player);
-		List<MerchantRecipe> newMerchantRecipes = this.createMerchantRecipes(recipes);
+		List<MerchantRecipe> newMerchantRecipes = this.getOrCreateMerchantRecipes(recipes);
 		if (MerchantUtils.MERCHANT_RECIPES_IGNORE_USES_EXCEPT_BLOCKED.equals(
 				oldMerchantRecipes,
 				newMerchantRecipes
@@ -478,90 +515,243 @@ public class TradingView extends View {
 			// result in the trade to fail if the chest of a player shop is full, even though it
 			// would in principle be possible to trade one time 64 items for 64 items (because
 			// removing 64 items will clear a slot of the chest, whereas removing only one item at a
-			// time may not). However, determining up front how often the trade can be applied would
-			// be tricky, especially since the used trading recipe may change mid trading (at least
-			// in vanilla Minecraft). Also, usually the situation may dynamically change in-between
-			// the individual trades (especially if plugins or the shopkeepers themselves react to
-			// the individual trades), and each trade may have other side effects. So trading one
-			// time 64 for 64 items may not be equivalent to trading 64 times one item for one item.
-			while (true) {
-				if (!this.handleTrade(trade)) {
-					// Trade was aborted:
+			// time may not). However, usually the situation may dynamically change in-between the
+			// individual trades (especially if plugins or the shopkeepers themselves react to the
+			// individual trades), and each trade may have other side effects. So trading one time
+			// 64 for 64 items may not be equivalent to trading 64 times one item for one item.
+			// However, if no other plugins react to the individual trades, we determine up front
+			// how often the trade can be applied and then apply all of these trades at once.
+			if (this.isBulkTradingSupported()) {
+				this.handleBulkTrades(tradingContext, trade);
+			} else {
+				this.handleShiftClickTrades(tradingContext, trade, false);
+			}
+
+			this.updateTrades();
+		} else {
+			// The inventory action involves the result slot, but does not usually trigger a trade,
+			// or is not supported yet.
+		}
+	}
+
+	// Shift left or right click: Trades as often as possible, handling each trade individually.
+	// If the first trade has already been handled, this continues with the application of that
+	// trade.
+	private void handleShiftClickTrades(
+			TradingContext tradingContext,
+			Trade firstTrade,
+			boolean firstTradeHandled
+	) {
+		PlayerInventory playerInventory = tradingContext.getPlayerInventory();
+		Trade trade = firstTrade;
+		boolean tradeHandled = firstTradeHandled;
+		while (true) {
+			if (!tradeHandled && !this.handleTrade(trade)) {
+				// Trade was aborted:
+				break;
+			}
+			tradeHandled = false;
+
+			UnmodifiableItemStack resultItem = trade.getTradeEvent().getResultItem();
+			boolean resultItemEmpty = ItemUtils.isEmpty(resultItem);
+
+			@Nullable ItemStack[] newPlayerContents = null;
+
+			if (!resultItemEmpty) {
+				assert resultItem != null;
+
+				// Check if there is enough space in the player's inventory:
+				newPlayerContents = playerInventory.getStorageContents();
+				if (addResultItems(newPlayerContents, resultItem, resultItem.getAmount()) != 0) {
+					Log.debug(() -> this.getContext().getLogPrefix()
+							+ "Not handling trade: Not enough inventory space.");
+					this.onTradeAborted(tradingContext, false);
 					break;
 				}
+			}
 
-				UnmodifiableItemStack resultItem = trade.getTradeEvent().getResultItem();
-				boolean resultItemEmpty = ItemUtils.isEmpty(resultItem);
+			if (!this.finalTradePreparation(trade)) {
+				return;
+			}
 
-				ItemStack[] newPlayerContents = null;
+			// We are going to apply the trade now:
+			this.preApplyTrade(trade);
 
-				if (!resultItemEmpty) {
-					assert resultItem != null;
+			if (!resultItemEmpty) {
+				assert newPlayerContents != null;
 
-					// Check if there is enough space in the player's inventory:
-					newPlayerContents = playerInventory.getStorageContents();
+				// Apply player inventory changes:
+				InventoryUtils.setStorageContents(playerInventory, newPlayerContents);
+			}
 
-					// Minecraft is adding items in reverse container order (starting with hotbar
-					// slot 9), so we reverse the player contents accordingly before adding items:
-					// Changes write through to the original array.
-					List<ItemStack> listView = Arrays.asList(newPlayerContents);
-					List<ItemStack> hotbarView = listView.subList(0, 9);
-					List<ItemStack> contentsView = listView.subList(9, 36);
-					Collections.reverse(hotbarView);
-					Collections.reverse(contentsView);
+			// Common apply trade:
+			this.commonApplyTrade(trade);
 
-					// No item copy required here:
-					if (InventoryUtils.addItems(newPlayerContents, resultItem) != 0) {
-						Log.debug(() -> this.getContext().getLogPrefix()
-								+ "Not handling trade: Not enough inventory space.");
-						this.onTradeAborted(tradingContext, false);
-						break;
-					}
+			// Check if we can continue trading:
+			var previousTrade = trade;
+			trade = this.checkForTrade(tradingContext, true); // Silent
+			if (trade == null) {
+				// No trade available:
+				break;
+			}
 
-					// Revert the previous reverse:
-					Collections.reverse(hotbarView);
-					Collections.reverse(contentsView);
-				}
+			// Abort the trading if the active trading recipe has changed:
+			// Mimics Minecraft behavior: Minecraft aborts the trading if the result item has
+			// changed. We compare the full trading recipe instead, so that players don't
+			// accidentally continue trading the same result item but for different costs.
+			if (!trade.getTradingRecipe().equals(previousTrade.getTradingRecipe())) {
+				break; // The active trade has changed: Abort
+			}
+		}
+	}
 
-				if (!this.finalTradePreparation(trade)) {
-					return;
-				}
+	// Shift left or right click: Determines how often the trade can be applied and then applies
+	// all of these trades at once. The trade event is only called once. Falls back to handling the
+	// trades individually if the trade cannot be applied more than once.
+	// Since all of these trades use the same trading recipe, and the offered items, the player's
+	// inventory space, or the shop's stock or containers limit the number of trades, no further
+	// trades can be applied afterwards.
+	private void handleBulkTrades(TradingContext tradingContext, Trade trade) {
+		if (!this.handleTrade(trade)) {
+			// Trade was aborted:
+			return;
+		}
 
-				// We are going to apply the trade now:
-				this.preApplyTrade(trade);
+		int bulkTradeCount = this.getBulkTradeCount(trade);
+		if (bulkTradeCount <= 1) {
+			// Handle the trades individually: This also informs the player if the trade cannot be
+			// applied at all.
+			this.handleShiftClickTrades(tradingContext, trade, true);
+			return;
+		}
+		trade.setBulkTradeCount(bulkTradeCount);
 
-				if (!resultItemEmpty) {
-					assert newPlayerContents != null;
+		// Not empty: The result item was not altered during the trade event.
+		UnmodifiableItemStack resultItem = Unsafe.assertNonNull(
+				trade.getTradeEvent().getResultItem()
+		);
+		PlayerInventory playerInventory = tradingContext.getPlayerInventory();
+		@Nullable ItemStack[] newPlayerContents = playerInventory.getStorageContents();
+		int remaining = addResultItems(
+				newPlayerContents,
+				resultItem,
+				resultItem.getAmount() * bulkTradeCount
+		);
+		assert remaining == 0; // Checked by getBulkTradeCount
 
-					// Apply player inventory changes:
-					InventoryUtils.setStorageContents(playerInventory, newPlayerContents);
-				}
+		if (!this.finalTradePreparation(trade)) {
+			return;
+		}
 
-				// Common apply trade:
-				this.commonApplyTrade(trade);
+		// We are going to apply the trades now:
+		this.preApplyTrade(trade);
 
-				// Check if we can continue trading:
-				var previousTrade = trade;
-				trade = this.checkForTrade(tradingContext, true); // Silent
-				if (trade == null) {
-					// No trade available:
-					break;
-				}
+		// Apply player inventory changes:
+		InventoryUtils.setStorageContents(playerInventory, newPlayerContents);
 
-				// Abort the trading if the active trading recipe has changed:
-				// Mimics Minecraft behavior: Minecraft aborts the trading if the result item has
-				// changed. We compare the full trading recipe instead, so that players don't
-				// accidentally continue trading the same result item but for different costs.
-				if (!trade.getTradingRecipe().equals(previousTrade.getTradingRecipe())) {
-					break; // The active trade has changed: Abort
-				}
-			}
+		// Common apply trade:
+		this.commonApplyTrade(trade);
+	}
 
-			this.updateTrades();
-		} else {
-			// The inventory action involves the result slot, but does not usually trigger a trade,
-			// or is not supported yet.
+	// Determines how often the given trade, whose trade event has already been called, can be
+	// applied at once. Returns 1 or less if the trade cannot be applied in bulk.
+	private int getBulkTradeCount(Trade trade) {
+		ShopkeeperTradeEvent tradeEvent = trade.getTradeEvent();
+		// Trade effects and altered items might not be applicable to several trades at once:
+		if (!tradeEvent.getTradeEffects().isEmpty()
+				|| tradeEvent.isResultItemAltered()
+				|| tradeEvent.isReceivedItem1Altered()
+				|| tradeEvent.isReceivedItem2Altered()) {
+			return 1;
 		}
+
+		// Limited by the offered items:
+		TradingRecipe tradingRecipe = trade.getTradingRecipe();
+		int maxTradeCount = trade.getOfferedItem1().getAmount()
+				/ tradingRecipe.getItem1().getAmount();
+		UnmodifiableItemStack requiredItem2 = tradingRecipe.getItem2();
+		if (!ItemUtils.isEmpty(requiredItem2)) {
+			assert requiredItem2 != null;
+			ItemStack offeredItem2 = Unsafe.assertNonNull(trade.getOfferedItem2());
+			maxTradeCount = Math.min(
+					maxTradeCount,
+					offeredItem2.getAmount() / requiredItem2.getAmount()
+			);
+		}
+		if (maxTradeCount <= 1) return maxTradeCount;
+
+		// Limited by the space in the player's inventory:
+		UnmodifiableItemStack resultItem = tradingRecipe.getResultItem();
+		int resultAmount = resultItem.getAmount();
+		int maxResultAmount = resultAmount * maxTradeCount;
+		int remaining = addResultItems(
+				trade.getPlayerInventory().getStorageContents(),
+				resultItem,
+				maxResultAmount
+		);
+		maxTradeCount = (maxResultAmount - remaining) / resultAmount;
+		if (maxTradeCount <= 1) return maxTradeCount;
+
+		// Limited by the shopkeeper:
+		return this.getMaxBulkTradeCount(trade, maxTradeCount);
+	}
+
+	// Adds the result items to the given player inventory storage contents.
+	// Returns the amount of items that could not be added.
+	private static int addResultItems(
+			@ReadOnly @Nullable ItemStack @ReadWrite [] playerContents,
+			UnmodifiableItemStack resultItem,
+			int amount
+	) {
+		// Minecraft is adding items in reverse container order (starting with hotbar slot 9), so we
+		// reverse the player contents accordingly before adding items:
+		// Changes write through to the original array.
+		List<ItemStack> listView = Arrays.asList(playerContents);
+		List<ItemStack> hotbarView = listView.subList(0, 9);
+		List<ItemStack> contentsView = listView.subList(9, 36);
+		Collections.reverse(hotbarView);
+		Collections.reverse(contentsView);
+
+		// No item copy required here:
+		int remaining = InventoryUtils.addItems(playerContents, resultItem, amount);
+
+		// Revert the previous reverse:
+		Collections.reverse(hotbarView);
+		Collections.reverse(contentsView);
+		return remaining;
+	}
+
+	private boolean isBulkTradingSupported() {
+		// Other plugins might react to the individual trades, e.g. by inspecting or modifying the
+		// involved inventories:
+		Plugin plugin = SKShopkeepersPlugin.getInstance();
+		return !EventUtils.hasOtherPluginListeners(ShopkeeperTradeEvent.getHandlerList(), plugin)
+				&& !EventUtils.hasOtherPluginListeners(
+						ShopkeeperTradeCompletedEvent.getHandlerList(),
+						plugin
+				);
+	}
+
+	/**
+	 * Determines how often the given trade can be applied at once, taking any shopkeeper-specific
+	 * limits into account.
+	 * <p>
+	 * This is called when the player triggers a shift-click trade, after the
+	 * {@link ShopkeeperTradeEvent} has been called, if the offered items and the player's
+	 * inventory space would allow to apply the trade several times. If this returns a value
+	 * greater than <code>1</code>, the trades are then {@link Trade#getBulkTradeCount() applied in
+	 * bulk}. Otherwise, the trades are handled individually.
+	 * <p>
+	 * This must not modify the trade, nor any of the involved inventories.
+	 * 
+	 * @param trade
+	 *            the trade, not <code>null</code>
+	 * @param maxTradeCount
+	 *            the max number of trades, at least <code>2</code>
+	 * @return the number of trades that can be applied at once, at most <code>maxTradeCount</code>
+	 */
+	protected int getMaxBulkTradeCount(Trade trade, int maxTradeCount) {
+		return maxTradeCount;
 	}
 
 	private void clearResultSlotForInvalidTrade(MerchantInventory merchantInventory) {
@@ -848,13 +1038,14 @@ public class TradingView extends View {
 		merchantInventory.setItem(RESULT_ITEM_SLOT_ID, null); // Clear result slot, just in case
 
 		TradingRecipe tradingRecipe = trade.getTradingRecipe();
+		int bulkTradeCount = trade.getBulkTradeCount();
 		ItemStack newOfferedItem1 = ItemUtils.decreaseItemAmount(
 				trade.getOfferedItem1(),
-				ItemUtils.getItemStackAmount(tradingRecipe.getItem1())
+				ItemUtils.getItemStackAmount(tradingRecipe.getItem1()) * bulkTradeCount
 		);
 		ItemStack newOfferedItem2 = ItemUtils.decreaseItemAmount(
 				trade.getOfferedItem2(),
-				ItemUtils.getItemStackAmount(tradingRecipe.getItem2())
+				ItemUtils.getItemStackAmount(tradingRecipe.getItem2()) * bulkTradeCount
 		);
 		// Inform the merchant inventory about the change (updates the active trading recipe and
 		// result item):
@@ -874,7 +1065,7 @@ public class TradingView extends View {
 
 		// Increment 'traded-with-villager' statistic for every trade:
 		if (Settings.incrementVillagerStatistics) {
-			player.incrementStatistic(Statistic.TRADED_WITH_VILLAGER);
+			player.incrementStatistic(Statistic.TRADED_WITH_VILLAGER, bulkTradeCount);
 		}
 
 		// Shopkeeper-specific application of the trade:
@@ -884,9 +1075,18 @@ public class TradingView extends View {
 		ShopkeeperTradeEvent tradeEvent = trade.getTradeEvent();
 		tradeEvent.getTradeEffects().forEach(tradeEffect -> tradeEffect.onTradeApplied(tradeEvent));
 
-		// Call trade completed event:
-		ShopkeeperTradeCompletedEvent tradeCompletedEvent = new ShopkeeperTradeCompletedEvent(tradeEvent);
-		Bukkit.getPluginManager().callEvent(tradeCompletedEvent);
+		if (bulkTradeCount == 1) {
+			// Call trade completed event:
+			var tradeCompletedEvent = new ShopkeeperTradeCompletedEvent(tradeEvent);
+			Bukkit.getPluginManager().callEvent(tradeCompletedEvent);
+		} else {
+			// Trades are only applied in bulk if no other plugins listen for the trade completed
+			// event. Instead of calling the event for each trade, we inform our own listeners about
+			// all of these trades at once:
+			SKShopkeepersPlugin plugin = SKShopkeepersPlugin.getInstance();
+			plugin.getTradeLoggers().onTradesCompleted(tradeEvent, bulkTradeCount);
+			plugin.getTradeNotifications().onTradesCompleted(tradeEvent, bulkTradeCount);
+		}
 
 		// Play a sound effect if this is the first trade triggered by the inventory click:
 		boolean silent = (trade.getTradeNumber() > 1);
@@ -899,6 +1099,7 @@ public class TradingView extends View {
 
 		// Log trade:
 		Log.debug(() -> trade.getShopkeeper().getLogPrefix() + "Trade (#" + trade.getTradeNumber()
+				+ (bulkTradeCount > 1 ? ", " + bulkTradeCount + " times" : "")
 				+ ") by " + player.getName() + ": " + ItemUtils.getSimpleRecipeInfo(tradingRecipe));
 
 		this.onTradeCompleted(trade);
@@ -952,6 +1153,9 @@ public class TradingView extends View {
 	 * preparations. The trade can still be cancelled at this stage, but the
 	 * {@link ShopkeeperTradeEvent} must not be modified anymore. Use
 	 * {@link #onPostTradeEvent(Trade)} if you need to modify the trade event.
+	 * <p>
+	 * If the trade is {@link Trade#getBulkTradeCount() applied in bulk}, the preparations and
+	 * checks need to account for all of these trades.
 	 * 
 	 * @param trade
 	 *            the trade
@@ -1028,7 +1232,9 @@ public class TradingView extends View {
 	 * before any {@link TradeEffect#onTradeApplied(ShopkeeperTradeEvent)} calls and before the
 	 * {@link ShopkeeperTradeCompletedEvent} is called.
 	 * <p>
-	 * This can be used to apply any shopkeeper-specific trading behavior.
+	 * This can be used to apply any shopkeeper-specific trading behavior. If the trade is
+	 * {@link Trade#getBulkTradeCount() applied in bulk}, this is only called once for all of these
+	 * trades.
 	 * <p>
 	 * At this phase of the trade handling, the trade can no longer be cancelled. Any conditions
 	 * that could prevent a trade from getting successfully applied must be checked during
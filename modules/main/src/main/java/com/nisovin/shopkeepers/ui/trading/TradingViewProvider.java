@@ -1,9 +1,11 @@
 package com.nisovin.shopkeepers.ui.trading;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.MerchantRecipe;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
@@ -20,8 +22,18 @@ import com.nisovin.shopkeepers.util.java.Validate;
 
 public class TradingViewProvider extends AbstractShopkeeperViewProvider {
 
+	/**
+	 * The {@link #getTradingRecipesVersion(Player) trading recipes version} that indicates that the
+	 * trading recipes are not versioned.
+	 */
+	protected static final int UNVERSIONED = -1;
+
 	private final List<TradingListener> tradingListeners = new ArrayList<>();
 
+	// The merchant recipes that were created for the trading recipes of a specific version:
+	private int cachedMerchantRecipesVersion = UNVERSIONED;
+	private @Nullable List<MerchantRecipe> cachedMerchantRecipes = null;
+
 	public TradingViewProvider(AbstractShopkeeper shopkeeper) {
 		this(SKDefaultUITypes.TRADING(), shopkeeper);
 	}
@@ -50,6 +62,40 @@ public class TradingViewProvider extends AbstractShopkeeperViewProvider {
 		return tradingListeners;
 	}
 
+	/**
+	 * Gets the version of the trading recipes that the shopkeeper provides to the given player.
+	 * <p>
+	 * If the trading recipes are versioned, the trading views of this provider create the merchant
+	 * recipes for each version only once and then reuse them for all players, and skip updating
+	 * the trades of open trading windows if the version did not change. The version therefore has
+	 * to change whenever the trading recipes that the shopkeeper provides might have changed, and
+	 * the trading recipes for the same version have to be the same for all players.
+	 * <p>
+	 * By default, the trading recipes are not versioned, because they can depend on the player or
+	 * on external state, such as the stock of player shops.
+	 * 
+	 * @param player
+	 *            the player, not <code>null</code>
+	 * @return the non-negative version, or {@link #UNVERSIONED} if the trading recipes are not
+	 *         versioned
+	 */
+	protected int getTradingRecipesVersion(Player player) {
+		return UNVERSIONED;
+	}
+
+	// Returns null if there are no cached merchant recipes for the specified version.
+	final @Nullable List<MerchantRecipe> getCachedMerchantRecipes(int version) {
+		if (version == UNVERSIONED || version != cachedMerchantRecipesVersion) return null;
+		return cachedMerchantRecipes;
+	}
+
+	// The cached merchant recipes are not modified, nor passed to any code that might modify them.
+	final void setCachedMerchantRecipes(int version, List<MerchantRecipe> merchantRecipes) {
+		assert version != UNVERSIONED && merchantRecipes != null;
+		cachedMerchantRecipesVersion = version;
+		cachedMerchantRecipes = Collections.unmodifiableList(new ArrayList<>(merchantRecipes));
+	}
+
 	@Override
 	public boolean canAccess(Player player, boolean silent) {
 		Validate.notNull(player, "player is null");
@@ -1,7 +1,10 @@
 package com.nisovin.shopkeepers.util.bukkit;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -33,6 +36,7 @@ public final class ConfigUtils {
 	static {
 		ERROR_DETECTION_HANDLER.setLevel(Level.SEVERE);
 	}
+	private static boolean deserializingSafely = false;
 
 	/**
 	 * Creates a new {@link YamlConfiguration} with some common default setup applied.
@@ -125,6 +129,72 @@ public final class ConfigUtils {
 		return dataMap;
 	}
 
+	/**
+	 * Recursively serializes any {@link ConfigurationSerializable ConfigurationSerializables}
+	 * inside the given value, similar to how Bukkit serializes them when saving a config.
+	 * <p>
+	 * This can be used to capture data on the server's main thread that is subsequently serialized
+	 * asynchronously, without invoking any Bukkit serialization logic on the async thread.
+	 * <p>
+	 * The given value and its contents are not modified: Any Maps, Lists, and config sections that
+	 * contain ConfigurationSerializables are copied, and the copies are returned instead. Config
+	 * sections are copied as Maps in this case. Values that do not contain any
+	 * ConfigurationSerializables are returned as they are.
+	 * 
+	 * @param value
+	 *            the value, can be <code>null</code>
+	 * @return the value with all contained ConfigurationSerializables serialized, or the given value
+	 *         itself if it does not contain any ConfigurationSerializables
+	 */
+	public static @Nullable Object serializeDeeply(@Nullable Object value) {
+		if (value instanceof ConfigurationSerializable) {
+			// The serialized data can itself contain ConfigurationSerializables (e.g. the meta of
+			// an item stack):
+			return serializeDeeply(serialize((ConfigurationSerializable) value));
+		} else if (value instanceof ConfigurationSection) {
+			ConfigurationSection section = (ConfigurationSection) value;
+			Map<String, Object> sectionValues = getValues(section);
+			Map<?, ?> serializedValues = serializeMapValuesDeeply(sectionValues);
+			return (serializedValues == sectionValues) ? section : serializedValues;
+		} else if (value instanceof Map) {
+			return serializeMapValuesDeeply((Map<?, ?>) value);
+		} else if (value instanceof List) {
+			return serializeListElementsDeeply((List<?>) value);
+		} else {
+			return value;
+		}
+	}
+
+	private static Map<?, ?> serializeMapValuesDeeply(Map<?, ?> map) {
+		@Nullable Map<@Nullable Object, @Nullable Object> copy = null;
+		for (Entry<?, ?> entry : map.entrySet()) {
+			Object entryValue = entry.getValue();
+			Object serializedValue = serializeDeeply(entryValue);
+			if (serializedValue == entryValue) continue;
+
+			if (copy == null) {
+				copy = new LinkedHashMap<>(map);
+			}
+			copy.put(entry.getKey(), serializedValue);
+		}
+		return (copy != null) ? copy : map;
+	}
+
+	private static List<?> serializeListElementsDeeply(List<?> list) {
+		@Nullable List<@Nullable Object> copy = null;
+		for (int i = 0; i < list.size(); i++) {
+			Object element = list.get(i);
+			Object serializedElement = serializeDeeply(element);
+			if (serializedElement == element) continue;
+
+			if (copy == null) {
+				copy = new ArrayList<>(list);
+			}
+			copy.set(i, serializedElement);
+		}
+		return (copy != null) ? copy : list;
+	}
+
 	// Expects the Map to contain a type key, and any inner serializable data to already be
 	// deserialized.
 	public static <T extends ConfigurationSerializable> @Nullable T deserialize(
@@ -234,12 +304,52 @@ public final class ConfigUtils {
 			String contents
 	) throws InvalidConfigurationException {
 		Validate.notNull(config, "config is null");
+		deserializeSafely(() -> config.loadFromString(contents));
+	}
+
+	/**
+	 * An action that deserializes {@link ConfigurationSerializable}s.
+	 */
+	@FunctionalInterface
+	public interface DeserializationAction {
+
+		/**
+		 * Runs the action.
+		 * 
+		 * @throws InvalidConfigurationException
+		 *             if the deserialization fails
+		 */
+		public void run() throws InvalidConfigurationException;
+	}
+
+	/**
+	 * Runs the given action and throws an {@link InvalidConfigurationException} if Bukkit logs an
+	 * error during the deserialization of a {@link ConfigurationSerializable}.
+	 * <p>
+	 * Individual objects can be deserialized within the action via
+	 * {@link #deserializeObjectSafely(Map)}. When many objects are deserialized, it is cheaper to
+	 * deserialize them within a single action, because the logger of Bukkit's config serialization
+	 * is only redirected once per action.
+	 * <p>
+	 * This is expected to be called on the server's main thread.
+	 * 
+	 * @param action
+	 *            the action, not <code>null</code>
+	 * @throws InvalidConfigurationException
+	 *             if the action fails, or if an error was logged during the deserialization
+	 */
+	public static void deserializeSafely(
+			DeserializationAction action
+	) throws InvalidConfigurationException {
+		Validate.notNull(action, "action is null");
+		Validate.State.isTrue(!deserializingSafely, "Already deserializing safely!");
 		// Get the logger that is used during the deserialization of ConfigurationSerializables:
 		Logger configSerializationLogger = Logger.getLogger(ConfigurationSerialization.class.getName());
 
 		// Capture the current logger state:
 		@NonNull Handler[] handlers = configSerializationLogger.getHandlers();
 		boolean useParent = configSerializationLogger.getUseParentHandlers();
+		deserializingSafely = true;
 		try {
 			// Disable logging:
 			for (Handler handler : handlers) {
@@ -250,15 +360,14 @@ public final class ConfigUtils {
 			// Register our own error detection handler:
 			configSerializationLogger.addHandler(ERROR_DETECTION_HANDLER);
 
-			// Load the config:
-			config.loadFromString(contents);
+			// Run the deserialization:
+			action.run();
 
 			// Check if we detected an error:
-			LogRecord error = ERROR_DETECTION_HANDLER.getLastLogRecord();
-			if (error != null) {
-				throw new InvalidConfigurationException(error.getMessage(), error.getThrown());
-			}
+			checkDetectedError();
 		} finally {
+			deserializingSafely = false;
+
 			// Reset the error detection handler:
 			ERROR_DETECTION_HANDLER.reset();
 
@@ -271,6 +380,57 @@ public final class ConfigUtils {
 		}
 	}
 
+	/**
+	 * Deserializes the given serialized {@link ConfigurationSerializable}, similar to how Bukkit
+	 * deserializes {@link ConfigurationSerializable}s while loading a config.
+	 * <p>
+	 * Unlike {@link ConfigurationSerialization#deserializeObject(Map)}, this throws an
+	 * {@link InvalidConfigurationException} if the deserialization fails, instead of only logging
+	 * an error. This can only be called within an action that is run via
+	 * {@link #deserializeSafely(DeserializationAction)}.
+	 * 
+	 * @param serializedData
+	 *            the serialized data, including the
+	 *            {@link ConfigurationSerialization#SERIALIZED_TYPE_KEY type key}, not
+	 *            <code>null</code>
+	 * @return the deserialized object, not <code>null</code>
+	 * @throws InvalidConfigurationException
+	 *             if the deserialization fails
+	 */
+	public static ConfigurationSerializable deserializeObjectSafely(
+			Map<? extends String, ?> serializedData
+	) throws InvalidConfigurationException {
+		Validate.notNull(serializedData, "serializedData is null");
+		Validate.State.isTrue(deserializingSafely, "Not deserializing safely!");
+		ConfigurationSerializable deserialized;
+		try {
+			deserialized = ConfigurationSerialization.deserializeObject(
+					Unsafe.castNonNull(serializedData)
+			);
+
+			// Check if we detected an error:
+			checkDetectedError();
+		} catch (IllegalArgumentException e) {
+			throw new InvalidConfigurationException("Could not deserialize object", e);
+		} finally {
+			// Any detected error is handled here, and not by the surrounding action:
+			ERROR_DETECTION_HANDLER.reset();
+		}
+
+		if (deserialized == null) {
+			throw new InvalidConfigurationException("Could not deserialize object: "
+					+ serializedData.get(ConfigurationSerialization.SERIALIZED_TYPE_KEY));
+		}
+		return deserialized;
+	}
+
+	private static void checkDetectedError() throws InvalidConfigurationException {
+		LogRecord error = ERROR_DETECTION_HANDLER.getLastLogRecord();
+		if (error != null) {
+			throw new InvalidConfigurationException(error.getMessage(), error.getThrown());
+		}
+	}
+
 	private ConfigUtils() {
 	}
 }
@@ -389,6 +389,27 @@ public final class EventUtils {
 		}
 	}
 
+	/**
+	 * Checks if the given {@link HandlerList} contains event handlers of any other plugin than the
+	 * specified {@link Plugin}.
+	 * 
+	 * @param handlerList
+	 *            the handler list, not <code>null</code>
+	 * @param plugin
+	 *            the plugin whose event handlers are ignored, not <code>null</code>
+	 * @return <code>true</code> if there are event handlers of other plugins
+	 */
+	public static boolean hasOtherPluginListeners(HandlerList handlerList, Plugin plugin) {
+		Validate.notNull(handlerList, "handlerList is null");
+		Validate.notNull(plugin, "plugin is null");
+		for (RegisteredListener registeredListener : handlerList.getRegisteredListeners()) {
+			if (registeredListener.getPlugin() != plugin) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public static void printRegisteredListeners(Event event) {
 		HandlerList handlerList = event.getHandlers();
 		Log.info("Registered listeners for event " + event.getEventName() + ":");
@@ -0,0 +1,126 @@
+package com.nisovin.shopkeepers.util.bukkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+
+/**
+ * A snapshot of the horizontal block positions of the online players, grouped by world.
+ * <p>
+ * This is meant to be {@link #update() captured} once, and then be used to check the distances of
+ * many locations to the nearest players, without having to query the player locations for each
+ * location. The snapshot is not updated automatically.
+ * <p>
+ * Distances are calculated as squared horizontal distances of type {@code long}, so that the
+ * calculations do not overflow for large distances.
+ */
+public final class PlayerPositions {
+
+	/**
+	 * The squared distance that is returned if there is no player in the queried world.
+	 */
+	public static final long NO_PLAYER_DISTANCE_SQ = Long.MAX_VALUE;
+
+	private static final Location sharedLocation = new Location(null, 0, 0, 0);
+
+	// World name -> Positions (x, z) of the players in that world:
+	private final Map<String, List<int[]>> positions = new HashMap<>();
+
+	/**
+	 * Creates a new empty {@link PlayerPositions}.
+	 */
+	public PlayerPositions() {
+	}
+
+	/**
+	 * Replaces the current snapshot with the current positions of the online players.
+	 */
+	public void update() {
+		this.clear();
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			Location location = Unsafe.assertNonNull(player.getLocation(sharedLocation));
+			String worldName = LocationUtils.getWorld(location).getName();
+			positions.computeIfAbsent(worldName, key -> new ArrayList<>()).add(new int[] {
+					location.getBlockX(),
+					location.getBlockZ()
+			});
+		}
+		sharedLocation.setWorld(null); // Reset
+	}
+
+	/**
+	 * Clears the current snapshot.
+	 */
+	public void clear() {
+		positions.clear();
+	}
+
+	/**
+	 * Gets the squared horizontal distance of the given block position to the nearest player.
+	 *
+	 * @param worldName
+	 *            the world name, can be <code>null</code>
+	 * @param x
+	 *            the block x coordinate
+	 * @param z
+	 *            the block z coordinate
+	 * @return the squared horizontal distance to the nearest player, or
+	 *         {@link #NO_PLAYER_DISTANCE_SQ} if the world name is <code>null</code> or if there is
+	 *         no player in the world
+	 */
+	public long getNearestDistanceSq(@Nullable String worldName, int x, int z) {
+		if (worldName == null) return NO_PLAYER_DISTANCE_SQ;
+		@Nullable List<int[]> worldPositions = positions.get(worldName);
+		if (worldPositions == null) return NO_PLAYER_DISTANCE_SQ;
+
+		long minDistanceSq = NO_PLAYER_DISTANCE_SQ;
+		for (int[] position : worldPositions) {
+			long distanceSq = getDistanceSq(position, x, z);
+			if (distanceSq < minDistanceSq) {
+				minDistanceSq = distanceSq;
+			}
+		}
+		return minDistanceSq;
+	}
+
+	/**
+	 * Checks if there is a player within the given squared horizontal distance to the given block
+	 * position.
+	 *
+	 * @param worldName
+	 *            the world name, can be <code>null</code>
+	 * @param x
+	 *            the block x coordinate
+	 * @param z
+	 *            the block z coordinate
+	 * @param maxDistanceSq
+	 *            the maximum squared horizontal distance
+	 * @return <code>true</code> if there is a player within the given distance
+	 */
+	public boolean isNearPlayer(@Nullable String worldName, int x, int z, long maxDistanceSq) {
+		if (worldName == null) return false;
+		@Nullable List<int[]> worldPositions = positions.get(worldName);
+		if (worldPositions == null) return false;
+
+		for (int[] position : worldPositions) {
+			if (getDistanceSq(position, x, z) <= maxDistanceSq) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long getDistanceSq(int[] position, int x, int z) {
+		long dx = (long) position[0] - x;
+		long dz = (long) position[1] - z;
+		return dx * dx + dz * dz;
+	}
+}
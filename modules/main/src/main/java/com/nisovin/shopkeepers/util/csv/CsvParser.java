@@ -0,0 +1,89 @@
+package com.nisovin.shopkeepers.util.csv;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * Parses single-line records of comma separated values (CSV).
+ * <p>
+ * This parses the records produced by a {@link CsvFormatter} with its default configuration,
+ * except that records are expected to span a single line, i.e. fields do not contain unescaped
+ * newlines: Fields are separated by commas, and can be quoted with double quotes. Two double quotes
+ * inside a quoted field represent a single double quote. Any escaped newlines and backslashes
+ * inside the fields are not unescaped again.
+ */
+public class CsvParser {
+
+	private static final char FIELD_SEPARATOR = ',';
+	private static final char QUOTE = '"';
+
+	/**
+	 * Creates a new {@link CsvParser}.
+	 */
+	public CsvParser() {
+	}
+
+	/**
+	 * Parses the fields of the given record.
+	 * <p>
+	 * Empty fields are returned as empty Strings.
+	 * 
+	 * @param record
+	 *            the record, without the trailing record separator, not <code>null</code>
+	 * @return the fields
+	 * @throws IllegalArgumentException
+	 *             if the record is malformed, e.g. if it contains an unterminated quoted field
+	 */
+	public List<String> parseRecord(String record) {
+		Validate.notNull(record, "record is null");
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		int length = record.length();
+		int index = 0;
+		while (true) {
+			field.setLength(0);
+			if (index < length && record.charAt(index) == QUOTE) {
+				// Quoted field:
+				index++;
+				while (true) {
+					if (index >= length) {
+						throw new IllegalArgumentException("Unterminated quoted field in record: "
+								+ record);
+					}
+					char c = record.charAt(index++);
+					if (c != QUOTE) {
+						field.append(c);
+					} else if (index < length && record.charAt(index) == QUOTE) {
+						// Escaped quote:
+						field.append(QUOTE);
+						index++;
+					} else {
+						break; // End of the quoted field
+					}
+				}
+				if (index < length && record.charAt(index) != FIELD_SEPARATOR) {
+					throw new IllegalArgumentException("Unexpected character after quoted field at"
+							+ " index " + index + " in record: " + record);
+				}
+			} else {
+				// Unquoted field:
+				int end = record.indexOf(FIELD_SEPARATOR, index);
+				if (end < 0) {
+					end = length;
+				}
+				field.append(record, index, end);
+				index = end;
+			}
+
+			fields.add(field.toString());
+			if (index >= length) break;
+
+			// Skip the field separator:
+			assert record.charAt(index) == FIELD_SEPARATOR;
+			index++;
+		}
+		return fields;
+	}
+}
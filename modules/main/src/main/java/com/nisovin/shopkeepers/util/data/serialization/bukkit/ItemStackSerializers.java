@@ -19,7 +19,7 @@ import com.nisovin.shopkeepers.util.data.serialization.MissingDataException;
 import com.nisovin.shopkeepers.util.data.serialization.java.DataContainerSerializers;
 import com.nisovin.shopkeepers.util.data.serialization.java.NumberSerializers;
 import com.nisovin.shopkeepers.util.inventory.ItemStackComponentsData;
-import com.nisovin.shopkeepers.util.inventory.ItemUtils;
+import com.nisovin.shopkeepers.util.inventory.ItemStackInterner;
 import com.nisovin.shopkeepers.util.java.Validate;
 
 /**
@@ -137,7 +137,8 @@ public final class ItemStackSerializers {
 			// However, it is unclear how the invalid item data can end up inside the shopkeeper in
 			// the first place: Loading the shopkeeper with the invalid data already fails, and the
 			// give command also already detects invalid data up-front.
-			var componentsData = ItemStackComponentsData.of(ItemUtils.asItemStack(value));
+			// Reuses the components data that has already been captured for pooled item stacks:
+			var componentsData = ItemStackInterner.getComponentsData(value);
 			dataContainer.set(COMPONENTS, componentsData); // Omitted if null
 			return dataContainer.serialize();
 		}
@@ -228,6 +228,9 @@ public final class ItemData {
 	// Cache serialized item meta, to avoid serializing it again for every comparison:
 	// Gets lazily initialized when needed.
 	private @ReadOnly @Nullable ItemStackMetaTag serializedMetaData = null;
+	// Cache the hash code (covers the item type and metadata), since computing it is comparatively
+	// costly. Also used to quickly rule out non-equal ItemData. 0 if not yet calculated.
+	private int hashCode = 0;
 
 	public ItemData(Material type) {
 		// Unmodifiable wrapper: Avoids creating another item copy during construction.
@@ -351,12 +354,18 @@ public final class ItemData {
 
 	public boolean matches(@ReadOnly @Nullable ItemStack item, boolean matchPartialLists) {
 		// Same type and matching data:
-		return ItemUtils.matchesData(
-				item,
-				this.getType(),
-				this.getSerializedMetaData(),
-				matchPartialLists
-		);
+		if (item == null) return false;
+		if (item.getType() != this.getType()) return false;
+		ItemStackMetaTag requiredData = this.getSerializedMetaData();
+		if (requiredData.isEmpty()) return true;
+
+		// Quick checks that avoid the comparatively costly serialization of the item's metadata:
+		// An item without metadata cannot contain the required data.
+		if (!item.hasItemMeta()) return false;
+		// Similar items contain all the required data.
+		if (this.isSimilar(item)) return true;
+
+		return ItemUtils.matchesData(ItemStackMetaTag.of(item), requiredData, matchPartialLists);
 	}
 
 	public boolean matches(@Nullable UnmodifiableItemStack item, boolean matchPartialLists) {
@@ -389,9 +398,13 @@ public final class ItemData {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + dataItem.hashCode();
+		int result = hashCode;
+		if (result == 0) {
+			final int prime = 31;
+			result = 1;
+			result = prime * result + dataItem.hashCode();
+			hashCode = result;
+		}
 		return result;
 	}
 
@@ -401,6 +414,8 @@ public final class ItemData {
 		if (obj == null) return false;
 		if (!(obj instanceof ItemData)) return false;
 		ItemData other = (ItemData) obj;
+		// Quick check, if the hash codes have already been calculated:
+		if (hashCode != 0 && other.hashCode != 0 && hashCode != other.hashCode) return false;
 		if (!dataItem.equals(other.dataItem)) return false;
 		return true;
 	}
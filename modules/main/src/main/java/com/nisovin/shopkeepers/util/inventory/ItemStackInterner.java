@@ -0,0 +1,161 @@
+package com.nisovin.shopkeepers.util.inventory;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.checker.nullness.qual.PolyNull;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.java.Validate;
+
+/**
+ * A pool of {@link UnmodifiableItemStack}s that deduplicates equal item stacks.
+ * <p>
+ * Many shopkeepers store equal items, e.g. the same currency items. Since unmodifiable item stacks
+ * are assumed to be immutable, equal item stacks can share the same instance. This reduces the
+ * memory usage of item stacks that are stored long-term, e.g. the items of shopkeeper offers.
+ * <p>
+ * Item stacks are considered equal if they are {@link UnmodifiableItemStack#equals(Object) equal}
+ * in type, amount, and item metadata.
+ * <p>
+ * The pool only weakly references the pooled item stacks: Item stacks that are no longer used
+ * elsewhere are garbage collected and then automatically removed from the pool.
+ * <p>
+ * Interning an item stack requires it to be hashed and compared with pooled item stacks. It is
+ * therefore meant to be used when items are loaded or stored long-term, and not for temporary item
+ * stacks.
+ */
+public final class ItemStackInterner {
+
+	// Item stack -> Weak reference to the same item stack:
+	private static final Map<UnmodifiableItemStack, WeakReference<UnmodifiableItemStack>> POOL
+			= new WeakHashMap<>();
+
+	// Statistics:
+	private static long requestCount = 0L;
+	private static long hitCount = 0L;
+
+	/**
+	 * Gets the pooled item stack that is equal to the given item stack.
+	 * <p>
+	 * If the pool does not yet contain an equal item stack, the given item stack is added to the
+	 * pool and returned.
+	 * 
+	 * @param itemStack
+	 *            the item stack, can be <code>null</code>
+	 * @return the pooled item stack, or <code>null</code> if the given item stack is
+	 *         <code>null</code>
+	 */
+	public static @PolyNull UnmodifiableItemStack intern(
+			@PolyNull UnmodifiableItemStack itemStack
+	) {
+		if (itemStack == null) return null;
+
+		synchronized (POOL) {
+			requestCount++;
+			WeakReference<UnmodifiableItemStack> pooledReference = POOL.get(itemStack);
+			if (pooledReference != null) {
+				UnmodifiableItemStack pooledItemStack = pooledReference.get();
+				if (pooledItemStack != null) {
+					hitCount++;
+					return pooledItemStack;
+				}
+			}
+
+			POOL.put(itemStack, new WeakReference<>(itemStack));
+			if (itemStack instanceof SKUnmodifiableItemStack) {
+				((SKUnmodifiableItemStack) itemStack).setPooled();
+			}
+			return itemStack;
+		}
+	}
+
+	/**
+	 * Gets the {@link ItemStackComponentsData} of the given item stack.
+	 * <p>
+	 * Capturing the components data requires the item stack to be serialized by Minecraft, which
+	 * is comparatively costly when the items of many shopkeepers are saved. For pooled item stacks,
+	 * the components data is therefore only captured once and then reused.
+	 * <p>
+	 * Each invocation returns a new components data container that is not shared with the item
+	 * stack or any previously returned components data, so that the caller can freely store it.
+	 * This is expected to be called on the server's main thread.
+	 * 
+	 * @param itemStack
+	 *            the item stack, not <code>null</code>
+	 * @return the components data, or <code>null</code> if the item stack has no components data
+	 */
+	public static @Nullable ItemStackComponentsData getComponentsData(
+			UnmodifiableItemStack itemStack
+	) {
+		Validate.notNull(itemStack, "itemStack is null");
+		if (!(itemStack instanceof SKUnmodifiableItemStack)
+				|| !((SKUnmodifiableItemStack) itemStack).isPooled()) {
+			return ItemStackComponentsData.of(ItemUtils.asItemStack(itemStack));
+		}
+
+		SKUnmodifiableItemStack pooledItemStack = (SKUnmodifiableItemStack) itemStack;
+		@Nullable Map<String, Object> componentsData = pooledItemStack.getPooledComponentsData();
+		if (componentsData == null) {
+			ItemStackComponentsData capturedData = ItemStackComponentsData.of(
+					ItemUtils.asItemStack(itemStack)
+			);
+			// The component values are immutable SNBT Strings. A shallow copy is sufficient:
+			componentsData = (capturedData != null)
+					? Collections.unmodifiableMap(capturedData.getValuesCopy())
+					: Collections.emptyMap();
+			pooledItemStack.setPooledComponentsData(componentsData);
+		}
+
+		if (componentsData.isEmpty()) return null;
+		return ItemStackComponentsData.ofNonNull(DataContainer.ofNonNull(
+				new LinkedHashMap<>(componentsData)
+		));
+	}
+
+	/**
+	 * Gets the number of item stacks that are currently pooled.
+	 * <p>
+	 * This may include item stacks that are no longer used but have not yet been garbage
+	 * collected.
+	 * 
+	 * @return the number of pooled item stacks
+	 */
+	public static int getSize() {
+		synchronized (POOL) {
+			return POOL.size();
+		}
+	}
+
+	/**
+	 * Gets the number of item stacks that have been {@link #intern(UnmodifiableItemStack) interned}
+	 * so far.
+	 * 
+	 * @return the number of interned item stacks
+	 */
+	public static long getRequestCount() {
+		synchronized (POOL) {
+			return requestCount;
+		}
+	}
+
+	/**
+	 * Gets the number of {@link #intern(UnmodifiableItemStack) interned} item stacks that have been
+	 * replaced with an already pooled item stack.
+	 * 
+	 * @return the number of deduplicated item stacks
+	 */
+	public static long getHitCount() {
+		synchronized (POOL) {
+			return hitCount;
+		}
+	}
+
+	private ItemStackInterner() {
+	}
+}
@@ -1028,6 +1028,13 @@ public final class ItemUtils {
 		// Compare item types:
 		if (provided.getType() != required.getType()) return false;
 
+		// Quick checks that avoid the comparatively costly serialization of the item metadata:
+		if (!required.hasItemMeta()) return true;
+		// An item without metadata cannot contain the required metadata:
+		if (!provided.hasItemMeta()) return false;
+		// Similar items contain all the required metadata:
+		if (provided.isSimilar(required)) return true;
+
 		// Check if metadata is contained in item:
 		return matchesData(
 				ItemStackMetaTag.of(provided),
@@ -1054,6 +1061,9 @@ public final class ItemUtils {
 		if (provided == null) return false;
 		if (provided.getType() != requiredType) return false;
 		if (required.isEmpty()) return true;
+		// An item without metadata cannot contain the required metadata. This check avoids the
+		// comparatively costly serialization of the item metadata:
+		if (!provided.hasItemMeta()) return false;
 		return matchesData(ItemStackMetaTag.of(provided), required, matchPartialLists);
 	}
 
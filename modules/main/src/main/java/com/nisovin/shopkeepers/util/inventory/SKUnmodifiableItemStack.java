@@ -40,12 +40,35 @@ public class SKUnmodifiableItemStack implements UnmodifiableItemStack {
 	// ----
 
 	private final ItemStack delegate;
+	// Whether this item stack is pooled by the ItemStackInterner. Pooled item stacks are assumed to
+	// be immutable.
+	private volatile boolean pooled = false;
+	// The lazily captured components data of a pooled item stack: Empty if the item stack has no
+	// components data, and null if not yet captured.
+	private volatile @Nullable Map<String, Object> pooledComponentsData = null;
 
 	private SKUnmodifiableItemStack(@ReadOnly ItemStack itemStack) {
 		assert itemStack != null;
 		this.delegate = itemStack;
 	}
 
+	void setPooled() {
+		pooled = true;
+	}
+
+	boolean isPooled() {
+		return pooled;
+	}
+
+	@Nullable Map<String, Object> getPooledComponentsData() {
+		return pooledComponentsData;
+	}
+
+	void setPooledComponentsData(Map<String, Object> componentsData) {
+		assert pooled;
+		this.pooledComponentsData = componentsData;
+	}
+
 	/**
 	 * Gets the underlying {@link ItemStack}.
 	 * <p>
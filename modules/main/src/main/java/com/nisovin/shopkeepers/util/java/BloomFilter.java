@@ -0,0 +1,152 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * A simple Bloom filter for {@link UUID}s.
+ * <p>
+ * A Bloom filter can tell with certainty that a value has not been added to it, but it may report
+ * false positives for values that have not been added.
+ * <p>
+ * This is not thread-safe.
+ */
+public final class BloomFilter {
+
+	private static final int MAX_HASH_FUNCTIONS = 16;
+
+	/**
+	 * Creates a new empty {@link BloomFilter} that is sized for the given number of values and
+	 * false positive probability.
+	 * 
+	 * @param expectedValues
+	 *            the expected number of distinct values
+	 * @param falsePositiveProbability
+	 *            the desired false positive probability, in the range <code>(0, 1)</code>
+	 * @return the new Bloom filter
+	 */
+	public static BloomFilter create(int expectedValues, double falsePositiveProbability) {
+		Validate.isTrue(expectedValues >= 0, "expectedValues cannot be negative");
+		Validate.isTrue(falsePositiveProbability > 0.0D && falsePositiveProbability < 1.0D,
+				"falsePositiveProbability must be in the range (0, 1)");
+		int values = Math.max(expectedValues, 1);
+		double ln2 = Math.log(2.0D);
+		double bitsPerValue = -Math.log(falsePositiveProbability) / (ln2 * ln2);
+		long bitCount = (long) Math.ceil(values * bitsPerValue);
+		// At least one and at most Integer.MAX_VALUE words:
+		bitCount = Math.max(bitCount, Long.SIZE);
+		bitCount = Math.min(bitCount, (long) Integer.MAX_VALUE * Long.SIZE);
+		int hashFunctions = (int) Math.round((double) bitCount / values * ln2);
+		hashFunctions = MathUtils.clamp(hashFunctions, 1, MAX_HASH_FUNCTIONS);
+		int wordCount = (int) ((bitCount + Long.SIZE - 1) / Long.SIZE);
+		return new BloomFilter(new long[wordCount], hashFunctions);
+	}
+
+	/**
+	 * Reads a {@link BloomFilter} that has previously been {@link #write(DataOutput) written}.
+	 * 
+	 * @param input
+	 *            the input
+	 * @return the Bloom filter
+	 * @throws IOException
+	 *             if the Bloom filter cannot be read
+	 */
+	public static BloomFilter read(DataInput input) throws IOException {
+		int hashFunctions = input.readInt();
+		int wordCount = input.readInt();
+		if (hashFunctions < 1 || hashFunctions > MAX_HASH_FUNCTIONS || wordCount < 1) {
+			throw new IOException("Invalid Bloom filter data!");
+		}
+		long[] bits = new long[wordCount];
+		for (int i = 0; i < wordCount; i++) {
+			bits[i] = input.readLong();
+		}
+		return new BloomFilter(bits, hashFunctions);
+	}
+
+	// Mixes the bits of the given value (the finalizer of MurmurHash3):
+	private static long mix(long value) {
+		long hash = value;
+		hash ^= (hash >>> 33);
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= (hash >>> 33);
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= (hash >>> 33);
+		return hash;
+	}
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashFunctions;
+
+	private BloomFilter(long[] bits, int hashFunctions) {
+		this.bits = bits;
+		this.bitCount = (long) bits.length * Long.SIZE;
+		this.hashFunctions = hashFunctions;
+	}
+
+	// The k bit indices are derived from two hashes (Kirsch-Mitzenmacher):
+	private long getBitIndex(long hash1, long hash2, int i) {
+		long combinedHash = hash1 + i * hash2;
+		return (combinedHash & Long.MAX_VALUE) % bitCount;
+	}
+
+	/**
+	 * Adds the given value.
+	 * 
+	 * @param value
+	 *            the value, not <code>null</code>
+	 */
+	public void add(UUID value) {
+		long hash1 = mix(value.getMostSignificantBits());
+		long hash2 = mix(value.getLeastSignificantBits() ^ hash1);
+		for (int i = 0; i < hashFunctions; i++) {
+			long bitIndex = this.getBitIndex(hash1, hash2, i);
+			bits[(int) (bitIndex >>> 6)] |= (1L << bitIndex);
+		}
+	}
+
+	/**
+	 * Checks if the given value might have been added.
+	 * 
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return <code>false</code> if the value has definitely not been added, <code>true</code> if
+	 *         it might have been added
+	 */
+	public boolean mightContain(UUID value) {
+		long hash1 = mix(value.getMostSignificantBits());
+		long hash2 = mix(value.getLeastSignificantBits() ^ hash1);
+		for (int i = 0; i < hashFunctions; i++) {
+			long bitIndex = this.getBitIndex(hash1, hash2, i);
+			if ((bits[(int) (bitIndex >>> 6)] & (1L << bitIndex)) == 0L) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes this Bloom filter to the given output.
+	 * 
+	 * @param output
+	 *            the output
+	 * @throws IOException
+	 *             if writing fails
+	 * @see #read(DataInput)
+	 */
+	public void write(DataOutput output) throws IOException {
+		output.writeInt(hashFunctions);
+		output.writeInt(bits.length);
+		for (long word : bits) {
+			output.writeLong(word);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BloomFilter [bits=" + bitCount + ", hashFunctions=" + hashFunctions + "]";
+	}
+}
@@ -0,0 +1,191 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.Arrays;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+
+/**
+ * A hash map with primitive {@code long} keys that uses open addressing with linear probing.
+ * <p>
+ * Unlike a {@link java.util.HashMap} with {@link Long} keys, lookups and updates do not allocate
+ * any objects.
+ * <p>
+ * This map does not support <code>null</code> values: A return value of <code>null</code> always
+ * indicates that there is no mapping for the specified key.
+ * <p>
+ * This map is not thread-safe.
+ * 
+ * @param <V>
+ *            the value type
+ */
+public final class LongHashMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16; // Power of two
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+	// Null indicates an unused slot.
+	private @Nullable Object[] values;
+	// The capacity is always a power of two:
+	private int mask;
+	private int size = 0;
+	private int resizeThreshold;
+
+	/**
+	 * Creates a new empty {@link LongHashMap}.
+	 */
+	public LongHashMap() {
+		this.keys = new long[DEFAULT_CAPACITY];
+		this.values = new @Nullable Object[DEFAULT_CAPACITY];
+		this.mask = DEFAULT_CAPACITY - 1;
+		this.resizeThreshold = (int) (DEFAULT_CAPACITY * LOAD_FACTOR);
+	}
+
+	private static int hash(long key) {
+		// Mix the bits (see the finalization step of MurmurHash3):
+		long hash = key;
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		return (int) hash;
+	}
+
+	/**
+	 * Gets the number of mappings in this map.
+	 * 
+	 * @return the number of mappings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if this map is empty.
+	 * 
+	 * @return <code>true</code> if this map is empty
+	 */
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	// Returns the slot of the given key, or the first free slot at which the key would be inserted.
+	private int getSlot(long key) {
+		int slot = hash(key) & mask;
+		while (values[slot] != null && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Gets the value that is mapped to the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the value, or <code>null</code> if there is no mapping for the given key
+	 */
+	public @Nullable V get(long key) {
+		return Unsafe.cast(values[this.getSlot(key)]);
+	}
+
+	/**
+	 * Checks if there is a mapping for the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return <code>true</code> if there is a mapping for the given key
+	 */
+	public boolean containsKey(long key) {
+		return (this.get(key) != null);
+	}
+
+	/**
+	 * Maps the given value to the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value, not <code>null</code>
+	 * @return the previous value, or <code>null</code> if there was no previous mapping
+	 */
+	public @Nullable V put(long key, V value) {
+		Validate.notNull(value, "value is null");
+		int slot = this.getSlot(key);
+		@Nullable Object previousValue = values[slot];
+		keys[slot] = key;
+		values[slot] = value;
+		if (previousValue == null) {
+			size++;
+			if (size > resizeThreshold) {
+				this.resize(keys.length * 2);
+			}
+		}
+		return Unsafe.cast(previousValue);
+	}
+
+	/**
+	 * Removes the mapping for the given key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the removed value, or <code>null</code> if there was no mapping for the given key
+	 */
+	public @Nullable V remove(long key) {
+		int slot = this.getSlot(key);
+		@Nullable Object previousValue = values[slot];
+		if (previousValue == null) return null;
+
+		values[slot] = null;
+		size--;
+
+		// Shift back any subsequent entries of the same probe sequence into the freed slot, so that
+		// lookups do not stop early at the freed slot:
+		int freeSlot = slot;
+		int nextSlot = (slot + 1) & mask;
+		while (values[nextSlot] != null) {
+			int idealSlot = hash(keys[nextSlot]) & mask;
+			// Check if the ideal slot of the entry is cyclically outside of (freeSlot, nextSlot]:
+			boolean shift = (freeSlot <= nextSlot)
+					? (idealSlot <= freeSlot || idealSlot > nextSlot)
+					: (idealSlot <= freeSlot && idealSlot > nextSlot);
+			if (shift) {
+				keys[freeSlot] = keys[nextSlot];
+				values[freeSlot] = values[nextSlot];
+				values[nextSlot] = null;
+				freeSlot = nextSlot;
+			}
+			nextSlot = (nextSlot + 1) & mask;
+		}
+		return Unsafe.cast(previousValue);
+	}
+
+	/**
+	 * Removes all mappings.
+	 */
+	public void clear() {
+		if (size == 0) return;
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void resize(int newCapacity) {
+		long[] oldKeys = keys;
+		@Nullable Object[] oldValues = values;
+
+		keys = new long[newCapacity];
+		values = new @Nullable Object[newCapacity];
+		mask = newCapacity - 1;
+		resizeThreshold = (int) (newCapacity * LOAD_FACTOR);
+
+		for (int i = 0; i < oldValues.length; i++) {
+			@Nullable Object value = oldValues[i];
+			if (value == null) continue;
+			long key = oldKeys[i];
+			int slot = this.getSlot(key);
+			keys[slot] = key;
+			values[slot] = value;
+		}
+	}
+}
@@ -1,7 +1,11 @@
 package com.nisovin.shopkeepers.util.taskqueue;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Queue;
+import java.util.function.ToLongFunction;
 
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
@@ -11,6 +15,8 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import com.nisovin.shopkeepers.util.java.Validate;
+import com.nisovin.shopkeepers.util.timer.Timer;
+import com.nisovin.shopkeepers.util.timer.Timings;
 
 /**
  * A {@link BukkitScheduler} task that processes a queue of work units.
@@ -35,7 +41,12 @@ import com.nisovin.shopkeepers.util.java.Validate;
  * which new work units are typically produced, without causing disruptions due to other components
  * or users having to wait for these work units to be processed.
  * </ul>
- *
+ * <p>
+ * Subclasses can adapt the number of work units per execution at runtime by overriding
+ * {@link #getWorkUnitsPerExecution()}, and process more urgent work units first by
+ * {@link #reorder(ToLongFunction) reordering} the pending work units in
+ * {@link #prepareExecution()}.
+ * 
  * @param <T>
  *            the type of work units
  */
@@ -69,6 +80,7 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 	private final int workUnitsPerExecution;
 	private final Queue<@NonNull T> pending = new ArrayDeque<>();
 	private int maxPending = 0;
+	private final Timer workUnitTimings = new Timer();
 	private @Nullable BukkitTask task = null;
 
 	/**
@@ -110,6 +122,7 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 		pending.clear();
 		this.stopTask();
 		maxPending = 0;
+		workUnitTimings.reset();
 	}
 
 	// WORK UNITS
@@ -167,6 +180,44 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 	protected void onRemoval(@NonNull T workUnit) {
 	}
 
+	/**
+	 * Reorders the pending work units by the given priority.
+	 * <p>
+	 * Work units with a lower priority value are processed first. Work units with the same priority
+	 * value retain their current order. The priority of each work unit is only determined once.
+	 * 
+	 * @param priority
+	 *            determines the priority of a work unit, not <code>null</code>
+	 */
+	protected final void reorder(ToLongFunction<? super @NonNull T> priority) {
+		Validate.notNull(priority, "priority is null");
+		Queue<@NonNull T> queue = pending;
+		if (queue.size() <= 1) return;
+
+		List<PrioritizedWorkUnit<@NonNull T>> prioritized = new ArrayList<>(queue.size());
+		for (T workUnit : queue) {
+			prioritized.add(new PrioritizedWorkUnit<>(workUnit, priority.applyAsLong(workUnit)));
+		}
+		// The sort is stable:
+		prioritized.sort(Comparator.comparingLong(entry -> entry.priority));
+
+		queue.clear();
+		for (PrioritizedWorkUnit<@NonNull T> entry : prioritized) {
+			queue.add(entry.workUnit);
+		}
+	}
+
+	private static final class PrioritizedWorkUnit<@NonNull T> {
+
+		private final T workUnit;
+		private final long priority;
+
+		PrioritizedWorkUnit(T workUnit, long priority) {
+			this.workUnit = workUnit;
+			this.priority = priority;
+		}
+	}
+
 	// STATISTICS
 
 	@Override
@@ -179,6 +230,24 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 		return maxPending;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * By default, this returns the fixed number of work units that was specified when this queue
+	 * was created. Subclasses can override this to adapt the number of work units per execution at
+	 * runtime. This is invoked once at the start of each task execution that processes pending work
+	 * units.
+	 */
+	@Override
+	public int getWorkUnitsPerExecution() {
+		return workUnitsPerExecution;
+	}
+
+	@Override
+	public Timings getWorkUnitTimings() {
+		return workUnitTimings;
+	}
+
 	// TASK
 
 	private void startTask() {
@@ -218,17 +287,51 @@ public abstract class TaskQueue<@NonNull T> implements TaskQueueStatistics {
 			return;
 		}
 
-		int localWorkUnitsPerExecution = workUnitsPerExecution;
-		for (int i = 0; i < localWorkUnitsPerExecution; ++i) {
+		this.prepareExecution();
+
+		int localWorkUnitsPerExecution = Math.max(1, this.getWorkUnitsPerExecution());
+		int processed = 0;
+		long startNanos = System.nanoTime();
+		while (processed < localWorkUnitsPerExecution) {
 			@Nullable T workUnit = queue.poll();
 			if (workUnit == null) {
 				// The queue is empty:
-				return;
+				break;
 			}
 
 			// Process the work unit:
-			this.process(workUnit);
+			workUnitTimings.start();
+			try {
+				this.process(workUnit);
+			} finally {
+				workUnitTimings.stop();
+			}
+			processed++;
 		}
+
+		this.onExecutionCompleted(processed, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * This callback is invoked at the start of each task execution, before any pending work units
+	 * are processed.
+	 * <p>
+	 * It is not invoked if there are no pending work units. Subclasses can use this to
+	 * {@link #reorder(ToLongFunction) reorder} the pending work units.
+	 */
+	protected void prepareExecution() {
+	}
+
+	/**
+	 * This callback is invoked at the end of each task execution that processed pending work
+	 * units.
+	 * 
+	 * @param processedWorkUnits
+	 *            the number of processed work units
+	 * @param durationNanos
+	 *            the total duration of processing these work units, in nanoseconds
+	 */
+	protected void onExecutionCompleted(int processedWorkUnits, long durationNanos) {
 	}
 
 	/**
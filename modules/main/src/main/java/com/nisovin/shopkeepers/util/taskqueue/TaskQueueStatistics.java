@@ -1,5 +1,7 @@
 package com.nisovin.shopkeepers.util.taskqueue;
 
+import com.nisovin.shopkeepers.util.timer.Timings;
+
 /**
  * Provides statistics on a {@link TaskQueue}.
  */
@@ -18,4 +20,18 @@ public interface TaskQueueStatistics {
 	 * @return the maximum number of pending work units
 	 */
 	public int getMaxPendingCount();
+
+	/**
+	 * Gets the maximum number of work units that are currently processed per task execution.
+	 * 
+	 * @return the number of work units per execution
+	 */
+	public int getWorkUnitsPerExecution();
+
+	/**
+	 * Gets the timings of the processing of individual work units.
+	 * 
+	 * @return the work unit timings
+	 */
+	public Timings getWorkUnitTimings();
 }
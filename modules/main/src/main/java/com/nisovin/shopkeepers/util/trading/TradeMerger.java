@@ -152,30 +152,52 @@ public class TradeMerger {
 	 *            the trade event
 	 */
 	public void mergeTrade(ShopkeeperTradeEvent tradeEvent) {
+		this.mergeTrades(tradeEvent, 1);
+	}
+
+	/**
+	 * Tries to merge the given number of equal trades with the previous trades, and triggers the
+	 * processing of the previous trades if they could not be merged.
+	 * 
+	 * @param tradeEvent
+	 *            the trade event of the trades
+	 * @param tradeCount
+	 *            the number of trades, at least <code>1</code>
+	 */
+	public void mergeTrades(ShopkeeperTradeEvent tradeEvent, int tradeCount) {
 		Validate.notNull(tradeEvent, "tradeEvent is null");
+		Validate.isTrue(tradeCount > 0, "tradeCount has to be positive");
 		long nowNanos = System.nanoTime();
 		MergedTrades previousTrades = this.previousTrades;
 		if (previousTrades == null) {
 			// There are no previous trades to merge with.
-			this.previousTrades = new MergedTrades(tradeEvent);
+			this.previousTrades = this.newMergedTrades(tradeEvent, tradeCount);
 			mergeEndNanos = nowNanos + mergeDurationNanos;
 			lastMergedTradeNanos = nowNanos;
 			this.startDelayedTasks();
 		} else if (previousTrades.canMerge(tradeEvent, mergeMode == MergeMode.SAME_CLICK_EVENT)) {
 			// Merge the trade with the previous trades:
-			previousTrades.addTrades(1);
+			previousTrades.addTrades(tradeCount);
 			lastMergedTradeNanos = nowNanos;
 		} else {
 			// The trade could not be merged with the previous trades.
 			this.processPreviousTrades();
 			assert this.previousTrades == null;
-			this.previousTrades = new MergedTrades(tradeEvent);
+			this.previousTrades = this.newMergedTrades(tradeEvent, tradeCount);
 			mergeEndNanos = nowNanos + mergeDurationNanos;
 			lastMergedTradeNanos = nowNanos;
 			this.startDelayedTasks();
 		}
 	}
 
+	private MergedTrades newMergedTrades(ShopkeeperTradeEvent tradeEvent, int tradeCount) {
+		MergedTrades mergedTrades = new MergedTrades(tradeEvent);
+		if (tradeCount > 1) {
+			mergedTrades.addTrades(tradeCount - 1);
+		}
+		return mergedTrades;
+	}
+
 	private void endDelayedTasks() {
 		this.endMergeDurationTask();
 		this.endNextMergeTimeoutTask();
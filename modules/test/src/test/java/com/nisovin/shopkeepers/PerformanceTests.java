@@ -3,6 +3,13 @@ package com.nisovin.shopkeepers;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
@@ -11,12 +18,16 @@ import org.bukkit.Material;
 import org.bukkit.craftbukkit.v1_21_R4.inventory.CraftItemStack;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.Test;
 
 import com.nisovin.shopkeepers.api.internal.util.Unsafe;
 import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.tradelog.sqlite.SQLiteConnectionManager;
 import com.nisovin.shopkeepers.util.TestItemStacks;
+import com.nisovin.shopkeepers.util.inventory.InventoryUtils;
 import com.nisovin.shopkeepers.util.inventory.ItemData;
+import com.nisovin.shopkeepers.util.inventory.ItemStackMetaTag;
 import com.nisovin.shopkeepers.util.inventory.ItemUtils;
 import com.nisovin.shopkeepers.util.java.MutableLong;
 import com.nisovin.shopkeepers.util.java.TimeUtils;
@@ -277,6 +288,76 @@ public class PerformanceTests extends AbstractBukkitTest {
 		);
 	}
 
+	@Test
+	public void testInventoryMatchesPerformance() {
+		LOGGER.info("Testing inventory matching performance:");
+		int warmupCount = 1000;
+		int testCount = 100000;
+
+		// A double chest full of tools, named and otherwise customized items. The searched item is
+		// located in the last slot:
+		ItemStack requiredItem = TestItemStacks.createItemStackComplete();
+		@Nullable ItemStack[] contents = new @Nullable ItemStack[54];
+		for (int i = 0; i < contents.length - 1; i++) {
+			ItemStack itemStack;
+			switch (i % 3) {
+			case 0:
+				itemStack = TestItemStacks.createItemStackBasicTool();
+				break;
+			case 1:
+				itemStack = TestItemStacks.createItemStackDisplayName();
+				break;
+			default:
+				itemStack = TestItemStacks.createItemStackComplete();
+				String displayName = "{\"text\":\"Item " + i + "\"}";
+				ItemUtils.setDisplayNameAndLore(itemStack, displayName, null);
+				break;
+			}
+			contents[i] = CraftItemStack.asCraftCopy(itemStack);
+		}
+		contents[contents.length - 1] = CraftItemStack.asCraftCopy(requiredItem);
+
+		ItemData itemData = new ItemData(requiredItem);
+		ItemStackMetaTag requiredData = ItemStackMetaTag.of(requiredItem);
+		MutableLong value = new MutableLong();
+
+		testPerformance(
+				"  ",
+				"InventoryUtils#containsAtLeast(ItemData)",
+				warmupCount,
+				testCount,
+				() -> {
+					if (InventoryUtils.containsAtLeast(contents, itemData, 1)) {
+						value.increment(1);
+					}
+				}
+		);
+
+		// Without the quick checks: Serializes the metadata of every item of the same type.
+		testPerformance(
+				"  ",
+				"InventoryUtils#containsAtLeast(serialized metadata)",
+				warmupCount,
+				testCount,
+				() -> {
+					if (InventoryUtils.containsAtLeast(contents, (itemStack) -> {
+						return itemStack.getType() == requiredItem.getType()
+								&& ItemUtils.matchesData(
+										ItemStackMetaTag.of(itemStack),
+										requiredData,
+										true
+								);
+					}, 1)) {
+						value.increment(1);
+					}
+				}
+		);
+
+		if (value.getValue() != 2L * (warmupCount + testCount)) {
+			throw new IllegalStateException("Unexpected test outcome.");
+		}
+	}
+
 	@Test
 	public void testCraftItemStackReflectiveHandleVsCopyPerformance() throws Exception {
 		LOGGER.info("Testing reflective CraftItemStack.handle access vs asNMSCopy performance:");
@@ -398,4 +479,133 @@ public class PerformanceTests extends AbstractBukkitTest {
 			throw new IllegalStateException("Unexpected test outcome.");
 		}
 	}
+
+	@Test
+	public void testSQLiteTradeLogPerformance() throws Exception {
+		LOGGER.info("Testing SQLite trade log performance:");
+		int warmupCount = 10;
+		int testCount = 100;
+		int batchSize = 100;
+
+		Path directory = Files.createTempDirectory("shopkeepers-sqlite-test");
+		try {
+			String createTableSql = "CREATE TABLE IF NOT EXISTS trade (timestamp VARCHAR(30), "
+					+ "player_uuid CHARACTER(36), item TEXT);";
+			String insertSql = "INSERT INTO trade(timestamp, player_uuid, item) VALUES(?, ?, ?)";
+			String selectSql = "SELECT * FROM trade WHERE player_uuid=? "
+					+ "ORDER BY timestamp DESC LIMIT 10";
+			String playerUUID = "00000000-0000-0000-0000-000000000000";
+			MutableLong value = new MutableLong();
+
+			// Previous approach: A new connection and statement for every batch, and every insert
+			// is committed separately.
+			String connectionURL = "jdbc:sqlite:" + directory.resolve("per-batch.db");
+			try (Connection connection = DriverManager.getConnection(connectionURL);
+					Statement statement = connection.createStatement()) {
+				statement.execute(createTableSql);
+			}
+			testPerformance(
+					"  ",
+					"per-batch connection, " + batchSize + " inserts",
+					warmupCount,
+					testCount,
+					() -> {
+						try (Connection connection = DriverManager.getConnection(connectionURL);
+								PreparedStatement insert = connection.prepareStatement(insertSql)) {
+							for (int i = 0; i < batchSize; i++) {
+								insert.setString(1, String.valueOf(value.getValue()));
+								insert.setString(2, playerUUID);
+								insert.setString(3, "{}");
+								insert.executeUpdate();
+								value.increment(1);
+							}
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					}
+			);
+			testPerformance(
+					"  ",
+					"per-query connection, select",
+					warmupCount,
+					testCount,
+					() -> {
+						try (Connection connection = DriverManager.getConnection(connectionURL);
+								PreparedStatement select = connection.prepareStatement(selectSql)) {
+							select.setString(1, playerUUID);
+							select.executeQuery().close();
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					}
+			);
+
+			// Persistent WAL connections, cached statements, and one transaction per batch:
+			SQLiteConnectionManager connectionManager = new SQLiteConnectionManager(
+					directory.resolve("persistent.db"),
+					connection -> {
+						try (Statement statement = connection.createStatement()) {
+							statement.execute(createTableSql);
+						}
+					}
+			);
+			try {
+				testPerformance(
+						"  ",
+						"persistent connection, " + batchSize + " inserts in a transaction",
+						warmupCount,
+						testCount,
+						() -> {
+							try {
+								connectionManager.write(sqliteConnection -> {
+									Connection connection = sqliteConnection.getConnection();
+									connection.setAutoCommit(false);
+									var insert = sqliteConnection.prepareStatement(insertSql);
+									for (int i = 0; i < batchSize; i++) {
+										insert.setString(1, String.valueOf(value.getValue()));
+										insert.setString(2, playerUUID);
+										insert.setString(3, "{}");
+										insert.executeUpdate();
+										value.increment(1);
+									}
+									connection.commit();
+									connection.setAutoCommit(true);
+									return null;
+								});
+							} catch (Exception e) {
+								throw new RuntimeException(e);
+							}
+						}
+				);
+				testPerformance(
+						"  ",
+						"pooled read connection, select",
+						warmupCount,
+						testCount,
+						() -> {
+							try {
+								connectionManager.read(sqliteConnection -> {
+									var select = sqliteConnection.prepareStatement(selectSql);
+									select.setString(1, playerUUID);
+									select.executeQuery().close();
+									return null;
+								});
+							} catch (Exception e) {
+								throw new RuntimeException(e);
+							}
+						}
+				);
+			} finally {
+				connectionManager.close();
+			}
+		} finally {
+			try (var paths = Files.walk(directory)) {
+				// Delete the contents before the directory:
+				Iterable<Path> sortedPaths = paths.sorted(Comparator.reverseOrder())::iterator;
+				for (Path path : sortedPaths) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
 }
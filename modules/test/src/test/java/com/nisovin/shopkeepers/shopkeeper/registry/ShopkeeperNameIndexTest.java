@@ -0,0 +1,125 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bukkit.ChatColor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class ShopkeeperNameIndexTest extends AbstractBukkitTest {
+
+	private static TestShopkeeper createShopkeeper(String name) {
+		return new TestShopkeeper(name, null, UUID.randomUUID());
+	}
+
+	private static List<AbstractShopkeeper> toList(Stream<? extends AbstractShopkeeper> stream) {
+		return stream.collect(Collectors.toList());
+	}
+
+	private static List<AbstractShopkeeper> byName(ShopkeeperNameIndex index, String name) {
+		return toList(index.getShopkeepersByName(ShopkeeperNameIndex.normalize(name)));
+	}
+
+	private static List<AbstractShopkeeper> byPrefix(ShopkeeperNameIndex index, String prefix) {
+		return toList(index.getShopkeepersByNamePrefix(ShopkeeperNameIndex.normalize(prefix)));
+	}
+
+	@Test
+	public void testNormalize() {
+		Assert.assertEquals(
+				ShopkeeperNameIndex.normalize("my shop"),
+				ShopkeeperNameIndex.normalize(ChatColor.RED + "My Shop")
+		);
+		Assert.assertTrue(ShopkeeperNameIndex.normalize(ChatColor.RED.toString()).isEmpty());
+	}
+
+	@Test
+	public void testLookupByName() {
+		ShopkeeperNameIndex index = new ShopkeeperNameIndex();
+		TestShopkeeper shopkeeper1 = createShopkeeper("Shop");
+		TestShopkeeper shopkeeper2 = createShopkeeper(ChatColor.GREEN + "shop");
+		TestShopkeeper shopkeeper3 = createShopkeeper("Other");
+		index.addShopkeeper(shopkeeper1);
+		index.addShopkeeper(shopkeeper2);
+		index.addShopkeeper(shopkeeper3);
+
+		// Shopkeepers with the same normalized name are returned in insertion order:
+		Assert.assertEquals(Arrays.asList(shopkeeper1, shopkeeper2), byName(index, "SHOP"));
+		Assert.assertEquals(Collections.singletonList(shopkeeper3), byName(index, "other"));
+		Assert.assertEquals(Collections.emptyList(), byName(index, "sho"));
+	}
+
+	@Test
+	public void testLookupByNamePrefix() {
+		ShopkeeperNameIndex index = new ShopkeeperNameIndex();
+		TestShopkeeper shopkeeper1 = createShopkeeper("Shop A");
+		TestShopkeeper shopkeeper2 = createShopkeeper("Shop B");
+		TestShopkeeper shopkeeper3 = createShopkeeper("Other");
+		index.addShopkeeper(shopkeeper1);
+		index.addShopkeeper(shopkeeper2);
+		index.addShopkeeper(shopkeeper3);
+
+		Assert.assertEquals(Arrays.asList(shopkeeper1, shopkeeper2), byPrefix(index, "sh"));
+		Assert.assertEquals(Collections.singletonList(shopkeeper2), byPrefix(index, "shop b"));
+		Assert.assertEquals(Collections.singletonList(shopkeeper3), byPrefix(index, "o"));
+		Assert.assertEquals(Collections.emptyList(), byPrefix(index, "x"));
+	}
+
+	@Test
+	public void testUnnamedShopkeepersAreNotIndexed() {
+		ShopkeeperNameIndex index = new ShopkeeperNameIndex();
+		index.addShopkeeper(createShopkeeper(""));
+		index.addShopkeeper(createShopkeeper(ChatColor.RED.toString()));
+		Assert.assertTrue(index.isEmpty());
+	}
+
+	@Test
+	public void testUpdateShopkeeper() {
+		ShopkeeperNameIndex index = new ShopkeeperNameIndex();
+		TestShopkeeper shopkeeper = createShopkeeper("Old name");
+		index.addShopkeeper(shopkeeper);
+
+		shopkeeper.setTestName("New name");
+		index.updateShopkeeper(shopkeeper);
+		Assert.assertEquals(Collections.emptyList(), byName(index, "old name"));
+		Assert.assertEquals(Collections.singletonList(shopkeeper), byName(index, "new name"));
+
+		// Removing the name removes the shopkeeper from the index:
+		shopkeeper.setTestName("");
+		index.updateShopkeeper(shopkeeper);
+		Assert.assertTrue(index.isEmpty());
+
+		// Naming the shopkeeper again adds it to the index:
+		shopkeeper.setTestName("Named");
+		index.updateShopkeeper(shopkeeper);
+		Assert.assertEquals(Collections.singletonList(shopkeeper), byName(index, "named"));
+	}
+
+	@Test
+	public void testRemoveShopkeeper() {
+		ShopkeeperNameIndex index = new ShopkeeperNameIndex();
+		TestShopkeeper shopkeeper1 = createShopkeeper("Shop");
+		TestShopkeeper shopkeeper2 = createShopkeeper("Shop");
+		index.addShopkeeper(shopkeeper1);
+		index.addShopkeeper(shopkeeper2);
+
+		index.removeShopkeeper(shopkeeper1);
+		Assert.assertEquals(Collections.singletonList(shopkeeper2), byName(index, "shop"));
+
+		index.removeShopkeeper(shopkeeper2);
+		Assert.assertTrue(index.isEmpty());
+		Assert.assertEquals(Collections.emptyList(), byPrefix(index, ""));
+
+		// Removing a shopkeeper that is not indexed has no effect:
+		index.removeShopkeeper(shopkeeper1);
+		Assert.assertTrue(index.isEmpty());
+	}
+}
@@ -0,0 +1,110 @@
+package com.nisovin.shopkeepers.shopkeeper.registry;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.shopkeeper.TradingRecipe;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopType;
+import com.nisovin.shopkeepers.shopkeeper.AbstractShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.AbstractPlayerShopkeeper;
+import com.nisovin.shopkeepers.shopkeeper.player.StockIndex;
+import com.nisovin.shopkeepers.util.bukkit.BlockLocation;
+
+/**
+ * A minimal player shopkeeper for testing the shopkeeper registry indices.
+ * <p>
+ * This shopkeeper is never initialized or registered: Only its name, location, and owner are set
+ * up, which is all the indices require.
+ */
+public class TestShopkeeper extends AbstractPlayerShopkeeper {
+
+	private static void setField(
+			AbstractShopkeeper shopkeeper,
+			String fieldName,
+			@Nullable Object value
+	) {
+		try {
+			Field field = AbstractShopkeeper.class.getDeclaredField(fieldName);
+			field.setAccessible(true);
+			field.set(shopkeeper, value);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to set shopkeeper field: " + fieldName, e);
+		}
+	}
+
+	private UUID ownerUUID;
+
+	/**
+	 * Creates a new {@link TestShopkeeper}.
+	 * 
+	 * @param name
+	 *            the name, not <code>null</code>, can be empty
+	 * @param location
+	 *            the location, or <code>null</code> for a virtual shopkeeper
+	 * @param ownerUUID
+	 *            the owner's unique id, not <code>null</code>
+	 */
+	public TestShopkeeper(String name, @Nullable BlockLocation location, UUID ownerUUID) {
+		this.ownerUUID = ownerUUID;
+		Unsafe.initialized(this).setTestName(name);
+		Unsafe.initialized(this).setTestLocation(location);
+	}
+
+	/**
+	 * Sets the name of this shopkeeper, without informing the shop object or the registry.
+	 * 
+	 * @param name
+	 *            the name, not <code>null</code>, can be empty
+	 */
+	public void setTestName(String name) {
+		setField(this, "name", name);
+	}
+
+	/**
+	 * Sets the location of this shopkeeper, without informing the shop object or the registry.
+	 * 
+	 * @param location
+	 *            the location, or <code>null</code> for a virtual shopkeeper
+	 */
+	public void setTestLocation(@Nullable BlockLocation location) {
+		BlockLocation immutableLocation = (location != null) ? location.immutable() : null;
+		setField(this, "location", immutableLocation);
+		setField(this, "chunkCoords", (location != null) ? location.getChunkCoords() : null);
+	}
+
+	/**
+	 * Sets the owner of this shopkeeper, without informing the registry.
+	 * 
+	 * @param ownerUUID
+	 *            the owner's unique id, not <code>null</code>
+	 */
+	public void setTestOwner(UUID ownerUUID) {
+		this.ownerUUID = ownerUUID;
+	}
+
+	@Override
+	public UUID getOwnerUUID() {
+		return ownerUUID;
+	}
+
+	@Override
+	public AbstractShopType<?> getType() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean hasTradingRecipes(@Nullable Player player) {
+		return false;
+	}
+
+	@Override
+	protected List<? extends TradingRecipe> createTradingRecipes(StockIndex stock) {
+		return Collections.emptyList();
+	}
+}
@@ -0,0 +1,274 @@
+package com.nisovin.shopkeepers.shopobjects.entity.base;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.ChunkCoords;
+import com.nisovin.shopkeepers.shopobjects.entity.base.ChunkActivationTracker.ActivationType;
+
+public class ChunkActivationTrackerTest {
+
+	private static <T> T newProxy(Class<T> type, String methodName, Object result) {
+		return Unsafe.cast(Proxy.newProxyInstance(
+				type.getClassLoader(),
+				new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getName().equals(methodName)) {
+						return result;
+					}
+					throw new UnsupportedOperationException(String.valueOf(method));
+				}
+		));
+	}
+
+	private static Player player(long id) {
+		return newProxy(Player.class, "getUniqueId", new UUID(0L, id));
+	}
+
+	private static World world(String name) {
+		return newProxy(World.class, "getName", name);
+	}
+
+	private static final World WORLD = world("world");
+	private static final World OTHER_WORLD = world("other");
+
+	// Location in the center of the specified chunk:
+	private static Location location(World world, int chunkX, int chunkZ) {
+		return new Location(world, chunkX * 16 + 8, 64, chunkZ * 16 + 8);
+	}
+
+	// Chunks within the range of 1 around the specified chunk:
+	private static Set<String> chunksInRange(String worldName, int chunkX, int chunkZ) {
+		Set<String> chunks = new HashSet<>();
+		for (int x = chunkX - 1; x <= chunkX + 1; x++) {
+			for (int z = chunkZ - 1; z <= chunkZ + 1; z++) {
+				chunks.add(chunk(worldName, x, z));
+			}
+		}
+		return chunks;
+	}
+
+	private static String chunk(String worldName, int chunkX, int chunkZ) {
+		return worldName + "," + chunkX + "," + chunkZ;
+	}
+
+	private static String chunk(ChunkCoords chunkCoords) {
+		return chunk(chunkCoords.getWorldName(), chunkCoords.getChunkX(), chunkCoords.getChunkZ());
+	}
+
+	private final Set<String> activeAIChunks = new HashSet<>();
+	private final Set<String> activeGravityChunks = new HashSet<>();
+	private final List<String> activated = new ArrayList<>();
+	private final List<String> deactivated = new ArrayList<>();
+
+	private final ChunkActivationTracker tracker = new ChunkActivationTracker(
+			(chunkCoords, activationType, active) -> {
+				String chunk = chunk(chunkCoords);
+				Set<String> activeChunks = (activationType == ActivationType.AI)
+						? activeAIChunks : activeGravityChunks;
+				// The listener is only informed when the chunk changes between inactive and
+				// active:
+				if (active) {
+					Assert.assertTrue("already active: " + chunk, activeChunks.add(chunk));
+				} else {
+					Assert.assertTrue("not active: " + chunk, activeChunks.remove(chunk));
+				}
+				Assert.assertEquals(
+						"isActive of " + chunk,
+						active,
+						this.tracker.isActive(chunkCoords, activationType)
+				);
+				if (activationType == ActivationType.AI) {
+					(active ? activated : deactivated).add(chunk);
+				}
+			}
+	);
+
+	@Before
+	public void setup() {
+		// AI range 1, gravity disabled:
+		tracker.setChunkRanges(1, -1);
+	}
+
+	private void resetEvents() {
+		activated.clear();
+		deactivated.clear();
+	}
+
+	private void assertEvents(Set<String> expectedActivated, Set<String> expectedDeactivated) {
+		Assert.assertEquals("activated", expectedActivated, new HashSet<>(activated));
+		Assert.assertEquals("activated count", expectedActivated.size(), activated.size());
+		Assert.assertEquals("deactivated", expectedDeactivated, new HashSet<>(deactivated));
+		Assert.assertEquals("deactivated count", expectedDeactivated.size(), deactivated.size());
+		this.resetEvents();
+	}
+
+	private static Set<String> chunks(String... chunks) {
+		return new HashSet<>(Arrays.asList(chunks));
+	}
+
+	@Test
+	public void testAddPlayer() {
+		tracker.updatePlayer(player(1), location(WORLD, 0, 0));
+		this.assertEvents(chunksInRange("world", 0, 0), chunks());
+		Assert.assertEquals(chunksInRange("world", 0, 0), activeAIChunks);
+		Assert.assertTrue(tracker.isActive(new ChunkCoords("world", 1, 1), ActivationType.AI));
+		Assert.assertFalse(tracker.isActive(new ChunkCoords("world", 2, 0), ActivationType.AI));
+		Assert.assertFalse(tracker.isActive(new ChunkCoords("other", 0, 0), ActivationType.AI));
+	}
+
+	@Test
+	public void testMoveWithinChunk() {
+		Player player = player(1);
+		tracker.updatePlayer(player, location(WORLD, 0, 0));
+		this.resetEvents();
+
+		tracker.updatePlayer(player, new Location(WORLD, 15, 64, 0));
+		this.assertEvents(chunks(), chunks());
+	}
+
+	@Test
+	public void testMoveAcrossChunkBoundary() {
+		Player player = player(1);
+		tracker.updatePlayer(player, new Location(WORLD, 15, 64, 8));
+		this.resetEvents();
+
+		// Block x 16 is in chunk 1. Only the chunks that enter or leave the range are updated:
+		tracker.updatePlayer(player, new Location(WORLD, 16, 64, 8));
+		this.assertEvents(
+				chunks("world,2,-1", "world,2,0", "world,2,1"),
+				chunks("world,-1,-1", "world,-1,0", "world,-1,1")
+		);
+		Assert.assertEquals(chunksInRange("world", 1, 0), activeAIChunks);
+
+		// Negative coordinates: Block x -1 is in chunk -1.
+		tracker.updatePlayer(player, new Location(WORLD, 16, 64, -1));
+		this.assertEvents(
+				chunks("world,0,-2", "world,1,-2", "world,2,-2"),
+				chunks("world,0,1", "world,1,1", "world,2,1")
+		);
+		Assert.assertEquals(chunksInRange("world", 1, -1), activeAIChunks);
+	}
+
+	@Test
+	public void testMoveDiagonally() {
+		Player player = player(1);
+		tracker.updatePlayer(player, location(WORLD, 0, 0));
+		this.resetEvents();
+
+		tracker.updatePlayer(player, location(WORLD, 1, 1));
+		Set<String> oldChunks = chunksInRange("world", 0, 0);
+		Set<String> newChunks = chunksInRange("world", 1, 1);
+		Set<String> expectedActivated = new HashSet<>(newChunks);
+		expectedActivated.removeAll(oldChunks);
+		Set<String> expectedDeactivated = new HashSet<>(oldChunks);
+		expectedDeactivated.removeAll(newChunks);
+		this.assertEvents(expectedActivated, expectedDeactivated);
+		Assert.assertEquals(newChunks, activeAIChunks);
+	}
+
+	@Test
+	public void testWorldChange() {
+		Player player = player(1);
+		tracker.updatePlayer(player, location(WORLD, 0, 0));
+		this.resetEvents();
+
+		// Same chunk coordinates, but in a different world:
+		tracker.updatePlayer(player, location(OTHER_WORLD, 0, 0));
+		this.assertEvents(chunksInRange("other", 0, 0), chunksInRange("world", 0, 0));
+		Assert.assertEquals(chunksInRange("other", 0, 0), activeAIChunks);
+	}
+
+	@Test
+	public void testOverlappingPlayers() {
+		Player player1 = player(1);
+		Player player2 = player(2);
+		tracker.updatePlayer(player1, location(WORLD, 0, 0));
+		this.resetEvents();
+
+		// Only the chunks that are not yet in range of the first player are activated:
+		tracker.updatePlayer(player2, location(WORLD, 1, 0));
+		this.assertEvents(chunks("world,2,-1", "world,2,0", "world,2,1"), chunks());
+
+		// The same chunk as the other player:
+		tracker.updatePlayer(player2, location(WORLD, 0, 0));
+		this.assertEvents(chunks(), chunks("world,2,-1", "world,2,0", "world,2,1"));
+
+		// Moving away keeps the chunks active that are still in range of the first player:
+		tracker.updatePlayer(player2, location(WORLD, 0, 2));
+		this.assertEvents(chunks(
+				"world,-1,2", "world,0,2", "world,1,2",
+				"world,-1,3", "world,0,3", "world,1,3"
+		), chunks());
+
+		// Only the chunks that are no longer in range of the second player are deactivated:
+		tracker.updatePlayer(player1, location(WORLD, 0, 3));
+		this.assertEvents(chunks("world,-1,4", "world,0,4", "world,1,4"), chunks(
+				"world,-1,-1", "world,0,-1", "world,1,-1",
+				"world,-1,0", "world,0,0", "world,1,0"
+		));
+		Set<String> expectedChunks = chunksInRange("world", 0, 2);
+		expectedChunks.addAll(chunksInRange("world", 0, 3));
+		Assert.assertEquals(expectedChunks, activeAIChunks);
+	}
+
+	@Test
+	public void testRemovePlayer() {
+		Player player1 = player(1);
+		Player player2 = player(2);
+		tracker.updatePlayer(player1, location(WORLD, 0, 0));
+		tracker.updatePlayer(player2, location(WORLD, 1, 0));
+		this.resetEvents();
+
+		// Only the chunks that are no longer in range of any player are deactivated:
+		tracker.removePlayer(player1);
+		this.assertEvents(chunks(), chunks("world,-1,-1", "world,-1,0", "world,-1,1"));
+		Assert.assertEquals(chunksInRange("world", 1, 0), activeAIChunks);
+
+		// Removing a player that is not tracked has no effect:
+		tracker.removePlayer(player1);
+		this.assertEvents(chunks(), chunks());
+
+		tracker.removePlayer(player2);
+		this.assertEvents(chunks(), chunksInRange("world", 1, 0));
+		Assert.assertTrue(activeAIChunks.isEmpty());
+		Assert.assertFalse(tracker.isActive(new ChunkCoords("world", 1, 0), ActivationType.AI));
+
+		// The player can be tracked again:
+		tracker.updatePlayer(player1, location(WORLD, 0, 0));
+		this.assertEvents(chunksInRange("world", 0, 0), chunks());
+	}
+
+	@Test
+	public void testGravityRange() {
+		tracker.setChunkRanges(1, 0);
+		Player player = player(1);
+		tracker.updatePlayer(player, location(WORLD, 0, 0));
+		Assert.assertEquals(chunks("world,0,0"), activeGravityChunks);
+		Assert.assertEquals(chunksInRange("world", 0, 0), activeAIChunks);
+
+		tracker.updatePlayer(player, location(WORLD, 1, 0));
+		Assert.assertEquals(chunks("world,1,0"), activeGravityChunks);
+		// The AI is still active in the previous chunk:
+		ChunkCoords previousChunk = new ChunkCoords("world", 0, 0);
+		Assert.assertTrue(tracker.isActive(previousChunk, ActivationType.AI));
+		Assert.assertFalse(tracker.isActive(previousChunk, ActivationType.GRAVITY));
+
+		tracker.removePlayer(player);
+		Assert.assertTrue(activeGravityChunks.isEmpty());
+		Assert.assertTrue(activeAIChunks.isEmpty());
+	}
+}
@@ -0,0 +1,148 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.util.data.persistence.InvalidDataFormatException;
+
+public class SaveDataParserTests {
+
+	// Splits at every top-level entry:
+	private static List<String> split(String content) {
+		List<String> chunks = SaveDataParser.splitEntries(content, 1);
+		Assert.assertEquals("Chunks do not add up to the contents", content, String.join("", chunks));
+		return chunks;
+	}
+
+	// Parses the chunks separately and combines their entries.
+	private static Map<String, Object> parseChunks(List<String> chunks)
+			throws InvalidDataFormatException {
+		Map<String, Object> data = new LinkedHashMap<>();
+		for (String chunk : chunks) {
+			data.putAll(SaveDataParser.parse(chunk));
+		}
+		return data;
+	}
+
+	private static void assertParseFails(String content) {
+		try {
+			SaveDataParser.parse(content);
+			Assert.fail("Expected the parsing to fail: " + content);
+		} catch (InvalidDataFormatException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testSplitAtTopLevelEntries() throws InvalidDataFormatException {
+		String content = "data-version: 4|3|2\n"
+				+ "'1':\n"
+				+ "  name: a\n"
+				+ "  trades:\n"
+				+ "  - item: stone\n"
+				+ "'2':\n"
+				+ "  name: b\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals(Arrays.asList(
+				"data-version: 4|3|2\n",
+				"'1':\n  name: a\n  trades:\n  - item: stone\n",
+				"'2':\n  name: b\n"
+		), chunks);
+		Assert.assertEquals(SaveDataParser.parse(content), parseChunks(chunks));
+	}
+
+	@Test
+	public void testMinChunkLength() {
+		String content = "'1':\n  name: a\n'2':\n  name: b\n";
+		Assert.assertEquals(Arrays.asList(content), SaveDataParser.splitEntries(content, 1024));
+		// The first chunk is only split off at the first top-level entry after its minimum length:
+		Assert.assertEquals(
+				Arrays.asList(content, "'3': c\n"),
+				SaveDataParser.splitEntries(content + "'3': c\n", 18)
+		);
+	}
+
+	@Test
+	public void testQuotedKeys() throws InvalidDataFormatException {
+		String content = "'1':\n  name: a\n\"2\":\n  name: b\n3:\n  name: c\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals(3, chunks.size());
+
+		Map<String, Object> data = parseChunks(chunks);
+		Assert.assertEquals(Arrays.asList("1", "2", "3"), Arrays.asList(data.keySet().toArray()));
+		Assert.assertEquals(SaveDataParser.parse(content), data);
+	}
+
+	@Test
+	public void testDataVersion() throws InvalidDataFormatException {
+		String content = "data-version: 4|3|2\n'1':\n  name: a\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals("data-version: 4|3|2\n", chunks.get(0));
+		Assert.assertEquals("4|3|2", parseChunks(chunks).get("data-version"));
+	}
+
+	@Test
+	public void testNoSplitInsideIndentedValues() throws InvalidDataFormatException {
+		// Comments, sequence entries, and indented multi-line scalars that contain colons:
+		String content = "# comment: 1\n"
+				+ "'1':\n"
+				+ "  lore: |\n"
+				+ "    first: line\n"
+				+ "    second line\n"
+				+ "  name: 'multi\n"
+				+ "    line: scalar'\n"
+				+ "  list:\n"
+				+ "  - 'a: b'\n"
+				+ "\n"
+				+ "'2':\n"
+				+ "  name: b\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals(3, chunks.size());
+		Assert.assertEquals("# comment: 1\n", chunks.get(0));
+		Assert.assertTrue(chunks.get(2).startsWith("'2':"));
+		Assert.assertEquals(SaveDataParser.parse(content), parseChunks(chunks));
+	}
+
+	@Test
+	public void testFallbackForNonIndentedMultiLineScalars() throws InvalidDataFormatException {
+		// The continuation line of the quoted scalar looks like a top-level entry:
+		String content = "'1': \"first\nsecond: line\"\n'2': b\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals(3, chunks.size());
+		assertParseFails(chunks.get(0));
+
+		// The caller falls back to parsing the unsplit contents:
+		Map<String, Object> data = SaveDataParser.parse(content);
+		Assert.assertEquals("first second: line", data.get("1"));
+		Assert.assertEquals("b", data.get("2"));
+	}
+
+	@Test
+	public void testFallbackForAliasesAcrossChunks() throws InvalidDataFormatException {
+		String content = "'1':\n  item: &item\n    type: STONE\n'2':\n  item: *item\n";
+		List<String> chunks = split(content);
+		Assert.assertEquals(2, chunks.size());
+		SaveDataParser.parse(chunks.get(0));
+		assertParseFails(chunks.get(1));
+
+		// The caller falls back to parsing the unsplit contents:
+		Map<String, Object> data = SaveDataParser.parse(content);
+		Assert.assertEquals(data.get("1"), data.get("2"));
+	}
+
+	@Test
+	public void testSerializedObjectsAreNotDeserialized() throws InvalidDataFormatException {
+		String content = "'1':\n  item:\n    ==: org.bukkit.inventory.ItemStack\n    type: STONE\n";
+		Map<String, Object> data = SaveDataParser.parse(content);
+		Object shopkeeperData = data.get("1");
+		Assert.assertTrue(shopkeeperData instanceof Map);
+		Object item = ((Map<?, ?>) shopkeeperData).get("item");
+		Assert.assertTrue(item instanceof Map);
+		Assert.assertEquals("STONE", ((Map<?, ?>) item).get("type"));
+	}
+}
@@ -0,0 +1,230 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.data.container.DataContainer;
+import com.nisovin.shopkeepers.util.data.persistence.DataStore;
+import com.nisovin.shopkeepers.util.data.persistence.bukkit.BukkitConfigDataStore;
+
+public class SaveFilesTests extends AbstractBukkitTest {
+
+	private static final String DATA_VERSION = "1|2|3";
+
+	private Path folder;
+	private Path saveFile;
+	private Path segmentsFolder;
+	private SaveFiles saveFiles;
+
+	@Before
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("shopkeepers-save-files-test");
+		saveFile = folder.resolve("data").resolve("save.yml");
+		segmentsFolder = folder.resolve("data").resolve("shopkeepers");
+		saveFiles = new SaveFiles(folder);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private Path getSegmentFile(int segment) {
+		return SaveSegments.getSegmentFile(segmentsFolder, segment);
+	}
+
+	private static void setShopkeeper(DataStore saveData, int shopkeeperId, String name) {
+		DataContainer shopkeeperData = DataContainer.create();
+		shopkeeperData.set("name", name);
+		saveData.set(String.valueOf(shopkeeperId), shopkeeperData.serialize());
+	}
+
+	private static DataStore createSaveData(int... shopkeeperIds) {
+		DataStore saveData = BukkitConfigDataStore.ofNewYamlConfig();
+		saveData.set(SKShopkeeperStorage.DATA_VERSION_KEY, DATA_VERSION);
+		for (int shopkeeperId : shopkeeperIds) {
+			setShopkeeper(saveData, shopkeeperId, "shop" + shopkeeperId);
+		}
+		return saveData;
+	}
+
+	private DataStore load(ShopkeeperStorageType storageType) {
+		DataStore saveData = BukkitConfigDataStore.ofNewYamlConfig();
+		Assert.assertTrue("Loading failed", saveFiles.load(storageType, false, saveData));
+		return saveData;
+	}
+
+	private void saveAll(DataStore saveData) throws Exception {
+		saveFiles.save(saveData, new TreeSet<>(), true);
+	}
+
+	private void saveSegments(DataStore saveData, Integer... segments) throws Exception {
+		saveFiles.save(saveData, new TreeSet<>(Arrays.asList(segments)), false);
+	}
+
+	// Checks the data version and the shopkeepers (in this order) of the given save data.
+	private static void assertSaveData(DataStore saveData, int... shopkeeperIds) {
+		Assert.assertEquals(DATA_VERSION, saveData.getString(SKShopkeeperStorage.DATA_VERSION_KEY));
+
+		List<String> expectedKeys = Arrays.stream(shopkeeperIds)
+				.mapToObj(String::valueOf)
+				.collect(Collectors.toList());
+		List<String> actualKeys = saveData.getKeys().stream()
+				.filter(key -> !key.equals(SKShopkeeperStorage.DATA_VERSION_KEY))
+				.collect(Collectors.toList());
+		Assert.assertEquals(expectedKeys, actualKeys);
+
+		for (int shopkeeperId : shopkeeperIds) {
+			DataContainer shopkeeperData = saveData.getContainer(String.valueOf(shopkeeperId));
+			Assert.assertNotNull(shopkeeperData);
+			Assert.assertEquals("shop" + shopkeeperId, shopkeeperData.getString("name"));
+		}
+	}
+
+	private List<String> getBackupFileNames() throws IOException {
+		try (Stream<Path> files = Files.list(folder.resolve("data"))) {
+			return files.map(file -> String.valueOf(file.getFileName()))
+					.filter(fileName -> fileName.endsWith(".backup"))
+					.collect(Collectors.toList());
+		}
+	}
+
+	@Test
+	public void testNoSaveData() {
+		DataStore saveData = this.load(ShopkeeperStorageType.SEGMENTED);
+		Assert.assertTrue(saveData.isEmpty());
+		Assert.assertNull(saveFiles.getMigratedSaveData());
+	}
+
+	@Test
+	public void testMigrationRoundTrip() throws Exception {
+		Files.createDirectories(saveFile.getParent());
+		Files.write(saveFile, ("data-version: " + DATA_VERSION + "\n"
+				+ "'1':\n"
+				+ "  name: shop1\n"
+				+ "'2':\n"
+				+ "  name: shop2\n"
+				+ "'150':\n"
+				+ "  name: shop150\n").getBytes(StandardCharsets.UTF_8));
+
+		// Save file -> Segments:
+		DataStore saveData = this.load(ShopkeeperStorageType.SEGMENTED);
+		Assert.assertEquals(saveFile, saveFiles.getMigratedSaveData());
+		assertSaveData(saveData, 1, 2, 150);
+
+		Set<Integer> segments = new TreeSet<>();
+		saveFiles.save(saveData, segments, true);
+		Assert.assertEquals(Set.of(0, 1), segments);
+		saveFiles.backupMigratedSaveData(saveFile);
+
+		Assert.assertFalse(Files.exists(saveFile));
+		Assert.assertTrue(Files.exists(segmentsFolder.resolve(SaveSegments.META_FILE_NAME)));
+		Assert.assertEquals(
+				Set.of(0, 1),
+				SaveSegments.findSegmentFiles(segmentsFolder).keySet()
+		);
+		List<String> backupFileNames = this.getBackupFileNames();
+		Assert.assertEquals(1, backupFileNames.size());
+		Assert.assertTrue(backupFileNames.get(0).endsWith("_save.yml.backup"));
+
+		saveData = this.load(ShopkeeperStorageType.SEGMENTED);
+		Assert.assertNull(saveFiles.getMigratedSaveData());
+		assertSaveData(saveData, 1, 2, 150);
+
+		// Segments -> Save file:
+		saveData = this.load(ShopkeeperStorageType.SINGLE_FILE);
+		Assert.assertEquals(segmentsFolder, saveFiles.getMigratedSaveData());
+		assertSaveData(saveData, 1, 2, 150);
+
+		this.saveAll(saveData);
+		saveFiles.backupMigratedSaveData(segmentsFolder);
+
+		Assert.assertTrue(Files.exists(saveFile));
+		Assert.assertFalse(Files.exists(segmentsFolder));
+		Assert.assertEquals(2, this.getBackupFileNames().size());
+
+		saveData = this.load(ShopkeeperStorageType.SINGLE_FILE);
+		Assert.assertNull(saveFiles.getMigratedSaveData());
+		assertSaveData(saveData, 1, 2, 150);
+	}
+
+	@Test
+	public void testDeleteLastShopkeeperOfSegment() throws Exception {
+		this.load(ShopkeeperStorageType.SEGMENTED);
+		DataStore saveData = createSaveData(1, 2, 150);
+		this.saveAll(saveData);
+		Assert.assertTrue(Files.exists(this.getSegmentFile(0)));
+		Assert.assertTrue(Files.exists(this.getSegmentFile(1)));
+
+		// A leftover temporary file of the segment is deleted as well:
+		Path tempSegmentFile = segmentsFolder.resolve("1.yml.tmp");
+		Files.write(tempSegmentFile, "'150': {}\n".getBytes(StandardCharsets.UTF_8));
+
+		saveData.remove("150");
+		this.saveSegments(saveData, 1);
+		Assert.assertTrue(Files.exists(this.getSegmentFile(0)));
+		Assert.assertFalse(Files.exists(this.getSegmentFile(1)));
+		Assert.assertFalse(Files.exists(tempSegmentFile));
+
+		assertSaveData(this.load(ShopkeeperStorageType.SEGMENTED), 1, 2);
+
+		// Removing the last remaining shopkeepers:
+		saveData.remove("1");
+		saveData.remove("2");
+		this.saveSegments(saveData, 0);
+		Assert.assertTrue(SaveSegments.findSegmentFiles(segmentsFolder).isEmpty());
+
+		// The meta file is kept, so that we do not migrate any old save data again:
+		saveData = this.load(ShopkeeperStorageType.SEGMENTED);
+		Assert.assertNull(saveFiles.getMigratedSaveData());
+		assertSaveData(saveData);
+	}
+
+	@Test
+	public void testRecoverTempSegmentFile() throws Exception {
+		this.load(ShopkeeperStorageType.SEGMENTED);
+		this.saveAll(createSaveData(1, 150));
+
+		// Simulate a save that was interrupted after the segment file was removed, but before the
+		// temporary segment file was moved into its place:
+		Path segmentFile = this.getSegmentFile(1);
+		Path tempSegmentFile = segmentsFolder.resolve("1.yml.tmp");
+		Files.move(segmentFile, tempSegmentFile);
+
+		// Outdated temporary file of a segment whose segment file still exists:
+		Files.write(
+				segmentsFolder.resolve("0.yml.tmp"),
+				"'1':\n  name: outdated\n".getBytes(StandardCharsets.UTF_8)
+		);
+
+		DataStore saveData = this.load(ShopkeeperStorageType.SEGMENTED);
+		assertSaveData(saveData, 1, 150);
+
+		// The next save of the segment replaces the temporary segment file:
+		setShopkeeper(saveData, 151, "shop151");
+		this.saveSegments(saveData, 1);
+		Assert.assertTrue(Files.exists(segmentFile));
+		Assert.assertFalse(Files.exists(tempSegmentFile));
+
+		assertSaveData(this.load(ShopkeeperStorageType.SEGMENTED), 1, 150, 151);
+	}
+}
@@ -0,0 +1,93 @@
+package com.nisovin.shopkeepers.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SaveSegmentsTests {
+
+	private Path folder;
+
+	@Before
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("shopkeepers-save-segments-test");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private void createFile(String fileName) throws IOException {
+		Files.createFile(folder.resolve(fileName));
+	}
+
+	@Test
+	public void testShopkeeperSegments() {
+		Assert.assertEquals(0, SaveSegments.getSegment(1));
+		Assert.assertEquals(0, SaveSegments.getSegment(99));
+		Assert.assertEquals(1, SaveSegments.getSegment(100));
+		Assert.assertEquals(1, SaveSegments.getSegment("150"));
+		Assert.assertEquals(-1, SaveSegments.getSegment("0"));
+		Assert.assertEquals(-1, SaveSegments.getSegment("-1"));
+		Assert.assertEquals(-1, SaveSegments.getSegment("data-version"));
+
+		Assert.assertEquals(0, SaveSegments.getFirstShopkeeperId(0));
+		Assert.assertEquals(99, SaveSegments.getLastShopkeeperId(0));
+		Assert.assertEquals(100, SaveSegments.getFirstShopkeeperId(1));
+		Assert.assertEquals(199, SaveSegments.getLastShopkeeperId(1));
+
+		// The last segment does not overflow:
+		int lastSegment = SaveSegments.getSegment(Integer.MAX_VALUE);
+		Assert.assertEquals(Integer.MAX_VALUE, SaveSegments.getLastShopkeeperId(lastSegment));
+	}
+
+	@Test
+	public void testSegmentFiles() {
+		Path segmentFile = SaveSegments.getSegmentFile(folder, 12);
+		Assert.assertEquals(folder.resolve("12.yml"), segmentFile);
+		Assert.assertEquals(12, SaveSegments.getSegment(segmentFile));
+
+		Assert.assertEquals(-1, SaveSegments.getSegment(folder.resolve("012.yml")));
+		Assert.assertEquals(-1, SaveSegments.getSegment(folder.resolve("12.yml.tmp")));
+		Assert.assertEquals(-1, SaveSegments.getSegment(folder.resolve("-1.yml")));
+		Path metaFile = folder.resolve(SaveSegments.META_FILE_NAME);
+		Assert.assertEquals(-1, SaveSegments.getSegment(metaFile));
+	}
+
+	@Test
+	public void testFindSegmentFiles() throws IOException {
+		this.createFile(SaveSegments.META_FILE_NAME);
+		this.createFile("2.yml");
+		this.createFile("0.yml");
+		this.createFile("0.yml.tmp"); // Ignored: The segment file exists
+		this.createFile("1.yml.tmp"); // Leftover temporary file without segment file
+		this.createFile("01.yml");
+		this.createFile("other.txt");
+		Files.createDirectory(folder.resolve("3.yml"));
+
+		NavigableMap<Integer, Path> segmentFiles = SaveSegments.findSegmentFiles(folder);
+		Assert.assertEquals(Arrays.asList(0, 1, 2), Arrays.asList(segmentFiles.keySet().toArray()));
+		Assert.assertEquals(folder.resolve("0.yml"), segmentFiles.get(0));
+		Assert.assertEquals(folder.resolve("1.yml.tmp"), segmentFiles.get(1));
+		Assert.assertEquals(folder.resolve("2.yml"), segmentFiles.get(2));
+	}
+
+	@Test
+	public void testFindSegmentFilesMissingDirectory() throws IOException {
+		Assert.assertTrue(SaveSegments.findSegmentFiles(folder.resolve("missing")).isEmpty());
+	}
+}
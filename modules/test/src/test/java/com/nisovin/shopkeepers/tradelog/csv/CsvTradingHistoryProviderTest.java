@@ -0,0 +1,277 @@
+package com.nisovin.shopkeepers.tradelog.csv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.history.PlayerSelector;
+import com.nisovin.shopkeepers.tradelog.history.ShopSelector;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryCursor;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryRequest;
+import com.nisovin.shopkeepers.tradelog.history.TradingHistoryResult;
+import com.nisovin.shopkeepers.util.csv.CsvFormatter;
+import com.nisovin.shopkeepers.util.java.Range;
+
+public class CsvTradingHistoryProviderTest extends AbstractBukkitTest {
+
+	private static final ZoneId ZONE = ZoneOffset.UTC;
+	private static final LocalDate DAY_1 = LocalDate.of(2024, 1, 1);
+	private static final LocalDate DAY_2 = LocalDate.of(2024, 1, 2);
+
+	private static final UUID PLAYER_A = new UUID(0L, 1L);
+	private static final UUID PLAYER_B = new UUID(0L, 2L);
+	private static final UUID SHOP = new UUID(1L, 1L);
+
+	private static final List<String> HEADER = Arrays.asList(
+			CsvTradeLogger.COLUMN_TIME,
+			CsvTradeLogger.COLUMN_PLAYER_UUID,
+			CsvTradeLogger.COLUMN_PLAYER_NAME,
+			CsvTradeLogger.COLUMN_SHOP_UUID,
+			CsvTradeLogger.COLUMN_SHOP_TYPE,
+			CsvTradeLogger.COLUMN_SHOP_OWNER_UUID,
+			CsvTradeLogger.COLUMN_SHOP_OWNER_NAME,
+			CsvTradeLogger.COLUMN_ITEM_1_TYPE,
+			CsvTradeLogger.COLUMN_ITEM_1_AMOUNT,
+			CsvTradeLogger.COLUMN_RESULT_ITEM_TYPE,
+			CsvTradeLogger.COLUMN_RESULT_ITEM_AMOUNT,
+			CsvTradeLogger.COLUMN_TRADE_COUNT
+	);
+
+	private final CsvFormatter csv = new CsvFormatter();
+	private Path folder;
+	private CsvTradingHistoryProvider provider;
+
+	// The trades are named by their logging order: t0 is the oldest trade. Player A logs the trades
+	// with an even number, player B logs the trades with an odd number.
+	@Before
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("shopkeepers-trade-logs-test");
+		provider = new CsvTradingHistoryProvider(folder, ZONE, Runnable::run);
+
+		// Closed and compressed log file:
+		CsvLogFile day1Part0 = new CsvLogFile(DAY_1, 0);
+		this.writeLogFile(day1Part0, "10:00:00 t0", "10:00:01 t1", "10:00:02 t2");
+		this.closeLogFile(day1Part0);
+		this.compressLogFile(day1Part0);
+
+		// Closed log file:
+		CsvLogFile day1Part1 = new CsvLogFile(DAY_1, 1);
+		this.writeLogFile(day1Part1, "11:00:00 t3", "11:00:01 t4");
+		this.closeLogFile(day1Part1);
+
+		// Open log file:
+		this.writeLogFile(new CsvLogFile(DAY_2, 0), "09:00:00 t5", "09:00:01 t6", "09:00:02 t7");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	// Each trade: "<time> <name>"
+	private void writeLogFile(CsvLogFile logFile, String... trades) throws IOException {
+		StringBuilder content = new StringBuilder(csv.formatRecord(HEADER));
+		for (String trade : trades) {
+			content.append(this.formatTrade(trade));
+		}
+		Files.write(
+				logFile.getCsvFile(folder),
+				content.toString().getBytes(StandardCharsets.UTF_8)
+		);
+	}
+
+	private void appendTrade(CsvLogFile logFile, String trade) throws IOException {
+		Files.write(
+				logFile.getCsvFile(folder),
+				this.formatTrade(trade).getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND
+		);
+	}
+
+	private String formatTrade(String trade) {
+		String[] parts = trade.split(" ");
+		String time = parts[0];
+		String name = parts[1];
+		int number = Integer.parseInt(name.substring(1));
+		UUID playerUUID = (number % 2 == 0) ? PLAYER_A : PLAYER_B;
+		return csv.formatRecord(Arrays.asList(
+				time,
+				playerUUID,
+				name,
+				SHOP,
+				"admin",
+				"",
+				"",
+				"EMERALD",
+				1,
+				"STONE",
+				1,
+				1
+		));
+	}
+
+	private void closeLogFile(CsvLogFile logFile) throws IOException {
+		CsvLogFileIndex index = CsvLogFileIndex.build(folder, logFile, ZONE);
+		try (OutputStream output = Files.newOutputStream(logFile.getIndexFile(folder))) {
+			index.write(output);
+		}
+	}
+
+	private void compressLogFile(CsvLogFile logFile) throws IOException {
+		Path csvFile = logFile.getCsvFile(folder);
+		try (OutputStream output = new GZIPOutputStream(
+				Files.newOutputStream(logFile.getCompressedFile(folder))
+		)) {
+			Files.copy(csvFile, output);
+		}
+		Files.delete(csvFile);
+	}
+
+	private TradingHistoryResult query(
+			PlayerSelector playerSelector,
+			Range range,
+			@Nullable TradingHistoryCursor cursor
+	) {
+		TradingHistoryRequest request = new TradingHistoryRequest(
+				playerSelector,
+				ShopSelector.ALL,
+				range,
+				cursor
+		);
+		return provider.getTradingHistory(request).join();
+	}
+
+	private static List<String> getNames(TradingHistoryResult result) {
+		List<String> names = new ArrayList<>();
+		for (TradeRecord trade : result.getTrades()) {
+			names.add(trade.getPlayer().getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void testAllTradesNewestFirst() {
+		TradingHistoryResult result = this.query(
+				PlayerSelector.ALL,
+				new Range.ExplicitRange(0, 10),
+				null
+		);
+		Assert.assertEquals(8, result.getTotalTradesCount());
+		Assert.assertEquals(
+				Arrays.asList("t7", "t6", "t5", "t4", "t3", "t2", "t1", "t0"),
+				getNames(result)
+		);
+	}
+
+	@Test
+	public void testRangeAcrossLogFiles() {
+		// Spans the open log file, the second part of the previous day, and its first part:
+		TradingHistoryResult result = this.query(
+				PlayerSelector.ALL,
+				new Range.ExplicitRange(2, 6),
+				null
+		);
+		Assert.assertEquals(8, result.getTotalTradesCount());
+		Assert.assertEquals(Arrays.asList("t5", "t4", "t3", "t2"), getNames(result));
+	}
+
+	@Test
+	public void testFilteredRange() {
+		PlayerSelector playerB = new PlayerSelector.ByUUID(PLAYER_B, null);
+		TradingHistoryResult result = this.query(playerB, new Range.ExplicitRange(1, 3), null);
+		Assert.assertEquals(4, result.getTotalTradesCount());
+		Assert.assertEquals(Arrays.asList("t5", "t3"), getNames(result));
+
+		// Repeated query: Uses the cached counts of the indices.
+		result = this.query(playerB, new Range.ExplicitRange(0, 4), null);
+		Assert.assertEquals(4, result.getTotalTradesCount());
+		Assert.assertEquals(Arrays.asList("t7", "t5", "t3", "t1"), getNames(result));
+
+		PlayerSelector unknownPlayer = new PlayerSelector.ByUUID(new UUID(0L, 3L), null);
+		result = this.query(unknownPlayer, new Range.ExplicitRange(0, 10), null);
+		Assert.assertEquals(0, result.getTotalTradesCount());
+		Assert.assertTrue(result.getTrades().isEmpty());
+	}
+
+	@Test
+	public void testCursorAcrossLogFiles() throws IOException {
+		TradingHistoryResult page1 = this.query(
+				PlayerSelector.ALL,
+				new Range.ExplicitRange(0, 3),
+				null
+		);
+		Assert.assertEquals(Arrays.asList("t7", "t6", "t5"), getNames(page1));
+		TradingHistoryCursor cursor1 = page1.getNextCursor();
+		Assert.assertNotNull(cursor1);
+		assert cursor1 != null;
+
+		// A new trade is logged in the meantime: The cursor continues after the previous page,
+		// even though the trades have shifted by one.
+		this.appendTrade(new CsvLogFile(DAY_2, 0), "09:00:03 t8");
+
+		TradingHistoryResult page2 = this.query(
+				PlayerSelector.ALL,
+				new Range.ExplicitRange(3, 6),
+				cursor1
+		);
+		Assert.assertEquals(9, page2.getTotalTradesCount());
+		Assert.assertEquals(Arrays.asList("t4", "t3", "t2"), getNames(page2));
+		TradingHistoryCursor cursor2 = page2.getNextCursor();
+		Assert.assertNotNull(cursor2);
+		assert cursor2 != null;
+
+		TradingHistoryResult page3 = this.query(
+				PlayerSelector.ALL,
+				new Range.ExplicitRange(6, 9),
+				cursor2
+		);
+		Assert.assertEquals(Arrays.asList("t1", "t0"), getNames(page3));
+	}
+
+	@Test
+	public void testCursorWithinLogFile() {
+		PlayerSelector playerA = new PlayerSelector.ByUUID(PLAYER_A, null);
+		TradingHistoryResult page1 = this.query(playerA, new Range.ExplicitRange(0, 1), null);
+		Assert.assertEquals(4, page1.getTotalTradesCount());
+		Assert.assertEquals(Arrays.asList("t6"), getNames(page1));
+		TradingHistoryCursor cursor1 = page1.getNextCursor();
+		Assert.assertNotNull(cursor1);
+		assert cursor1 != null;
+
+		// Continues before the cursor within the open log file, and then in the older log files:
+		TradingHistoryResult page2 = this.query(playerA, new Range.ExplicitRange(1, 3), cursor1);
+		Assert.assertEquals(Arrays.asList("t4", "t2"), getNames(page2));
+		TradingHistoryCursor cursor2 = page2.getNextCursor();
+		Assert.assertNotNull(cursor2);
+		assert cursor2 != null;
+
+		// Continues within the first log file, and skips the newer log files by their timestamps:
+		TradingHistoryResult page3 = this.query(playerA, new Range.ExplicitRange(3, 5), cursor2);
+		Assert.assertEquals(Arrays.asList("t0"), getNames(page3));
+	}
+}
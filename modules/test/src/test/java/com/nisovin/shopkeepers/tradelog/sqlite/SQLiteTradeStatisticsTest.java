@@ -0,0 +1,310 @@
+package com.nisovin.shopkeepers.tradelog.sqlite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.tradelog.data.PlayerRecord;
+import com.nisovin.shopkeepers.tradelog.data.ShopRecord;
+import com.nisovin.shopkeepers.tradelog.data.TradeRecord;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatistics;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsGranularity;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsRequest;
+import com.nisovin.shopkeepers.tradelog.stats.TradeStatisticsScope;
+
+public class SQLiteTradeStatisticsTest extends AbstractBukkitTest {
+
+	private static final Instant DAY_START = Instant.parse("2024-01-01T00:00:00Z");
+	private static final Instant HOUR_10 = Instant.parse("2024-01-01T10:00:00Z");
+	private static final Instant HOUR_11 = Instant.parse("2024-01-01T11:00:00Z");
+
+	private static final PlayerRecord PLAYER = PlayerRecord.of(new UUID(0L, 1L), "Player");
+	private static final PlayerRecord OWNER = PlayerRecord.of(new UUID(0L, 2L), "Owner");
+	private static final ShopRecord SELLING_SHOP = new ShopRecord(
+			new UUID(1L, 1L), "sell", OWNER, "", "world", 0, 0, 0
+	);
+	private static final ShopRecord BUYING_SHOP = new ShopRecord(
+			new UUID(1L, 2L), SQLiteTradeStatistics.BUYING_SHOP_TYPE_ID, OWNER, "", "world", 1, 0, 0
+	);
+	private static final ShopRecord ADMIN_SHOP = new ShopRecord(
+			new UUID(1L, 3L), "admin", null, "", "world", 2, 0, 0
+	);
+
+	// The logged trades only store a minimal subset of the columns of the trade table that are
+	// relevant for the aggregation of the trade statistics.
+	private static final String CREATE_TRADE_TABLE_SQL = "CREATE TABLE trade ("
+			+ "timestamp VARCHAR(30) NOT NULL, "
+			+ "shop_uuid CHARACTER(36) NOT NULL, "
+			+ "shop_type VARCHAR(32) NOT NULL, "
+			+ "shop_owner_uuid CHARACTER(36), "
+			+ "item_1_id INTEGER NOT NULL, "
+			+ "result_item_id INTEGER NOT NULL, "
+			+ "result_item_amount TINYINT NOT NULL, "
+			+ "trade_count SMALLINT NOT NULL"
+			+ ");";
+	private static final String INSERT_TRADE_SQL = "INSERT INTO trade "
+			+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?);";
+
+	private static final class LoggedTrade {
+
+		private final TradeRecord trade;
+		// The metadata of the traded item:
+		private final String itemMetadata;
+
+		LoggedTrade(TradeRecord trade, String itemMetadata) {
+			this.trade = trade;
+			this.itemMetadata = itemMetadata;
+		}
+	}
+
+	private static LoggedTrade trade(
+			String time,
+			ShopRecord shop,
+			ItemStack item1,
+			ItemStack resultItem,
+			String itemMetadata,
+			int tradeCount
+	) {
+		return new LoggedTrade(new TradeRecord(
+				Instant.parse("2024-01-01T" + time + "Z"),
+				PLAYER,
+				shop,
+				UnmodifiableItemStack.ofNonNull(resultItem),
+				UnmodifiableItemStack.ofNonNull(item1),
+				null,
+				tradeCount
+		), itemMetadata);
+	}
+
+	private static ItemStack item(Material type, int amount) {
+		return new ItemStack(type, amount);
+	}
+
+	// The selling shop trades two variants of stone with different metadata. The buying shop pays
+	// emeralds for dirt. The admin shop trades stone without metadata.
+	private static final List<LoggedTrade> TRADES = Arrays.asList(
+			trade("10:15:00", SELLING_SHOP, item(Material.EMERALD, 1), item(Material.STONE, 2), "",
+					3),
+			trade("10:45:00", SELLING_SHOP, item(Material.EMERALD, 2), item(Material.STONE, 1),
+					"named", 1),
+			trade("11:10:00", BUYING_SHOP, item(Material.DIRT, 4), item(Material.EMERALD, 1), "",
+					2),
+			trade("10:30:00", SELLING_SHOP, item(Material.EMERALD, 1), item(Material.STONE, 2), "",
+					1),
+			trade("11:20:00", ADMIN_SHOP, item(Material.EMERALD, 1), item(Material.STONE, 5), "",
+					1)
+	);
+
+	private Path folder;
+	private SQLiteConnectionManager connectionManager;
+	private SQLiteItemDictionary itemDictionary;
+
+	@Before
+	public void setup() throws IOException {
+		folder = Files.createTempDirectory("shopkeepers-trade-stats-test");
+		connectionManager = new SQLiteConnectionManager(folder.resolve("trades.db"), connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(SQLiteItemDictionary.CREATE_TABLE_SQL);
+				statement.execute(SQLiteItemDictionary.CREATE_TYPE_INDEX_SQL);
+				statement.execute(CREATE_TRADE_TABLE_SQL);
+				statement.execute(SQLiteTradeStatistics.CREATE_TABLE_SQL);
+			}
+		});
+		itemDictionary = new SQLiteItemDictionary(16);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		connectionManager.close();
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private long getTradedItemId(Connection connection, LoggedTrade loggedTrade) throws Exception {
+		TradeRecord trade = loggedTrade.trade;
+		UnmodifiableItemStack tradedItem;
+		if (SQLiteTradeStatistics.isFirstItemTraded(trade.getShop().getTypeId())) {
+			tradedItem = trade.getItem1();
+		} else {
+			tradedItem = trade.getResultItem();
+		}
+		return this.getItemId(connection, tradedItem, loggedTrade.itemMetadata);
+	}
+
+	private long getItemId(
+			Connection connection,
+			UnmodifiableItemStack itemStack,
+			String itemMetadata
+	) throws Exception {
+		return itemDictionary.getItemId(connection, itemStack.getType().name(), itemMetadata);
+	}
+
+	private void updateStatistics(List<? extends LoggedTrade> loggedTrades) throws Exception {
+		connectionManager.write(connection -> {
+			List<TradeRecord> trades = new ArrayList<>();
+			long[] tradedItemIds = new long[loggedTrades.size()];
+			for (int i = 0; i < tradedItemIds.length; i++) {
+				LoggedTrade loggedTrade = loggedTrades.get(i);
+				trades.add(loggedTrade.trade);
+				tradedItemIds[i] = this.getTradedItemId(connection.getConnection(), loggedTrade);
+			}
+			SQLiteTradeStatistics.update(connection, trades, tradedItemIds);
+			return null;
+		});
+	}
+
+	private void insertTrades(List<? extends LoggedTrade> loggedTrades) throws Exception {
+		connectionManager.write(connection -> {
+			Connection jdbcConnection = connection.getConnection();
+			PreparedStatement insertStatement = connection.prepareStatement(INSERT_TRADE_SQL);
+			for (LoggedTrade loggedTrade : loggedTrades) {
+				TradeRecord trade = loggedTrade.trade;
+				ShopRecord shop = trade.getShop();
+				@Nullable PlayerRecord shopOwner = shop.getOwner();
+				// Only the traded item is stored with its metadata:
+				boolean firstItemTraded = SQLiteTradeStatistics.isFirstItemTraded(shop.getTypeId());
+				long item1Id = this.getItemId(jdbcConnection, trade.getItem1(),
+						firstItemTraded ? loggedTrade.itemMetadata : "");
+				long resultItemId = this.getItemId(jdbcConnection, trade.getResultItem(),
+						firstItemTraded ? "" : loggedTrade.itemMetadata);
+
+				insertStatement.setString(1, trade.getTimestamp().toString());
+				insertStatement.setString(2, shop.getUniqueId().toString());
+				insertStatement.setString(3, shop.getTypeId());
+				insertStatement.setString(4,
+						(shopOwner != null) ? shopOwner.getUniqueId().toString() : null);
+				insertStatement.setLong(5, item1Id);
+				insertStatement.setLong(6, resultItemId);
+				insertStatement.setInt(7, trade.getResultItem().getAmount());
+				insertStatement.setInt(8, trade.getTradeCount());
+				insertStatement.executeUpdate();
+			}
+			return null;
+		});
+	}
+
+	private TradeStatistics query(
+			TradeStatisticsScope scope,
+			String subject,
+			TradeStatisticsGranularity granularity
+	) throws Exception {
+		var request = new TradeStatisticsRequest(
+				scope,
+				subject,
+				granularity,
+				DAY_START,
+				DAY_START.plusSeconds(TradeStatisticsGranularity.DAY.getPeriodSeconds())
+		);
+		return connectionManager.read(connection -> {
+			return SQLiteTradeStatistics.query(connection, request);
+		});
+	}
+
+	private static void assertPeriods(TradeStatistics statistics, long[]... expectedPeriods) {
+		List<? extends TradeStatistics.Period> periods = statistics.getPeriods();
+		Assert.assertEquals("periods", expectedPeriods.length, periods.size());
+		for (int i = 0; i < expectedPeriods.length; i++) {
+			TradeStatistics.Period period = periods.get(i);
+			long[] expected = expectedPeriods[i];
+			Assert.assertEquals("period start", expected[0], period.getStart().getEpochSecond());
+			Assert.assertEquals("trades", expected[1], period.getTrades());
+			Assert.assertEquals("result items", expected[2], period.getResultItems());
+		}
+	}
+
+	private static long[] period(Instant start, long trades, long resultItems) {
+		return new long[] { start.getEpochSecond(), trades, resultItems };
+	}
+
+	private void assertStatistics() throws Exception {
+		var hourly = TradeStatisticsGranularity.HOUR;
+		var daily = TradeStatisticsGranularity.DAY;
+
+		String sellingShop = SELLING_SHOP.getUniqueId().toString();
+		assertPeriods(this.query(TradeStatisticsScope.SHOP, sellingShop, hourly),
+				period(HOUR_10, 5, 9));
+		String buyingShop = BUYING_SHOP.getUniqueId().toString();
+		assertPeriods(this.query(TradeStatisticsScope.SHOP, buyingShop, daily),
+				period(DAY_START, 2, 2));
+
+		// The admin shop has no owner:
+		String owner = OWNER.getUniqueId().toString();
+		assertPeriods(this.query(TradeStatisticsScope.OWNER, owner, hourly),
+				period(HOUR_10, 5, 9),
+				period(HOUR_11, 2, 2));
+		assertPeriods(this.query(TradeStatisticsScope.OWNER, owner, daily),
+				period(DAY_START, 7, 11));
+
+		// The item statistics of an item type include all item variants:
+		assertPeriods(this.query(TradeStatisticsScope.ITEM, Material.STONE.name(), hourly),
+				period(HOUR_10, 5, 9),
+				period(HOUR_11, 1, 5));
+		assertPeriods(this.query(TradeStatisticsScope.ITEM, Material.STONE.name(), daily),
+				period(DAY_START, 6, 14));
+		// Buying shops trade their first item:
+		assertPeriods(this.query(TradeStatisticsScope.ITEM, Material.DIRT.name(), hourly),
+				period(HOUR_11, 2, 2));
+		// The currency is not counted as traded item:
+		assertPeriods(this.query(TradeStatisticsScope.ITEM, Material.EMERALD.name(), daily));
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		this.updateStatistics(TRADES);
+		this.assertStatistics();
+	}
+
+	@Test
+	public void testUpdateAddsToExistingStatistics() throws Exception {
+		// Each update call upserts the statistics rows of the same periods:
+		for (LoggedTrade trade : TRADES) {
+			this.updateStatistics(Arrays.asList(trade));
+		}
+		this.assertStatistics();
+	}
+
+	@Test
+	public void testBackfill() throws Exception {
+		this.insertTrades(TRADES);
+		connectionManager.write(connection -> {
+			SQLiteTradeLogger.createTradeStats(connection.getConnection());
+			return null;
+		});
+		this.assertStatistics();
+	}
+
+	@Test
+	public void testBackfillReplacesStatistics() throws Exception {
+		// Outdated statistics are replaced by the aggregated logged trades:
+		this.updateStatistics(TRADES.subList(0, 2));
+		this.insertTrades(TRADES);
+		connectionManager.write(connection -> {
+			SQLiteTradeLogger.createTradeStats(connection.getConnection());
+			return null;
+		});
+		this.assertStatistics();
+	}
+}
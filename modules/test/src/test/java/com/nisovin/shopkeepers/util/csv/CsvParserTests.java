@@ -0,0 +1,70 @@
+package com.nisovin.shopkeepers.util.csv;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CsvParserTests {
+
+	private static void assertParsed(String record, String... expectedFields) {
+		List<String> fields = new CsvParser().parseRecord(record);
+		Assert.assertEquals("Record: " + record, Arrays.asList(expectedFields), fields);
+	}
+
+	@Test
+	public void testUnquotedFields() {
+		assertParsed("a,b,c", "a", "b", "c");
+		assertParsed("a", "a");
+		assertParsed("1, 2 ,3", "1", " 2 ", "3");
+	}
+
+	@Test
+	public void testEmptyFields() {
+		assertParsed("", "");
+		assertParsed(",", "", "");
+		assertParsed("a,,c", "a", "", "c");
+		assertParsed("a,b,", "a", "b", "");
+		assertParsed("\"\",\"\"", "", "");
+	}
+
+	@Test
+	public void testQuotedFields() {
+		assertParsed("\"a\",\"b\",\"c\"", "a", "b", "c");
+		assertParsed("\"a,b\",c", "a,b", "c");
+		assertParsed("a,\"b,c\"", "a", "b,c");
+		assertParsed("\"{\"\"key\"\":\"\"value\"\"}\"", "{\"key\":\"value\"}");
+	}
+
+	@Test
+	public void testEscapedQuotes() {
+		assertParsed("\"\"\"\"", "\"");
+		assertParsed("\"a\"\"b\"", "a\"b");
+		assertParsed("\"\"\"a\"\"\",b", "\"a\"", "b");
+	}
+
+	@Test
+	public void testEscapedNewlinesAreKept() {
+		// Escaped newlines and backslashes are not unescaped again:
+		assertParsed("\"a\\nb\",\"c\\\\d\"", "a\\nb", "c\\\\d");
+	}
+
+	@Test
+	public void testFormatterRoundTrip() {
+		CsvFormatter formatter = new CsvFormatter();
+		List<String> fields = Arrays.asList("a", "", "b,c", "\"quoted\"", "{\"key\":1}", " x ");
+		String record = formatter.formatFields(fields);
+		Assert.assertEquals(fields, new CsvParser().parseRecord(record));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnterminatedQuotedField() {
+		new CsvParser().parseRecord("a,\"b");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCharacterAfterQuotedField() {
+		new CsvParser().parseRecord("\"a\"b,c");
+	}
+}
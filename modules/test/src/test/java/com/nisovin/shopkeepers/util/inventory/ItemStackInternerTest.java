@@ -0,0 +1,76 @@
+package com.nisovin.shopkeepers.util.inventory;
+
+import org.bukkit.inventory.ItemStack;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.internal.util.Unsafe;
+import com.nisovin.shopkeepers.api.util.UnmodifiableItemStack;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+import com.nisovin.shopkeepers.util.TestItemStacks;
+
+public class ItemStackInternerTest extends AbstractBukkitTest {
+
+	@Test
+	public void testInternNull() {
+		Assert.assertNull(ItemStackInterner.intern(null));
+	}
+
+	@Test
+	public void testInternEqualItems() {
+		UnmodifiableItemStack item1 = UnmodifiableItemStack.ofNonNull(
+				TestItemStacks.createItemStackComplete()
+		);
+		UnmodifiableItemStack item2 = UnmodifiableItemStack.ofNonNull(
+				TestItemStacks.createItemStackComplete()
+		);
+		Assert.assertNotSame(item1, item2);
+
+		UnmodifiableItemStack interned1 = ItemStackInterner.intern(item1);
+		UnmodifiableItemStack interned2 = ItemStackInterner.intern(item2);
+		Assert.assertSame(interned1, interned2);
+		Assert.assertEquals(item2, interned2);
+	}
+
+	@Test
+	public void testInternDifferentItems() {
+		ItemStack itemStack = TestItemStacks.createItemStackBasic();
+		UnmodifiableItemStack item1 = UnmodifiableItemStack.ofNonNull(itemStack.clone());
+		itemStack.setAmount(itemStack.getAmount() + 1);
+		UnmodifiableItemStack item2 = UnmodifiableItemStack.ofNonNull(itemStack.clone());
+
+		UnmodifiableItemStack interned1 = ItemStackInterner.intern(item1);
+		UnmodifiableItemStack interned2 = ItemStackInterner.intern(item2);
+		Assert.assertNotSame(interned1, interned2);
+		Assert.assertEquals(item1, interned1);
+		Assert.assertEquals(item2, interned2);
+	}
+
+	@Test
+	public void testPooledComponentsData() {
+		ItemStack itemStack = TestItemStacks.createItemStackComplete();
+		UnmodifiableItemStack item = ItemStackInterner.intern(
+				UnmodifiableItemStack.ofNonNull(itemStack.clone())
+		);
+		ItemStackComponentsData expected = Unsafe.assertNonNull(
+				ItemStackComponentsData.of(itemStack)
+		);
+
+		ItemStackComponentsData componentsData1 = Unsafe.assertNonNull(
+				ItemStackInterner.getComponentsData(item)
+		);
+		ItemStackComponentsData componentsData2 = Unsafe.assertNonNull(
+				ItemStackInterner.getComponentsData(item)
+		);
+		Assert.assertEquals(expected.getValues(), componentsData1.getValues());
+		Assert.assertEquals(expected.getValues(), componentsData2.getValues());
+
+		// The returned components data is not shared:
+		componentsData1.set("test", "value");
+		Assert.assertEquals(expected.getValues(), componentsData2.getValues());
+		ItemStackComponentsData componentsData3 = Unsafe.assertNonNull(
+				ItemStackInterner.getComponentsData(item)
+		);
+		Assert.assertEquals(expected.getValues(), componentsData3.getValues());
+	}
+}
@@ -0,0 +1,102 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloomFilterTests {
+
+	private static List<UUID> randomUUIDs(Random random, int count) {
+		List<UUID> uuids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			uuids.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		return uuids;
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		Random random = new Random(42L);
+		List<UUID> added = randomUUIDs(random, 10000);
+		BloomFilter bloomFilter = BloomFilter.create(added.size(), 0.01D);
+		added.forEach(bloomFilter::add);
+
+		for (UUID uuid : added) {
+			Assert.assertTrue("False negative: " + uuid, bloomFilter.mightContain(uuid));
+		}
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+		Random random = new Random(42L);
+		BloomFilter bloomFilter = BloomFilter.create(10000, 0.01D);
+		randomUUIDs(random, 10000).forEach(bloomFilter::add);
+
+		int falsePositives = 0;
+		for (UUID uuid : randomUUIDs(random, 10000)) {
+			if (bloomFilter.mightContain(uuid)) {
+				falsePositives++;
+			}
+		}
+		// Expected are around 100 false positives:
+		Assert.assertTrue("Too many false positives: " + falsePositives, falsePositives < 300);
+	}
+
+	@Test
+	public void testEmpty() {
+		BloomFilter bloomFilter = BloomFilter.create(0, 0.01D);
+		Assert.assertFalse(bloomFilter.mightContain(new UUID(0L, 0L)));
+		Assert.assertFalse(bloomFilter.mightContain(UUID.randomUUID()));
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		Random random = new Random(42L);
+		List<UUID> added = randomUUIDs(random, 1000);
+		BloomFilter bloomFilter = BloomFilter.create(added.size(), 0.01D);
+		added.forEach(bloomFilter::add);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			bloomFilter.write(output);
+		}
+		BloomFilter readBloomFilter;
+		try (DataInputStream input = new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())
+		)) {
+			readBloomFilter = BloomFilter.read(input);
+		}
+
+		Assert.assertEquals(bloomFilter.toString(), readBloomFilter.toString());
+		for (UUID uuid : added) {
+			Assert.assertTrue(readBloomFilter.mightContain(uuid));
+		}
+		for (UUID uuid : randomUUIDs(random, 1000)) {
+			Assert.assertEquals(bloomFilter.mightContain(uuid), readBloomFilter.mightContain(uuid));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalid() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(0); // Invalid number of hash functions
+			output.writeInt(1);
+			output.writeLong(0L);
+		}
+		try (DataInputStream input = new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())
+		)) {
+			BloomFilter.read(input);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package com.nisovin.shopkeepers.util.java;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongHashMapTests {
+
+	@Test
+	public void testPutGetRemove() {
+		LongHashMap<String> map = new LongHashMap<>();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(0L));
+
+		Assert.assertNull(map.put(0L, "zero"));
+		Assert.assertNull(map.put(-1L, "minus one"));
+		Assert.assertEquals("zero", map.put(0L, "ZERO"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("ZERO", map.get(0L));
+		Assert.assertEquals("minus one", map.get(-1L));
+		Assert.assertFalse(map.containsKey(1L));
+
+		Assert.assertEquals("ZERO", map.remove(0L));
+		Assert.assertNull(map.remove(0L));
+		Assert.assertEquals(1, map.size());
+		Assert.assertNull(map.get(0L));
+
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(-1L));
+	}
+
+	@Test
+	public void testMatchesHashMap() {
+		// Randomized operations on a small key range, which results in many collisions, resizes and
+		// removals:
+		Random random = new Random(42L);
+		LongHashMap<Long> map = new LongHashMap<>();
+		Map<Long, Long> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			long key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Long value = random.nextLong();
+				Assert.assertEquals(expected.put(key, value), map.put(key, value));
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+
+		for (long key = -1000; key < 1000; key++) {
+			Assert.assertEquals(expected.get(key), map.get(key));
+		}
+	}
+}
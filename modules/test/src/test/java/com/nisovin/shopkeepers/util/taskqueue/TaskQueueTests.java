@@ -0,0 +1,79 @@
+package com.nisovin.shopkeepers.util.taskqueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.nisovin.shopkeepers.api.ShopkeepersPlugin;
+import com.nisovin.shopkeepers.testutil.AbstractBukkitTest;
+
+public class TaskQueueTests extends AbstractBukkitTest {
+
+	// The queue's task is not started, but run manually by the tests.
+	private static class TestQueue extends TaskQueue<String> {
+
+		private final List<String> processed = new ArrayList<>();
+
+		TestQueue() {
+			super(ShopkeepersPlugin.getInstance(), 2, 2);
+		}
+
+		void runTask() {
+			this.createTask().run();
+		}
+
+		@Override
+		protected void process(String workUnit) {
+			processed.add(workUnit);
+		}
+	}
+
+	@Test
+	public void testProcessing() {
+		TestQueue queue = new TestQueue();
+		queue.add("a");
+		queue.add("b");
+		queue.add("c");
+		queue.add("d");
+		queue.add("e");
+		queue.remove("d");
+		Assert.assertEquals(4, queue.getPendingCount());
+		Assert.assertEquals(5, queue.getMaxPendingCount());
+
+		queue.runTask();
+		Assert.assertEquals(List.of("a", "b"), queue.processed);
+		queue.runTask();
+		Assert.assertEquals(List.of("a", "b", "c", "e"), queue.processed);
+		Assert.assertEquals(0, queue.getPendingCount());
+
+		queue.shutdown();
+		Assert.assertEquals(0, queue.getMaxPendingCount());
+	}
+
+	@Test
+	public void testReorder() {
+		TestQueue queue = new TestQueue() {
+			@Override
+			protected void prepareExecution() {
+				// Shorter work units first:
+				this.reorder(String::length);
+			}
+		};
+		queue.add("ccc");
+		queue.add("a");
+		queue.add("bb");
+		queue.add("d");
+
+		queue.runTask();
+		// Work units with the same priority retain their order:
+		Assert.assertEquals(List.of("a", "d"), queue.processed);
+		queue.runTask();
+		Assert.assertEquals(List.of("a", "d", "bb", "ccc"), queue.processed);
+		Assert.assertEquals(2, queue.getWorkUnitsPerExecution());
+		Assert.assertEquals(4, queue.getWorkUnitTimings().getCounter());
+
+		queue.shutdown();
+	}
+}